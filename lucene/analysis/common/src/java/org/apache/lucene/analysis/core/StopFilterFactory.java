@@ -18,6 +18,8 @@ package org.apache.lucene.analysis.core;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.analysis.CharArraySet;
@@ -25,6 +27,7 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.WordlistLoader; // jdocs
 import org.apache.lucene.analysis.util.ResourceLoader;
 import org.apache.lucene.analysis.util.ResourceLoaderAware;
+import org.apache.lucene.analysis.util.SharedResourceCache;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 
 /**
@@ -51,6 +54,10 @@ import org.apache.lucene.analysis.util.TokenFilterFactory;
  *      and defaults to <code>wordset</code>.  If <code>words</code> is not specified, 
  *      then <code>format</code> must not be specified.
  *  </li>
+ *  <li><code>shared</code> defaults to <code>false</code>, if <code>true</code> the
+ *      stop set is unmodifiable and shared with all other factories of the same
+ *      arguments and <code>words</code> files, see {@link SharedResourceCache}.
+ *  </li>
  * </ul>
  * <p>
  * The valid values for the <code>format</code> option are:
@@ -77,6 +84,7 @@ public class StopFilterFactory extends TokenFilterFactory implements ResourceLoa
   private final String stopWordFiles;
   private final String format;
   private final boolean ignoreCase;
+  private final boolean shared;
   
   /** Creates a new StopFilterFactory */
   public StopFilterFactory(Map<String,String> args) {
@@ -84,6 +92,7 @@ public class StopFilterFactory extends TokenFilterFactory implements ResourceLoa
     stopWordFiles = get(args, "words");
     format = get(args, "format", (null == stopWordFiles ? null : FORMAT_WORDSET));
     ignoreCase = getBoolean(args, "ignoreCase", false);
+    shared = getBoolean(args, "shared", false);
     if (!args.isEmpty()) {
       throw new IllegalArgumentException("Unknown parameters: " + args);
     }
@@ -91,11 +100,25 @@ public class StopFilterFactory extends TokenFilterFactory implements ResourceLoa
 
   @Override
   public void inform(ResourceLoader loader) throws IOException {
+    if (shared) {
+      List<String> files = new ArrayList<>();
+      for (String file : splitFileNames(stopWordFiles)) {
+        files.add(file.trim());
+      }
+      String key = SharedResourceCache.key(this, loader, files);
+      stopWords = SharedResourceCache.get(key, CharArraySet.class,
+          () -> CharArraySet.unmodifiableSet(loadStopWords(loader)));
+    } else {
+      stopWords = loadStopWords(loader);
+    }
+  }
+
+  private CharArraySet loadStopWords(ResourceLoader loader) throws IOException {
     if (stopWordFiles != null) {
       if (FORMAT_WORDSET.equalsIgnoreCase(format)) {
-        stopWords = getWordSet(loader, stopWordFiles, ignoreCase);
+        return getWordSet(loader, stopWordFiles, ignoreCase);
       } else if (FORMAT_SNOWBALL.equalsIgnoreCase(format)) {
-        stopWords = getSnowballWordSet(loader, stopWordFiles, ignoreCase);
+        return getSnowballWordSet(loader, stopWordFiles, ignoreCase);
       } else {
         throw new IllegalArgumentException("Unknown 'format' specified for 'words' file: " + format);
       }
@@ -103,7 +126,7 @@ public class StopFilterFactory extends TokenFilterFactory implements ResourceLoa
       if (null != format) {
         throw new IllegalArgumentException("'format' can not be specified w/o an explicit 'words' file: " + format);
       }
-      stopWords = new CharArraySet(StopAnalyzer.ENGLISH_STOP_WORDS_SET, ignoreCase);
+      return new CharArraySet(StopAnalyzer.ENGLISH_STOP_WORDS_SET, ignoreCase);
     }
   }
 
@@ -50,6 +50,7 @@ import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
@@ -59,6 +60,7 @@ import org.apache.lucene.util.CharsRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.IntsRef;
 import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.OfflineSorter.BufferSize;
 import org.apache.lucene.util.OfflineSorter.ByteSequencesReader;
 import org.apache.lucene.util.OfflineSorter.ByteSequencesWriter;
 import org.apache.lucene.util.OfflineSorter;
@@ -202,6 +204,35 @@ public class Dictionary {
    * @throws ParseException Can be thrown if the content of the files does not meet expected formats
    */
   public Dictionary(Directory tempDir, String tempFileNamePrefix, InputStream affix, List<InputStream> dictionaries, boolean ignoreCase) throws IOException, ParseException {
+    this(tempDir, tempFileNamePrefix, affix, dictionaries, ignoreCase, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Creates a new Dictionary containing the information read from the provided InputStreams to hunspell affix
+   * and dictionary files, bounding the heap that is used while loading.
+   * You have to close the provided InputStreams yourself.
+   * <p>
+   * If {@code maxTempRAMMB} is finite, dictionary entries are sorted with a buffer of that size, and the
+   * words FST is built with a bounded suffix hash and written to {@code tempDir} as it is built, then read
+   * back. Only the final FST is ever held on heap, at the cost of a possibly slightly larger FST and of
+   * more temporary disk usage.
+   *
+   * @param tempDir Directory to use for offline sorting and for building the words FST
+   * @param tempFileNamePrefix prefix to use to generate temp file names
+   * @param affix InputStream for reading the hunspell affix file (won't be closed).
+   * @param dictionaries InputStream for reading the hunspell dictionary files (won't be closed).
+   * @param ignoreCase true if the dictionary should be case insensitive
+   * @param maxTempRAMMB approximate amount of heap, in MB, that temporary structures may use, or
+   *        {@link Double#POSITIVE_INFINITY} to load everything on heap, which is faster
+   * @throws IOException Can be thrown while reading from the InputStreams
+   * @throws ParseException Can be thrown if the content of the files does not meet expected formats
+   * @lucene.experimental
+   */
+  public Dictionary(Directory tempDir, String tempFileNamePrefix, InputStream affix, List<InputStream> dictionaries, boolean ignoreCase,
+                    double maxTempRAMMB) throws IOException, ParseException {
+    if (maxTempRAMMB <= 0 || Double.isNaN(maxTempRAMMB)) {
+      throw new IllegalArgumentException("maxTempRAMMB must be > 0; got " + maxTempRAMMB);
+    }
     this.ignoreCase = ignoreCase;
     this.needsInputCleaning = ignoreCase;
     this.needsOutputCleaning = false; // set if we have an OCONV
@@ -231,10 +262,14 @@ public class Dictionary {
       readAffixFile(aff2, decoder);
       
       // read dictionary entries
-      IntSequenceOutputs o = IntSequenceOutputs.getSingleton();
-      Builder<IntsRef> b = new Builder<>(FST.INPUT_TYPE.BYTE4, o);
-      readDictionaryFiles(tempDir, tempFileNamePrefix, dictionaries, decoder, b);
-      words = b.finish();
+      if (maxTempRAMMB == Double.POSITIVE_INFINITY) {
+        IntSequenceOutputs o = IntSequenceOutputs.getSingleton();
+        Builder<IntsRef> b = new Builder<>(FST.INPUT_TYPE.BYTE4, o);
+        readDictionaryFiles(tempDir, tempFileNamePrefix, dictionaries, decoder, b, BufferSize.automatic());
+        words = b.finish();
+      } else {
+        words = readDictionaryFilesOffHeap(tempDir, tempFileNamePrefix, dictionaries, decoder, maxTempRAMMB);
+      }
       aliases = null; // no longer needed
       morphAliases = null; // no longer needed
       success = true;
@@ -776,14 +811,57 @@ public class Dictionary {
     }
   }
 
+  /**
+   * Same as {@link #readDictionaryFiles}, but the words FST is written to {@code tempDir} while it is built
+   * and only loaded on heap once complete.
+   */
+  private FST<IntsRef> readDictionaryFilesOffHeap(Directory tempDir, String tempFileNamePrefix, List<InputStream> dictionaries,
+                                                  CharsetDecoder decoder, double maxTempRAMMB) throws IOException {
+    final IntSequenceOutputs outputs = IntSequenceOutputs.getSingleton();
+    final BufferSize sortBufferSize = BufferSize.megabytes(
+        Math.max(1L, Math.min((long) maxTempRAMMB, Integer.MAX_VALUE / OfflineSorter.MB)));
+    String dataName = null;
+    String metaName = null;
+    boolean success = false;
+    try {
+      final FST<IntsRef> streamed;
+      try (IndexOutput dataOut = tempDir.createTempOutput(tempFileNamePrefix, "fst", IOContext.DEFAULT)) {
+        dataName = dataOut.getName();
+        Builder<IntsRef> b = new Builder<>(FST.INPUT_TYPE.BYTE4, 0, 0, true, true, Integer.MAX_VALUE, outputs,
+            true, 15, maxTempRAMMB, dataOut);
+        readDictionaryFiles(tempDir, tempFileNamePrefix, dictionaries, decoder, b, sortBufferSize);
+        streamed = b.finish();
+      }
+      try (IndexOutput metaOut = tempDir.createTempOutput(tempFileNamePrefix, "fstmeta", IOContext.DEFAULT)) {
+        metaName = metaOut.getName();
+        streamed.saveMetadata(metaOut);
+      }
+      final FST<IntsRef> fst;
+      try (IndexInput metaIn = tempDir.openInput(metaName, IOContext.READONCE);
+           IndexInput dataIn = tempDir.openInput(dataName, IOContext.READONCE)) {
+        fst = new FST<>(metaIn, dataIn, outputs);
+      }
+      success = true;
+      return fst;
+    } finally {
+      if (success) {
+        IOUtils.deleteFiles(tempDir, dataName, metaName);
+      } else {
+        IOUtils.deleteFilesIgnoringExceptions(tempDir, dataName, metaName);
+      }
+    }
+  }
+
   /**
    * Reads the dictionary file through the provided InputStreams, building up the words map
    *
    * @param dictionaries InputStreams to read the dictionary file through
    * @param decoder CharsetDecoder used to decode the contents of the file
+   * @param sortBufferSize RAM buffer of the offline sort of the entries
    * @throws IOException Can be thrown while reading from the file
    */
-  private void readDictionaryFiles(Directory tempDir, String tempFileNamePrefix, List<InputStream> dictionaries, CharsetDecoder decoder, Builder<IntsRef> words) throws IOException {
+  private void readDictionaryFiles(Directory tempDir, String tempFileNamePrefix, List<InputStream> dictionaries, CharsetDecoder decoder,
+                                   Builder<IntsRef> words, BufferSize sortBufferSize) throws IOException {
     BytesRefBuilder flagsScratch = new BytesRefBuilder();
     IntsRefBuilder scratchInts = new IntsRefBuilder();
     
@@ -870,7 +948,7 @@ public class Dictionary {
           return cmp;
         }
       }
-    });
+    }, sortBufferSize, OfflineSorter.MAX_TEMPFILES, -1, null, 0);
 
     String sorted;
     boolean success = false;
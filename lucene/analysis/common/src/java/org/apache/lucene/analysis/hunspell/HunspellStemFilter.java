@@ -18,10 +18,13 @@ package org.apache.lucene.analysis.hunspell;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import org.apache.lucene.analysis.CharArrayMap;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
@@ -42,6 +45,12 @@ import org.apache.lucene.util.CharsRef;
  * Note: For including the original term as well as the stemmed version, see
  * {@link org.apache.lucene.analysis.miscellaneous.KeywordRepeatFilterFactory}
  * </p>
+ * <p>
+ * Stemming a token is costly, so this filter can optionally cache the stems of up to
+ * {@code cacheSize} distinct tokens. Since analyzers reuse their token streams, the cache
+ * is kept across documents and mostly holds the stems of frequent tokens: it is cleared
+ * whenever it gets full.
+ * </p>
  *
  * @lucene.experimental
  */
@@ -53,10 +62,13 @@ public final class HunspellStemFilter extends TokenFilter {
   private final Stemmer stemmer;
   
   private List<CharsRef> buffer;
+  private int bufferUpto;
   private State savedState;
   
   private final boolean dedup;
   private final boolean longestOnly;
+  private final int cacheSize;
+  private final CharArrayMap<List<CharsRef>> cache;
 
   /** Create a {@link HunspellStemFilter} outputting all possible stems.
    *  @see #HunspellStemFilter(TokenStream, Dictionary, boolean) */
@@ -79,16 +91,34 @@ public final class HunspellStemFilter extends TokenFilter {
    * @param longestOnly true if only the longest term should be output.
    */
   public HunspellStemFilter(TokenStream input, Dictionary dictionary, boolean dedup,  boolean longestOnly) {
+    this(input, dictionary, dedup, longestOnly, 0);
+  }
+
+  /**
+   * Creates a new HunspellStemFilter that caches the stems of up to {@code cacheSize} distinct tokens.
+   *
+   * @param input TokenStream whose tokens will be stemmed
+   * @param dictionary HunspellDictionary containing the affix rules and words that will be used to stem the tokens
+   * @param longestOnly true if only the longest term should be output.
+   * @param cacheSize maximum number of distinct tokens whose stems are cached, or 0 to disable caching
+   * @lucene.experimental
+   */
+  public HunspellStemFilter(TokenStream input, Dictionary dictionary, boolean dedup, boolean longestOnly, int cacheSize) {
     super(input);
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException("cacheSize must be >= 0; got " + cacheSize);
+    }
     this.dedup = dedup && longestOnly == false; // don't waste time deduping if longestOnly is set
     this.stemmer = new Stemmer(dictionary);
     this.longestOnly = longestOnly;
+    this.cacheSize = cacheSize;
+    this.cache = cacheSize == 0 ? null : new CharArrayMap<>(Math.min(cacheSize, 1024), false);
   }
 
   @Override
   public boolean incrementToken() throws IOException {
-    if (buffer != null && !buffer.isEmpty()) {
-      CharsRef nextStem = buffer.remove(0);
+    if (buffer != null && bufferUpto < buffer.size()) {
+      CharsRef nextStem = buffer.get(bufferUpto++);
       restoreState(savedState);
       posIncAtt.setPositionIncrement(0);
       termAtt.setEmpty().append(nextStem);
@@ -103,23 +133,20 @@ public final class HunspellStemFilter extends TokenFilter {
       return true;
     }
     
-    buffer = dedup ? stemmer.uniqueStems(termAtt.buffer(), termAtt.length()) : stemmer.stem(termAtt.buffer(), termAtt.length());
+    buffer = stems(termAtt.buffer(), termAtt.length());
+    bufferUpto = 0;
 
     if (buffer.isEmpty()) { // we do not know this word, return it unchanged
       return true;
     }     
     
-    if (longestOnly && buffer.size() > 1) {
-      Collections.sort(buffer, lengthComparator);
-    }
-
-    CharsRef stem = buffer.remove(0);
+    CharsRef stem = buffer.get(bufferUpto++);
     termAtt.setEmpty().append(stem);
 
     if (longestOnly) {
-      buffer.clear();
+      buffer = null;
     } else {
-      if (!buffer.isEmpty()) {
+      if (bufferUpto < buffer.size()) {
         savedState = captureState();
       }
     }
@@ -127,6 +154,37 @@ public final class HunspellStemFilter extends TokenFilter {
     return true;
   }
 
+  /** Return the stems of the given term, which must not be modified. */
+  private List<CharsRef> stems(char[] term, int length) {
+    if (cache != null) {
+      List<CharsRef> stems = cache.get(term, 0, length);
+      if (stems != null) {
+        return stems;
+      }
+    }
+
+    List<CharsRef> stems = dedup ? stemmer.uniqueStems(term, length) : stemmer.stem(term, length);
+    if (longestOnly && stems.size() > 1) {
+      Collections.sort(stems, lengthComparator);
+      stems = Collections.singletonList(stems.get(0));
+    }
+
+    if (cache != null) {
+      if (cache.size() >= cacheSize) {
+        cache.clear();
+      }
+      // stems may point to buffers that the stemmer reuses for the next token, so copy them
+      List<CharsRef> copies = new ArrayList<>(stems.size());
+      for (CharsRef stem : stems) {
+        copies.add(CharsRef.deepCopyOf(stem));
+      }
+      stems = copies;
+      // the term buffer is reused too
+      cache.put(Arrays.copyOf(term, length), stems);
+    }
+    return stems;
+  }
+
   @Override
   public void reset() throws IOException {
     super.reset();
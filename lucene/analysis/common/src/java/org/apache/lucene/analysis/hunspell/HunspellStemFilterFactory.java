@@ -42,8 +42,13 @@ import org.apache.lucene.util.IOUtils;
  *         dictionary=&quot;en_GB.dic,my_custom.dic&quot;
  *         affix=&quot;en_GB.aff&quot; 
  *         ignoreCase=&quot;false&quot;
- *         longestOnly=&quot;false&quot; /&gt;</pre>
+ *         longestOnly=&quot;false&quot;
+ *         cacheSize=&quot;0&quot;
+ *         maxTempRAMMB=&quot;-1&quot; /&gt;</pre>
  * Both parameters dictionary and affix are mandatory.
+ * {@code cacheSize} enables caching the stems of that many distinct tokens in each
+ * {@link HunspellStemFilter}, and a positive {@code maxTempRAMMB} bounds the heap used while
+ * loading the dictionary, see {@link Dictionary#Dictionary(Directory, String, InputStream, List, boolean, double)}.
  * Dictionaries for many languages are available through the OpenOffice project.
  * 
  * See <a href="http://wiki.apache.org/solr/Hunspell">http://wiki.apache.org/solr/Hunspell</a>
@@ -56,11 +61,15 @@ public class HunspellStemFilterFactory extends TokenFilterFactory implements Res
   private static final String PARAM_RECURSION_CAP = "recursionCap";
   private static final String PARAM_IGNORE_CASE   = "ignoreCase";
   private static final String PARAM_LONGEST_ONLY  = "longestOnly";
+  private static final String PARAM_CACHE_SIZE    = "cacheSize";
+  private static final String PARAM_MAX_TEMP_RAM  = "maxTempRAMMB";
 
   private final String dictionaryFiles;
   private final String affixFile;
   private final boolean ignoreCase;
   private final boolean longestOnly;
+  private final int cacheSize;
+  private final double maxTempRAMMB;
   private Dictionary dictionary;
   
   /** Creates a new HunspellStemFilterFactory */
@@ -70,6 +79,12 @@ public class HunspellStemFilterFactory extends TokenFilterFactory implements Res
     affixFile = get(args, PARAM_AFFIX);
     ignoreCase = getBoolean(args, PARAM_IGNORE_CASE, false);
     longestOnly = getBoolean(args, PARAM_LONGEST_ONLY, false);
+    cacheSize = getInt(args, PARAM_CACHE_SIZE, 0);
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException(PARAM_CACHE_SIZE + " must be >= 0; got " + cacheSize);
+    }
+    final float maxTempRAM = getFloat(args, PARAM_MAX_TEMP_RAM, -1);
+    maxTempRAMMB = maxTempRAM > 0 ? maxTempRAM : Double.POSITIVE_INFINITY;
     // this isnt necessary: we properly load all dictionaries.
     // but recognize and ignore for back compat
     getBoolean(args, "strictAffixParsing", true);
@@ -98,7 +113,7 @@ public class HunspellStemFilterFactory extends TokenFilterFactory implements Res
 
       Path tempPath = Files.createTempDirectory(Dictionary.getDefaultTempDir(), "Hunspell");
       try (Directory tempDir = FSDirectory.open(tempPath)) {
-        this.dictionary = new Dictionary(tempDir, "hunspell", affix, dictionaries, ignoreCase);
+        this.dictionary = new Dictionary(tempDir, "hunspell", affix, dictionaries, ignoreCase, maxTempRAMMB);
       } finally {
         IOUtils.rm(tempPath); 
       }
@@ -112,6 +127,6 @@ public class HunspellStemFilterFactory extends TokenFilterFactory implements Res
 
   @Override
   public TokenStream create(TokenStream tokenStream) {
-    return new HunspellStemFilter(tokenStream, dictionary, true, longestOnly);
+    return new HunspellStemFilter(tokenStream, dictionary, true, longestOnly, cacheSize);
   }
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.analysis.minhash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.TermToBytesRefAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Creates queries that find the documents whose MinHash signature, as
+ * produced by {@link MinHashFilter}, is similar to a given signature, without
+ * comparing the signature to the signature of every document.
+ * <p>
+ * The signature is split into bands of consecutive hashes and a document is a
+ * candidate if all hashes of at least one band match (locality-sensitive
+ * hashing). The number of hashes per band is the largest one that still
+ * retrieves documents whose Jaccard similarity is the
+ * {@link #setSimilarityThreshold(float) similarity threshold} with a probability
+ * of at least the {@link #setTruePositiveRate(float) true positive rate}: larger
+ * bands retrieve fewer false positives. With a true positive rate of 1, documents
+ * must instead share at least the similarity threshold of the hashes, which
+ * retrieves exactly the documents whose estimated similarity is above the
+ * threshold.
+ * <p>
+ * The score of a candidate is the fraction of the hashes of the signature that
+ * it has, which estimates its Jaccard similarity with the query if it was
+ * analyzed with the same settings of {@link MinHashFilter}.
+ * <p>
+ * Bands are not hashed into a single term at index time: each hash of the
+ * signature is a term of its own and bands are conjunctions of these terms,
+ * so that the size of bands can be chosen at query time, when the similarity
+ * threshold is known. The downside is that queries have one clause per hash,
+ * so signatures may not have more than
+ * {@link BooleanQuery#getMaxClauseCount()} hashes.
+ * <p>
+ * Example usage:
+ * <pre class="prettyprint">
+ *   MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+ *   builder.setSimilarityThreshold(0.8f);
+ *   Query q = builder.createQuery(analyzer, "text of a new document");
+ * </pre>
+ *
+ * @lucene.experimental
+ */
+public class MinHashQueryBuilder {
+
+  /** Default similarity threshold. */
+  public static final float DEFAULT_SIMILARITY_THRESHOLD = 0.8f;
+
+  /** Default true positive rate. */
+  public static final float DEFAULT_TRUE_POSITIVE_RATE = 0.95f;
+
+  private final String field;
+  private float similarityThreshold = DEFAULT_SIMILARITY_THRESHOLD;
+  private float truePositiveRate = DEFAULT_TRUE_POSITIVE_RATE;
+
+  /** Creates a new MinHashQueryBuilder for the given field. */
+  public MinHashQueryBuilder(String field) {
+    this.field = field;
+  }
+
+  /** Return the field of the signatures. */
+  public String getField() {
+    return field;
+  }
+
+  /**
+   * Set the Jaccard similarity above which documents should be retrieved,
+   * in {@code (0, 1]}.
+   */
+  public void setSimilarityThreshold(float similarityThreshold) {
+    if (similarityThreshold > 0 == false || similarityThreshold > 1) {
+      throw new IllegalArgumentException("similarityThreshold must be in (0, 1]; got " + similarityThreshold);
+    }
+    this.similarityThreshold = similarityThreshold;
+  }
+
+  /** @see #setSimilarityThreshold(float) */
+  public float getSimilarityThreshold() {
+    return similarityThreshold;
+  }
+
+  /**
+   * Set the minimum probability that documents whose Jaccard similarity is the
+   * similarity threshold are retrieved, in {@code (0, 1]}. Lower values make
+   * bands larger, and queries more selective.
+   */
+  public void setTruePositiveRate(float truePositiveRate) {
+    if (truePositiveRate > 0 == false || truePositiveRate > 1) {
+      throw new IllegalArgumentException("truePositiveRate must be in (0, 1]; got " + truePositiveRate);
+    }
+    this.truePositiveRate = truePositiveRate;
+  }
+
+  /** @see #setTruePositiveRate(float) */
+  public float getTruePositiveRate() {
+    return truePositiveRate;
+  }
+
+  /**
+   * Create a query from the signature of {@code text}, as computed by
+   * {@code analyzer}, which must end with a {@link MinHashFilter}.
+   * @return the query, or {@code null} if the signature is empty
+   * @throws IllegalArgumentException if the signature has more than
+   *         {@link BooleanQuery#getMaxClauseCount()} hashes
+   */
+  public Query createQuery(Analyzer analyzer, String text) throws IOException {
+    final List<BytesRef> signature = new ArrayList<>();
+    try (TokenStream stream = analyzer.tokenStream(field, text)) {
+      final TermToBytesRefAttribute termAtt = stream.addAttribute(TermToBytesRefAttribute.class);
+      stream.reset();
+      while (stream.incrementToken()) {
+        signature.add(BytesRef.deepCopyOf(termAtt.getBytesRef()));
+      }
+      stream.end();
+    }
+    return createQuery(signature);
+  }
+
+  /**
+   * Create a query from a signature, ie. the terms that {@link MinHashFilter}
+   * produced, in order.
+   * @return the query, or {@code null} if the signature is empty
+   * @throws IllegalArgumentException if the signature has more than
+   *         {@link BooleanQuery#getMaxClauseCount()} hashes
+   */
+  public Query createQuery(List<BytesRef> signature) {
+    final int numHashes = signature.size();
+    if (numHashes == 0) {
+      return null;
+    }
+    if (numHashes > BooleanQuery.getMaxClauseCount()) {
+      throw new IllegalArgumentException("signature has " + numHashes
+          + " hashes, but queries may not have more than " + BooleanQuery.getMaxClauseCount() + " clauses");
+    }
+
+    // every matching hash contributes 1/numHashes to the score
+    final float hashScore = 1f / numHashes;
+    final BooleanQuery.Builder scoring = new BooleanQuery.Builder();
+    for (BytesRef hash : signature) {
+      scoring.add(new BoostQuery(newHashQuery(hash), hashScore), Occur.SHOULD);
+    }
+
+    if (truePositiveRate == 1f) {
+      scoring.setMinimumNumberShouldMatch(Math.max(1, (int) Math.ceil(numHashes * similarityThreshold)));
+      return scoring.build();
+    }
+
+    final int rowsPerBand = computeRowsPerBand(numHashes, similarityThreshold, truePositiveRate);
+    final BooleanQuery.Builder candidates = new BooleanQuery.Builder();
+    // trailing hashes that don't fill a band only contribute to the score
+    for (int start = 0; start + rowsPerBand <= numHashes; start += rowsPerBand) {
+      if (rowsPerBand == 1) {
+        candidates.add(newHashQuery(signature.get(start)), Occur.SHOULD);
+      } else {
+        final BooleanQuery.Builder band = new BooleanQuery.Builder();
+        for (int i = start; i < start + rowsPerBand; ++i) {
+          band.add(newHashQuery(signature.get(i)), Occur.FILTER);
+        }
+        candidates.add(band.build(), Occur.SHOULD);
+      }
+    }
+    candidates.setMinimumNumberShouldMatch(1);
+
+    final BooleanQuery.Builder query = new BooleanQuery.Builder();
+    query.add(candidates.build(), Occur.FILTER);
+    query.add(scoring.build(), Occur.SHOULD);
+    return query.build();
+  }
+
+  /** Create the query for a single hash. */
+  protected Query newHashQuery(BytesRef hash) {
+    return new ConstantScoreQuery(new TermQuery(new Term(field, hash)));
+  }
+
+  /**
+   * Return the largest number of hashes per band such that documents whose
+   * similarity is {@code similarity} are retrieved with a probability of at
+   * least {@code truePositiveRate}, or 1 if there is none.
+   */
+  static int computeRowsPerBand(int numHashes, double similarity, double truePositiveRate) {
+    for (int rows = numHashes; rows > 1; --rows) {
+      final int bands = numHashes / rows;
+      // probability that at least one band fully matches
+      final double p = 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+      if (p >= truePositiveRate) {
+        return rows;
+      }
+    }
+    return 1;
+  }
+}
@@ -16,6 +16,6 @@
  */
 
 /**
- * MinHash filtering (for LSH).
+ * MinHash filtering and querying (for LSH).
  */
 package org.apache.lucene.analysis.minhash;
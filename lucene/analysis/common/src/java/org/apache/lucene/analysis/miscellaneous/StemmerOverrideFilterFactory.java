@@ -18,6 +18,7 @@ package org.apache.lucene.analysis.miscellaneous;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +26,7 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.miscellaneous.StemmerOverrideFilter.StemmerOverrideMap;
 import org.apache.lucene.analysis.util.ResourceLoader;
 import org.apache.lucene.analysis.util.ResourceLoaderAware;
+import org.apache.lucene.analysis.util.SharedResourceCache;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 
 /**
@@ -36,17 +38,23 @@ import org.apache.lucene.analysis.util.TokenFilterFactory;
  *     &lt;filter class="solr.StemmerOverrideFilterFactory" dictionary="dictionary.txt" ignoreCase="false"/&gt;
  *   &lt;/analyzer&gt;
  * &lt;/fieldType&gt;</pre>
+ * <p>
+ * If the optional {@code shared} parameter is {@code true}, the dictionary is
+ * shared with all other factories of the same arguments and dictionary files,
+ * see {@link SharedResourceCache}.
  */
 public class StemmerOverrideFilterFactory extends TokenFilterFactory implements ResourceLoaderAware {
   private StemmerOverrideMap dictionary;
   private final String dictionaryFiles;
   private final boolean ignoreCase;
+  private final boolean shared;
 
   /** Creates a new StemmerOverrideFilterFactory */
   public StemmerOverrideFilterFactory(Map<String,String> args) {
     super(args);
     dictionaryFiles = get(args, "dictionary");
     ignoreCase = getBoolean(args, "ignoreCase", false);
+    shared = getBoolean(args, "shared", false);
     if (!args.isEmpty()) {
       throw new IllegalArgumentException("Unknown parameters: " + args);
     }
@@ -57,19 +65,32 @@ public class StemmerOverrideFilterFactory extends TokenFilterFactory implements
     if (dictionaryFiles != null) {
       List<String> files = splitFileNames(dictionaryFiles);
       if (files.size() > 0) {
-        StemmerOverrideFilter.Builder builder = new StemmerOverrideFilter.Builder(ignoreCase);
-        for (String file : files) {
-          List<String> list = getLines(loader, file.trim());
-          for (String line : list) {
-            String[] mapping = line.split("\t", 2);
-            builder.add(mapping[0], mapping[1]);
+        if (shared) {
+          List<String> trimmed = new ArrayList<>();
+          for (String file : files) {
+            trimmed.add(file.trim());
           }
+          String key = SharedResourceCache.key(this, loader, trimmed);
+          dictionary = SharedResourceCache.get(key, StemmerOverrideMap.class, () -> loadDictionary(loader, files));
+        } else {
+          dictionary = loadDictionary(loader, files);
         }
-        dictionary = builder.build();
       }
     }
   }
 
+  private StemmerOverrideMap loadDictionary(ResourceLoader loader, List<String> files) throws IOException {
+    StemmerOverrideFilter.Builder builder = new StemmerOverrideFilter.Builder(ignoreCase);
+    for (String file : files) {
+      List<String> list = getLines(loader, file.trim());
+      for (String line : list) {
+        String[] mapping = line.split("\t", 2);
+        builder.add(mapping[0], mapping[1]);
+      }
+    }
+    return builder.build();
+  }
+
   public boolean isIgnoreCase() {
     return ignoreCase;
   }
@@ -35,6 +35,7 @@ import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.util.ResourceLoader;
 import org.apache.lucene.analysis.util.ResourceLoaderAware;
+import org.apache.lucene.analysis.util.SharedResourceCache;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 import org.apache.lucene.analysis.util.TokenizerFactory;
 
@@ -64,12 +65,22 @@ import org.apache.lucene.analysis.util.TokenizerFactory;
  * It supports the short names of {@code solr} for {@link SolrSynonymParser} 
  * and {@code wordnet} for and {@link WordnetSynonymParser}, or your own 
  * {@code SynonymMap.Parser} class name. The default is {@code solr}.
+ * The {@code compiled} format reads a single file that has been written with
+ * {@link SynonymMap#save}, which is much faster than parsing and building the
+ * map; {@code expand} and the analyzer are ignored in that case. Compiled
+ * files of the local file system are memory-mapped, so that large maps are
+ * mostly read off-heap.
  * A custom {@link SynonymMap.Parser} is expected to have a constructor taking:
  * <ul>
  *   <li><code>boolean dedup</code> - true if duplicates should be ignored, false otherwise</li>
  *   <li><code>boolean expand</code> - true if conflation groups should be expanded, false if they are one-directional</li>
  *   <li><code>{@link Analyzer} analyzer</code> - an analyzer used for each raw synonym</li>
  * </ul>
+ * <p>
+ * If the optional {@code shared} parameter is {@code true}, the map is shared
+ * with all other factories of the same class, arguments and synonym files in
+ * the JVM, see {@link SharedResourceCache}.
+ * </p>
  * @see SolrSynonymParser SolrSynonymParser: default format
  *
  * @lucene.experimental
@@ -80,6 +91,7 @@ public class SynonymGraphFilterFactory extends TokenFilterFactory implements Res
   private final String synonyms;
   private final String format;
   private final boolean expand;
+  private final boolean shared;
   private final String analyzerName;
   private final Map<String, String> tokArgs = new HashMap<>();
 
@@ -91,6 +103,7 @@ public class SynonymGraphFilterFactory extends TokenFilterFactory implements Res
     synonyms = require(args, "synonyms");
     format = get(args, "format");
     expand = getBoolean(args, "expand", true);
+    shared = getBoolean(args, "shared", false);
 
     analyzerName = get(args, "analyzer");
     tokenizerFactory = get(args, "tokenizerFactory");
@@ -121,6 +134,23 @@ public class SynonymGraphFilterFactory extends TokenFilterFactory implements Res
 
   @Override
   public void inform(ResourceLoader loader) throws IOException {
+    if (shared) {
+      String key = SharedResourceCache.key(this, loader, splitFileNames(synonyms));
+      map = SharedResourceCache.get(key, SynonymMap.class, () -> loadMap(loader));
+    } else {
+      map = loadMap(loader);
+    }
+  }
+
+  private SynonymMap loadMap(ResourceLoader loader) throws IOException {
+    if ("compiled".equals(format)) {
+      List<String> files = splitFileNames(synonyms);
+      if (files.size() != 1) {
+        throw new IllegalArgumentException("Compiled synonyms must be a single file: " + synonyms);
+      }
+      return SynonymMap.loadCompiled(loader, files.get(0));
+    }
+
     final TokenizerFactory factory = tokenizerFactory == null ? null : loadTokenizerFactory(loader, tokenizerFactory);
     Analyzer analyzer;
     
@@ -145,7 +175,7 @@ public class SynonymGraphFilterFactory extends TokenFilterFactory implements Res
         formatClass = WordnetSynonymParser.class.getName();
       }
       // TODO: expose dedup as a parameter?
-      map = loadSynonyms(loader, formatClass, true, a);
+      return loadSynonyms(loader, formatClass, true, a);
     } catch (ParseException e) {
       throw new IOException("Error parsing synonyms file:", e);
     }
@@ -18,7 +18,9 @@ package org.apache.lucene.analysis.synonym;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,12 +32,23 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.util.ResourceLoader;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.store.ByteArrayIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.BytesRefHash;
 import org.apache.lucene.util.CharsRef;
 import org.apache.lucene.util.CharsRefBuilder;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.IntsRefBuilder;
 import org.apache.lucene.util.fst.ByteSequenceOutputs;
 import org.apache.lucene.util.fst.FST;
@@ -60,6 +73,128 @@ public class SynonymMap {
     this.words = words;
     this.maxHorizontalContext = maxHorizontalContext;
   }
+
+  private static final String CODEC_NAME = "SynonymMap";
+  private static final int VERSION_START = 0;
+  private static final int VERSION_CURRENT = VERSION_START;
+
+  /** Size in bytes above which the FSTs of compiled maps that are local files are read off-heap. */
+  static final long COMPILED_OFF_HEAP_MIN_BYTES = 1 << 20;
+
+  /**
+   * Writes this map in a compiled form that {@link #load(IndexInput, long)} reads
+   * back without parsing synonym rules nor building the FST again. The map
+   * must be the only content of the file, which ends with a checksum.
+   */
+  public void save(IndexOutput out) throws IOException {
+    CodecUtil.writeHeader(out, CODEC_NAME, VERSION_CURRENT);
+    out.writeVInt(maxHorizontalContext);
+    final int numWords = words.size();
+    out.writeVInt(numWords);
+    final BytesRef scratch = new BytesRef();
+    for (int ord = 0; ord < numWords; ord++) {
+      words.get(ord, scratch);
+      out.writeVInt(scratch.length);
+      out.writeBytes(scratch.bytes, scratch.offset, scratch.length);
+    }
+    if (fst == null) {
+      out.writeByte((byte) 0);
+    } else {
+      out.writeByte((byte) 1);
+      fst.save(out);
+    }
+    CodecUtil.writeFooter(out);
+  }
+
+  /**
+   * Reads a map that has been written with {@link #save(IndexOutput)}, with its FST on heap.
+   * @see #load(IndexInput, long)
+   */
+  public static SynonymMap load(IndexInput in) throws IOException {
+    return load(in, Long.MAX_VALUE);
+  }
+
+  /**
+   * Reads a map that has been written with {@link #save(IndexOutput)}, after
+   * verifying the checksum of the file. If the FST takes more than
+   * {@code maxOnHeapBytes} bytes, it is read on demand from {@code in}, which
+   * must then stay open for as long as the map is used.
+   * @see FST#read(IndexInput, org.apache.lucene.util.fst.Outputs, long)
+   */
+  public static SynonymMap load(IndexInput in, long maxOnHeapBytes) throws IOException {
+    // the FST may not be read entirely, so the whole file is verified up-front
+    CodecUtil.checksumEntireFile(in);
+    CodecUtil.checkHeader(in, CODEC_NAME, VERSION_START, VERSION_CURRENT);
+    final int maxHorizontalContext = in.readVInt();
+    final int numWords = in.readVInt();
+    final BytesRefHash words = new BytesRefHash();
+    final BytesRefBuilder scratch = new BytesRefBuilder();
+    for (int ord = 0; ord < numWords; ord++) {
+      final int length = in.readVInt();
+      scratch.grow(length);
+      scratch.setLength(length);
+      in.readBytes(scratch.bytes(), 0, length);
+      if (words.add(scratch.get()) != ord) {
+        throw new CorruptIndexException("Duplicate word in compiled synonym map: " + scratch.get().utf8ToString(), in);
+      }
+    }
+    final FST<BytesRef> fst;
+    if (in.readByte() == 0) {
+      fst = null;
+    } else {
+      fst = FST.read(in, ByteSequenceOutputs.getSingleton(), maxOnHeapBytes);
+    }
+    if (in.getFilePointer() != in.length() - CodecUtil.footerLength()) {
+      throw new CorruptIndexException("misplaced codec footer: fp=" + in.getFilePointer() + ", length=" + in.length(), in);
+    }
+    CodecUtil.retrieveChecksum(in);
+    return new SynonymMap(fst, words, maxHorizontalContext);
+  }
+
+  /**
+   * Loads a compiled map from a resource. Resources that are local files are
+   * memory-mapped and large FSTs are read off-heap, other resources, such as
+   * resources from ZooKeeper or the classpath, are loaded on heap.
+   */
+  static SynonymMap loadCompiled(ResourceLoader loader, String resource) throws IOException {
+    final Path path = loader.getLocalPath(resource);
+    if (path == null) {
+      final byte[] bytes;
+      try (InputStream in = loader.openResource(resource)) {
+        bytes = readAllBytes(in);
+      }
+      return load(new ByteArrayIndexInput(resource, bytes));
+    }
+
+    final Path dir = path.toAbsolutePath().getParent();
+    try (Directory directory = new MMapDirectory(dir)) {
+      final IndexInput in = directory.openInput(path.getFileName().toString(), IOContext.READ);
+      boolean success = false;
+      try {
+        final SynonymMap map = load(in, COMPILED_OFF_HEAP_MIN_BYTES);
+        success = true;
+        return map;
+      } finally {
+        // small maps are always on heap; otherwise the FST may keep reading from the
+        // input, whose mapping is released once the map gets garbage collected
+        if (success == false || in.length() <= COMPILED_OFF_HEAP_MIN_BYTES) {
+          IOUtils.closeWhileHandlingException(in);
+        }
+      }
+    }
+  }
+
+  private static byte[] readAllBytes(InputStream in) throws IOException {
+    byte[] bytes = new byte[8192];
+    int length = 0;
+    for (int read = in.read(bytes, length, bytes.length - length); read != -1; read = in.read(bytes, length, bytes.length - length)) {
+      length += read;
+      if (length == bytes.length) {
+        bytes = ArrayUtil.grow(bytes, length + 1);
+      }
+    }
+    return Arrays.copyOf(bytes, length);
+  }
   
   /**
    * Builds an FSTSynonymMap.
@@ -78,6 +78,15 @@ public final class FilesystemResourceLoader implements ResourceLoader {
     }
   }
 
+  @Override
+  public Path getLocalPath(String resource) throws IOException {
+    final Path path = baseDirectory.resolve(resource);
+    if (Files.isRegularFile(path)) {
+      return path;
+    }
+    return delegate.getLocalPath(resource);
+  }
+
   @Override
   public <T> T newInstance(String cname, Class<T> expectedType) {
     return delegate.newInstance(cname, expectedType);
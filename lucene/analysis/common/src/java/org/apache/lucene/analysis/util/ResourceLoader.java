@@ -19,6 +19,7 @@ package org.apache.lucene.analysis.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 /**
  * Abstraction for loading resources (streams, files, and classes).
@@ -29,6 +30,14 @@ public interface ResourceLoader {
    * Opens a named resource
    */
   public InputStream openResource(String resource) throws IOException;
+
+  /**
+   * Returns the path of a named resource if it is a file of the local file
+   * system, so that it can be memory-mapped, or {@code null} otherwise.
+   */
+  public default Path getLocalPath(String resource) throws IOException {
+    return null;
+  }
   
   
   /**
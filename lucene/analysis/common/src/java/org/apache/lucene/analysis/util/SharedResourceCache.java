@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.analysis.util;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A JVM-wide cache of the immutable data-structures that analysis factories
+ * build out of their resources, such as synonym maps or stop sets, so that
+ * all factories that are configured with the same arguments and resources
+ * share a single instance, even across Solr cores.
+ * <p>
+ * Entries are keyed by the arguments of the factory and a hash of the
+ * content of its resources, so that a resource that is modified on disk is
+ * never served from the cache. Values are weakly referenced: they are
+ * garbage collected once no factory uses them anymore.
+ * <p>
+ * <b>NOTE</b>: cached values are shared by reference and must not be
+ * modified.
+ *
+ * @lucene.experimental
+ */
+public final class SharedResourceCache {
+
+  /** Builds the value of a cache entry on a miss. */
+  @FunctionalInterface
+  public interface Loader<T> {
+    /** Build the value. */
+    T load() throws IOException;
+  }
+
+  private static final class Entry {
+    private final String key;
+    private volatile EntryReference value;
+
+    Entry(String key) {
+      this.key = key;
+    }
+  }
+
+  private static final class EntryReference extends WeakReference<Object> {
+    private final Entry entry;
+
+    EntryReference(Entry entry, Object value, ReferenceQueue<Object> queue) {
+      super(value, queue);
+      this.entry = entry;
+    }
+  }
+
+  private static final Map<String, Entry> entries = new HashMap<>();
+  private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+  private SharedResourceCache() {} // no instance
+
+  /**
+   * Return the cached value for the given key, calling {@code loader} to build
+   * it if it is not cached yet. Concurrent calls with the same key build the
+   * value only once.
+   */
+  public static <T> T get(String key, Class<T> clazz, Loader<? extends T> loader) throws IOException {
+    final Entry entry;
+    synchronized (entries) {
+      purge();
+      entry = entries.computeIfAbsent(key, Entry::new);
+    }
+    Object value = null;
+    try {
+      synchronized (entry) {
+        value = entry.value == null ? null : entry.value.get();
+        if (value == null) {
+          value = loader.load();
+          if (value != null) {
+            entry.value = new EntryReference(entry, value, queue);
+          }
+        }
+      }
+    } finally {
+      if (value == null) {
+        // nothing to share, or the loader failed
+        synchronized (entries) {
+          if (entries.get(key) == entry && entry.value == null) {
+            entries.remove(key);
+          }
+        }
+      }
+    }
+    return clazz.cast(value);
+  }
+
+  /** Return the number of entries in the cache, for testing. */
+  static int size() {
+    synchronized (entries) {
+      purge();
+      return entries.size();
+    }
+  }
+
+  private static void purge() {
+    assert Thread.holdsLock(entries);
+    for (EntryReference ref = (EntryReference) queue.poll(); ref != null; ref = (EntryReference) queue.poll()) {
+      final Entry entry = ref.entry;
+      // the entry may have been re-populated since its value was collected
+      if (entries.get(entry.key) == entry && entry.value == ref) {
+        entries.remove(entry.key);
+      }
+    }
+  }
+
+  /**
+   * Compute a key for the resources of an analysis factory out of its class,
+   * its arguments and the SHA-256 hash of the content of its resources.
+   */
+  public static String key(AbstractAnalysisFactory factory, ResourceLoader loader, List<String> resources) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+    final byte[] buffer = new byte[8192];
+    for (String resource : resources) {
+      try (InputStream in = loader.openResource(resource)) {
+        for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+          digest.update(buffer, 0, len);
+        }
+      }
+      // separate resources
+      digest.update((byte) 0);
+    }
+    final StringBuilder key = new StringBuilder(factory.getClass().getName());
+    key.append(new TreeMap<>(factory.getOriginalArgs())).append('/');
+    for (byte b : digest.digest()) {
+      key.append(Character.forDigit((b >>> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+    }
+    return key.toString();
+  }
+}
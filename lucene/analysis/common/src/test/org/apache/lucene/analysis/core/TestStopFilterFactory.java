@@ -64,6 +64,29 @@ public class TestStopFilterFactory extends BaseTokenStreamFactoryTestCase {
     assertEquals(false, factory.isIgnoreCase());
   }
   
+  public void testShared() throws Exception {
+    StopFilterFactory factory1 = (StopFilterFactory) tokenFilterFactory("Stop",
+        "words", "stop-1.txt, stop-2.txt",
+        "ignoreCase", "true",
+        "shared", "true");
+    StopFilterFactory factory2 = (StopFilterFactory) tokenFilterFactory("Stop",
+        "words", "stop-1.txt, stop-2.txt",
+        "ignoreCase", "true",
+        "shared", "true");
+    CharArraySet words = factory1.getStopWords();
+    assertEquals(4, words.size());
+    assertSame(words, factory2.getStopWords());
+    expectThrows(UnsupportedOperationException.class, () -> words.add("foo"));
+
+    // different arguments
+    StopFilterFactory factory3 = (StopFilterFactory) tokenFilterFactory("Stop",
+        "words", "stop-1.txt, stop-2.txt",
+        "ignoreCase", "false",
+        "shared", "true");
+    assertNotSame(words, factory3.getStopWords());
+    assertEquals(4, factory3.getStopWords().size());
+  }
+
   /** Test that bogus arguments result in exception */
   public void testBogusArguments() throws Exception {
     IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> {
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.Collections;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
@@ -33,6 +34,7 @@ import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.fst.Builder;
 import org.apache.lucene.util.fst.CharSequenceOutputs;
 import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.IntsRefFSTEnum;
 import org.apache.lucene.util.fst.Outputs;
 import org.apache.lucene.util.fst.Util;
 
@@ -67,6 +69,40 @@ public class TestDictionary extends LuceneTestCase {
     tempDir.close();
   }
 
+  public void testMaxTempRAM() throws Exception {
+    Directory tempDir = getDirectory();
+    final Dictionary expected;
+    try (InputStream affixStream = getClass().getResourceAsStream("compressed.aff");
+         InputStream dictStream = getClass().getResourceAsStream("compressed.dic")) {
+      expected = new Dictionary(tempDir, "dictionary", affixStream, dictStream);
+    }
+    // sort buffers of 2GB or more are capped
+    for (double maxTempRAMMB : new double[] {1, 4096}) {
+      final Dictionary actual;
+      try (InputStream affixStream = getClass().getResourceAsStream("compressed.aff");
+           InputStream dictStream = getClass().getResourceAsStream("compressed.dic")) {
+        actual = new Dictionary(tempDir, "dictionary", affixStream, Collections.singletonList(dictStream), false, maxTempRAMMB);
+      }
+      // temporary files are gone
+      assertEquals(0, tempDir.listAll().length);
+
+      IntsRefFSTEnum<IntsRef> expectedEnum = new IntsRefFSTEnum<>(expected.words);
+      IntsRefFSTEnum<IntsRef> actualEnum = new IntsRefFSTEnum<>(actual.words);
+      for (IntsRefFSTEnum.InputOutput<IntsRef> next = expectedEnum.next(); next != null; next = expectedEnum.next()) {
+        IntsRefFSTEnum.InputOutput<IntsRef> actualNext = actualEnum.next();
+        assertNotNull(actualNext);
+        assertEquals(next.input, actualNext.input);
+        assertEquals(next.output, actualNext.output);
+      }
+      assertNull(actualEnum.next());
+    }
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      new Dictionary(tempDir, "dictionary", null, Collections.emptyList(), false, 0);
+    });
+    tempDir.close();
+  }
+
   public void testCompressedDictionary() throws Exception {
     InputStream affixStream = getClass().getResourceAsStream("compressed.aff");
     InputStream dictStream = getClass().getResourceAsStream("compressed.dic");
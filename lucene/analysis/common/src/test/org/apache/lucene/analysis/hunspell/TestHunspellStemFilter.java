@@ -19,16 +19,20 @@ package org.apache.lucene.analysis.hunspell;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.BaseTokenStreamTestCase;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.MockTokenizer;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.KeywordTokenizer;
 import org.apache.lucene.analysis.miscellaneous.SetKeywordMarkerFilter;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.IOUtils;
 import org.junit.AfterClass;
@@ -79,13 +83,100 @@ public class TestHunspellStemFilter extends BaseTokenStreamTestCase {
     assertTokenStreamContents(filter, new String[]{"lucene", "is", "awesome"}, new int[] {1, 1, 1});
   }
   
+  /** the cache must not change the output of the filter, even once it got cleared */
+  public void testCache() throws IOException {
+    Analyzer a = new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, dictionary, true, false, 2));
+      }
+    };
+    for (int i = 0; i < 2; i++) {
+      assertAnalyzesTo(a, "lucene is lucene awesome lucene",
+          new String[]{"lucene", "lucen", "is", "lucene", "lucen", "awesome", "lucene", "lucen"},
+          new int[] {1, 0, 1, 1, 0, 1, 1, 0});
+    }
+    a.close();
+
+    a = new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, dictionary, true, true, 2));
+      }
+    };
+    for (int i = 0; i < 2; i++) {
+      assertAnalyzesTo(a, "lucene is lucene awesome lucene",
+          new String[]{"lucene", "is", "lucene", "awesome", "lucene"},
+          new int[] {1, 1, 1, 1, 1});
+    }
+    a.close();
+  }
+
+  /** cached stems must not be views on buffers that get reused for the next tokens */
+  public void testCacheIgnoreCase() throws Exception {
+    final Dictionary d;
+    // no multiple try-with to workaround bogus VerifyError
+    InputStream affixStream = TestStemmer.class.getResourceAsStream("simple.aff");
+    InputStream dictStream = TestStemmer.class.getResourceAsStream("simple.dic");
+    Directory tempDir = getDirectory();
+    try {
+      d = new Dictionary(tempDir, "dictionary", affixStream, Collections.singletonList(dictStream), true);
+    } finally {
+      IOUtils.closeWhileHandlingException(affixStream, dictStream);
+    }
+    final String text = "lucene apache Lucene mahout APACHE lucene Mahout foos LUCENE apache moo Apache mahout";
+    final List<String> expected = analyze(d, 0, text);
+    assertTrue(expected.contains("lucen"));
+    assertTrue(expected.contains("apach"));
+    for (int cacheSize : new int[] {1, 2, 3, 100}) {
+      assertEquals(expected, analyze(d, cacheSize, text));
+    }
+    tempDir.close();
+  }
+
+  private static List<String> analyze(Dictionary d, int cacheSize, String text) throws IOException {
+    Analyzer a = new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, d, true, false, cacheSize));
+      }
+    };
+    List<String> terms = new ArrayList<>();
+    // twice, since the cache is kept across documents
+    for (int i = 0; i < 2; i++) {
+      try (TokenStream ts = a.tokenStream("field", text)) {
+        CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+        ts.reset();
+        while (ts.incrementToken()) {
+          terms.add(termAtt.toString());
+        }
+        ts.end();
+      }
+    }
+    a.close();
+    return terms;
+  }
+
   /** blast some random strings through the analyzer */
   public void testRandomStrings() throws Exception {
     Analyzer analyzer = new Analyzer() {
       @Override
       protected TokenStreamComponents createComponents(String fieldName) {
         Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
-        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, dictionary));
+        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, dictionary, true, false, 0));
+      }  
+    };
+    checkRandomData(random(), analyzer, 1000*RANDOM_MULTIPLIER);
+    analyzer.close();
+
+    analyzer = new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        return new TokenStreamComponents(tokenizer, new HunspellStemFilter(tokenizer, dictionary, true, false, 16));
       }  
     };
     checkRandomData(random(), analyzer, 1000*RANDOM_MULTIPLIER);
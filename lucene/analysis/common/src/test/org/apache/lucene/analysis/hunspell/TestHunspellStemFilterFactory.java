@@ -36,6 +36,17 @@ public class TestHunspellStemFilterFactory extends BaseTokenStreamFactoryTestCas
     assertTokenStreamContents(stream, new String[] { "ab" });
   }
   
+  public void testCacheAndMaxTempRAM() throws Exception {
+    Reader reader = new StringReader("abc abc");
+    TokenStream stream = whitespaceMockTokenizer(reader);
+    stream = tokenFilterFactory("HunspellStem",
+        "dictionary", "simple.dic",
+        "affix", "simple.aff",
+        "cacheSize", "10",
+        "maxTempRAMMB", "1").create(stream);
+    assertTokenStreamContents(stream, new String[] { "ab", "ab" });
+  }
+
   /** Test that bogus arguments result in exception */
   public void testBogusArguments() throws Exception {
     IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.analysis.minhash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.shingle.ShingleFilter;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+
+/**
+ * Tests for {@link MinHashQueryBuilder}
+ */
+public class MinHashQueryBuilderTest extends LuceneTestCase {
+
+  private static final String[] DOCS = new String[] {
+      "the quick brown fox jumps over the lazy dog and runs away into the dark forest",
+      // one word differs
+      "the quick brown fox jumps over the lazy cat and runs away into the dark forest",
+      "a completely different sentence that shares almost nothing with the other ones"
+  };
+
+  private static Analyzer createAnalyzer() {
+    return new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new WhitespaceTokenizer();
+        ShingleFilter shingles = new ShingleFilter(tokenizer, 3, 3);
+        shingles.setOutputUnigrams(false);
+        TokenStream stream = new MinHashFilter(shingles, 1, 64, 1, true);
+        return new TokenStreamComponents(tokenizer, stream);
+      }
+    };
+  }
+
+  public void testNearDuplicates() throws Exception {
+    Analyzer analyzer = createAnalyzer();
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, analyzer);
+    for (int i = 0; i < DOCS.length; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new TextField("min_hash", DOCS[i], Field.Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (float truePositiveRate : new float[] {1f, 0.95f}) {
+      MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+      builder.setSimilarityThreshold(0.5f);
+      builder.setTruePositiveRate(truePositiveRate);
+      Query query = builder.createQuery(analyzer, DOCS[0]);
+      TopDocs topDocs = searcher.search(query, 10);
+      assertEquals(2, topDocs.totalHits);
+      assertEquals("0", searcher.doc(topDocs.scoreDocs[0].doc).get("id"));
+      assertEquals(1f, topDocs.scoreDocs[0].score, 1e-5f);
+      assertEquals("1", searcher.doc(topDocs.scoreDocs[1].doc).get("id"));
+      // 3 out of 14 shingles differ
+      assertTrue(topDocs.scoreDocs[1].score > 0.5f);
+      assertTrue(topDocs.scoreDocs[1].score < 1f);
+    }
+
+    // only exact duplicates
+    MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+    builder.setSimilarityThreshold(1f);
+    builder.setTruePositiveRate(1f);
+    TopDocs topDocs = searcher.search(builder.createQuery(analyzer, DOCS[0]), 10);
+    assertEquals(1, topDocs.totalHits);
+    assertEquals("0", searcher.doc(topDocs.scoreDocs[0].doc).get("id"));
+
+    reader.close();
+    dir.close();
+    analyzer.close();
+  }
+
+  public void testEmptySignature() throws Exception {
+    MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+    assertNull(builder.createQuery(Collections.emptyList()));
+    Analyzer analyzer = createAnalyzer();
+    assertNull(builder.createQuery(analyzer, ""));
+    analyzer.close();
+  }
+
+  public void testRowsPerBand() {
+    assertEquals(1, MinHashQueryBuilder.computeRowsPerBand(1, 0.8, 0.95));
+    // one band of 10 rows: 0.8^10 ~= 0.107
+    assertEquals(10, MinHashQueryBuilder.computeRowsPerBand(10, 0.8, 0.1));
+    // 2 bands of 5 rows: 1 - (1 - 0.8^5)^2 ~= 0.55, 3 bands of 3 rows: 1 - (1 - 0.8^3)^3 ~= 0.88
+    assertEquals(5, MinHashQueryBuilder.computeRowsPerBand(10, 0.8, 0.5));
+    assertEquals(3, MinHashQueryBuilder.computeRowsPerBand(10, 0.8, 0.8));
+    assertEquals(1, MinHashQueryBuilder.computeRowsPerBand(10, 0.8, 1));
+    // higher thresholds allow for larger bands
+    assertTrue(MinHashQueryBuilder.computeRowsPerBand(512, 0.9, 0.95) > MinHashQueryBuilder.computeRowsPerBand(512, 0.5, 0.95));
+  }
+
+  public void testIllegalArguments() {
+    MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+    expectThrows(IllegalArgumentException.class, () -> builder.setSimilarityThreshold(0f));
+    expectThrows(IllegalArgumentException.class, () -> builder.setSimilarityThreshold(1.5f));
+    expectThrows(IllegalArgumentException.class, () -> builder.setSimilarityThreshold(Float.NaN));
+    expectThrows(IllegalArgumentException.class, () -> builder.setTruePositiveRate(0f));
+    expectThrows(IllegalArgumentException.class, () -> builder.setTruePositiveRate(2f));
+  }
+
+  public void testTooManyHashes() {
+    MinHashQueryBuilder builder = new MinHashQueryBuilder("min_hash");
+    List<BytesRef> signature = new ArrayList<>();
+    for (int i = 0; i < BooleanQuery.getMaxClauseCount(); ++i) {
+      signature.add(new BytesRef(Integer.toString(i)));
+    }
+    assertNotNull(builder.createQuery(signature));
+    signature.add(new BytesRef("too many"));
+    expectThrows(IllegalArgumentException.class, () -> builder.createQuery(signature));
+  }
+}
@@ -17,14 +17,29 @@
 package org.apache.lucene.analysis.synonym;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.analysis.MockTokenizer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.pattern.PatternTokenizerFactory;
+import org.apache.lucene.analysis.util.ClasspathResourceLoader;
+import org.apache.lucene.analysis.util.FilesystemResourceLoader;
+import org.apache.lucene.analysis.util.ResourceLoader;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 import org.apache.lucene.analysis.util.BaseTokenStreamFactoryTestCase;
 import org.apache.lucene.analysis.util.StringMockResourceLoader;
 import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.Version;
 
 public class TestSynonymFilterFactory extends BaseTokenStreamFactoryTestCase {
@@ -74,6 +89,58 @@ public class TestSynonymFilterFactory extends BaseTokenStreamFactoryTestCase {
         "format", SolrSynonymParser.class.getName()));
   }
   
+  /** test that a map that was saved with SynonymMap.save can be used with the compiled format */
+  public void testCompiled() throws Exception {
+    SolrSynonymParser parser = new SolrSynonymParser(true, true, new MockAnalyzer(random(), MockTokenizer.WHITESPACE, false));
+    try (Reader in = new InputStreamReader(getClass().getResourceAsStream("synonyms.txt"), StandardCharsets.UTF_8)) {
+      parser.parse(in);
+    }
+    Path tempDir = createTempDir("compiledSynonyms");
+    try (Directory dir = FSDirectory.open(tempDir);
+         IndexOutput out = dir.createOutput("synonyms.bin", IOContext.DEFAULT)) {
+      parser.build().save(out);
+    }
+    ResourceLoader loader = new FilesystemResourceLoader(tempDir, new ClasspathResourceLoader(getClass()));
+    checkSolrSynonyms(tokenFilterFactory("Synonym", Version.LATEST, loader,
+        "synonyms", "synonyms.bin", "format", "compiled"));
+    checkSolrSynonyms(tokenFilterFactory("Synonym", Version.LATEST, loader,
+        "synonyms", "synonyms.bin", "format", "compiled", "shared", "true"));
+    // resources that are not local files are loaded on heap
+    ResourceLoader remoteLoader = new ResourceLoader() {
+      @Override
+      public InputStream openResource(String resource) throws IOException {
+        return loader.openResource(resource);
+      }
+
+      @Override
+      public <T> Class<? extends T> findClass(String cname, Class<T> expectedType) {
+        return loader.findClass(cname, expectedType);
+      }
+
+      @Override
+      public <T> T newInstance(String cname, Class<T> expectedType) {
+        return loader.newInstance(cname, expectedType);
+      }
+    };
+    assertNull(remoteLoader.getLocalPath("synonyms.bin"));
+    assertNotNull(loader.getLocalPath("synonyms.bin"));
+    checkSolrSynonyms(tokenFilterFactory("Synonym", Version.LATEST, remoteLoader,
+        "synonyms", "synonyms.bin", "format", "compiled"));
+
+    IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> {
+      tokenFilterFactory("Synonym", Version.LATEST, loader,
+          "synonyms", "synonyms.bin,synonyms.bin", "format", "compiled");
+    });
+    assertTrue(expected.getMessage().contains("must be a single file"));
+  }
+
+  /** test that shared maps work the same as non-shared maps */
+  public void testShared() throws Exception {
+    checkSolrSynonyms(tokenFilterFactory("Synonym", "synonyms", "synonyms.txt", "shared", "true"));
+    checkSolrSynonyms(tokenFilterFactory("Synonym", "synonyms", "synonyms.txt", "shared", "true"));
+    checkWordnetSynonyms(tokenFilterFactory("Synonym", "synonyms", "synonyms-wordnet.txt", "format", "wordnet", "shared", "true"));
+  }
+
   /** Test that bogus arguments result in exception */
   public void testBogusArguments() throws Exception {
     IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> {
@@ -35,14 +35,20 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.FlattenGraphFilter;
 import org.apache.lucene.analysis.tokenattributes.*;
+import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRef;
 import org.apache.lucene.util.CharsRefBuilder;
@@ -1117,6 +1123,69 @@ public class TestSynonymGraphFilter extends BaseTokenStreamTestCase {
     a.close();
   }
 
+  public void testSaveLoad() throws Exception {
+    SynonymMap.Builder b = new SynonymMap.Builder(true);
+    add(b, "a b", "x", true);
+    add(b, "c", "y z", false);
+    SynonymMap map = b.build();
+    SynonymMap loaded;
+    try (Directory dir = newDirectory()) {
+      try (IndexOutput out = dir.createOutput("syns", IOContext.DEFAULT)) {
+        map.save(out);
+      }
+      try (IndexInput in = dir.openInput("syns", IOContext.DEFAULT)) {
+        loaded = SynonymMap.load(in);
+        assertEquals(in.length(), in.getFilePointer());
+      }
+    }
+    assertEquals(map.maxHorizontalContext, loaded.maxHorizontalContext);
+    assertEquals(map.words.size(), loaded.words.size());
+
+    Analyzer a = getAnalyzer(loaded, true);
+    assertAnalyzesTo(a,
+                     "a b c",
+                     new String[] {"x", "a", "b", "y", "z"},
+                     new int[]    { 0,   0,   2,   4,   4},
+                     new int[]    { 3,   1,   3,   5,   5},
+                     new String[] {"SYNONYM", "word", "word", "SYNONYM", "SYNONYM"},
+                     new int[]    { 1,   0,   1,   1,   1},
+                     new int[]    { 2,   1,   1,   1,   1});
+    a.close();
+  }
+
+  public void testLoadOffHeap() throws Exception {
+    SynonymMap.Builder b = new SynonymMap.Builder(true);
+    add(b, "a b", "x", true);
+    add(b, "c", "y z", false);
+    SynonymMap map = b.build();
+    try (Directory dir = new MMapDirectory(createTempDir("synonyms"))) {
+      try (IndexOutput out = dir.createOutput("syns", IOContext.DEFAULT)) {
+        map.save(out);
+      }
+      try (IndexInput in = dir.openInput("syns", IOContext.DEFAULT)) {
+        SynonymMap loaded = SynonymMap.load(in, -1);
+        assertEquals(in.length(), in.getFilePointer());
+        Analyzer a = getAnalyzer(loaded, true);
+        assertAnalyzesTo(a, "a b c", new String[] {"x", "a", "b", "y", "z"});
+        a.close();
+      }
+
+      // flip a byte of the FST
+      final byte[] bytes;
+      try (IndexInput in = dir.openInput("syns", IOContext.DEFAULT)) {
+        bytes = new byte[(int) in.length()];
+        in.readBytes(bytes, 0, bytes.length);
+      }
+      bytes[bytes.length - CodecUtil.footerLength() - 1] ^= 1;
+      try (IndexOutput out = dir.createOutput("corrupt", IOContext.DEFAULT)) {
+        out.writeBytes(bytes, bytes.length);
+      }
+      try (IndexInput in = dir.openInput("corrupt", IOContext.DEFAULT)) {
+        expectThrows(CorruptIndexException.class, () -> SynonymMap.load(in, -1));
+      }
+    }
+  }
+
   public void testRecursion1() throws Exception {
     SynonymMap.Builder b = new SynonymMap.Builder(true);
     final boolean keepOrig = false;
@@ -1265,7 +1334,10 @@ public class TestSynonymGraphFilter extends BaseTokenStreamTestCase {
   }
 
   private Analyzer getAnalyzer(SynonymMap.Builder b, final boolean ignoreCase) throws IOException {
-    final SynonymMap map = b.build();
+    return getAnalyzer(b.build(), ignoreCase);
+  }
+
+  private Analyzer getAnalyzer(final SynonymMap map, final boolean ignoreCase) {
     return new Analyzer() {
         @Override
         protected TokenStreamComponents createComponents(String fieldName) {
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.analysis.util;
+
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.analysis.core.StopFilterFactory;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestSharedResourceCache extends LuceneTestCase {
+
+  private static StopFilterFactory newFactory(boolean ignoreCase) {
+    Map<String,String> args = new HashMap<>();
+    args.put("words", "stopwords.txt");
+    args.put("ignoreCase", Boolean.toString(ignoreCase));
+    return new StopFilterFactory(args);
+  }
+
+  public void testKey() throws IOException {
+    String key = SharedResourceCache.key(newFactory(true), new StringMockResourceLoader("foo\nbar"),
+        Collections.singletonList("stopwords.txt"));
+    assertEquals(key, SharedResourceCache.key(newFactory(true), new StringMockResourceLoader("foo\nbar"),
+        Collections.singletonList("stopwords.txt")));
+    // different content
+    assertFalse(key.equals(SharedResourceCache.key(newFactory(true), new StringMockResourceLoader("foo\nbaz"),
+        Collections.singletonList("stopwords.txt"))));
+    // different arguments
+    assertFalse(key.equals(SharedResourceCache.key(newFactory(false), new StringMockResourceLoader("foo\nbar"),
+        Collections.singletonList("stopwords.txt"))));
+  }
+
+  public void testGet() throws IOException {
+    final String key = getClass().getName() + "#testGet";
+    final AtomicInteger loads = new AtomicInteger();
+    final Object value = SharedResourceCache.get(key, Object.class, () -> {
+      loads.incrementAndGet();
+      return new Object();
+    });
+    assertSame(value, SharedResourceCache.get(key, Object.class, () -> {
+      loads.incrementAndGet();
+      return new Object();
+    }));
+    assertEquals(1, loads.get());
+  }
+
+  public void testNotCached() throws IOException {
+    final String key = getClass().getName() + "#testNotCached";
+    final int size = SharedResourceCache.size();
+    assertNull(SharedResourceCache.get(key, Object.class, () -> null));
+    expectThrows(IOException.class, () -> SharedResourceCache.get(key, Object.class, () -> {
+      throw new IOException("boom");
+    }));
+    assertTrue(SharedResourceCache.size() <= size);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pkhash;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.DATA_CODEC_NAME;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.DATA_EXTENSION;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.HASH_SEED;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.META_CODEC_NAME;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.META_EXTENSION;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.VERSION_CURRENT;
+
+/**
+ * Writes postings with a delegate {@link FieldsConsumer}, and the terms of every
+ * field to a hash table.
+ * @see PrimaryKeyHashPostingsFormat
+ */
+final class PrimaryKeyHashFieldsConsumer extends FieldsConsumer {
+
+  /** Maximum number of terms of a field, so that its number of slots fits in an int. */
+  static final int MAX_TERMS = 1 << 29;
+
+  private final FieldsConsumer delegate;
+  private final SegmentWriteState state;
+  private IndexOutput meta, data;
+  private boolean closed;
+
+  PrimaryKeyHashFieldsConsumer(FieldsConsumer delegate, String delegateName, SegmentWriteState state) throws IOException {
+    this.delegate = delegate;
+    this.state = state;
+    boolean success = false;
+    try {
+      String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+      meta = state.directory.createOutput(metaName, state.context);
+      CodecUtil.writeIndexHeader(meta, META_CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+      data = state.directory.createOutput(dataName, state.context);
+      CodecUtil.writeIndexHeader(data, DATA_CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      meta.writeString(delegateName);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(meta, data);
+      }
+    }
+  }
+
+  @Override
+  public void write(Fields fields) throws IOException {
+    delegate.write(fields);
+
+    for (String field : fields) {
+      Terms terms = fields.terms(field);
+      if (terms == null) {
+        continue;
+      }
+      writeField(state.fieldInfos.fieldInfo(field), terms);
+    }
+  }
+
+  private void writeField(FieldInfo fieldInfo, Terms terms) throws IOException {
+    final boolean hasFreqs = fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS) >= 0;
+    final long entriesOffset = data.getFilePointer();
+
+    // write entries, and remember where they are
+    int[] hashes = new int[16];
+    PackedLongValues.Builder pointers = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+    int numTerms = 0;
+    TermsEnum termsEnum = terms.iterator();
+    PostingsEnum postingsEnum = null;
+    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+      postingsEnum = termsEnum.postings(postingsEnum, hasFreqs ? PostingsEnum.FREQS : PostingsEnum.NONE);
+      int docFreq = 0;
+      long totalTermFreq = 0;
+      int firstDoc = -1;
+      for (int doc = postingsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postingsEnum.nextDoc()) {
+        if (docFreq == 0) {
+          firstDoc = doc;
+        }
+        docFreq++;
+        if (hasFreqs) {
+          totalTermFreq += postingsEnum.freq();
+        }
+      }
+      if (docFreq == 0) {
+        // all docs are deleted: the delegate skips such terms too
+        continue;
+      }
+      if (numTerms == MAX_TERMS) {
+        // the table would be too large to build in memory: lookups on this
+        // field will be delegated, the entries written so far are just unused
+        return;
+      }
+      hashes = ArrayUtil.grow(hashes, numTerms + 1);
+      hashes[numTerms] = StringHelper.murmurhash3_x86_32(term, HASH_SEED);
+      pointers.add(data.getFilePointer() - entriesOffset);
+      numTerms++;
+
+      data.writeVInt(term.length);
+      data.writeBytes(term.bytes, term.offset, term.length);
+      data.writeVInt(docFreq);
+      if (hasFreqs) {
+        data.writeVLong(totalTermFreq - docFreq);
+      }
+      if (docFreq == 1) {
+        data.writeVInt(firstDoc);
+      }
+    }
+    if (numTerms == 0) {
+      return;
+    }
+
+    // build the table with linear probing and a load factor between 1/3 and 2/3
+    final int numSlots = Integer.highestOneBit(numTerms + (numTerms >>> 1)) << 1;
+    final int mask = numSlots - 1;
+    final int[] slots = new int[numSlots];
+    Arrays.fill(slots, -1);
+    for (int i = 0; i < numTerms; ++i) {
+      int slot = hashes[i] & mask;
+      while (slots[slot] != -1) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i;
+    }
+    final PackedLongValues entryPointers = pointers.build();
+    final long tableOffset = data.getFilePointer();
+    for (int slot = 0; slot < numSlots; ++slot) {
+      final int term = slots[slot];
+      if (term == -1) {
+        data.writeInt(0);
+        data.writeLong(0L);
+      } else {
+        data.writeInt(hashes[term]);
+        data.writeLong(entryPointers.get(term) + 1);
+      }
+    }
+
+    meta.writeVInt(fieldInfo.number);
+    meta.writeVLong(numTerms);
+    meta.writeLong(entriesOffset);
+    meta.writeLong(tableOffset);
+    meta.writeVLong(numSlots);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    boolean success = false;
+    try {
+      meta.writeVInt(-1);
+      CodecUtil.writeFooter(meta);
+      CodecUtil.writeFooter(data);
+      success = true;
+    } finally {
+      if (success) {
+        IOUtils.close(delegate, meta, data);
+      } else {
+        IOUtils.closeWhileHandlingException(delegate, meta, data);
+      }
+    }
+  }
+}
@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pkhash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.TermState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.DATA_CODEC_NAME;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.DATA_EXTENSION;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.HASH_SEED;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.META_CODEC_NAME;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.META_EXTENSION;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.SLOT_BYTES;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.VERSION_CURRENT;
+import static org.apache.lucene.codecs.pkhash.PrimaryKeyHashPostingsFormat.VERSION_START;
+
+/**
+ * Reads postings with a delegate {@link FieldsProducer}, and answers exact
+ * term lookups with the hash tables written by {@link PrimaryKeyHashFieldsConsumer}.
+ * @see PrimaryKeyHashPostingsFormat
+ */
+final class PrimaryKeyHashFieldsProducer extends FieldsProducer {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PrimaryKeyHashFieldsProducer.class);
+  private static final long FIELD_ENTRY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(FieldEntry.class);
+
+  private final FieldsProducer delegate;
+  private final Map<String,FieldEntry> fields = new HashMap<>();
+  private final IndexInput data;
+
+  PrimaryKeyHashFieldsProducer(SegmentReadState state) throws IOException {
+    String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+    String delegateName = null;
+    int version = -1;
+    try (ChecksumIndexInput in = state.directory.openChecksumInput(metaName, state.context)) {
+      Throwable priorE = null;
+      try {
+        version = CodecUtil.checkIndexHeader(in, META_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+            state.segmentInfo.getId(), state.segmentSuffix);
+        delegateName = in.readString();
+        readFields(in, state.fieldInfos);
+      } catch (Throwable exception) {
+        priorE = exception;
+      } finally {
+        CodecUtil.checkFooter(in, priorE);
+      }
+    }
+
+    String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+    FieldsProducer delegate = null;
+    IndexInput data = state.directory.openInput(dataName, state.context);
+    boolean success = false;
+    try {
+      final int version2 = CodecUtil.checkIndexHeader(data, DATA_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+          state.segmentInfo.getId(), state.segmentSuffix);
+      if (version != version2) {
+        throw new CorruptIndexException("Format versions mismatch: meta=" + version + ", data=" + version2, data);
+      }
+      // NOTE: data file is too costly to verify checksum against all the bytes on open,
+      // but for now we at least verify proper structure of the checksum footer: which looks
+      // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
+      // such as file truncation.
+      CodecUtil.retrieveChecksum(data);
+
+      delegate = PostingsFormat.forName(delegateName).fieldsProducer(state);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(data, delegate);
+      }
+    }
+    this.data = data;
+    this.delegate = delegate;
+  }
+
+  private void readFields(IndexInput meta, FieldInfos infos) throws IOException {
+    for (int fieldNumber = meta.readVInt(); fieldNumber != -1; fieldNumber = meta.readVInt()) {
+      FieldInfo info = infos.fieldInfo(fieldNumber);
+      if (info == null) {
+        throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+      }
+      FieldEntry entry = new FieldEntry();
+      entry.hasFreqs = info.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS) >= 0;
+      entry.numTerms = meta.readVLong();
+      entry.entriesOffset = meta.readLong();
+      entry.tableOffset = meta.readLong();
+      entry.numSlots = meta.readVLong();
+      // lookups probe until they find an empty slot, so there must be at least one
+      if (entry.numSlots <= 0 || Long.bitCount(entry.numSlots) != 1 || entry.numSlots <= entry.numTerms
+          || entry.tableOffset < entry.entriesOffset) {
+        throw new CorruptIndexException("Invalid hash table for field " + info.name + ": numTerms=" + entry.numTerms
+            + ", numSlots=" + entry.numSlots, meta);
+      }
+      fields.put(info.name, entry);
+    }
+  }
+
+  private static class FieldEntry {
+    boolean hasFreqs;
+    long numTerms;
+    long entriesOffset;
+    long tableOffset;
+    long numSlots;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return delegate.iterator();
+  }
+
+  @Override
+  public Terms terms(String field) throws IOException {
+    Terms terms = delegate.terms(field);
+    FieldEntry entry = fields.get(field);
+    if (terms == null || entry == null) {
+      return terms;
+    }
+    return new HashTerms(terms, entry);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(data, delegate);
+  }
+
+  @Override
+  public void checkIntegrity() throws IOException {
+    delegate.checkIntegrity();
+    CodecUtil.checksumEntireFile(data);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = BASE_RAM_BYTES_USED + delegate.ramBytesUsed();
+    for (String field : fields.keySet()) {
+      ramBytesUsed += FIELD_ENTRY_RAM_BYTES_USED + field.length() * Character.BYTES;
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    List<Accountable> resources = new ArrayList<>();
+    resources.add(Accountables.namedAccountable("delegate", delegate));
+    return Collections.unmodifiableList(resources);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(fields=" + fields.size() + ",delegate=" + delegate + ")";
+  }
+
+  private class HashTerms extends FilterLeafReader.FilterTerms {
+    private final FieldEntry entry;
+
+    HashTerms(Terms in, FieldEntry entry) {
+      super(in);
+      this.entry = entry;
+    }
+
+    @Override
+    public TermsEnum iterator() throws IOException {
+      return new HashTermsEnum(in, entry);
+    }
+
+    @Override
+    public TermsEnum intersect(CompiledAutomaton compiled, BytesRef startTerm) throws IOException {
+      return in.intersect(compiled, startTerm);
+    }
+
+    @Override
+    public BytesRef getMin() throws IOException {
+      return in.getMin();
+    }
+
+    @Override
+    public BytesRef getMax() throws IOException {
+      return in.getMax();
+    }
+  }
+
+  /** State of a term that was found in the hash table. */
+  private static final class HashTermState extends TermState {
+    final BytesRefBuilder term = new BytesRefBuilder();
+    int docFreq;
+    long totalTermFreq;
+    int doc;
+
+    @Override
+    public void copyFrom(TermState other) {
+      HashTermState that = (HashTermState) other;
+      term.copyBytes(that.term);
+      docFreq = that.docFreq;
+      totalTermFreq = that.totalTermFreq;
+      doc = that.doc;
+    }
+
+    @Override
+    public HashTermState clone() {
+      HashTermState clone = new HashTermState();
+      clone.copyFrom(this);
+      return clone;
+    }
+  }
+
+  /**
+   * A {@link TermsEnum} that answers {@link #seekExact(BytesRef)} with the hash
+   * table, and only uses the delegate when needed. Like the delegate, it is not
+   * positioned after an unsuccessful {@link #seekExact(BytesRef)}.
+   */
+  private final class HashTermsEnum extends TermsEnum {
+    private final Terms delegateTerms;
+    private final FieldEntry entry;
+    private TermsEnum delegateTermsEnum;
+    private RandomAccessInput table;
+    private IndexInput entries;
+    // the current term, if it was found in the table
+    private final HashTermState current = new HashTermState();
+    private boolean currentIsHashed;
+    // whether the delegate is positioned on the current term too
+    private boolean delegatePositioned;
+    private final BytesRefBuilder scratch = new BytesRefBuilder();
+
+    HashTermsEnum(Terms delegateTerms, FieldEntry entry) {
+      this.delegateTerms = delegateTerms;
+      this.entry = entry;
+    }
+
+    private TermsEnum delegate() throws IOException {
+      if (delegateTermsEnum == null) {
+        delegateTermsEnum = delegateTerms.iterator();
+      }
+      return delegateTermsEnum;
+    }
+
+    /** Make sure that the delegate is positioned on the current term, and return it. */
+    private TermsEnum positionedDelegate() throws IOException {
+      if (currentIsHashed && delegatePositioned == false) {
+        if (delegate().seekExact(current.term.get()) == false) {
+          throw new CorruptIndexException("Term " + current.term.get() + " is in the hash table but not in the terms dictionary", data);
+        }
+        delegatePositioned = true;
+      }
+      return delegate();
+    }
+
+    /** Switch to the delegate for the current term. */
+    private TermsEnum unhashedDelegate() throws IOException {
+      currentIsHashed = false;
+      return delegate();
+    }
+
+    @Override
+    public boolean seekExact(BytesRef text) throws IOException {
+      if (table == null) {
+        table = data.randomAccessSlice(entry.tableOffset, entry.numSlots * SLOT_BYTES);
+        entries = data.slice("entries", entry.entriesOffset, entry.tableOffset - entry.entriesOffset);
+      }
+      currentIsHashed = false;
+      delegatePositioned = false;
+      final int hash = StringHelper.murmurhash3_x86_32(text, HASH_SEED);
+      final long mask = entry.numSlots - 1;
+      for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+        final long pointer = table.readLong(slot * SLOT_BYTES + Integer.BYTES);
+        if (pointer == 0) {
+          // empty slot: the term does not exist
+          return false;
+        }
+        if (table.readInt(slot * SLOT_BYTES) == hash && readEntry(pointer - 1, text)) {
+          currentIsHashed = true;
+          return true;
+        }
+      }
+    }
+
+    /** Read the entry at the given offset into {@link #current} if its term is {@code text}. */
+    private boolean readEntry(long offset, BytesRef text) throws IOException {
+      entries.seek(offset);
+      final int length = entries.readVInt();
+      if (length != text.length) {
+        return false;
+      }
+      scratch.grow(length);
+      scratch.setLength(length);
+      entries.readBytes(scratch.bytes(), 0, length);
+      if (scratch.get().bytesEquals(text) == false) {
+        return false;
+      }
+      current.term.copyBytes(scratch);
+      current.docFreq = entries.readVInt();
+      if (entry.hasFreqs) {
+        current.totalTermFreq = current.docFreq + entries.readVLong();
+      } else {
+        current.totalTermFreq = -1;
+      }
+      current.doc = current.docFreq == 1 ? entries.readVInt() : -1;
+      return true;
+    }
+
+    @Override
+    public void seekExact(BytesRef term, TermState state) throws IOException {
+      if (state instanceof HashTermState) {
+        current.copyFrom(state);
+        currentIsHashed = true;
+        delegatePositioned = false;
+      } else {
+        unhashedDelegate().seekExact(term, state);
+      }
+    }
+
+    @Override
+    public TermState termState() throws IOException {
+      if (currentIsHashed) {
+        return current.clone();
+      }
+      return delegate().termState();
+    }
+
+    @Override
+    public SeekStatus seekCeil(BytesRef text) throws IOException {
+      return unhashedDelegate().seekCeil(text);
+    }
+
+    @Override
+    public void seekExact(long ord) throws IOException {
+      unhashedDelegate().seekExact(ord);
+    }
+
+    @Override
+    public BytesRef next() throws IOException {
+      TermsEnum delegate = positionedDelegate();
+      currentIsHashed = false;
+      return delegate.next();
+    }
+
+    @Override
+    public BytesRef term() throws IOException {
+      if (currentIsHashed) {
+        return current.term.get();
+      }
+      return delegate().term();
+    }
+
+    @Override
+    public long ord() throws IOException {
+      return positionedDelegate().ord();
+    }
+
+    @Override
+    public int docFreq() throws IOException {
+      if (currentIsHashed) {
+        return current.docFreq;
+      }
+      return delegate().docFreq();
+    }
+
+    @Override
+    public long totalTermFreq() throws IOException {
+      if (currentIsHashed) {
+        return current.totalTermFreq;
+      }
+      return delegate().totalTermFreq();
+    }
+
+    @Override
+    public PostingsEnum postings(PostingsEnum reuse, int flags) throws IOException {
+      if (currentIsHashed && current.doc != -1 && PostingsEnum.featureRequested(flags, PostingsEnum.POSITIONS) == false) {
+        SingleDocPostingsEnum postings;
+        if (reuse instanceof SingleDocPostingsEnum) {
+          postings = (SingleDocPostingsEnum) reuse;
+        } else {
+          postings = new SingleDocPostingsEnum();
+        }
+        postings.reset(current.doc, entry.hasFreqs ? (int) current.totalTermFreq : 1);
+        return postings;
+      }
+      return positionedDelegate().postings(reuse, flags);
+    }
+  }
+
+  /** Postings of a term that only occurs in one document, without positions. */
+  private static final class SingleDocPostingsEnum extends PostingsEnum {
+    private int target;
+    private int freq;
+    private int doc;
+
+    void reset(int target, int freq) {
+      this.target = target;
+      this.freq = freq;
+      this.doc = -1;
+    }
+
+    @Override
+    public int freq() throws IOException {
+      return freq;
+    }
+
+    @Override
+    public int nextPosition() throws IOException {
+      return -1;
+    }
+
+    @Override
+    public int startOffset() throws IOException {
+      return -1;
+    }
+
+    @Override
+    public int endOffset() throws IOException {
+      return -1;
+    }
+
+    @Override
+    public BytesRef getPayload() throws IOException {
+      return null;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return doc = doc == -1 ? target : NO_MORE_DOCS;
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      return slowAdvance(target);
+    }
+
+    @Override
+    public long cost() {
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pkhash;
+
+import java.io.IOException;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * <p>
+ * A {@link PostingsFormat} for primary key fields, such as the unique key of
+ * documents that get updated or deleted by ID. A delegate PostingsFormat
+ * records all postings data, and the terms of every field are additionally
+ * stored in an open-addressing hash table. {@link TermsEnum#seekExact(BytesRef)}
+ * uses this table instead of the terms dictionary of the delegate: a lookup
+ * reads a handful of consecutive table slots, then the term they point to, in
+ * order to verify that it is not a hash collision. This is the case for both
+ * misses and hits. If the term has a single document, which is the common case
+ * for unique keys, its postings and statistics are served from the table too,
+ * so that resolving a key against a segment does not need to walk the terms
+ * index of the delegate.
+ * </p>
+ * <p>
+ * Other operations, such as iterating over the terms or reading positions,
+ * are delegated.
+ * </p>
+ * <p>
+ * The hash table is kept on disk and accessed by random reads, so it costs
+ * little heap at search time. It uses a load factor of at most 2/3, and every
+ * slot takes 12 bytes.
+ * </p>
+ * <p>
+ * Files:
+ * </p>
+ * <ul>
+ * <li>Metadata (.pkm) --&gt; Header, DelegatePostingsFormatName,
+ * FieldEntry<sup>NumFields</sup>, -1, Footer</li>
+ * <li>FieldEntry --&gt; FieldNumber, NumTerms, EntriesOffset, TableOffset,
+ * NumSlots</li>
+ * <li>Data (.pkd) --&gt; Header, &lt;Entry<sup>NumTerms</sup>,
+ * Slot<sup>NumSlots</sup>&gt;<sup>NumFields</sup>, Footer</li>
+ * <li>Entry --&gt; TermLength, TermBytes, DocFreq, TotalTermFreqDelta?, Doc?</li>
+ * <li>Slot --&gt; Hash, EntryPointer</li>
+ * <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
+ * <li>DelegatePostingsFormatName --&gt; {@link DataOutput#writeString(String)
+ * String} The name of a ServiceProvider registered {@link PostingsFormat}</li>
+ * <li>FieldNumber, TermLength, DocFreq, Doc --&gt; {@link DataOutput#writeVInt VInt}</li>
+ * <li>NumTerms, NumSlots, TotalTermFreqDelta --&gt; {@link DataOutput#writeVLong VLong}</li>
+ * <li>EntriesOffset, TableOffset, EntryPointer --&gt; {@link DataOutput#writeLong Int64}</li>
+ * <li>Hash --&gt; {@link DataOutput#writeInt Int32}</li>
+ * <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
+ * </ul>
+ * <p>Notes:</p>
+ * <ul>
+ * <li>TotalTermFreqDelta is the difference between the total term frequency and the
+ * document frequency, and is only recorded for fields that index frequencies.</li>
+ * <li>Doc is only recorded for terms whose DocFreq is 1.</li>
+ * <li>Hash is the 32-bit murmurhash3 of the term. A term is stored in the first empty
+ * slot that follows slot <code>Hash &amp; (NumSlots - 1)</code>, NumSlots being a power
+ * of two.</li>
+ * <li>EntryPointer is the offset of the entry relative to EntriesOffset, plus one. It is
+ * zero for empty slots.</li>
+ * <li>Fields that have no terms, or too many terms to build their table in memory,
+ * have no FieldEntry: lookups on them are always delegated.</li>
+ * </ul>
+ * @lucene.experimental
+ */
+public final class PrimaryKeyHashPostingsFormat extends PostingsFormat {
+
+  static final String META_CODEC_NAME = "PrimaryKeyHashMeta";
+  static final String DATA_CODEC_NAME = "PrimaryKeyHashData";
+  static final String META_EXTENSION = "pkm";
+  static final String DATA_EXTENSION = "pkd";
+  static final int VERSION_START = 0;
+  static final int VERSION_CURRENT = VERSION_START;
+
+  /** Seed of the hash function. This is part of the file format. */
+  static final int HASH_SEED = 0x9747b28c;
+
+  /** Number of bytes of a slot of the hash table. */
+  static final int SLOT_BYTES = Integer.BYTES + Long.BYTES;
+
+  private final PostingsFormat delegatePostingsFormat;
+
+  /**
+   * Creates a format that records postings with {@link Lucene50PostingsFormat}.
+   */
+  public PrimaryKeyHashPostingsFormat() {
+    this(new Lucene50PostingsFormat());
+  }
+
+  /**
+   * Creates a format that records postings with the given delegate. The name of
+   * the delegate is recorded in the index so that it can be loaded by name at
+   * read time, so it must be a ServiceProvider registered {@link PostingsFormat}.
+   */
+  public PrimaryKeyHashPostingsFormat(PostingsFormat delegatePostingsFormat) {
+    super("PrimaryKeyHash");
+    this.delegatePostingsFormat = delegatePostingsFormat;
+  }
+
+  @Override
+  public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+    FieldsConsumer delegate = delegatePostingsFormat.fieldsConsumer(state);
+    boolean success = false;
+    try {
+      FieldsConsumer consumer = new PrimaryKeyHashFieldsConsumer(delegate, delegatePostingsFormat.getName(), state);
+      success = true;
+      return consumer;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(delegate);
+      }
+    }
+  }
+
+  @Override
+  public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+    return new PrimaryKeyHashFieldsProducer(state);
+  }
+
+  @Override
+  public String toString() {
+    return "PrimaryKeyHashPostingsFormat(" + delegatePostingsFormat + ")";
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.pkhash;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BasePostingsFormatTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Basic tests for PrimaryKeyHashPostingsFormat
+ */
+public class TestPrimaryKeyHashPostingsFormat extends BasePostingsFormatTestCase {
+  private final Codec codec = TestUtil.alwaysPostingsFormat(new PrimaryKeyHashPostingsFormat());
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testUpdateDocuments() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(codec);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numIds = atLeast(100);
+    // id -> number of times the document was updated
+    Map<String,Integer> versions = new HashMap<>();
+    final int numUpdates = atLeast(500);
+    for (int i = 0; i < numUpdates; ++i) {
+      String id = Integer.toString(random().nextInt(numIds));
+      int version = versions.getOrDefault(id, -1) + 1;
+      versions.put(id, version);
+      Document doc = new Document();
+      doc.add(new StringField("id", id, Field.Store.NO));
+      doc.add(new StringField("version", Integer.toString(version), Field.Store.NO));
+      w.updateDocument(new Term("id", id), doc);
+      if (random().nextInt(50) == 0) {
+        w.commit();
+      }
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+
+    DirectoryReader reader = DirectoryReader.open(w);
+    IndexSearcher searcher = newSearcher(reader);
+    for (int id = 0; id < numIds; ++id) {
+      String idString = Integer.toString(id);
+      assertEquals(versions.containsKey(idString) ? 1 : 0, searcher.count(new TermQuery(new Term("id", idString))));
+    }
+
+    for (LeafReaderContext context : reader.leaves()) {
+      Terms terms = context.reader().terms("id");
+      if (terms == null) {
+        continue;
+      }
+      // the table must agree with the terms dictionary on every term
+      List<BytesRef> allTerms = new ArrayList<>();
+      List<Integer> docFreqs = new ArrayList<>();
+      TermsEnum iterator = terms.iterator();
+      TermsEnum lookup = terms.iterator();
+      PostingsEnum expected = null, actual = null;
+      for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+        allTerms.add(BytesRef.deepCopyOf(term));
+        docFreqs.add(iterator.docFreq());
+        assertTrue(lookup.seekExact(term));
+        assertEquals(term, lookup.term());
+        assertEquals(iterator.docFreq(), lookup.docFreq());
+        assertEquals(iterator.totalTermFreq(), lookup.totalTermFreq());
+        expected = iterator.postings(expected, PostingsEnum.FREQS);
+        actual = lookup.postings(actual, PostingsEnum.FREQS);
+        for (int doc = expected.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expected.nextDoc()) {
+          assertEquals(doc, actual.nextDoc());
+          assertEquals(expected.freq(), actual.freq());
+        }
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, actual.nextDoc());
+      }
+
+      // the enum can move on from a term that was found in the table
+      for (int i = 0; i < allTerms.size(); ++i) {
+        BytesRef term = allTerms.get(i);
+        assertTrue(lookup.seekExact(term));
+        TermState state = lookup.termState();
+        assertEquals(i + 1 < allTerms.size() ? allTerms.get(i + 1) : null, lookup.next());
+        lookup.seekExact(term, state);
+        assertEquals(term, lookup.term());
+        assertEquals(docFreqs.get(i).intValue(), lookup.docFreq());
+      }
+
+      assertFalse(lookup.seekExact(new BytesRef("missing")));
+      assertFalse(lookup.seekExact(new BytesRef(Integer.toString(numIds))));
+    }
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+}
@@ -110,6 +110,12 @@ public abstract class Codec implements NamedSPILoader.NamedSPI {
 
   /** Encodes/decodes points index */
   public abstract PointsFormat pointsFormat();
+
+  /** Encodes/decodes numeric vector fields. The default implementation
+   *  returns {@link VectorFormat#EMPTY}, which does not support vectors. */
+  public VectorFormat vectorFormat() {
+    return VectorFormat.EMPTY;
+  }
   
   /** looks up a codec by name */
   public static Codec forName(String name) {
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.DocIDMerger;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.util.Bits;
+
+/** Abstract API to write vectors
+ *
+ * @lucene.experimental
+ */
+public abstract class VectorWriter implements Closeable {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected VectorWriter() {
+  }
+
+  /** Write all values contained in the provided reader */
+  public abstract void writeField(FieldInfo fieldInfo, VectorValues values) throws IOException;
+
+  /** Default merge implementation for one field: it passes the non-deleted vectors of all
+   *  incoming segments, in merged doc ID order, to {@link #writeField}. */
+  protected void mergeOneField(MergeState mergeState, FieldInfo fieldInfo) throws IOException {
+    writeField(fieldInfo, mergeVectorValues(mergeState, fieldInfo));
+  }
+
+  /** Default merge implementation to merge incoming vector readers by visiting all their vectors
+   *  and adding them to this writer */
+  public void merge(MergeState mergeState) throws IOException {
+    // check each incoming reader
+    for (VectorReader reader : mergeState.vectorReaders) {
+      if (reader != null) {
+        reader.checkIntegrity();
+      }
+    }
+    // merge field at a time
+    for (FieldInfo fieldInfo : mergeState.mergeFieldInfos) {
+      if (fieldInfo.getVectorDimension() != 0) {
+        mergeOneField(mergeState, fieldInfo);
+      }
+    }
+    finish();
+  }
+
+  /** Called once at the end before close */
+  public abstract void finish() throws IOException;
+
+  /**
+   * Returns a {@link VectorValues} that iterates over the non-deleted vectors of the given field
+   * in all incoming segments, with doc IDs mapped to the merged segment.
+   */
+  protected static VectorValues mergeVectorValues(MergeState mergeState, FieldInfo fieldInfo) throws IOException {
+    final List<VectorValuesSub> subs = new ArrayList<>();
+    int size = 0;
+    for (int i = 0; i < mergeState.vectorReaders.length; i++) {
+      final VectorReader vectorReader = mergeState.vectorReaders[i];
+      if (vectorReader == null) {
+        continue;
+      }
+      final FieldInfo readerFieldInfo = mergeState.fieldInfos[i].fieldInfo(fieldInfo.name);
+      if (readerFieldInfo == null || readerFieldInfo.getVectorDimension() == 0) {
+        // This segment never saw this field, or did not index vectors for it
+        continue;
+      }
+      if (readerFieldInfo.getVectorDimension() != fieldInfo.getVectorDimension()) {
+        throw new IllegalArgumentException("Cannot merge vectors for field \"" + fieldInfo.name + "\" with dimension "
+            + readerFieldInfo.getVectorDimension() + " into dimension " + fieldInfo.getVectorDimension());
+      }
+      final VectorValues values = vectorReader.getVectorValues(fieldInfo.name);
+      if (values == null) {
+        continue;
+      }
+      final Bits liveDocs = mergeState.liveDocs[i];
+      if (liveDocs == null) {
+        size += values.size();
+      } else {
+        // count the live documents with a vector
+        final VectorValues counter = vectorReader.getVectorValues(fieldInfo.name);
+        for (int doc = counter.nextDoc(); doc != VectorValues.NO_MORE_DOCS; doc = counter.nextDoc()) {
+          if (liveDocs.get(doc)) {
+            size++;
+          }
+        }
+      }
+      subs.add(new VectorValuesSub(mergeState.docMaps[i], values));
+    }
+    return new MergedVectorValues(DocIDMerger.of(subs, mergeState.needsIndexSort), size,
+        fieldInfo.getVectorDimension(), fieldInfo.getVectorSimilarityFunction());
+  }
+
+  private static class VectorValuesSub extends DocIDMerger.Sub {
+
+    final VectorValues values;
+
+    VectorValuesSub(MergeState.DocMap docMap, VectorValues values) {
+      super(docMap);
+      this.values = values;
+      assert values.docID() == -1;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return values.nextDoc();
+    }
+  }
+
+  private static class MergedVectorValues extends VectorValues {
+
+    private final DocIDMerger<VectorValuesSub> docIdMerger;
+    private final int size;
+    private final int dimension;
+    private final SimilarityFunction similarityFunction;
+    private int docId = -1;
+    private VectorValuesSub current;
+
+    MergedVectorValues(DocIDMerger<VectorValuesSub> docIdMerger, int size, int dimension, SimilarityFunction similarityFunction) {
+      this.docIdMerger = docIdMerger;
+      this.size = size;
+      this.dimension = dimension;
+      this.similarityFunction = similarityFunction;
+    }
+
+    @Override
+    public int docID() {
+      return docId;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      current = docIdMerger.next();
+      if (current == null) {
+        docId = NO_MORE_DOCS;
+      } else {
+        docId = current.mappedDocID;
+      }
+      return docId;
+    }
+
+    @Override
+    public int advance(int target) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public float[] vectorValue() throws IOException {
+      return current.values.vectorValue();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public SimilarityFunction similarityFunction() {
+      return similarityFunction;
+    }
+  }
+}
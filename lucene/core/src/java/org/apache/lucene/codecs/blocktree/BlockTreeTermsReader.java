@@ -28,15 +28,18 @@ import java.util.TreeMap;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.FieldsProducer;
 import org.apache.lucene.codecs.PostingsReaderBase;
+import org.apache.lucene.codecs.PostingsWriterBase; // javadocs
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState; // javadocs
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.PrefixQuery;  // javadocs
 import org.apache.lucene.search.TermRangeQuery;  // javadocs
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
@@ -110,9 +113,39 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   static final String TERMS_INDEX_EXTENSION = "tip";
   final static String TERMS_INDEX_CODEC_NAME = "BlockTreeTermsIndex";
 
+  /**
+   * How the terms index FST of a field is loaded when a segment is opened.
+   * @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int,FSTLoadMode)
+   * @lucene.experimental
+   */
+  public static enum FSTLoadMode {
+    /** Load the FST on the heap. */
+    ON_HEAP,
+    /** Never load the FST on the heap, read it on demand from the terms
+     *  index file instead. */
+    OFF_HEAP,
+    /** Read the FST on demand from the terms index file if this file
+     *  supports random access, as memory-mapped files do, and the FST
+     *  takes more than {@link #AUTO_OFF_HEAP_MIN_BYTES} bytes; load it
+     *  on the heap otherwise. */
+    AUTO
+  }
+
+  /** Name of the {@link FieldInfo#getAttribute field attribute} that records
+   *  the {@link FSTLoadMode} of a field. Fields that don't have this
+   *  attribute use {@link FSTLoadMode#AUTO}. */
+  public static final String FST_LOAD_MODE_KEY = BlockTreeTermsReader.class.getSimpleName() + ".fstLoadMode";
+
+  /** Size in bytes above which terms index FSTs are read off-heap by {@link FSTLoadMode#AUTO}. */
+  public static final long AUTO_OFF_HEAP_MIN_BYTES = 1 << 20;
+
   // Open input to the main terms dict file (_X.tib)
   final IndexInput termsIn;
 
+  // Open input to the terms index file (_X.tip), only non-null if some
+  // terms index FSTs may be read off-heap
+  private final IndexInput indexIn;
+
   //private static final boolean DEBUG = BlockTreeTermsWriter.DEBUG;
 
   // Reads the terms dict entries, to gather state to
@@ -154,6 +187,7 @@ public final class BlockTreeTermsReader extends FieldsProducer {
 
       String indexName = IndexFileNames.segmentFileName(segment, state.segmentSuffix, TERMS_INDEX_EXTENSION);
       indexIn = state.directory.openInput(indexName, state.context);
+      boolean keepIndexIn = false;
       CodecUtil.checkIndexHeader(indexIn, TERMS_INDEX_CODEC_NAME, version, version, state.segmentInfo.getId(), state.segmentSuffix);
       CodecUtil.checksumEntireFile(indexIn);
 
@@ -211,15 +245,21 @@ public final class BlockTreeTermsReader extends FieldsProducer {
           throw new CorruptIndexException("invalid sumTotalTermFreq: " + sumTotalTermFreq + " sumDocFreq: " + sumDocFreq, termsIn);
         }
         final long indexStartFP = indexIn.readVLong();
+        final long maxOnHeapIndexBytes = maxOnHeapIndexBytes(fieldInfo, indexIn);
+        keepIndexIn |= maxOnHeapIndexBytes != Long.MAX_VALUE;
         FieldReader previous = fields.put(fieldInfo.name,       
                                           new FieldReader(this, fieldInfo, numTerms, rootCode, sumTotalTermFreq, sumDocFreq, docCount,
-                                                          indexStartFP, longsSize, indexIn, minTerm, maxTerm));
+                                                          indexStartFP, longsSize, indexIn, maxOnHeapIndexBytes, minTerm, maxTerm));
         if (previous != null) {
           throw new CorruptIndexException("duplicate field: " + fieldInfo.name, termsIn);
         }
       }
       
-      indexIn.close();
+      if (keepIndexIn == false) {
+        indexIn.close();
+        indexIn = null;
+      }
+      this.indexIn = indexIn;
       success = true;
     } finally {
       if (!success) {
@@ -229,6 +269,27 @@ public final class BlockTreeTermsReader extends FieldsProducer {
     }
   }
 
+  /** Returns the size in bytes above which the terms index FST of the given field is read off-heap. */
+  private static long maxOnHeapIndexBytes(FieldInfo fieldInfo, IndexInput indexIn) throws IOException {
+    final String mode = fieldInfo.getAttribute(FST_LOAD_MODE_KEY);
+    final FSTLoadMode fstLoadMode;
+    try {
+      fstLoadMode = mode == null ? FSTLoadMode.AUTO : FSTLoadMode.valueOf(mode);
+    } catch (IllegalArgumentException e) {
+      throw new CorruptIndexException("invalid " + FST_LOAD_MODE_KEY + " for field: " + fieldInfo.name + ": " + mode, indexIn, e);
+    }
+    switch (fstLoadMode) {
+      case ON_HEAP:
+        return Long.MAX_VALUE;
+      case OFF_HEAP:
+        return -1;
+      case AUTO:
+        return indexIn instanceof RandomAccessInput ? AUTO_OFF_HEAP_MIN_BYTES : Long.MAX_VALUE;
+      default:
+        throw new AssertionError();
+    }
+  }
+
   private static BytesRef readBytesRef(IndexInput in) throws IOException {
     BytesRef bytes = new BytesRef();
     bytes.length = in.readVInt();
@@ -253,7 +314,7 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   @Override
   public void close() throws IOException {
     try {
-      IOUtils.close(termsIn, postingsReader);
+      IOUtils.close(indexIn, termsIn, postingsReader);
     } finally { 
       // Clear so refs to terms index is GCable even if
       // app hangs onto us:
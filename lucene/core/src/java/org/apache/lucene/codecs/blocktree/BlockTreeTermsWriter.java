@@ -20,11 +20,13 @@ package org.apache.lucene.codecs.blocktree;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.lucene.codecs.BlockTermState;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.FieldsConsumer;
 import org.apache.lucene.codecs.PostingsWriterBase;
+import org.apache.lucene.codecs.blocktree.BlockTreeTermsReader.FSTLoadMode;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.Fields;
@@ -210,6 +212,7 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
   final int maxDoc;
   final int minItemsInBlock;
   final int maxItemsInBlock;
+  private final FSTLoadMode fstLoadMode;
 
   final PostingsWriterBase postingsWriter;
   final FieldInfos fieldInfos;
@@ -254,12 +257,28 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
                               int minItemsInBlock,
                               int maxItemsInBlock)
     throws IOException
+  {
+    this(state, postingsWriter, minItemsInBlock, maxItemsInBlock, FSTLoadMode.AUTO);
+  }
+
+  /** Create a new writer, whose terms index FSTs will be
+   *  loaded according to the given {@link FSTLoadMode} when
+   *  segments are opened. The mode is recorded in the
+   *  attributes of fields.
+   *  @lucene.experimental */
+  public BlockTreeTermsWriter(SegmentWriteState state,
+                              PostingsWriterBase postingsWriter,
+                              int minItemsInBlock,
+                              int maxItemsInBlock,
+                              FSTLoadMode fstLoadMode)
+    throws IOException
   {
     validateSettings(minItemsInBlock,
                      maxItemsInBlock);
 
     this.minItemsInBlock = minItemsInBlock;
     this.maxItemsInBlock = maxItemsInBlock;
+    this.fstLoadMode = Objects.requireNonNull(fstLoadMode);
 
     this.maxDoc = state.segmentInfo.maxDoc();
     this.fieldInfos = state.fieldInfos;
@@ -330,7 +349,12 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
       }
 
       TermsEnum termsEnum = terms.iterator();
-      TermsWriter termsWriter = new TermsWriter(fieldInfos.fieldInfo(field));
+      final FieldInfo fieldInfo = fieldInfos.fieldInfo(field);
+      // AUTO is the default, only record it if it overrides the mode of a merged segment
+      if (fstLoadMode != FSTLoadMode.AUTO || fieldInfo.getAttribute(BlockTreeTermsReader.FST_LOAD_MODE_KEY) != null) {
+        fieldInfo.putAttribute(BlockTreeTermsReader.FST_LOAD_MODE_KEY, fstLoadMode.name());
+      }
+      TermsWriter termsWriter = new TermsWriter(fieldInfo);
       while (true) {
         BytesRef term = termsEnum.next();
         //if (DEBUG) System.out.println("BTTW: next term " + term);
@@ -26,6 +26,7 @@ import org.apache.lucene.codecs.StoredFieldsWriter;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 
@@ -44,12 +45,19 @@ import org.apache.lucene.store.IOContext;
  */
 public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
 
+  /**
+   * Value of <code>largeValueThreshold</code> that disables separate
+   * compression of large values.
+   */
+  public static final int NO_LARGE_VALUES = Integer.MAX_VALUE;
+
   private final String formatName;
   private final String segmentSuffix;
   private final CompressionMode compressionMode;
   private final int chunkSize;
   private final int maxDocsPerChunk;
   private final int blockSize;
+  private final int largeValueThreshold;
 
   /**
    * Create a new {@link CompressingStoredFieldsFormat} with an empty segment 
@@ -98,6 +106,28 @@ public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
    */
   public CompressingStoredFieldsFormat(String formatName, String segmentSuffix, 
                                        CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize) {
+    this(formatName, segmentSuffix, compressionMode, chunkSize, maxDocsPerChunk, blockSize, NO_LARGE_VALUES);
+  }
+
+  /**
+   * Create a new {@link CompressingStoredFieldsFormat} that compresses large
+   * values separately from the rest of each chunk.
+   * <p>
+   * String values that have at least <code>largeValueThreshold</code> chars
+   * and binary values that have at least <code>largeValueThreshold</code>
+   * bytes are compressed in a separate block of their chunk. Loading a
+   * document only decompresses this block if the {@link StoredFieldVisitor}
+   * needs one of these values, so that retrieving a few small fields of
+   * documents that also have large fields, such as a title next to a body,
+   * doesn't need to decompress the large fields.
+   *
+   * @param largeValueThreshold the minimum length of values that should be
+   *        compressed separately, or {@link #NO_LARGE_VALUES}
+   * @see #CompressingStoredFieldsFormat(String, String, CompressionMode, int, int, int)
+   */
+  public CompressingStoredFieldsFormat(String formatName, String segmentSuffix, 
+                                       CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize,
+                                       int largeValueThreshold) {
     this.formatName = formatName;
     this.segmentSuffix = segmentSuffix;
     this.compressionMode = compressionMode;
@@ -113,6 +143,10 @@ public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
       throw new IllegalArgumentException("blockSize must be >= 1");
     }
     this.blockSize = blockSize;
+    if (largeValueThreshold < 1) {
+      throw new IllegalArgumentException("largeValueThreshold must be >= 1");
+    }
+    this.largeValueThreshold = largeValueThreshold;
   }
 
   @Override
@@ -126,13 +160,14 @@ public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
   public StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si,
       IOContext context) throws IOException {
     return new CompressingStoredFieldsWriter(directory, si, segmentSuffix, context,
-        formatName, compressionMode, chunkSize, maxDocsPerChunk, blockSize);
+        formatName, compressionMode, chunkSize, maxDocsPerChunk, blockSize, largeValueThreshold);
   }
 
   @Override
   public String toString() {
     return getClass().getSimpleName() + "(compressionMode=" + compressionMode
-        + ", chunkSize=" + chunkSize + ", maxDocsPerChunk=" + maxDocsPerChunk + ", blockSize=" + blockSize + ")";
+        + ", chunkSize=" + chunkSize + ", maxDocsPerChunk=" + maxDocsPerChunk + ", blockSize=" + blockSize
+        + (largeValueThreshold == NO_LARGE_VALUES ? "" : ", largeValueThreshold=" + largeValueThreshold) + ")";
   }
 
 }
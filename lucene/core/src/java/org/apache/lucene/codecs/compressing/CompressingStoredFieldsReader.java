@@ -26,6 +26,8 @@ import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.FIELDS_INDEX_EXTENSION;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.HOUR;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.HOUR_ENCODING;
+import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.LARGE_BYTE_ARR;
+import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.LARGE_STRING;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.NUMERIC_DOUBLE;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.NUMERIC_FLOAT;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.NUMERIC_INT;
@@ -36,6 +38,7 @@ import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.TYPE_BITS;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.TYPE_MASK;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.VERSION_CURRENT;
+import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.VERSION_LARGE_VALUES;
 import static org.apache.lucene.codecs.compressing.CompressingStoredFieldsWriter.VERSION_START;
 
 import java.io.EOFException;
@@ -205,12 +208,14 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   private static void readField(DataInput in, StoredFieldVisitor visitor, FieldInfo info, int bits) throws IOException {
     switch (bits & TYPE_MASK) {
       case BYTE_ARR:
+      case LARGE_BYTE_ARR:
         int length = in.readVInt();
         byte[] data = new byte[length];
         in.readBytes(data, 0, length);
         visitor.binaryField(info, data);
         break;
       case STRING:
+      case LARGE_STRING:
         length = in.readVInt();
         data = new byte[length];
         in.readBytes(data, 0, length);
@@ -237,6 +242,8 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     switch (bits & TYPE_MASK) {
       case BYTE_ARR:
       case STRING:
+      case LARGE_BYTE_ARR:
+      case LARGE_STRING:
         final int length = in.readVInt();
         in.skipBytes(length);
         break;
@@ -348,10 +355,31 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     // the number of stored fields
     final int numStoredFields;
 
-    private SerializedDocument(DataInput in, int length, int numStoredFields) {
+    // the number of bytes on which large values of the document are encoded
+    final int largeLength;
+
+    private final BlockState state;
+    private final int docID;
+
+    private SerializedDocument(DataInput in, int length, int numStoredFields, int largeLength, BlockState state, int docID) {
       this.in = in;
       this.length = length;
       this.numStoredFields = numStoredFields;
+      this.largeLength = largeLength;
+      this.state = state;
+      this.docID = docID;
+    }
+
+    /**
+     * Return the serialized large values of this document, in the order of
+     * the fields that reference them. This needs to be called before the
+     * next document is loaded.
+     */
+    DataInput largeValues() throws IOException {
+      if (largeLength == 0) {
+        return new ByteArrayDataInput();
+      }
+      return state.largeValues(docID);
     }
 
   }
@@ -366,14 +394,22 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     // whether the block has been sliced, this happens for large documents
     private boolean sliced;
 
+    // whether some values of the block have been compressed separately because they are large
+    private boolean hasLargeValues;
+
     private int[] offsets = IntsRef.EMPTY_INTS;
+    private int[] largeOffsets = IntsRef.EMPTY_INTS;
     private int[] numStoredFields = IntsRef.EMPTY_INTS;
 
+    // the start pointer at which you can read the compressed large values
+    private long largeStartPointer;
+
     // the start pointer at which you can read the compressed documents
     private long startPointer;
 
     private final BytesRef spare = new BytesRef();
     private final BytesRef bytes = new BytesRef();
+    private final BytesRef largeBytes = new BytesRef();
 
     boolean contains(int docID) {
       return docID >= docBase && docID < docBase + chunkDocs;
@@ -403,7 +439,13 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     private void doReset(int docID) throws IOException {
       docBase = fieldsStream.readVInt();
       final int token = fieldsStream.readVInt();
-      chunkDocs = token >>> 1;
+      if (version >= VERSION_LARGE_VALUES) {
+        chunkDocs = token >>> 2;
+        hasLargeValues = (token & 2) != 0;
+      } else {
+        chunkDocs = token >>> 1;
+        hasLargeValues = false;
+      }
       if (contains(docID) == false
           || docBase + chunkDocs > numDocs) {
         throw new CorruptIndexException("Corrupted: docID=" + docID
@@ -464,9 +506,29 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
 
       }
 
+      largeOffsets = ArrayUtil.grow(largeOffsets, chunkDocs + 1);
+      if (hasLargeValues) {
+        readLargeOffsets();
+        final int compressedLargeLength = fieldsStream.readVInt();
+        largeStartPointer = fieldsStream.getFilePointer();
+        fieldsStream.seek(largeStartPointer + compressedLargeLength);
+      } else {
+        Arrays.fill(largeOffsets, 0, chunkDocs + 1, 0);
+      }
+
       startPointer = fieldsStream.getFilePointer();
 
       if (merging) {
+        if (hasLargeValues) {
+          // decompress large values eagerly too
+          final int totalLargeLength = largeOffsets[chunkDocs];
+          fieldsStream.seek(largeStartPointer);
+          decompressor.decompress(fieldsStream, totalLargeLength, 0, totalLargeLength, largeBytes);
+          if (largeBytes.length != totalLargeLength) {
+            throw new CorruptIndexException("Corrupted: expected large values size = " + totalLargeLength + ", got " + largeBytes.length, fieldsStream);
+          }
+          fieldsStream.seek(startPointer);
+        }
         final int totalLength = offsets[chunkDocs];
         // decompress eagerly
         if (sliced) {
@@ -488,6 +550,52 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       }
     }
 
+    private void readLargeOffsets() throws IOException {
+      largeOffsets[0] = 0;
+      if (chunkDocs == 1) {
+        largeOffsets[1] = fieldsStream.readVInt();
+        return;
+      }
+      final int bitsPerLength = fieldsStream.readVInt();
+      if (bitsPerLength == 0) {
+        final int length = fieldsStream.readVInt();
+        for (int i = 0; i < chunkDocs; ++i) {
+          largeOffsets[1 + i] = (1 + i) * length;
+        }
+      } else if (bitsPerLength > 31) {
+        throw new CorruptIndexException("bitsPerLength=" + bitsPerLength, fieldsStream);
+      } else {
+        final PackedInts.ReaderIterator it = PackedInts.getReaderIteratorNoHeader(fieldsStream, PackedInts.Format.PACKED, packedIntsVersion, chunkDocs, bitsPerLength, 1);
+        for (int i = 0; i < chunkDocs; ++i) {
+          largeOffsets[i + 1] = largeOffsets[i] + (int) it.next();
+        }
+      }
+    }
+
+    /**
+     * Get the large values of the given docID. This docID has to be contained
+     * in the current block.
+     */
+    DataInput largeValues(int docID) throws IOException {
+      if (contains(docID) == false) {
+        throw new IllegalArgumentException();
+      }
+      final int index = docID - docBase;
+      final int offset = largeOffsets[index];
+      final int length = largeOffsets[index + 1] - offset;
+      if (merging) {
+        // already decompressed
+        return new ByteArrayDataInput(largeBytes.bytes, largeBytes.offset + offset, length);
+      }
+      // sliced documents are decompressed lazily, so we need to restore the file pointer
+      final long fp = fieldsStream.getFilePointer();
+      fieldsStream.seek(largeStartPointer);
+      decompressor.decompress(fieldsStream, largeOffsets[chunkDocs], offset, length, largeBytes);
+      fieldsStream.seek(fp);
+      assert largeBytes.length == length;
+      return new ByteArrayDataInput(largeBytes.bytes, largeBytes.offset, largeBytes.length);
+    }
+
     /**
      * Get the serialized representation of the given docID. This docID has
      * to be contained in the current block.
@@ -502,6 +610,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       final int length = offsets[index+1] - offset;
       final int totalLength = offsets[chunkDocs];
       final int numStoredFields = this.numStoredFields[index];
+      final int largeLength = largeOffsets[index + 1] - largeOffsets[index];
 
       final DataInput documentInput;
       if (length == 0) {
@@ -557,7 +666,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
       }
 
-      return new SerializedDocument(documentInput, length, numStoredFields);
+      return new SerializedDocument(documentInput, length, numStoredFields, largeLength, this, docID);
     }
 
   }
@@ -576,6 +685,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       throws IOException {
 
     final SerializedDocument doc = document(docID);
+    // large values are only decompressed if the visitor needs one of them
+    DataInput largeValues = null;
+    int numSkippedLargeValues = 0;
 
     for (int fieldIDX = 0; fieldIDX < doc.numStoredFields; fieldIDX++) {
       final long infoAndBits = doc.in.readVLong();
@@ -583,17 +695,34 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       final FieldInfo fieldInfo = fieldInfos.fieldInfo(fieldNumber);
 
       final int bits = (int) (infoAndBits & TYPE_MASK);
-      assert bits <= NUMERIC_DOUBLE: "bits=" + Integer.toHexString(bits);
+      assert bits <= LARGE_BYTE_ARR: "bits=" + Integer.toHexString(bits);
+      final boolean large = bits == LARGE_STRING || bits == LARGE_BYTE_ARR;
 
       switch(visitor.needsField(fieldInfo)) {
         case YES:
-          readField(doc.in, visitor, fieldInfo, bits);
+          if (large) {
+            if (largeValues == null) {
+              largeValues = doc.largeValues();
+              for (int i = 0; i < numSkippedLargeValues; ++i) {
+                skipField(largeValues, LARGE_BYTE_ARR);
+              }
+            }
+            readField(largeValues, visitor, fieldInfo, bits);
+          } else {
+            readField(doc.in, visitor, fieldInfo, bits);
+          }
           break;
         case NO:
           if (fieldIDX == doc.numStoredFields - 1) {// don't skipField on last field value; treat like STOP
             return;
           }
-          skipField(doc.in, bits);
+          if (large == false) {
+            skipField(doc.in, bits);
+          } else if (largeValues == null) {
+            numSkippedLargeValues++;
+          } else {
+            skipField(largeValues, bits);
+          }
           break;
         case STOP:
           return;
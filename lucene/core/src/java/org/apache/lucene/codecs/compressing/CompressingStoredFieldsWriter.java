@@ -67,14 +67,18 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
   static final int  NUMERIC_FLOAT = 0x03;
   static final int   NUMERIC_LONG = 0x04;
   static final int NUMERIC_DOUBLE = 0x05;
+  // string and binary values that are stored in the large values block of the chunk
+  static final int   LARGE_STRING = 0x06;
+  static final int LARGE_BYTE_ARR = 0x07;
 
-  static final int TYPE_BITS = PackedInts.bitsRequired(NUMERIC_DOUBLE);
+  static final int TYPE_BITS = PackedInts.bitsRequired(LARGE_BYTE_ARR);
   static final int TYPE_MASK = (int) PackedInts.maxValue(TYPE_BITS);
 
   static final String CODEC_SFX_IDX = "Index";
   static final String CODEC_SFX_DAT = "Data";
   static final int VERSION_START = 1;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_LARGE_VALUES = 2;
+  static final int VERSION_CURRENT = VERSION_LARGE_VALUES;
 
   private final String segment;
   private CompressingStoredFieldsIndexWriter indexWriter;
@@ -84,29 +88,45 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
   private final CompressionMode compressionMode;
   private final int chunkSize;
   private final int maxDocsPerChunk;
+  private final int largeValueThreshold;
 
   private final GrowableByteArrayDataOutput bufferedDocs;
+  private final GrowableByteArrayDataOutput bufferedLargeValues;
+  private final GrowableByteArrayDataOutput compressedLargeValues;
   private int[] numStoredFields; // number of stored fields
   private int[] endOffsets; // end offsets in bufferedDocs
+  private int[] largeEndOffsets; // end offsets in bufferedLargeValues
   private int docBase; // doc ID at the beginning of the chunk
   private int numBufferedDocs; // docBase + numBufferedDocs == current doc ID
   
   private long numChunks; // number of compressed blocks written
   private long numDirtyChunks; // number of incomplete compressed blocks written
 
-  /** Sole constructor. */
+  /** Create a writer that doesn't store large values separately. */
   public CompressingStoredFieldsWriter(Directory directory, SegmentInfo si, String segmentSuffix, IOContext context,
       String formatName, CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize) throws IOException {
+    this(directory, si, segmentSuffix, context, formatName, compressionMode, chunkSize, maxDocsPerChunk, blockSize,
+        CompressingStoredFieldsFormat.NO_LARGE_VALUES);
+  }
+
+  /** Sole constructor. */
+  public CompressingStoredFieldsWriter(Directory directory, SegmentInfo si, String segmentSuffix, IOContext context,
+      String formatName, CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize,
+      int largeValueThreshold) throws IOException {
     assert directory != null;
     this.segment = si.name;
     this.compressionMode = compressionMode;
     this.compressor = compressionMode.newCompressor();
     this.chunkSize = chunkSize;
     this.maxDocsPerChunk = maxDocsPerChunk;
+    this.largeValueThreshold = largeValueThreshold;
     this.docBase = 0;
     this.bufferedDocs = new GrowableByteArrayDataOutput(chunkSize);
+    this.bufferedLargeValues = new GrowableByteArrayDataOutput(16);
+    this.compressedLargeValues = new GrowableByteArrayDataOutput(16);
     this.numStoredFields = new int[16];
     this.endOffsets = new int[16];
+    this.largeEndOffsets = new int[16];
     this.numBufferedDocs = 0;
 
     boolean success = false;
@@ -160,10 +180,12 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
       final int newLength = ArrayUtil.oversize(numBufferedDocs + 1, 4);
       this.numStoredFields = Arrays.copyOf(this.numStoredFields, newLength);
       endOffsets = Arrays.copyOf(endOffsets, newLength);
+      largeEndOffsets = Arrays.copyOf(largeEndOffsets, newLength);
     }
     this.numStoredFields[numBufferedDocs] = numStoredFieldsInDoc;
     numStoredFieldsInDoc = 0;
     endOffsets[numBufferedDocs] = bufferedDocs.getPosition();
+    largeEndOffsets[numBufferedDocs] = bufferedLargeValues.getPosition();
     ++numBufferedDocs;
     if (triggerFlush()) {
       flush();
@@ -201,36 +223,62 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
     }
   }
 
-  private void writeHeader(int docBase, int numBufferedDocs, int[] numStoredFields, int[] lengths, boolean sliced) throws IOException {
+  private void writeHeader(int docBase, int numBufferedDocs, int[] numStoredFields, int[] lengths, int[] largeLengths, boolean sliced) throws IOException {
     final int slicedBit = sliced ? 1 : 0;
+    final int largeValuesBit = largeLengths != null ? 1 : 0;
     
     // save docBase and numBufferedDocs
     fieldsStream.writeVInt(docBase);
-    fieldsStream.writeVInt((numBufferedDocs) << 1 | slicedBit);
+    fieldsStream.writeVInt((numBufferedDocs) << 2 | largeValuesBit << 1 | slicedBit);
 
     // save numStoredFields
     saveInts(numStoredFields, numBufferedDocs, fieldsStream);
 
     // save lengths
     saveInts(lengths, numBufferedDocs, fieldsStream);
+
+    // save lengths of large values
+    if (largeLengths != null) {
+      saveInts(largeLengths, numBufferedDocs, fieldsStream);
+    }
   }
 
   private boolean triggerFlush() {
-    return bufferedDocs.getPosition() >= chunkSize || // chunks of at least chunkSize bytes
+    return bufferedDocs.getPosition() + bufferedLargeValues.getPosition() >= chunkSize || // chunks of at least chunkSize bytes
         numBufferedDocs >= maxDocsPerChunk;
   }
 
+  private static void toLengths(int[] endOffsets, int numBufferedDocs) {
+    for (int i = numBufferedDocs - 1; i > 0; --i) {
+      endOffsets[i] = endOffsets[i] - endOffsets[i - 1];
+      assert endOffsets[i] >= 0;
+    }
+  }
+
   private void flush() throws IOException {
     indexWriter.writeIndex(numBufferedDocs, fieldsStream.getFilePointer());
 
     // transform end offsets into lengths
     final int[] lengths = endOffsets;
-    for (int i = numBufferedDocs - 1; i > 0; --i) {
-      lengths[i] = endOffsets[i] - endOffsets[i - 1];
-      assert lengths[i] >= 0;
+    toLengths(lengths, numBufferedDocs);
+    final int[] largeLengths;
+    if (bufferedLargeValues.getPosition() > 0) {
+      largeLengths = largeEndOffsets;
+      toLengths(largeLengths, numBufferedDocs);
+    } else {
+      largeLengths = null;
     }
     final boolean sliced = bufferedDocs.getPosition() >= 2 * chunkSize;
-    writeHeader(docBase, numBufferedDocs, numStoredFields, lengths, sliced);
+    writeHeader(docBase, numBufferedDocs, numStoredFields, lengths, largeLengths, sliced);
+
+    // compress large values first, prefixed with their compressed length so
+    // that readers that don't need them can skip them
+    if (largeLengths != null) {
+      compressedLargeValues.reset();
+      compressor.compress(bufferedLargeValues.getBytes(), 0, bufferedLargeValues.getPosition(), compressedLargeValues);
+      fieldsStream.writeVInt(compressedLargeValues.getPosition());
+      fieldsStream.writeBytes(compressedLargeValues.getBytes(), compressedLargeValues.getPosition());
+    }
 
     // compress stored fields to fieldsStream
     if (sliced) {
@@ -246,6 +294,7 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
     docBase += numBufferedDocs;
     numBufferedDocs = 0;
     bufferedDocs.reset();
+    bufferedLargeValues.reset();
     numChunks++;
   }
   
@@ -288,10 +337,21 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
       }
     }
 
+    if (bytes != null && bytes.length >= largeValueThreshold) {
+      bits = LARGE_BYTE_ARR;
+    } else if (string != null && string.length() >= largeValueThreshold) {
+      bits = LARGE_STRING;
+    }
+
     final long infoAndBits = (((long) info.number) << TYPE_BITS) | bits;
     bufferedDocs.writeVLong(infoAndBits);
 
-    if (bytes != null) {
+    if (bits == LARGE_BYTE_ARR) {
+      bufferedLargeValues.writeVInt(bytes.length);
+      bufferedLargeValues.writeBytes(bytes.bytes, bytes.offset, bytes.length);
+    } else if (bits == LARGE_STRING) {
+      bufferedLargeValues.writeString(string);
+    } else if (bytes != null) {
       bufferedDocs.writeVInt(bytes.length);
       bufferedDocs.writeBytes(bytes.bytes, bytes.offset, bytes.length);
     } else if (string != null) {
@@ -466,6 +526,7 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
       numDirtyChunks++; // incomplete: we had to force this flush
     } else {
       assert bufferedDocs.getPosition() == 0;
+      assert bufferedLargeValues.getPosition() == 0;
     }
     if (docBase != numDocs) {
       throw new RuntimeException("Wrote " + docBase + " docs, finish called with numDocs=" + numDocs);
@@ -523,8 +584,7 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
         assert sub.mappedDocID == docCount;
         SerializedDocument doc = sub.reader.document(sub.docID);
         startDocument();
-        bufferedDocs.copyBytes(doc.in, doc.length);
-        numStoredFieldsInDoc = doc.numStoredFields;
+        copySerializedDocument(doc);
         finishDocument();
         ++docCount;
       }
@@ -596,7 +656,7 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
           int code = rawDocs.readVInt();
           
           // write a new index entry and new header for this chunk.
-          int bufferedDocs = code >>> 1;
+          int bufferedDocs = code >>> 2;
           indexWriter.writeIndex(bufferedDocs, fieldsStream.getFilePointer());
           fieldsStream.writeVInt(docBase); // rebase
           fieldsStream.writeVInt(code);
@@ -641,8 +701,7 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
           }
           SerializedDocument doc = matchingFieldsReader.document(docID);
           startDocument();
-          bufferedDocs.copyBytes(doc.in, doc.length);
-          numStoredFieldsInDoc = doc.numStoredFields;
+          copySerializedDocument(doc);
           finishDocument();
           ++docCount;
         }
@@ -652,6 +711,15 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
     return docCount;
   }
   
+  private void copySerializedDocument(SerializedDocument doc) throws IOException {
+    bufferedDocs.copyBytes(doc.in, doc.length);
+    if (doc.largeLength > 0) {
+      // large values are kept apart, regardless of this writer's threshold
+      bufferedLargeValues.copyBytes(doc.largeValues(), doc.largeLength);
+    }
+    numStoredFieldsInDoc = doc.numStoredFields;
+  }
+
   /** 
    * Returns true if we should recompress this reader, even though we could bulk merge compressed data 
    * <p>
@@ -25,6 +25,7 @@ import java.util.zip.Inflater;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.GrowableByteArrayDataOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 
@@ -113,6 +114,60 @@ public abstract class CompressionMode {
 
   };
 
+  /**
+   * This compression mode is similar to {@link #FAST} but it splits every
+   * chunk into a small dictionary and about ten sub-blocks that are compressed
+   * independently, each of them using the dictionary as a preset dictionary.
+   * Retrieving a single document only needs to decompress the dictionary and
+   * the sub-blocks that the document overlaps, which makes larger chunks, and
+   * hence better compression ratios, affordable.
+   */
+  public static final CompressionMode FAST_WITH_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new LZ4WithPresetDictCompressor();
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new LZ4WithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "FAST_WITH_PRESET_DICT";
+    }
+
+  };
+
+  /**
+   * This compression mode is similar to {@link #HIGH_COMPRESSION} but it
+   * splits every chunk into a small dictionary and about ten sub-blocks that
+   * are compressed independently, each of them using the dictionary as a
+   * preset dictionary. This mode is best used with large chunks, since
+   * retrieving a single document only needs to decompress the dictionary and
+   * the sub-blocks that the document overlaps.
+   */
+  public static final CompressionMode HIGH_COMPRESSION_WITH_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new DeflateWithPresetDictCompressor(6);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "HIGH_COMPRESSION_WITH_PRESET_DICT";
+    }
+
+  };
+
   /** Sole constructor. */
   protected CompressionMode() {}
 
@@ -296,4 +351,286 @@ public abstract class CompressionMode {
 
   }
 
+  // Chunks that are compressed with a preset dictionary are split into a
+  // dictionary, which consists of the first bytes of the chunk, and
+  // NUM_SUB_BLOCKS sub-blocks for the rest of the chunk. The format is:
+  //  - VInt: the dictionary length
+  //  - VInt: the sub-block length (the last sub-block may be shorter)
+  //  - VInt: the compressed length of the dictionary, then of each sub-block
+  //  - the compressed dictionary, then the compressed sub-blocks
+  // The dictionary is compressed on its own and every sub-block is compressed
+  // using the dictionary as a preset dictionary.
+
+  static final int NUM_SUB_BLOCKS = 10;
+  // the dictionary is 1/DICT_SIZE_FACTOR of the size of a sub-block
+  static final int DICT_SIZE_FACTOR = 6;
+  // don't split small chunks into tiny sub-blocks, the overhead would outweigh the gains
+  static final int MIN_SUB_BLOCK_LENGTH = 64;
+
+  private static abstract class PresetDictCompressor extends Compressor {
+
+    private final GrowableByteArrayDataOutput compressed;
+    private int[] compressedLengths;
+    byte[] buffer;
+
+    PresetDictCompressor() {
+      compressed = new GrowableByteArrayDataOutput(64);
+      compressedLengths = new int[NUM_SUB_BLOCKS + 1];
+      buffer = BytesRef.EMPTY_BYTES;
+    }
+
+    /**
+     * Compress <code>buffer[dictLength:dictLength+len]</code> into
+     * <code>out</code>, using <code>buffer[0:dictLength]</code> as a preset
+     * dictionary.
+     */
+    abstract void compress(int dictLength, int len, DataOutput out) throws IOException;
+
+    @Override
+    public final void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = len / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+      final int blockLength = Math.max(MIN_SUB_BLOCK_LENGTH, (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+      compressed.reset();
+      int numCompressed = 0;
+
+      // the dictionary
+      System.arraycopy(bytes, off, buffer, 0, dictLength);
+      compress(0, dictLength, compressed);
+      compressedLengths[numCompressed++] = compressed.getPosition();
+
+      // the sub-blocks, each of them right after the dictionary in the buffer
+      for (int start = off + dictLength, end = off + len; start < end; start += blockLength) {
+        final int l = Math.min(blockLength, end - start);
+        System.arraycopy(bytes, start, buffer, dictLength, l);
+        compress(dictLength, l, compressed);
+        compressedLengths = ArrayUtil.grow(compressedLengths, numCompressed + 1);
+        compressedLengths[numCompressed++] = compressed.getPosition();
+      }
+
+      for (int i = 0, previous = 0; i < numCompressed; ++i) {
+        out.writeVInt(compressedLengths[i] - previous);
+        previous = compressedLengths[i];
+      }
+      out.writeBytes(compressed.getBytes(), compressed.getPosition());
+    }
+
+  }
+
+  private static abstract class PresetDictDecompressor extends Decompressor {
+
+    private int[] compressedLengths;
+    byte[] buffer;
+
+    PresetDictDecompressor() {
+      compressedLengths = new int[NUM_SUB_BLOCKS + 1];
+      buffer = BytesRef.EMPTY_BYTES;
+    }
+
+    /**
+     * Decompress a block of <code>compressedLength</code> bytes from
+     * <code>in</code> into <code>buffer[dictLength:dictLength+length]</code>,
+     * using <code>buffer[0:dictLength]</code> as a preset dictionary.
+     */
+    abstract void decompress(DataInput in, int compressedLength, int dictLength, int length) throws IOException;
+
+    @Override
+    public final void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || (originalLength > dictLength && blockLength <= 0)) {
+        throw new CorruptIndexException("Invalid dictionary or block length: " + dictLength + ", " + blockLength, in);
+      }
+      final int numBlocks = originalLength == dictLength
+          ? 0
+          : (originalLength - dictLength + blockLength - 1) / blockLength;
+      compressedLengths = ArrayUtil.grow(compressedLengths, numBlocks + 1);
+      for (int i = 0; i <= numBlocks; ++i) {
+        compressedLengths[i] = in.readVInt();
+      }
+
+      // add 7 padding bytes, this is not necessary but can help LZ4 decompression run faster
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength + 7);
+      decompress(in, compressedLengths[0], 0, dictLength);
+
+      // the output starts at the beginning of the first block that contains offset,
+      // the dictionary being the first block
+      bytes.offset = bytes.length = 0;
+      final int firstBlock;
+      if (offset < dictLength) {
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+        System.arraycopy(buffer, 0, bytes.bytes, 0, dictLength);
+        bytes.length = dictLength;
+        bytes.offset = offset;
+        firstBlock = 0;
+      } else {
+        firstBlock = (offset - dictLength) / blockLength;
+        bytes.offset = offset - dictLength - firstBlock * blockLength;
+        // skip the sub-blocks that we don't need
+        long toSkip = 0;
+        for (int i = 1; i <= firstBlock; ++i) {
+          toSkip += compressedLengths[i];
+        }
+        in.skipBytes(toSkip);
+      }
+
+      // decompress the sub-blocks that intersect with the requested range
+      final int end = offset + length;
+      for (int block = firstBlock, start = dictLength + firstBlock * blockLength; block < numBlocks && start < end; ++block, start += blockLength) {
+        final int l = Math.min(blockLength, originalLength - start);
+        decompress(in, compressedLengths[block + 1], dictLength, l);
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + l);
+        System.arraycopy(buffer, dictLength, bytes.bytes, bytes.length, l);
+        bytes.length += l;
+      }
+
+      if (bytes.offset + length > bytes.length) {
+        throw new CorruptIndexException("Corrupted: lengths mismatch: " + (bytes.offset + length) + " > " + bytes.length, in);
+      }
+      bytes.length = length;
+    }
+
+  }
+
+  private static final class LZ4WithPresetDictCompressor extends PresetDictCompressor {
+
+    private final LZ4.HashTable ht;
+
+    LZ4WithPresetDictCompressor() {
+      ht = new LZ4.HashTable();
+    }
+
+    @Override
+    void compress(int dictLength, int len, DataOutput out) throws IOException {
+      LZ4.compressWithDictionary(buffer, 0, dictLength, len, out, ht);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // no-op
+    }
+  }
+
+  private static final class LZ4WithPresetDictDecompressor extends PresetDictDecompressor {
+
+    @Override
+    void decompress(DataInput in, int compressedLength, int dictLength, int length) throws IOException {
+      final int decompressedEnd = LZ4.decompress(in, dictLength + length, buffer, dictLength);
+      if (decompressedEnd != dictLength + length) {
+        throw new CorruptIndexException("Corrupted: lengths mismatch: " + (decompressedEnd - dictLength) + " != " + length, in);
+      }
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new LZ4WithPresetDictDecompressor();
+    }
+  }
+
+  private static final class DeflateWithPresetDictCompressor extends PresetDictCompressor {
+
+    final Deflater compressor;
+    byte[] compressed;
+    boolean closed;
+
+    DeflateWithPresetDictCompressor(int level) {
+      compressor = new Deflater(level, true);
+      compressed = new byte[64];
+    }
+
+    @Override
+    void compress(int dictLength, int len, DataOutput out) throws IOException {
+      compressor.reset();
+      if (dictLength > 0) {
+        compressor.setDictionary(buffer, 0, dictLength);
+      }
+      compressor.setInput(buffer, dictLength, len);
+      compressor.finish();
+
+      if (compressor.needsInput()) {
+        // no output
+        assert len == 0 : len;
+        return;
+      }
+
+      int totalCount = 0;
+      for (;;) {
+        final int count = compressor.deflate(compressed, totalCount, compressed.length - totalCount);
+        totalCount += count;
+        assert totalCount <= compressed.length;
+        if (compressor.finished()) {
+          break;
+        } else {
+          compressed = ArrayUtil.grow(compressed);
+        }
+      }
+
+      out.writeBytes(compressed, totalCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        compressor.end();
+        closed = true;
+      }
+    }
+  }
+
+  private static final class DeflateWithPresetDictDecompressor extends PresetDictDecompressor {
+
+    byte[] compressed;
+
+    DeflateWithPresetDictDecompressor() {
+      compressed = new byte[0];
+    }
+
+    @Override
+    void decompress(DataInput in, int compressedLength, int dictLength, int length) throws IOException {
+      if (compressedLength == 0) {
+        if (length != 0) {
+          throw new CorruptIndexException("Lengths mismatch: 0 != " + length, in);
+        }
+        return;
+      }
+      // pad with extra "dummy byte": see javadocs for using Inflater(true)
+      final int paddedLength = compressedLength + 1;
+      compressed = ArrayUtil.grow(compressed, paddedLength);
+      in.readBytes(compressed, 0, compressedLength);
+      compressed[compressedLength] = 0; // explicitly set dummy byte to 0
+
+      final Inflater decompressor = new Inflater(true);
+      try {
+        if (dictLength > 0) {
+          decompressor.setDictionary(buffer, 0, dictLength);
+        }
+        decompressor.setInput(compressed, 0, paddedLength);
+        final int decompressedLength;
+        try {
+          decompressedLength = decompressor.inflate(buffer, dictLength, length);
+        } catch (DataFormatException e) {
+          throw new IOException(e);
+        }
+        if (!decompressor.finished()) {
+          throw new CorruptIndexException("Invalid decoder state: needsInput=" + decompressor.needsInput()
+                                                              + ", needsDict=" + decompressor.needsDictionary(), in);
+        }
+        if (decompressedLength != length) {
+          throw new CorruptIndexException("Lengths mismatch: " + decompressedLength + " != " + length, in);
+        }
+      } finally {
+        decompressor.end();
+      }
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+  }
+
 }
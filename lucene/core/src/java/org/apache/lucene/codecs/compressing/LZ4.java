@@ -204,20 +204,46 @@ final class LZ4 {
    * but can safely be reused.
    */
   public static void compress(byte[] bytes, int off, int len, DataOutput out, HashTable ht) throws IOException {
+    compressWithDictionary(bytes, off, 0, len, out, ht);
+  }
+
+  /**
+   * Compress <code>bytes[dictOff+dictLen:dictOff+dictLen+len]</code> into
+   * <code>out</code> using at most 16KB of memory.
+   * <code>bytes[dictOff:dictOff+dictLen]</code> is used as a preset dictionary:
+   * matches may refer to it but it is not written to <code>out</code>, so the
+   * decompressor needs to have the same bytes right before the destination
+   * offset, see {@link #decompress(DataInput, int, byte[], int)}. Only the last
+   * 64KB of the dictionary can be referenced. <code>ht</code> shouldn't be
+   * shared across threads but can safely be reused.
+   */
+  public static void compressWithDictionary(byte[] bytes, int dictOff, int dictLen, int len, DataOutput out, HashTable ht) throws IOException {
 
-    final int base = off;
-    final int end = off + len;
+    final int base = dictOff;
+    final int end = dictOff + dictLen + len;
 
-    int anchor = off++;
+    int off = dictOff + dictLen;
+    int anchor = off;
 
     if (len > LAST_LITERALS + MIN_MATCH) {
 
       final int limit = end - LAST_LITERALS;
       final int matchLimit = limit - MIN_MATCH;
-      ht.reset(len);
+      ht.reset(dictLen + len);
       final int hashLog = ht.hashLog;
       final PackedInts.Mutable hashTable = ht.hashTable;
 
+      if (dictLen == 0) {
+        // the first position can't have a match
+        ++off;
+      } else {
+        // index the dictionary so that the first bytes can already find matches
+        for (int i = Math.max(dictOff, off - MAX_DISTANCE + 1); i + MIN_MATCH <= off; ++i) {
+          final int h = hash(readInt(bytes, i), hashLog);
+          hashTable.set(h, i - base);
+        }
+      }
+
       main:
       while (off <= limit) {
         // find a match
@@ -33,12 +33,12 @@ import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZ
  * Encode all values in normal area with fixed bit width, 
  * which is determined by the max value in this block.
  */
-final class ForUtil {
+class ForUtil {
 
   /**
    * Special number of bits per value used whenever all values to encode are equal.
    */
-  private static final int ALL_VALUES_EQUAL = 0;
+  static final int ALL_VALUES_EQUAL = 0;
 
   /**
    * Upper limit of the number of bytes that might be required to stored
@@ -163,16 +163,8 @@ final class ForUtil {
 
     final int numBits = bitsRequired(data);
     assert numBits > 0 && numBits <= 32 : numBits;
-    final PackedInts.Encoder encoder = encoders[numBits];
-    final int iters = iterations[numBits];
-    assert iters * encoder.byteValueCount() >= BLOCK_SIZE;
-    final int encodedSize = encodedSizes[numBits];
-    assert iters * encoder.byteBlockCount() >= encodedSize;
-
     out.writeByte((byte) numBits);
-
-    encoder.encode(data, 0, encoded, 0, iters);
-    out.writeBytes(encoded, encodedSize);
+    encode(data, numBits, encoded, out);
   }
 
   /**
@@ -193,14 +185,7 @@ final class ForUtil {
       return;
     }
 
-    final int encodedSize = encodedSizes[numBits];
-    in.readBytes(encoded, 0, encodedSize);
-
-    final PackedInts.Decoder decoder = decoders[numBits];
-    final int iters = iterations[numBits];
-    assert iters * decoder.byteValueCount() >= BLOCK_SIZE;
-
-    decoder.decode(encoded, 0, decoded, 0, iters);
+    decode(in, numBits, encoded, decoded);
   }
 
   /**
@@ -220,7 +205,45 @@ final class ForUtil {
     in.seek(in.getFilePointer() + encodedSize);
   }
 
-  private static boolean isAllEqual(final int[] data) {
+  /**
+   * Pack <code>BLOCK_SIZE</code> values using <code>numBits</code> bits per value,
+   * without any header.
+   */
+  final void encode(int[] data, int numBits, byte[] encoded, IndexOutput out) throws IOException {
+    final PackedInts.Encoder encoder = encoders[numBits];
+    final int iters = iterations[numBits];
+    assert iters * encoder.byteValueCount() >= BLOCK_SIZE;
+    final int encodedSize = encodedSizes[numBits];
+    assert iters * encoder.byteBlockCount() >= encodedSize;
+
+    encoder.encode(data, 0, encoded, 0, iters);
+    out.writeBytes(encoded, encodedSize);
+  }
+
+  /**
+   * Read back <code>BLOCK_SIZE</code> values that were written with
+   * {@link #encode(int[], int, byte[], IndexOutput)}.
+   */
+  final void decode(IndexInput in, int numBits, byte[] encoded, int[] decoded) throws IOException {
+    final int encodedSize = encodedSizes[numBits];
+    in.readBytes(encoded, 0, encodedSize);
+
+    final PackedInts.Decoder decoder = decoders[numBits];
+    final int iters = iterations[numBits];
+    assert iters * decoder.byteValueCount() >= BLOCK_SIZE;
+
+    decoder.decode(encoded, 0, decoded, 0, iters);
+  }
+
+  /**
+   * Return the number of bytes that {@link #encode(int[], int, byte[], IndexOutput)}
+   * writes for <code>numBits</code> bits per value.
+   */
+  final int encodedSize(int numBits) {
+    return encodedSizes[numBits];
+  }
+
+  static boolean isAllEqual(final int[] data) {
     final int v = data[0];
     for (int i = 1; i < BLOCK_SIZE; ++i) {
       if (data[i] != v) {
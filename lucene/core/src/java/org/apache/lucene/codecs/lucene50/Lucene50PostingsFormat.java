@@ -19,6 +19,7 @@ package org.apache.lucene.codecs.lucene50;
 
 
 import java.io.IOException;
+import java.util.Objects;
 
 import org.apache.lucene.codecs.BlockTermState;
 import org.apache.lucene.codecs.CodecUtil;
@@ -29,6 +30,7 @@ import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.PostingsReaderBase;
 import org.apache.lucene.codecs.PostingsWriterBase;
 import org.apache.lucene.codecs.blocktree.BlockTreeTermsReader;
+import org.apache.lucene.codecs.blocktree.BlockTreeTermsReader.FSTLoadMode;
 import org.apache.lucene.codecs.blocktree.BlockTreeTermsWriter;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentReadState;
@@ -50,6 +52,9 @@ import org.apache.lucene.util.packed.PackedInts;
  *   <p>In packed blocks, integers are encoded with the same bit width ({@link PackedInts packed format}):
  *      the block size (i.e. number of integers inside block) is fixed (currently 128). Additionally blocks
  *      that are all the same value are encoded in an optimized way.</p>
+ *   <p>With {@link BlockEncoding#PFOR}, up to 7 of the largest integers of a packed block are stored
+ *      as exceptions (patched frame of reference), so that a few outliers don't increase the bit width
+ *      of the whole block.</p>
  *   <p>In VInt blocks, integers are encoded as {@link DataOutput#writeVInt VInt}:
  *      the block size is variable.</p>
  *   </li>
@@ -197,7 +202,8 @@ import org.apache.lucene.util.packed.PackedInts;
  *   <li>SkipLevel --&gt; &lt;SkipDatum&gt; <sup>TrimmedDocFreq/(PackedBlockSize^(Level + 1))</sup></li>
  *   <li>SkipDatum --&gt; DocSkip, DocFPSkip, &lt;PosFPSkip, PosBlockOffset, PayLength?, 
  *                        PayFPSkip?&gt;?, SkipChildLevelPointer?</li>
- *   <li>PackedDocDeltaBlock, PackedFreqBlock --&gt; {@link PackedInts PackedInts}</li>
+ *   <li>PackedDocDeltaBlock, PackedFreqBlock --&gt; {@link PackedInts PackedInts}, followed by
+ *       its exceptions for {@link BlockEncoding#PFOR}</li>
  *   <li>DocDelta, Freq, DocSkip, DocFPSkip, PosFPSkip, PosBlockOffset, PayByteUpto, PayFPSkip 
  *       --&gt; 
  *   {@link DataOutput#writeVInt VInt}</li>
@@ -206,6 +212,8 @@ import org.apache.lucene.util.packed.PackedInts;
  * </ul>
  * <p>Notes:
  * <ul>
+ *   <li>The Header is followed by one byte that records the {@link BlockEncoding} of all
+ *       packed blocks of the .doc, .pos and .pay files of the segment.</li>
  *   <li>PackedDocDeltaBlock is theoretically generated from two steps: 
  *     <ol>
  *       <li>Calculate the difference between each document number and previous one, 
@@ -384,10 +392,22 @@ public final class Lucene50PostingsFormat extends PostingsFormat {
 
   // Increment version to change it
   final static int VERSION_START = 0;
-  final static int VERSION_CURRENT = VERSION_START;
+  final static int VERSION_BLOCK_ENCODING = 1;
+  final static int VERSION_CURRENT = VERSION_BLOCK_ENCODING;
+
+  /** Encoding of packed blocks of doc deltas, freqs, positions, payload lengths and offsets. */
+  public static enum BlockEncoding {
+    /** Frame of reference: all values of a block are packed with the bit width of the largest one. */
+    FOR,
+    /** Patched frame of reference: a few of the largest values of a block are stored as exceptions,
+     *  so that the others can be packed with fewer bits. This usually makes postings smaller. */
+    PFOR
+  }
 
   private final int minTermBlockSize;
   private final int maxTermBlockSize;
+  private final BlockEncoding blockEncoding;
+  private final FSTLoadMode fstLoadMode;
 
   /**
    * Fixed packed block size, number of integers encoded in 
@@ -402,32 +422,64 @@ public final class Lucene50PostingsFormat extends PostingsFormat {
     this(BlockTreeTermsWriter.DEFAULT_MIN_BLOCK_SIZE, BlockTreeTermsWriter.DEFAULT_MAX_BLOCK_SIZE);
   }
 
+  /** Creates {@code Lucene50PostingsFormat} with default
+   *  settings and the given encoding of packed blocks. Segments
+   *  record their encoding, so they can be read whatever
+   *  encoding the reading format was created with. */
+  public Lucene50PostingsFormat(BlockEncoding blockEncoding) {
+    this(BlockTreeTermsWriter.DEFAULT_MIN_BLOCK_SIZE, BlockTreeTermsWriter.DEFAULT_MAX_BLOCK_SIZE, blockEncoding);
+  }
+
   /** Creates {@code Lucene50PostingsFormat} with custom
    *  values for {@code minBlockSize} and {@code
    *  maxBlockSize} passed to block terms dictionary.
    *  @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int) */
   public Lucene50PostingsFormat(int minTermBlockSize, int maxTermBlockSize) {
+    this(minTermBlockSize, maxTermBlockSize, BlockEncoding.FOR);
+  }
+
+  /** Creates {@code Lucene50PostingsFormat} with custom
+   *  values for {@code minBlockSize} and {@code
+   *  maxBlockSize} passed to block terms dictionary, and
+   *  the given encoding of packed blocks.
+   *  @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int) */
+  public Lucene50PostingsFormat(int minTermBlockSize, int maxTermBlockSize, BlockEncoding blockEncoding) {
+    this(minTermBlockSize, maxTermBlockSize, blockEncoding, FSTLoadMode.AUTO);
+  }
+
+  /** Creates {@code Lucene50PostingsFormat} with custom
+   *  values for {@code minBlockSize} and {@code
+   *  maxBlockSize} passed to block terms dictionary, the
+   *  given encoding of packed blocks, and the given way to
+   *  load the terms index of fields when segments are opened.
+   *  For instance {@link FSTLoadMode#OFF_HEAP} saves heap on
+   *  fields that have many unique terms, such as IDs.
+   *  @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int,FSTLoadMode) */
+  public Lucene50PostingsFormat(int minTermBlockSize, int maxTermBlockSize, BlockEncoding blockEncoding, FSTLoadMode fstLoadMode) {
     super("Lucene50");
     BlockTreeTermsWriter.validateSettings(minTermBlockSize, maxTermBlockSize);
     this.minTermBlockSize = minTermBlockSize;
     this.maxTermBlockSize = maxTermBlockSize;
+    this.blockEncoding = Objects.requireNonNull(blockEncoding);
+    this.fstLoadMode = Objects.requireNonNull(fstLoadMode);
   }
 
   @Override
   public String toString() {
-    return getName() + "(blocksize=" + BLOCK_SIZE + ")";
+    return getName() + "(blocksize=" + BLOCK_SIZE + ",encoding=" + blockEncoding + ")";
   }
 
   @Override
   public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
-    PostingsWriterBase postingsWriter = new Lucene50PostingsWriter(state);
+    PostingsWriterBase postingsWriter = new Lucene50PostingsWriter(state, blockEncoding);
 
     boolean success = false;
     try {
       FieldsConsumer ret = new BlockTreeTermsWriter(state, 
                                                     postingsWriter,
                                                     minTermBlockSize, 
-                                                    maxTermBlockSize);
+                                                    maxTermBlockSize,
+                                                    fstLoadMode);
       success = true;
       return ret;
     } finally {
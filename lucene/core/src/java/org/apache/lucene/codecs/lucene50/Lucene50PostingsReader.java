@@ -23,7 +23,9 @@ import java.util.Arrays;
 import org.apache.lucene.codecs.BlockTermState;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.PostingsReaderBase;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BlockEncoding;
 import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.IntBlockTermState;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
@@ -44,6 +46,7 @@ import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.MAX_SKIP_
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.PAY_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.POS_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.TERMS_CODEC;
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_BLOCK_ENCODING;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_CURRENT;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_START;
 
@@ -80,7 +83,15 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     try {
       docIn = state.directory.openInput(docName, state.context);
       version = CodecUtil.checkIndexHeader(docIn, DOC_CODEC, VERSION_START, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
-      forUtil = new ForUtil(docIn);
+      BlockEncoding blockEncoding = BlockEncoding.FOR;
+      if (version >= VERSION_BLOCK_ENCODING) {
+        final int ordinal = docIn.readByte();
+        if (ordinal < 0 || ordinal >= BlockEncoding.values().length) {
+          throw new CorruptIndexException("invalid block encoding: " + ordinal, docIn);
+        }
+        blockEncoding = BlockEncoding.values()[ordinal];
+      }
+      forUtil = blockEncoding == BlockEncoding.PFOR ? new PForUtil(docIn) : new ForUtil(docIn);
       CodecUtil.retrieveChecksum(docIn);
 
       if (state.fieldInfos.hasProx()) {
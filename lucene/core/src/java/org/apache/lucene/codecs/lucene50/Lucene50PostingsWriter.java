@@ -32,6 +32,7 @@ import java.io.IOException;
 import org.apache.lucene.codecs.BlockTermState;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.PushPostingsWriterBase;
+import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BlockEncoding;
 import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.IntBlockTermState;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.FieldInfo;
@@ -99,6 +100,11 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
   
   /** Creates a postings writer */
   public Lucene50PostingsWriter(SegmentWriteState state) throws IOException {
+    this(state, BlockEncoding.FOR);
+  }
+
+  /** Creates a postings writer that encodes packed blocks with the given encoding */
+  public Lucene50PostingsWriter(SegmentWriteState state, BlockEncoding blockEncoding) throws IOException {
     final float acceptableOverheadRatio = PackedInts.COMPACT;
 
     String docFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.DOC_EXTENSION);
@@ -109,7 +115,17 @@ public final class Lucene50PostingsWriter extends PushPostingsWriterBase {
     try {
       CodecUtil.writeIndexHeader(docOut, DOC_CODEC, VERSION_CURRENT, 
                                    state.segmentInfo.getId(), state.segmentSuffix);
-      forUtil = new ForUtil(acceptableOverheadRatio, docOut);
+      docOut.writeByte((byte) blockEncoding.ordinal());
+      switch (blockEncoding) {
+        case FOR:
+          forUtil = new ForUtil(acceptableOverheadRatio, docOut);
+          break;
+        case PFOR:
+          forUtil = new PForUtil(acceptableOverheadRatio, docOut);
+          break;
+        default:
+          throw new AssertionError();
+      }
       if (state.fieldInfos.hasProx()) {
         posDeltaBuffer = new int[MAX_DATA_SIZE];
         String posFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.POS_EXTENSION);
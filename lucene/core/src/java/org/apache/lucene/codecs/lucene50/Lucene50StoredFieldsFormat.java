@@ -75,9 +75,10 @@ import org.apache.lucene.util.packed.PackedInts;
  * <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
  * <li>PackedIntsVersion --&gt; {@link PackedInts#VERSION_CURRENT} as a {@link DataOutput#writeVInt VInt}</li>
  * <li>ChunkCount is not known in advance and is the number of chunks necessary to store all document of the segment</li>
- * <li>Chunk --&gt; DocBase, ChunkDocs, DocFieldCounts, DocLengths, &lt;CompressedDocs&gt;</li>
+ * <li>Chunk --&gt; DocBase, ChunkDocs, DocFieldCounts, DocLengths, &lt;LargeValues&gt;?, &lt;CompressedDocs&gt;</li>
  * <li>DocBase --&gt; the ID of the first document of the chunk as a {@link DataOutput#writeVInt VInt}</li>
- * <li>ChunkDocs --&gt; the number of documents in the chunk as a {@link DataOutput#writeVInt VInt}</li>
+ * <li>ChunkDocs --&gt; the number of documents in the chunk shifted by 2 bits as a {@link DataOutput#writeVInt VInt}.
+ *   The second lowest bit tells whether the chunk has LargeValues and the lowest bit whether it is sliced.</li>
  * <li>DocFieldCounts --&gt; the number of stored fields of every document in the chunk, encoded as followed:<ul>
  *   <li>if chunkDocs=1, the unique value is encoded as a {@link DataOutput#writeVInt VInt}</li>
  *   <li>else read a {@link DataOutput#writeVInt VInt} (let's call it <tt>bitsRequired</tt>)<ul>
@@ -86,6 +87,11 @@ import org.apache.lucene.util.packed.PackedInts;
  *   </ul></li>
  * </ul></li>
  * <li>DocLengths --&gt; the lengths of all documents in the chunk, encoded with the same method as DocFieldCounts</li>
+ * <li>LargeValues --&gt; LargeValueLengths, CompressedLargeValuesLength, CompressedLargeValues</li>
+ * <li>LargeValueLengths --&gt; the lengths of the large values of all documents in the chunk, encoded with the same method as DocFieldCounts</li>
+ * <li>CompressedLargeValuesLength --&gt; the length of CompressedLargeValues as a {@link DataOutput#writeVInt VInt}</li>
+ * <li>CompressedLargeValues --&gt; a compressed representation of the large values of all documents in the chunk,
+ *   each of them encoded like a BinaryValue. This format never writes large values but can read them.</li>
  * <li>CompressedDocs --&gt; a compressed representation of &lt;Docs&gt; using the LZ4 compression format</li>
  * <li>Docs --&gt; &lt;Doc&gt;<sup>ChunkDocs</sup></li>
  * <li>Doc --&gt; &lt;FieldNumAndType, Value&gt;<sup>DocFieldCount</sup></li>
@@ -97,7 +103,8 @@ import org.apache.lucene.util.packed.PackedInts;
  *   <li>3: Value is Float</li>
  *   <li>4: Value is Long</li>
  *   <li>5: Value is Double</li>
- *   <li>6, 7: unused</li>
+ *   <li>6: String stored in LargeValues, there is no Value</li>
+ *   <li>7: BinaryValue stored in LargeValues, there is no Value</li>
  * </ul></li>
  * <li>FieldNum --&gt; an ID of the field</li>
  * <li>Value --&gt; {@link DataOutput#writeString(String) String} | BinaryValue | Int | Float | Long | Double depending on Type</li>
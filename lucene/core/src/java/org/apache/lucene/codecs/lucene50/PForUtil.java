@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene50;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+
+/**
+ * Encode all values in normal area with fixed bit width, like {@link ForUtil},
+ * but store up to {@link #MAX_EXCEPTIONS} of the largest values of a block as
+ * exceptions (patched frame of reference), so that a few outliers don't
+ * inflate the bit width of the whole block.
+ * <p>
+ * A block starts with a token byte whose 3 upper bits are the number of
+ * exceptions and whose 5 lower bits are the bit width of the patched values,
+ * 0 meaning that all values but the exceptions are equal and stored once as
+ * a VInt. Exceptions follow the values, each as its index in the block (one
+ * byte) and either its high bits (one byte) or, if all other values are
+ * equal, its full value (VInt).
+ */
+final class PForUtil extends ForUtil {
+
+  /** Maximum number of exceptions per block. */
+  static final int MAX_EXCEPTIONS = 7;
+
+  /**
+   * Create a new {@link PForUtil} instance and save state into <code>out</code>.
+   */
+  PForUtil(float acceptableOverheadRatio, DataOutput out) throws IOException {
+    super(acceptableOverheadRatio, out);
+  }
+
+  /**
+   * Restore a {@link PForUtil} from a {@link DataInput}.
+   */
+  PForUtil(DataInput in) throws IOException {
+    super(in);
+  }
+
+  /**
+   * Write a block of data (<code>PFor</code> format). Note that the high
+   * bits of exceptions are cleared in <code>data</code>.
+   *
+   * @param data     the data to write
+   * @param encoded  a buffer to use to encode data
+   * @param out      the destination output
+   * @throws IOException If there is a low-level I/O error
+   */
+  @Override
+  void writeBlock(int[] data, byte[] encoded, IndexOutput out) throws IOException {
+    if (isAllEqual(data)) {
+      out.writeByte((byte) ALL_VALUES_EQUAL);
+      out.writeVInt(data[0]);
+      return;
+    }
+
+    // histogram of the number of bits required by each value
+    final int[] bitsCounts = new int[32];
+    int maxBits = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      assert data[i] >= 0;
+      final int bits = PackedInts.bitsRequired(data[i]);
+      bitsCounts[bits]++;
+      maxBits = Math.max(maxBits, bits);
+    }
+
+    // use the smallest bit width that leaves at most MAX_EXCEPTIONS values whose
+    // high bits, at most 8 of them so they fit in a byte, need to be patched
+    int numBits = maxBits;
+    int numExceptions = 0;
+    for (int bits = maxBits - 1; bits >= Math.max(1, maxBits - 8); --bits) {
+      final int newNumExceptions = numExceptions + bitsCounts[bits + 1];
+      if (newNumExceptions > MAX_EXCEPTIONS) {
+        break;
+      }
+      numExceptions = newNumExceptions;
+      numBits = bits;
+    }
+    assert numBits > 0 && numBits < 32 : numBits;
+    final int packedSize = 1 + encodedSize(numBits) + 2 * numExceptions;
+
+    // if all values but a few are equal (eg. all freqs are 1 but a few ones),
+    // it may be cheaper to only write the common value and the exceptions
+    for (int i = 0; i <= MAX_EXCEPTIONS; ++i) {
+      final int value = data[i];
+      if (countDifferent(data, value) <= MAX_EXCEPTIONS) {
+        if (allEqualSize(data, value) <= packedSize) {
+          writeAllEqualWithExceptions(data, value, out);
+          return;
+        }
+        break;
+      }
+    }
+
+    out.writeByte((byte) (numExceptions << 5 | numBits));
+    if (numExceptions == 0) {
+      encode(data, numBits, encoded, out);
+      return;
+    }
+
+    final int mask = (int) PackedInts.maxValue(numBits);
+    final int[] exceptionIndexes = new int[numExceptions];
+    final int[] exceptionValues = new int[numExceptions];
+    for (int i = 0, e = 0; i < BLOCK_SIZE; ++i) {
+      if (data[i] > mask) {
+        exceptionIndexes[e] = i;
+        exceptionValues[e] = data[i];
+        data[i] &= mask;
+        ++e;
+      }
+    }
+    encode(data, numBits, encoded, out);
+    for (int e = 0; e < numExceptions; ++e) {
+      out.writeByte((byte) exceptionIndexes[e]);
+      out.writeByte((byte) (exceptionValues[e] >>> numBits));
+    }
+  }
+
+  /** Return how many values differ from {@code value}, stopping after {@link #MAX_EXCEPTIONS} + 1. */
+  private static int countDifferent(int[] data, int value) {
+    int count = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      if (data[i] != value && ++count > MAX_EXCEPTIONS) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  private static int allEqualSize(int[] data, int value) {
+    int size = 1 + vIntSize(value);
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      if (data[i] != value) {
+        size += 1 + vIntSize(data[i]);
+      }
+    }
+    return size;
+  }
+
+  private static int vIntSize(int value) {
+    return 1 + (31 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+  }
+
+  private static void writeAllEqualWithExceptions(int[] data, int value, IndexOutput out) throws IOException {
+    final int numExceptions = countDifferent(data, value);
+    assert numExceptions > 0 && numExceptions <= MAX_EXCEPTIONS;
+    out.writeByte((byte) (numExceptions << 5 | ALL_VALUES_EQUAL));
+    out.writeVInt(value);
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      if (data[i] != value) {
+        out.writeByte((byte) i);
+        out.writeVInt(data[i]);
+      }
+    }
+  }
+
+  /**
+   * Read the next block of data (<code>PFor</code> format).
+   *
+   * @param in        the input to use to read data
+   * @param encoded   a buffer that can be used to store encoded data
+   * @param decoded   where to write decoded data
+   * @throws IOException If there is a low-level I/O error
+   */
+  @Override
+  void readBlock(IndexInput in, byte[] encoded, int[] decoded) throws IOException {
+    final int token = in.readByte() & 0xFF;
+    final int numExceptions = token >>> 5;
+    final int numBits = token & 0x1F;
+
+    if (numBits == ALL_VALUES_EQUAL) {
+      final int value = in.readVInt();
+      Arrays.fill(decoded, 0, BLOCK_SIZE, value);
+      for (int e = 0; e < numExceptions; ++e) {
+        decoded[in.readByte() & 0xFF] = in.readVInt();
+      }
+      return;
+    }
+
+    decode(in, numBits, encoded, decoded);
+    for (int e = 0; e < numExceptions; ++e) {
+      final int index = in.readByte() & 0xFF;
+      decoded[index] |= (in.readByte() & 0xFF) << numBits;
+    }
+  }
+
+  /**
+   * Skip the next block of data.
+   *
+   * @param in      the input where to read data
+   * @throws IOException If there is a low-level I/O error
+   */
+  @Override
+  void skipBlock(IndexInput in) throws IOException {
+    final int token = in.readByte() & 0xFF;
+    final int numExceptions = token >>> 5;
+    final int numBits = token & 0x1F;
+
+    if (numBits == ALL_VALUES_EQUAL) {
+      in.readVInt();
+      for (int e = 0; e < numExceptions; ++e) {
+        in.readByte();
+        in.readVInt();
+      }
+      return;
+    }
+
+    in.seek(in.getFilePointer() + encodedSize(numBits) + 2 * numExceptions);
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.Directory;
@@ -42,14 +43,14 @@ import org.apache.lucene.store.IndexOutput;
  * Lucene 6.0 Field Infos format.
  * <p>Field names are stored in the field info file, with suffix <tt>.fnm</tt>.
  * <p>FieldInfos (.fnm) --&gt; Header,FieldsCount, &lt;FieldName,FieldNumber,
- * FieldBits,DocValuesBits,DocValuesGen,Attributes,DimensionCount,DimensionNumBytes&gt; <sup>FieldsCount</sup>,Footer
+ * FieldBits,DocValuesBits,DocValuesGen,Attributes,DimensionCount,DimensionNumBytes,VectorDimension,VectorSimilarityFunction&gt; <sup>FieldsCount</sup>,Footer
  * <p>Data types:
  * <ul>
  *   <li>Header --&gt; {@link CodecUtil#checkIndexHeader IndexHeader}</li>
  *   <li>FieldsCount --&gt; {@link DataOutput#writeVInt VInt}</li>
  *   <li>FieldName --&gt; {@link DataOutput#writeString String}</li>
- *   <li>FieldBits, IndexOptions, DocValuesBits --&gt; {@link DataOutput#writeByte Byte}</li>
- *   <li>FieldNumber, DimensionCount, DimensionNumBytes --&gt; {@link DataOutput#writeInt VInt}</li>
+ *   <li>FieldBits, IndexOptions, DocValuesBits, VectorSimilarityFunction --&gt; {@link DataOutput#writeByte Byte}</li>
+ *   <li>FieldNumber, DimensionCount, DimensionNumBytes, VectorDimension --&gt; {@link DataOutput#writeInt VInt}</li>
  *   <li>Attributes --&gt; {@link DataOutput#writeMapOfStrings Map&lt;String,String&gt;}</li>
  *   <li>DocValuesGen --&gt; {@link DataOutput#writeLong(long) Int64}</li>
  *   <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
@@ -97,6 +98,11 @@ import org.apache.lucene.store.IndexOutput;
  *   <li>Attributes: a key-value map of codec-private attributes.</li>
  *   <li>PointDimensionCount, PointNumBytes: these are non-zero only if the field is
  *       indexed as points, e.g. using {@link org.apache.lucene.document.LongPoint}</li>
+ *   <li>VectorDimension: non-zero only if the field is indexed with vectors, e.g. using
+ *       {@link org.apache.lucene.document.VectorField}. Only written since version 1 of this file.</li>
+ *   <li>VectorSimilarityFunction: the ordinal of the field's
+ *       {@link org.apache.lucene.index.VectorValues.SimilarityFunction}, only written if
+ *       VectorDimension is non-zero.</li>
  * </ul>
  *
  * @lucene.experimental
@@ -114,7 +120,7 @@ public final class Lucene60FieldInfosFormat extends FieldInfosFormat {
       Throwable priorE = null;
       FieldInfo infos[] = null;
       try {
-        CodecUtil.checkIndexHeader(input,
+        int version = CodecUtil.checkIndexHeader(input,
                                    Lucene60FieldInfosFormat.CODEC_NAME, 
                                    Lucene60FieldInfosFormat.FORMAT_START, 
                                    Lucene60FieldInfosFormat.FORMAT_CURRENT,
@@ -155,11 +161,19 @@ public final class Lucene60FieldInfosFormat extends FieldInfosFormat {
           } else {
             pointNumBytes = 0;
           }
+          int vectorDimension = 0;
+          VectorValues.SimilarityFunction vectorSimilarityFunction = VectorValues.SimilarityFunction.NONE;
+          if (version >= FORMAT_VECTORS) {
+            vectorDimension = input.readVInt();
+            if (vectorDimension != 0) {
+              vectorSimilarityFunction = getVectorSimilarityFunction(input, input.readByte());
+            }
+          }
 
           try {
             infos[i] = new FieldInfo(name, fieldNumber, storeTermVector, omitNorms, storePayloads, 
                                      indexOptions, docValuesType, dvGen, attributes,
-                                     pointDimensionCount, pointNumBytes);
+                                     pointDimensionCount, pointNumBytes, vectorDimension, vectorSimilarityFunction);
             infos[i].checkConsistency();
           } catch (IllegalStateException e) {
             throw new CorruptIndexException("invalid fieldinfo for field: " + name + ", fieldNumber=" + fieldNumber, input, e);
@@ -219,6 +233,13 @@ public final class Lucene60FieldInfosFormat extends FieldInfosFormat {
     }
   }
 
+  private static VectorValues.SimilarityFunction getVectorSimilarityFunction(IndexInput input, byte b) throws IOException {
+    if (b <= 0 || b >= VectorValues.SimilarityFunction.values().length) {
+      throw new CorruptIndexException("invalid vector similarity function byte: " + b, input);
+    }
+    return VectorValues.SimilarityFunction.values()[b];
+  }
+
   static {
     // We "mirror" IndexOptions enum values with the constants below; let's try to ensure if we add a new IndexOption while this format is
     // still used for writing, we remember to fix this encoding:
@@ -290,6 +311,11 @@ public final class Lucene60FieldInfosFormat extends FieldInfosFormat {
         if (pointDimensionCount != 0) {
           output.writeVInt(fi.getPointNumBytes());
         }
+        int vectorDimension = fi.getVectorDimension();
+        output.writeVInt(vectorDimension);
+        if (vectorDimension != 0) {
+          output.writeByte((byte) fi.getVectorSimilarityFunction().ordinal());
+        }
       }
       CodecUtil.writeFooter(output);
     }
@@ -301,7 +327,8 @@ public final class Lucene60FieldInfosFormat extends FieldInfosFormat {
   // Codec header
   static final String CODEC_NAME = "Lucene60FieldInfos";
   static final int FORMAT_START = 0;
-  static final int FORMAT_CURRENT = FORMAT_START;
+  static final int FORMAT_VECTORS = 1;
+  static final int FORMAT_CURRENT = FORMAT_VECTORS;
   
   // Field flags
   static final byte STORE_TERMVECTOR = 0x1;
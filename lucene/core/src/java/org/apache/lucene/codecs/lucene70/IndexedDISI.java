@@ -22,6 +22,8 @@ import java.io.IOException;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.RoaringDocIdSet;
@@ -45,12 +47,24 @@ import org.apache.lucene.util.RoaringDocIdSet;
  * <p>Only ranges that contain at least one value are encoded.
  * <p>This implementation uses 6 bytes per document in the worst-case, which happens
  * in the case that all ranges contain exactly one document.
+ * <p>In order to make {@link #advance} and {@link #advanceExact} O(1) when they
+ * jump over many ranges or many documents of a {@code DENSE} range, ranges are
+ * followed by a jump table that gives, for every range up to the last one that
+ * contains documents, the offset of the first encoded range that is not before it
+ * and the index of its first document, and {@code DENSE} ranges start with a rank
+ * table that gives the number of documents before every {@code 512} doc IDs of
+ * the range.
  * @lucene.internal
  */
 final class IndexedDISI extends DocIdSetIterator {
 
   static final int MAX_ARRAY_LENGTH = (1 << 12) - 1;
 
+  /** A rank entry is stored every {@code 1 << DENSE_RANK_SHIFT} doc IDs of DENSE blocks. */
+  static final int DENSE_RANK_SHIFT = 9;
+  private static final int DENSE_RANK_WORDS = 1 << (DENSE_RANK_SHIFT - 6);
+  private static final int DENSE_RANK_ENTRIES = 1 << (16 - DENSE_RANK_SHIFT);
+
   private static void flush(int block, FixedBitSet buffer, int cardinality, IndexOutput out) throws IOException {
     assert block >= 0 && block < 65536;
     out.writeShort((short) block);
@@ -58,7 +72,15 @@ final class IndexedDISI extends DocIdSetIterator {
     out.writeShort((short) (cardinality - 1));
     if (cardinality > MAX_ARRAY_LENGTH) {
       if (cardinality != 65536) { // all docs are set
-        for (long word : buffer.getBits()) {
+        final long[] words = buffer.getBits();
+        int rank = 0;
+        for (int i = 0; i < words.length; ++i) {
+          if ((i & (DENSE_RANK_WORDS - 1)) == 0) {
+            out.writeShort((short) rank);
+          }
+          rank += Long.bitCount(words[i]);
+        }
+        for (long word : words) {
           out.writeLong(word);
         }
       }
@@ -71,14 +93,22 @@ final class IndexedDISI extends DocIdSetIterator {
   }
 
   static void writeBitSet(DocIdSetIterator it, IndexOutput out) throws IOException {
+    final long origo = out.getFilePointer();
+    // (index, offset) pairs of the jump table
+    int[] jumps = new int[ArrayUtil.oversize(2, Integer.BYTES)];
+    int numJumps = 0;
     int i = 0;
+    int totalCardinality = 0;
     final FixedBitSet buffer = new FixedBitSet(1<<16);
     int prevBlock = -1;
     for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
       final int block = doc >>> 16;
       if (prevBlock != -1 && block != prevBlock) {
+        jumps = addJumps(jumps, numJumps, prevBlock, totalCardinality, out.getFilePointer() - origo);
+        numJumps = prevBlock + 1;
         flush(prevBlock, buffer, i, out);
         buffer.clear(0, buffer.length());
+        totalCardinality += i;
         prevBlock = block;
         i = 0;
       }
@@ -87,20 +117,61 @@ final class IndexedDISI extends DocIdSetIterator {
       prevBlock = block;
     }
     if (i > 0) {
+      jumps = addJumps(jumps, numJumps, prevBlock, totalCardinality, out.getFilePointer() - origo);
+      numJumps = prevBlock + 1;
       flush(prevBlock, buffer, i, out);
       buffer.clear(0, buffer.length());
     }
     // NO_MORE_DOCS is stored explicitly
     buffer.set(DocIdSetIterator.NO_MORE_DOCS & 0xFFFF);
     flush(DocIdSetIterator.NO_MORE_DOCS >>> 16, buffer, 1, out);
+
+    for (int j = 0; j < numJumps * 2; ++j) {
+      out.writeInt(jumps[j]);
+    }
+    out.writeInt(numJumps);
+  }
+
+  /** Make all blocks up to {@code block} that don't have a jump yet point to the block that is written at {@code offset}. */
+  private static int[] addJumps(int[] jumps, int numJumps, int block, int index, long offset) {
+    assert offset < Integer.MAX_VALUE;
+    jumps = ArrayUtil.grow(jumps, (block + 1) * 2);
+    for (int b = numJumps; b <= block; ++b) {
+      jumps[b * 2] = index;
+      jumps[b * 2 + 1] = (int) offset;
+    }
+    return jumps;
   }
 
   /** The slice that stores the {@link DocIdSetIterator}. */
   private final IndexInput slice;
+  private final boolean hasJumpTables;
+  private final RandomAccessInput jumpTable; // null if there is no jump table
+  private final int jumpTableEntryCount;
   private final long cost;
 
   IndexedDISI(IndexInput in, long offset, long length, long cost) throws IOException {
-    this.slice = in.slice("docs", offset, length);
+    this(in, offset, length, cost, true);
+  }
+
+  /**
+   * @param hasJumpTables whether the set was written with jump tables, which is the case
+   *        for all sets written by {@link #writeBitSet} except those of old segments
+   */
+  IndexedDISI(IndexInput in, long offset, long length, long cost, boolean hasJumpTables) throws IOException {
+    this.hasJumpTables = hasJumpTables;
+    if (hasJumpTables) {
+      final RandomAccessInput all = in.randomAccessSlice(offset, length);
+      jumpTableEntryCount = all.readInt(length - Integer.BYTES);
+      final long jumpTableLength = (long) jumpTableEntryCount * 2 * Integer.BYTES;
+      final long docsLength = length - Integer.BYTES - jumpTableLength;
+      this.slice = in.slice("docs", offset, docsLength);
+      this.jumpTable = jumpTableEntryCount == 0 ? null : in.randomAccessSlice(offset + docsLength, jumpTableLength);
+    } else {
+      this.slice = in.slice("docs", offset, length);
+      this.jumpTable = null;
+      this.jumpTableEntryCount = 0;
+    }
     this.cost = cost;
   }
 
@@ -120,6 +191,10 @@ final class IndexedDISI extends DocIdSetIterator {
   private int wordIndex = -1;
   // number of one bits encountered so far, including those of `word`
   private int numberOfOnes;
+  // numberOfOnes at the beginning of the block
+  private int denseOrigo;
+  private long denseRankOffset;
+  private long denseBitmapOffset;
 
   // ALL variables
   private int gap;
@@ -157,6 +232,19 @@ final class IndexedDISI extends DocIdSetIterator {
   }
 
   private void advanceBlock(int targetBlock) throws IOException {
+    final int blockIndex = targetBlock >>> 16;
+    // use the jump table if the target block is at least 2 blocks ahead
+    if (jumpTable != null && blockIndex >= (block >> 16) + 2) {
+      final int entry = Math.min(blockIndex, jumpTableEntryCount - 1);
+      final int index = jumpTable.readInt(entry * 2L * Integer.BYTES);
+      final int offset = jumpTable.readInt(entry * 2L * Integer.BYTES + Integer.BYTES);
+      nextBlockIndex = index - 1; // readBlockHeader sets index to nextBlockIndex
+      slice.seek(offset);
+      readBlockHeader();
+      if (block >= targetBlock) {
+        return;
+      }
+    }
     do {
       slice.seek(blockEnd);
       readBlockHeader();
@@ -178,10 +266,36 @@ final class IndexedDISI extends DocIdSetIterator {
       gap = block - index - 1;
     } else {
       method = Method.DENSE;
-      blockEnd = slice.getFilePointer() + (1 << 13);
+      if (hasJumpTables) {
+        denseRankOffset = slice.getFilePointer();
+        denseBitmapOffset = denseRankOffset + DENSE_RANK_ENTRIES * Short.BYTES;
+        slice.seek(denseBitmapOffset);
+      } else {
+        denseRankOffset = -1;
+        denseBitmapOffset = slice.getFilePointer();
+      }
+      blockEnd = denseBitmapOffset + (1 << 13);
       wordIndex = -1;
-      numberOfOnes = index + 1;
+      numberOfOnes = denseOrigo = index + 1;
+    }
+  }
+
+  /** If it saves reading words, use the rank table of the current DENSE block to go
+   *  right before the first word of the rank entry that contains {@code targetWordIndex}. */
+  private void rankSkip(int targetWordIndex) throws IOException {
+    if (denseRankOffset == -1) {
+      return;
+    }
+    final int rankIndex = targetWordIndex >>> (DENSE_RANK_SHIFT - 6);
+    final int rankWordIndex = rankIndex << (DENSE_RANK_SHIFT - 6);
+    if (rankWordIndex - wordIndex <= DENSE_RANK_WORDS) {
+      return;
     }
+    slice.seek(denseRankOffset + rankIndex * Short.BYTES);
+    final int rank = Short.toUnsignedInt(slice.readShort());
+    slice.seek(denseBitmapOffset + rankWordIndex * Long.BYTES);
+    wordIndex = rankWordIndex - 1;
+    numberOfOnes = denseOrigo + rank;
   }
 
   @Override
@@ -244,6 +358,7 @@ final class IndexedDISI extends DocIdSetIterator {
       boolean advanceWithinBlock(IndexedDISI disi, int target) throws IOException {
         final int targetInBlock = target & 0xFFFF;
         final int targetWordIndex = targetInBlock >>> 6;
+        disi.rankSkip(targetWordIndex);
         for (int i = disi.wordIndex + 1; i <= targetWordIndex; ++i) {
           disi.word = disi.slice.readLong();
           disi.numberOfOnes += Long.bitCount(disi.word);
@@ -272,6 +387,7 @@ final class IndexedDISI extends DocIdSetIterator {
       boolean advanceExactWithinBlock(IndexedDISI disi, int target) throws IOException {
         final int targetInBlock = target & 0xFFFF;
         final int targetWordIndex = targetInBlock >>> 6;
+        disi.rankSkip(targetWordIndex);
         for (int i = disi.wordIndex + 1; i <= targetWordIndex; ++i) {
           disi.word = disi.slice.readLong();
           disi.numberOfOnes += Long.bitCount(disi.word);
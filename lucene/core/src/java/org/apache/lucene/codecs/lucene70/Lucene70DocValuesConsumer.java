@@ -20,6 +20,7 @@ package org.apache.lucene.codecs.lucene70;
 import static org.apache.lucene.codecs.lucene70.Lucene70DocValuesFormat.DIRECT_MONOTONIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene70.Lucene70DocValuesFormat.NUMERIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene70.Lucene70DocValuesFormat.NUMERIC_BLOCK_SIZE;
+import static org.apache.lucene.codecs.lucene70.Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
 
 import java.io.Closeable; // javadocs
 import java.io.IOException;
@@ -47,6 +48,7 @@ import org.apache.lucene.search.SortedSetSelector;
 import org.apache.lucene.store.GrowableByteArrayDataOutput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RAMOutputStream;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.IOUtils;
@@ -106,6 +108,7 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
   public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
     meta.writeInt(field.number);
     meta.writeByte(Lucene70DocValuesFormat.NUMERIC);
+    writeSkipIndex(DocValues.singleton(valuesProducer.getNumeric(field)));
 
     writeValues(field, new EmptyDocValuesProducer() {
       @Override
@@ -115,6 +118,78 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
     });
   }
 
+  private void writeSkipIndex(SortedNumericDocValues values) throws IOException {
+    SkipIndexWriter skipIndex = new SkipIndexWriter();
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      skipIndex.addDoc(doc);
+      for (int i = 0, count = values.docValueCount(); i < count; ++i) {
+        skipIndex.addValue(values.nextValue());
+      }
+    }
+    skipIndex.finish();
+  }
+
+  /**
+   * Writes the minimum value, maximum value and number of documents of every block of
+   * 2<sup>SKIP_INDEX_BLOCK_SHIFT</sup> doc IDs to the data file, up to the last block that has
+   * documents, followed by the same statistics for the whole segment in the meta file.
+   * Documents must be added in increasing order.
+   */
+  private class SkipIndexWriter {
+    final long offset = data.getFilePointer();
+    int block = -1;
+    long blockMin, blockMax;
+    int blockDocCount;
+    long globalMin = Long.MAX_VALUE, globalMax = Long.MIN_VALUE;
+    int globalDocCount;
+
+    void addDoc(int doc) throws IOException {
+      final int docBlock = doc >>> SKIP_INDEX_BLOCK_SHIFT;
+      if (docBlock != block) {
+        assert docBlock > block;
+        if (block != -1) {
+          writeBlock();
+        }
+        // blocks without documents
+        for (int b = block + 1; b < docBlock; ++b) {
+          data.writeLong(Long.MAX_VALUE);
+          data.writeLong(Long.MIN_VALUE);
+          data.writeInt(0);
+        }
+        block = docBlock;
+        blockMin = Long.MAX_VALUE;
+        blockMax = Long.MIN_VALUE;
+        blockDocCount = 0;
+      }
+      blockDocCount++;
+    }
+
+    void addValue(long v) {
+      blockMin = Math.min(blockMin, v);
+      blockMax = Math.max(blockMax, v);
+    }
+
+    private void writeBlock() throws IOException {
+      data.writeLong(blockMin);
+      data.writeLong(blockMax);
+      data.writeInt(blockDocCount);
+      globalMin = Math.min(globalMin, blockMin);
+      globalMax = Math.max(globalMax, blockMax);
+      globalDocCount += blockDocCount;
+    }
+
+    void finish() throws IOException {
+      if (block != -1) {
+        writeBlock();
+      }
+      meta.writeLong(offset);
+      meta.writeInt(block + 1); // number of blocks
+      meta.writeInt(globalDocCount);
+      meta.writeLong(globalMin);
+      meta.writeLong(globalMax);
+    }
+  }
+
   private static class MinMaxTracker {
     long min, max, numValues, spaceInBits;
 
@@ -286,19 +361,31 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
   private void writeValuesMultipleBlocks(SortedNumericDocValues values, long gcd) throws IOException {
     final long[] buffer = new long[NUMERIC_BLOCK_SIZE];
     final GrowableByteArrayDataOutput encodeBuffer = new GrowableByteArrayDataOutput(NUMERIC_BLOCK_SIZE);
+    final long startOffset = data.getFilePointer();
+    // offsets of blocks, relative to the first block
+    long[] jumpTable = new long[16];
+    int numBlocks = 0;
     int upTo = 0;
     for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
       for (int i = 0, count = values.docValueCount(); i < count; ++i) {
         buffer[upTo++] = values.nextValue();
         if (upTo == NUMERIC_BLOCK_SIZE) {
+          jumpTable = ArrayUtil.grow(jumpTable, numBlocks + 1);
+          jumpTable[numBlocks++] = data.getFilePointer() - startOffset;
           writeBlock(buffer, NUMERIC_BLOCK_SIZE, gcd, encodeBuffer);
           upTo = 0;
         }
       }
     }
     if (upTo > 0) {
+      jumpTable = ArrayUtil.grow(jumpTable, numBlocks + 1);
+      jumpTable[numBlocks++] = data.getFilePointer() - startOffset;
       writeBlock(buffer, upTo, gcd, encodeBuffer);
     }
+    // the jump table makes looking up a block O(1)
+    for (int i = 0; i < numBlocks; ++i) {
+      data.writeLong(jumpTable[i]);
+    }
   }
 
   private void writeBlock(long[] values, int length, long gcd, GrowableByteArrayDataOutput buffer) throws IOException {
@@ -391,6 +478,13 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
   public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
     meta.writeInt(field.number);
     meta.writeByte(Lucene70DocValuesFormat.SORTED);
+    SkipIndexWriter skipIndex = new SkipIndexWriter();
+    SortedDocValues values = valuesProducer.getSorted(field);
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      skipIndex.addDoc(doc);
+      skipIndex.addValue(values.ordValue());
+    }
+    skipIndex.finish();
     doAddSortedField(field, valuesProducer);
   }
 
@@ -526,6 +620,7 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
   public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
     meta.writeInt(field.number);
     meta.writeByte(Lucene70DocValuesFormat.SORTED_NUMERIC);
+    writeSkipIndex(valuesProducer.getSortedNumeric(field));
 
     long[] stats = writeValues(field, valuesProducer);
     int numDocsWithField = Math.toIntExact(stats[0]);
@@ -556,15 +651,19 @@ final class Lucene70DocValuesConsumer extends DocValuesConsumer implements Close
     meta.writeInt(field.number);
     meta.writeByte(Lucene70DocValuesFormat.SORTED_SET);
 
+    SkipIndexWriter skipIndex = new SkipIndexWriter();
     SortedSetDocValues values = valuesProducer.getSortedSet(field);
     int numDocsWithField = 0;
     long numOrds = 0;
     for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
       numDocsWithField++;
+      skipIndex.addDoc(doc);
       for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
         numOrds++;
+        skipIndex.addValue(ord);
       }
     }
+    skipIndex.finish();
 
     if (numDocsWithField == numOrds) {
       meta.writeByte((byte) 0);
@@ -57,6 +57,11 @@ import org.apache.lucene.util.packed.DirectWriter;
  *         using {@link IndexWriterConfig#setIndexSort(org.apache.lucene.search.Sort) index sorting}.
  * </ul>
  * <p>
+ * Blocks are followed by a jump table that records, for every block ID, the offset of the first
+ * block that is not before it and the number of documents in previous blocks, so that advancing
+ * far away does not need to visit every block in-between. DENSE blocks additionally start with
+ * the number of documents before every 512 doc IDs of the block.
+ * <p>
  * Then the five per-document value types (Numeric,Binary,Sorted,SortedSet,SortedNumeric) are
  * encoded using the following strategies:
  * <p>
@@ -108,6 +113,13 @@ import org.apache.lucene.util.packed.DirectWriter;
  *        strategies above.
  * </ul>
  * <p>
+ * All types but {@link DocValuesType#BINARY BINARY} also record a skip index: for every block of
+ * 4096 doc IDs, the minimum and maximum value (or ordinal) of the block and the number of documents
+ * of the block that have a value, as well as the same statistics for the whole segment. Range
+ * queries use it to skip blocks whose values are all outside of the range, and to match blocks
+ * whose values are all inside of the range without checking documents one by one, see
+ * {@link org.apache.lucene.index.DocValuesSkipper}.
+ * <p>
  * Files:
  * <ol>
  *   <li><tt>.dvd</tt>: DocValues data</li>
@@ -137,7 +149,9 @@ public final class Lucene70DocValuesFormat extends DocValuesFormat {
   static final String META_CODEC = "Lucene70DocValuesMetadata";
   static final String META_EXTENSION = "dvm";
   static final int VERSION_START = 0;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_JUMP_TABLES = 1;
+  static final int VERSION_SKIP_INDEX = 2;
+  static final int VERSION_CURRENT = VERSION_SKIP_INDEX;
 
   // indicates docvalues type
   static final byte NUMERIC = 0;
@@ -151,6 +165,11 @@ public final class Lucene70DocValuesFormat extends DocValuesFormat {
   static final int NUMERIC_BLOCK_SHIFT = 14;
   static final int NUMERIC_BLOCK_SIZE = 1 << NUMERIC_BLOCK_SHIFT;
 
+  static final int SKIP_INDEX_BLOCK_SHIFT = 12;
+  static final int SKIP_INDEX_BLOCK_SIZE = 1 << SKIP_INDEX_BLOCK_SHIFT;
+  // min value, max value, doc count
+  static final int SKIP_INDEX_BLOCK_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
   static final int TERMS_DICT_BLOCK_SHIFT = 4;
   static final int TERMS_DICT_BLOCK_SIZE = 1 << TERMS_DICT_BLOCK_SHIFT;
   static final int TERMS_DICT_BLOCK_MASK = TERMS_DICT_BLOCK_SIZE - 1;
@@ -26,6 +26,7 @@ import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexFileNames;
@@ -37,6 +38,7 @@ import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RandomAccessInput;
@@ -54,9 +56,11 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
   private final Map<String,SortedEntry> sorted = new HashMap<>();
   private final Map<String,SortedSetEntry> sortedSets = new HashMap<>();
   private final Map<String,SortedNumericEntry> sortedNumerics = new HashMap<>();
+  private final Map<String,SkipIndexEntry> skipIndexes = new HashMap<>();
   private long ramBytesUsed;
   private final IndexInput data;
   private final int maxDoc;
+  private int version = -1;
 
   /** expert: instantiates a new reader */
   Lucene70DocValuesProducer(SegmentReadState state, String dataCodec, String dataExtension, String metaCodec, String metaExtension) throws IOException {
@@ -64,8 +68,6 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     this.maxDoc = state.segmentInfo.maxDoc();
     ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(getClass());
 
-    int version = -1;
-
     // read in the entries from the metadata file.
     try (ChecksumIndexInput in = state.directory.openChecksumInput(metaName, state.context)) {
       Throwable priorE = null;
@@ -117,6 +119,9 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
         throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
       }
       byte type = meta.readByte();
+      if (type != Lucene70DocValuesFormat.BINARY && version >= Lucene70DocValuesFormat.VERSION_SKIP_INDEX) {
+        skipIndexes.put(info.name, readSkipIndex(meta));
+      }
       if (type == Lucene70DocValuesFormat.NUMERIC) {
         numerics.put(info.name, readNumeric(meta));
       } else if (type == Lucene70DocValuesFormat.BINARY) {
@@ -133,6 +138,19 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     }
   }
 
+  private SkipIndexEntry readSkipIndex(ChecksumIndexInput meta) throws IOException {
+    SkipIndexEntry entry = new SkipIndexEntry();
+    entry.offset = meta.readLong();
+    entry.numBlocks = meta.readInt();
+    if (entry.numBlocks < 0 || entry.numBlocks > ((maxDoc - 1) >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT) + 1) {
+      throw new CorruptIndexException("invalid number of skip index blocks: " + entry.numBlocks, meta);
+    }
+    entry.docCount = meta.readInt();
+    entry.minValue = meta.readLong();
+    entry.maxValue = meta.readLong();
+    return entry;
+  }
+
   private NumericEntry readNumeric(ChecksumIndexInput meta) throws IOException {
     NumericEntry entry = new NumericEntry();
     readNumeric(meta, entry);
@@ -164,6 +182,12 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     entry.gcd = meta.readLong();
     entry.valuesOffset = meta.readLong();
     entry.valuesLength = meta.readLong();
+    if (entry.blockShift >= 0 && version >= Lucene70DocValuesFormat.VERSION_JUMP_TABLES) {
+      final long numBlocks = ((entry.numValues - 1) >>> entry.blockShift) + 1;
+      entry.valueJumpTableOffset = entry.valuesLength - numBlocks * Long.BYTES;
+    } else {
+      entry.valueJumpTableOffset = -1;
+    }
   }
 
   private BinaryEntry readBinary(ChecksumIndexInput meta) throws IOException {
@@ -258,11 +282,23 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     return entry;
   }
 
+  private IndexedDISI newIndexedDISI(long offset, long length, long cost) throws IOException {
+    return new IndexedDISI(data, offset, length, cost, version >= Lucene70DocValuesFormat.VERSION_JUMP_TABLES);
+  }
+
   @Override
   public void close() throws IOException {
     data.close();
   }
 
+  private static class SkipIndexEntry {
+    long offset;
+    int numBlocks;
+    int docCount;
+    long minValue;
+    long maxValue;
+  }
+
   private static class NumericEntry {
     long[] table;
     int blockShift;
@@ -274,6 +310,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     long gcd;
     long valuesOffset;
     long valuesLength;
+    long valueJumpTableOffset; // -1 if there is no jump table
   }
 
   private static class BinaryEntry {
@@ -451,6 +488,10 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
             public long longValue() throws IOException {
               final int block = doc >>> shift;
               if (this.block != block) {
+                if (entry.valueJumpTableOffset >= 0 && block != this.block + 1) {
+                  blockEndOffset = slice.readLong(entry.valueJumpTableOffset + (long) block * Long.BYTES);
+                  this.block = block - 1;
+                }
                 int bitsPerValue;
                 do {
                   offset = blockEndOffset;
@@ -495,7 +536,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
       }
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numValues);
+      final IndexedDISI disi = newIndexedDISI(entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numValues);
       if (entry.bitsPerValue == 0) {
         return new SparseNumericDocValues(disi) {
           @Override
@@ -522,6 +563,10 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
               final int index = disi.index();
               final int block = index >>> shift;
               if (this.block != block) {
+                if (entry.valueJumpTableOffset >= 0 && block != this.block + 1) {
+                  blockEndOffset = slice.readLong(entry.valueJumpTableOffset + (long) block * Long.BYTES);
+                  this.block = block - 1;
+                }
                 int bitsPerValue;
                 do {
                   offset = blockEndOffset;
@@ -591,7 +636,18 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
           public long get(long index) {
             final long block = index >>> shift;
             if (this.block != block) {
-              assert block > this.block : "Reading backwards is illegal: " + this.block + " < " + block;
+              if (entry.valueJumpTableOffset >= 0) {
+                if (block != this.block + 1) {
+                  try {
+                    blockEndOffset = slice.readLong(entry.valueJumpTableOffset + block * Long.BYTES);
+                  } catch (IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                  this.block = block - 1;
+                }
+              } else {
+                assert block > this.block : "Reading backwards is illegal: " + this.block + " < " + block;
+              }
               int bitsPerValue;
               do {
                 offset = blockEndOffset;
@@ -766,7 +822,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
       }
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
+      final IndexedDISI disi = newIndexedDISI(entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
       if (entry.minLength == entry.maxLength) {
         // fixed length
         final int length = entry.maxLength;
@@ -867,7 +923,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
       };
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
+      final IndexedDISI disi = newIndexedDISI(entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
       return new BaseSortedDocValues(entry, data) {
 
         @Override
@@ -1230,7 +1286,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
       };
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
+      final IndexedDISI disi = newIndexedDISI(entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
       return new SortedNumericDocValues() {
 
         boolean set;
@@ -1356,7 +1412,7 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
       };
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
+      final IndexedDISI disi = newIndexedDISI(entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
       return new BaseSortedSetDocValues(entry, data) {
 
         boolean set;
@@ -1411,6 +1467,87 @@ final class Lucene70DocValuesProducer extends DocValuesProducer implements Close
     }
   }
 
+  @Override
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    final SkipIndexEntry entry = skipIndexes.get(field.name);
+    if (entry == null) {
+      return null;
+    }
+    final RandomAccessInput slice = data.randomAccessSlice(entry.offset,
+        (long) entry.numBlocks * Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_BYTES);
+    return new DocValuesSkipper() {
+      int minDocID = -1;
+      int maxDocID = -1;
+      long minValue, maxValue;
+      int docCount;
+
+      @Override
+      public void advance(int target) throws IOException {
+        if (target <= maxDocID) {
+          return;
+        }
+        // blocks are indexed by doc ID so the target block can be computed directly,
+        // only blocks that have no documents need to be skipped one by one
+        final int firstBlock = target >= maxDoc ? entry.numBlocks : target >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
+        for (int block = firstBlock; block < entry.numBlocks; ++block) {
+          final long offset = (long) block * Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_BYTES;
+          final int count = slice.readInt(offset + 2 * Long.BYTES);
+          if (count > 0) {
+            minValue = slice.readLong(offset);
+            maxValue = slice.readLong(offset + Long.BYTES);
+            docCount = count;
+            minDocID = block << Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
+            maxDocID = Math.min(maxDoc - 1, minDocID + Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SIZE - 1);
+            return;
+          }
+        }
+        minDocID = maxDocID = DocIdSetIterator.NO_MORE_DOCS;
+        minValue = maxValue = 0;
+        docCount = 0;
+      }
+
+      @Override
+      public int minDocID() {
+        return minDocID;
+      }
+
+      @Override
+      public int maxDocID() {
+        return maxDocID;
+      }
+
+      @Override
+      public long minValue() {
+        return minValue;
+      }
+
+      @Override
+      public long maxValue() {
+        return maxValue;
+      }
+
+      @Override
+      public int docCount() {
+        return docCount;
+      }
+
+      @Override
+      public long minValueGlobal() {
+        return entry.minValue;
+      }
+
+      @Override
+      public long maxValueGlobal() {
+        return entry.maxValue;
+      }
+
+      @Override
+      public int docCountGlobal() {
+        return entry.docCount;
+      }
+    };
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
     CodecUtil.checksumEntireFile(data);
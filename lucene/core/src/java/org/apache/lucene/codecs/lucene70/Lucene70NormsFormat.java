@@ -95,5 +95,6 @@ public class Lucene70NormsFormat extends NormsFormat {
   private static final String METADATA_CODEC = "Lucene70NormsMetadata";
   private static final String METADATA_EXTENSION = "nvm";
   static final int VERSION_START = 0;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_JUMP_TABLES = 1;
+  static final int VERSION_CURRENT = VERSION_JUMP_TABLES;
 }
@@ -45,11 +45,11 @@ final class Lucene70NormsProducer extends NormsProducer {
   private final Map<Integer,NormsEntry> norms = new HashMap<>();
   private final IndexInput data;
   private final int maxDoc;
+  private int version = -1;
 
   Lucene70NormsProducer(SegmentReadState state, String dataCodec, String dataExtension, String metaCodec, String metaExtension) throws IOException {
     maxDoc = state.segmentInfo.maxDoc();
     String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, metaExtension);
-    int version = -1;
 
     // read in the entries from the metadata file.
     try (ChecksumIndexInput in = state.directory.openChecksumInput(metaName, state.context)) {
@@ -245,7 +245,8 @@ final class Lucene70NormsProducer extends NormsProducer {
       }
     } else {
       // sparse
-      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField);
+      final IndexedDISI disi = new IndexedDISI(data, entry.docsWithFieldOffset, entry.docsWithFieldLength, entry.numDocsWithField,
+          version >= Lucene70NormsFormat.VERSION_JUMP_TABLES);
       if (entry.bytesPerNorm == 0) {
         return new SparseNormsIterator(disi) {
           @Override
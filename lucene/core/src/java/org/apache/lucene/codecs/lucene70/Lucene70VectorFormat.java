@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene70;
+
+import java.io.IOException;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorFormat;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+
+/**
+ * Lucene 7.0 vector format, which encodes numeric vector values and an optional associated graph
+ * connecting the documents having values. The graph is used to power HNSW search.
+ * <p>
+ * Files:
+ * <ol>
+ *   <li><tt>.vec</tt>: Vector data</li>
+ *   <li><tt>.vex</tt>: Vector graph index</li>
+ *   <li><tt>.vem</tt>: Vector metadata</li>
+ * </ol>
+ * <ol>
+ *   <li><a name="vec"></a>
+ *   <p>The vector data or .vec file.</p>
+ *   <p>For each field, this stores the vectors of the documents that have one, in increasing doc ID
+ *      order. Vector ordinals are the positions of the vectors in this list, and identify the nodes of
+ *      the graph.</p>
+ *   <p>Vector data (.vec) --&gt; Header,&lt;VectorData&gt;<sup>NumFields</sup>,Footer</p>
+ *   <ul>
+ *     <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
+ *     <li>VectorData --&gt; Float32<sup>Size * Dimension</sup>, big-endian</li>
+ *     <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
+ *   </ul>
+ *   <li><a name="vex"></a>
+ *   <p>The vector graph index or .vex file.</p>
+ *   <p>For each field, this stores the neighbors of every node on every level of the HNSW graph, in
+ *      fixed-size blocks so that the neighbors of the i-th node of a level are found without any
+ *      lookup table.</p>
+ *   <p>Vector index (.vex) --&gt; Header,&lt;&lt;NodeNeighbors&gt;<sup>NumNodesOnLevel</sup>&gt;<sup>NumLevels</sup>,Footer</p>
+ *   <ul>
+ *     <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
+ *     <li>NodeNeighbors --&gt; NumNeighbors, Neighbor<sup>MaxConnOnLevel</sup></li>
+ *     <li>NumNeighbors, Neighbor --&gt; {@link DataOutput#writeInt Int32}</li>
+ *     <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
+ *   </ul>
+ *   <p>MaxConnOnLevel is twice MaxConn on level 0 and MaxConn on other levels. Unused neighbor slots
+ *      are padded with zeroes.</p>
+ *   <li><a name="vem"></a>
+ *   <p>The vector metadata or .vem file.</p>
+ *   <p>Vector metadata (.vem) --&gt; Header,&lt;Entry&gt;<sup>NumFields</sup>,Footer</p>
+ *   <ul>
+ *     <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
+ *     <li>Entry --&gt; FieldNumber, SimilarityFunction, VectorDataOffset, VectorDataLength, VectorIndexOffset,
+ *         VectorIndexLength, Dimension, Size, DocIds?, MaxConn, NumLevels, &lt;NumNodesOnLevel, NodesOnLevel&gt;<sup>NumLevels - 1</sup>,
+ *         EntryNode</li>
+ *     <li>FieldNumber, SimilarityFunction, Dimension, Size, EntryNode --&gt; {@link DataOutput#writeInt Int32}</li>
+ *     <li>VectorDataOffset, VectorDataLength, VectorIndexOffset, VectorIndexLength --&gt; {@link DataOutput#writeVLong VLong}</li>
+ *     <li>DocIds, MaxConn, NumLevels, NumNodesOnLevel, NodesOnLevel --&gt; {@link DataOutput#writeVInt VInt}</li>
+ *     <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
+ *   </ul>
+ *   <p>FieldNumber of -1 indicates the end of metadata.</p>
+ *   <p>DocIds are the delta-encoded doc IDs of the vectors, by ordinal. They are omitted when every
+ *      document of the segment has a vector, since ordinals and doc IDs are then equal.</p>
+ *   <p>NodesOnLevel are the delta-encoded ordinals of the nodes of each level above level 0, which
+ *      contains all nodes. EntryNode is the node where searches start on the top level, or -1 if
+ *      the field has no vectors.</p>
+ * </ol>
+ *
+ * @lucene.experimental
+ */
+public final class Lucene70VectorFormat extends VectorFormat {
+
+  static final String META_CODEC_NAME = "Lucene70VectorFormatMeta";
+  static final String VECTOR_DATA_CODEC_NAME = "Lucene70VectorFormatData";
+  static final String VECTOR_INDEX_CODEC_NAME = "Lucene70VectorFormatIndex";
+  static final String META_EXTENSION = "vem";
+  static final String VECTOR_DATA_EXTENSION = "vec";
+  static final String VECTOR_INDEX_EXTENSION = "vex";
+
+  static final int VERSION_START = 0;
+  static final int VERSION_CURRENT = VERSION_START;
+
+  private final int maxConn;
+  private final int beamWidth;
+
+  /** Constructs a format using default graph construction parameters */
+  public Lucene70VectorFormat() {
+    this(HnswGraphBuilder.DEFAULT_MAX_CONN, HnswGraphBuilder.DEFAULT_BEAM_WIDTH);
+  }
+
+  /**
+   * Constructs a format using the given graph construction parameters.
+   *
+   * @param maxConn the maximum number of connections to a node in the HNSW graph
+   * @param beamWidth the size of the queue maintained during graph construction.
+   */
+  public Lucene70VectorFormat(int maxConn, int beamWidth) {
+    if (maxConn <= 0) {
+      throw new IllegalArgumentException("maxConn must be positive; got " + maxConn);
+    }
+    if (beamWidth <= 0) {
+      throw new IllegalArgumentException("beamWidth must be positive; got " + beamWidth);
+    }
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+  }
+
+  @Override
+  public VectorWriter fieldsWriter(SegmentWriteState state) throws IOException {
+    return new Lucene70VectorWriter(state, maxConn, beamWidth);
+  }
+
+  @Override
+  public VectorReader fieldsReader(SegmentReadState state) throws IOException {
+    return new Lucene70VectorReader(state);
+  }
+
+  @Override
+  public String toString() {
+    return "Lucene70VectorFormat(maxConn=" + maxConn + ", beamWidth=" + beamWidth + ")";
+  }
+}
@@ -0,0 +1,499 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene70;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphSearcher;
+import org.apache.lucene.util.hnsw.NeighborQueue;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValues;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValuesProducer;
+
+import static org.apache.lucene.codecs.lucene70.Lucene70VectorFormat.VERSION_CURRENT;
+import static org.apache.lucene.codecs.lucene70.Lucene70VectorFormat.VERSION_START;
+
+/**
+ * Reads vectors from the index segments along with index data structures supporting KNN search.
+ *
+ * @lucene.experimental
+ */
+public final class Lucene70VectorReader extends VectorReader {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Lucene70VectorReader.class);
+
+  private final Map<String,FieldEntry> fields = new HashMap<>();
+  private final IndexInput vectorData;
+  private final IndexInput vectorIndex;
+
+  Lucene70VectorReader(SegmentReadState state) throws IOException {
+    int version = readMetadata(state);
+    boolean success = false;
+    try {
+      vectorData = openDataInput(state, version, Lucene70VectorFormat.VECTOR_DATA_EXTENSION,
+          Lucene70VectorFormat.VECTOR_DATA_CODEC_NAME);
+      vectorIndex = openDataInput(state, version, Lucene70VectorFormat.VECTOR_INDEX_EXTENSION,
+          Lucene70VectorFormat.VECTOR_INDEX_CODEC_NAME);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(this);
+      }
+    }
+  }
+
+  private int readMetadata(SegmentReadState state) throws IOException {
+    String metaFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene70VectorFormat.META_EXTENSION);
+    int version = -1;
+    try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaFileName, state.context)) {
+      Throwable priorE = null;
+      try {
+        version = CodecUtil.checkIndexHeader(meta, Lucene70VectorFormat.META_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+            state.segmentInfo.getId(), state.segmentSuffix);
+        readFields(meta, state.fieldInfos, state.segmentInfo.maxDoc());
+      } catch (Throwable exception) {
+        priorE = exception;
+      } finally {
+        CodecUtil.checkFooter(meta, priorE);
+      }
+    }
+    return version;
+  }
+
+  private static IndexInput openDataInput(SegmentReadState state, int versionMeta, String fileExtension, String codecName) throws IOException {
+    String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, fileExtension);
+    IndexInput in = state.directory.openInput(fileName, state.context);
+    boolean success = false;
+    try {
+      int versionData = CodecUtil.checkIndexHeader(in, codecName, VERSION_START, VERSION_CURRENT,
+          state.segmentInfo.getId(), state.segmentSuffix);
+      if (versionMeta != versionData) {
+        throw new CorruptIndexException("Format versions mismatch: meta=" + versionMeta + ", " + codecName + "=" + versionData, in);
+      }
+      // NOTE: data file is too costly to verify checksum against all the bytes on open,
+      // but for now we at least verify proper structure of the checksum footer: which looks
+      // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
+      // such as file truncation.
+      CodecUtil.retrieveChecksum(in);
+      success = true;
+      return in;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(in);
+      }
+    }
+  }
+
+  private void readFields(ChecksumIndexInput meta, FieldInfos infos, int maxDoc) throws IOException {
+    for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+      FieldInfo info = infos.fieldInfo(fieldNumber);
+      if (info == null) {
+        throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+      }
+      FieldEntry fieldEntry = readField(meta, maxDoc);
+      if (info.getVectorDimension() != fieldEntry.dimension) {
+        throw new CorruptIndexException("Inconsistent vector dimension for field=\"" + info.name + "\"; "
+            + info.getVectorDimension() + " != " + fieldEntry.dimension, meta);
+      }
+      if (info.getVectorSimilarityFunction() != fieldEntry.similarityFunction) {
+        throw new CorruptIndexException("Inconsistent vector similarity function for field=\"" + info.name + "\"; "
+            + info.getVectorSimilarityFunction() + " != " + fieldEntry.similarityFunction, meta);
+      }
+      fields.put(info.name, fieldEntry);
+    }
+  }
+
+  private static FieldEntry readField(IndexInput meta, int maxDoc) throws IOException {
+    FieldEntry entry = new FieldEntry();
+    int similarityFunctionId = meta.readInt();
+    if (similarityFunctionId <= 0 || similarityFunctionId >= VectorValues.SimilarityFunction.values().length) {
+      throw new CorruptIndexException("Invalid similarity function id: " + similarityFunctionId, meta);
+    }
+    entry.similarityFunction = VectorValues.SimilarityFunction.values()[similarityFunctionId];
+    entry.vectorDataOffset = meta.readVLong();
+    entry.vectorDataLength = meta.readVLong();
+    entry.vectorIndexOffset = meta.readVLong();
+    entry.vectorIndexLength = meta.readVLong();
+    entry.dimension = meta.readInt();
+    entry.size = meta.readInt();
+    if (entry.size < 0 || entry.size > maxDoc) {
+      throw new CorruptIndexException("Invalid number of vectors: " + entry.size + ", maxDoc=" + maxDoc, meta);
+    }
+    if (entry.vectorDataLength != (long) entry.size * entry.dimension * Float.BYTES) {
+      throw new CorruptIndexException("Vector data length " + entry.vectorDataLength + " not matching size="
+          + entry.size + " * dimension=" + entry.dimension, meta);
+    }
+    if (entry.size != maxDoc) {
+      // sparse: some documents have no vector
+      entry.ordToDoc = new int[entry.size];
+      int doc = 0;
+      for (int i = 0; i < entry.size; i++) {
+        doc += meta.readVInt();
+        entry.ordToDoc[i] = doc;
+      }
+    }
+    entry.maxConn = meta.readVInt();
+    int numLevels = meta.readVInt();
+    entry.nodesByLevel = new int[numLevels][];
+    for (int level = 1; level < numLevels; level++) {
+      int numNodesOnLevel = meta.readVInt();
+      int[] nodes = new int[numNodesOnLevel];
+      int node = 0;
+      for (int i = 0; i < numNodesOnLevel; i++) {
+        node += meta.readVInt();
+        nodes[i] = node;
+      }
+      entry.nodesByLevel[level] = nodes;
+    }
+    entry.entryNode = meta.readInt();
+    // compute the start of each level's neighbor blocks in the graph index
+    entry.levelOffsets = new long[numLevels];
+    long offset = 0;
+    for (int level = 0; level < numLevels; level++) {
+      entry.levelOffsets[level] = offset;
+      int numNodesOnLevel = level == 0 ? entry.size : entry.nodesByLevel[level].length;
+      offset += (long) numNodesOnLevel * (1 + entry.maxConnOnLevel(level)) * Integer.BYTES;
+    }
+    if (offset != entry.vectorIndexLength) {
+      throw new CorruptIndexException("Vector index length " + entry.vectorIndexLength
+          + " not matching the graph size " + offset, meta);
+    }
+    return entry;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long totalBytes = BASE_RAM_BYTES_USED;
+    totalBytes += fields.size() * RamUsageEstimator.shallowSizeOfInstance(FieldEntry.class);
+    for (FieldEntry entry : fields.values()) {
+      if (entry.ordToDoc != null) {
+        totalBytes += RamUsageEstimator.sizeOf(entry.ordToDoc);
+      }
+      for (int level = 1; level < entry.nodesByLevel.length; level++) {
+        totalBytes += RamUsageEstimator.sizeOf(entry.nodesByLevel[level]);
+      }
+      totalBytes += RamUsageEstimator.sizeOf(entry.levelOffsets);
+    }
+    return totalBytes;
+  }
+
+  @Override
+  public void checkIntegrity() throws IOException {
+    CodecUtil.checksumEntireFile(vectorData);
+    CodecUtil.checksumEntireFile(vectorIndex);
+  }
+
+  @Override
+  public VectorValues getVectorValues(String field) throws IOException {
+    FieldEntry fieldEntry = fields.get(field);
+    if (fieldEntry == null) {
+      return null;
+    }
+    return getOffHeapVectorValues(fieldEntry);
+  }
+
+  @Override
+  public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+    FieldEntry fieldEntry = fields.get(field);
+    if (fieldEntry == null) {
+      return null;
+    }
+    if (fieldEntry.size == 0 || k <= 0) {
+      return new TopDocs(0, new ScoreDoc[0], Float.NaN);
+    }
+
+    OffHeapVectorValues vectorValues = getOffHeapVectorValues(fieldEntry);
+    // search the graph with at most as many candidates as there are vectors
+    k = Math.min(k, fieldEntry.size);
+    NeighborQueue results = HnswGraphSearcher.search(target, k, vectorValues, fieldEntry.similarityFunction,
+        getGraph(fieldEntry), getAcceptOrds(acceptDocs, fieldEntry), visitedLimit);
+    int i = results.size();
+    ScoreDoc[] scoreDocs = new ScoreDoc[i];
+    while (results.size() > 0) {
+      float score = results.topScore();
+      int node = results.pop();
+      scoreDocs[--i] = new ScoreDoc(fieldEntry.ordToDoc(node), score);
+    }
+    return new TopDocs(results.visitedCount(), scoreDocs, scoreDocs.length == 0 ? Float.NaN : scoreDocs[0].score);
+  }
+
+  private OffHeapVectorValues getOffHeapVectorValues(FieldEntry fieldEntry) throws IOException {
+    IndexInput bytesSlice = vectorData.slice("vector-data", fieldEntry.vectorDataOffset, fieldEntry.vectorDataLength);
+    return new OffHeapVectorValues(fieldEntry.dimension, fieldEntry.size, fieldEntry.ordToDoc,
+        fieldEntry.similarityFunction, bytesSlice);
+  }
+
+  private static Bits getAcceptOrds(Bits acceptDocs, FieldEntry fieldEntry) {
+    if (acceptDocs == null) {
+      return null;
+    }
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return acceptDocs.get(fieldEntry.ordToDoc(index));
+      }
+
+      @Override
+      public int length() {
+        return fieldEntry.size;
+      }
+    };
+  }
+
+  /** Returns the graph of the given field, or null if the field has no vectors in this segment. */
+  HnswGraph getGraph(String field) throws IOException {
+    FieldEntry fieldEntry = fields.get(field);
+    if (fieldEntry == null) {
+      return null;
+    }
+    return getGraph(fieldEntry);
+  }
+
+  private HnswGraph getGraph(FieldEntry fieldEntry) throws IOException {
+    IndexInput bytesSlice = vectorIndex.slice("graph-data", fieldEntry.vectorIndexOffset, fieldEntry.vectorIndexLength);
+    return new OffHeapHnswGraph(fieldEntry, bytesSlice);
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(vectorData, vectorIndex);
+  }
+
+  private static class FieldEntry {
+    VectorValues.SimilarityFunction similarityFunction;
+    long vectorDataOffset;
+    long vectorDataLength;
+    long vectorIndexOffset;
+    long vectorIndexLength;
+    int dimension;
+    int size;
+    // null if all documents have a vector
+    int[] ordToDoc;
+    int maxConn;
+    // nodes of each level above level 0, which contains all nodes
+    int[][] nodesByLevel;
+    long[] levelOffsets;
+    int entryNode;
+
+    int ordToDoc(int ord) {
+      return ordToDoc == null ? ord : ordToDoc[ord];
+    }
+
+    int maxConnOnLevel(int level) {
+      return level == 0 ? maxConn * 2 : maxConn;
+    }
+  }
+
+  /**
+   * Read the vector values from the index input. This supports both iterated and random access.
+   */
+  static class OffHeapVectorValues extends VectorValues
+      implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    private final int dimension;
+    private final int size;
+    // null if ordinals and doc IDs are equal
+    private final int[] ordToDoc;
+    private final SimilarityFunction similarityFunction;
+    private final IndexInput dataIn;
+    private final int byteSize;
+    private final ByteBuffer byteBuffer;
+    private final FloatBuffer floatBuffer;
+    private final float[] value;
+
+    private int ord = -1;
+    private int doc = -1;
+
+    OffHeapVectorValues(int dimension, int size, int[] ordToDoc, SimilarityFunction similarityFunction, IndexInput dataIn) {
+      this.dimension = dimension;
+      this.size = size;
+      this.ordToDoc = ordToDoc;
+      this.similarityFunction = similarityFunction;
+      this.dataIn = dataIn;
+      byteSize = Float.BYTES * dimension;
+      // vectors are written big-endian, which is the default byte order of heap buffers
+      byteBuffer = ByteBuffer.allocate(byteSize);
+      floatBuffer = byteBuffer.asFloatBuffer();
+      value = new float[dimension];
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public SimilarityFunction similarityFunction() {
+      return similarityFunction;
+    }
+
+    @Override
+    public float[] vectorValue() throws IOException {
+      return vectorValue(ord);
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (++ord >= size) {
+        doc = NO_MORE_DOCS;
+      } else {
+        doc = ordToDoc == null ? ord : ordToDoc[ord];
+      }
+      return doc;
+    }
+
+    @Override
+    public int advance(int target) {
+      assert docID() < target;
+      if (ordToDoc == null) {
+        ord = target;
+      } else {
+        ord = Arrays.binarySearch(ordToDoc, ord + 1, size, target);
+        if (ord < 0) {
+          ord = -(ord + 1);
+        }
+      }
+      if (ord >= size) {
+        doc = NO_MORE_DOCS;
+      } else {
+        doc = ordToDoc == null ? ord : ordToDoc[ord];
+      }
+      return doc;
+    }
+
+    @Override
+    public long cost() {
+      return size;
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return new OffHeapVectorValues(dimension, size, ordToDoc, similarityFunction, dataIn.clone());
+    }
+
+    @Override
+    public RandomAccessVectorValues copy() {
+      return randomAccess();
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) throws IOException {
+      dataIn.seek((long) targetOrd * byteSize);
+      dataIn.readBytes(byteBuffer.array(), byteBuffer.arrayOffset(), byteSize);
+      floatBuffer.position(0);
+      floatBuffer.get(value, 0, dimension);
+      return value;
+    }
+  }
+
+  /** Read the nearest-neighbors graph from the index input */
+  private static final class OffHeapHnswGraph extends HnswGraph {
+
+    private final FieldEntry entry;
+    private final IndexInput dataIn;
+    private final int[] neighbors;
+    private int arraySize;
+    private int arrayIndex;
+
+    OffHeapHnswGraph(FieldEntry entry, IndexInput dataIn) {
+      this.entry = entry;
+      this.dataIn = dataIn;
+      this.neighbors = new int[entry.maxConnOnLevel(0)];
+    }
+
+    @Override
+    public void seek(int level, int target) throws IOException {
+      int targetIndex;
+      if (level == 0) {
+        targetIndex = target;
+      } else {
+        targetIndex = Arrays.binarySearch(entry.nodesByLevel[level], target);
+        assert targetIndex >= 0 : "node " + target + " is not on level " + level;
+      }
+      long blockSize = (1 + entry.maxConnOnLevel(level)) * Integer.BYTES;
+      dataIn.seek(entry.levelOffsets[level] + targetIndex * blockSize);
+      arraySize = dataIn.readInt();
+      for (int i = 0; i < arraySize; i++) {
+        neighbors[i] = dataIn.readInt();
+      }
+      arrayIndex = -1;
+    }
+
+    @Override
+    public int size() {
+      return entry.size;
+    }
+
+    @Override
+    public int nextNeighbor() {
+      if (++arrayIndex >= arraySize) {
+        return DocIdSetIterator.NO_MORE_DOCS;
+      }
+      return neighbors[arrayIndex];
+    }
+
+    @Override
+    public int numLevels() {
+      return entry.nodesByLevel.length;
+    }
+
+    @Override
+    public int entryNode() {
+      return entry.entryNode;
+    }
+
+    @Override
+    public DocIdSetIterator getNodesOnLevel(int level) {
+      if (level == 0) {
+        return DocIdSetIterator.all(entry.size);
+      }
+      return nodesIterator(entry.nodesByLevel[level], entry.nodesByLevel[level].length);
+    }
+  }
+}
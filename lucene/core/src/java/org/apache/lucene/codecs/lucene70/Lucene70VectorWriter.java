@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene70;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+import org.apache.lucene.util.hnsw.NeighborArray;
+import org.apache.lucene.util.hnsw.OnHeapHnswGraph;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValues;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValuesProducer;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * Writes vector values and knn graphs to index segments.
+ *
+ * @lucene.experimental
+ */
+public final class Lucene70VectorWriter extends VectorWriter {
+
+  private final SegmentWriteState segmentWriteState;
+  private final IndexOutput meta, vectorData, vectorIndex;
+  private final int maxDoc;
+  private final int maxConn;
+  private final int beamWidth;
+  private boolean finished;
+
+  Lucene70VectorWriter(SegmentWriteState state, int maxConn, int beamWidth) throws IOException {
+    this.segmentWriteState = state;
+    this.maxDoc = state.segmentInfo.maxDoc();
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+
+    String metaFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene70VectorFormat.META_EXTENSION);
+    String vectorDataFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene70VectorFormat.VECTOR_DATA_EXTENSION);
+    String indexDataFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene70VectorFormat.VECTOR_INDEX_EXTENSION);
+
+    boolean success = false;
+    try {
+      meta = state.directory.createOutput(metaFileName, state.context);
+      vectorData = state.directory.createOutput(vectorDataFileName, state.context);
+      vectorIndex = state.directory.createOutput(indexDataFileName, state.context);
+
+      CodecUtil.writeIndexHeader(meta, Lucene70VectorFormat.META_CODEC_NAME,
+          Lucene70VectorFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      CodecUtil.writeIndexHeader(vectorData, Lucene70VectorFormat.VECTOR_DATA_CODEC_NAME,
+          Lucene70VectorFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      CodecUtil.writeIndexHeader(vectorIndex, Lucene70VectorFormat.VECTOR_INDEX_CODEC_NAME,
+          Lucene70VectorFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(this);
+      }
+    }
+  }
+
+  @Override
+  public void writeField(FieldInfo fieldInfo, VectorValues vectors) throws IOException {
+    if (vectors instanceof RandomAccessVectorValuesProducer) {
+      // the vectors can be accessed randomly as they are, typically because they are
+      // buffered in memory: build the graph over them directly
+      long vectorDataOffset = vectorData.getFilePointer();
+      int[] docIds = writeVectorData(vectorData, fieldInfo, vectors);
+      long vectorDataLength = vectorData.getFilePointer() - vectorDataOffset;
+      RandomAccessVectorValues randomAccess = ((RandomAccessVectorValuesProducer) vectors).randomAccess();
+      writeGraphAndMeta(fieldInfo, vectorDataOffset, vectorDataLength, docIds, newGraphBuilder(fieldInfo, randomAccess));
+    } else {
+      writeFieldViaTempFile(fieldInfo, vectors, null);
+    }
+  }
+
+  /**
+   * Merges one field by writing the merged vectors, and inserting them into a copy of the graph of
+   * the largest incoming segment that has no deletions, if any, rather than building the graph from
+   * scratch.
+   */
+  @Override
+  protected void mergeOneField(MergeState mergeState, FieldInfo fieldInfo) throws IOException {
+    writeFieldViaTempFile(fieldInfo, mergeVectorValues(mergeState, fieldInfo), mergeState);
+  }
+
+  /**
+   * Writes the vectors to a temporary file first, so that they can be accessed randomly to build the
+   * graph, then copies them to the vector data file.
+   */
+  private void writeFieldViaTempFile(FieldInfo fieldInfo, VectorValues vectors, MergeState mergeState) throws IOException {
+    final Directory directory = segmentWriteState.directory;
+    final IndexOutput tempVectorData = directory.createTempOutput(vectorData.getName(), "temp", segmentWriteState.context);
+    final String tempFileName = tempVectorData.getName();
+    final int[] docIds;
+    boolean success = false;
+    try {
+      docIds = writeVectorData(tempVectorData, fieldInfo, vectors);
+      success = true;
+    } finally {
+      if (success) {
+        IOUtils.close(tempVectorData);
+      } else {
+        IOUtils.closeWhileHandlingException(tempVectorData);
+        IOUtils.deleteFilesIgnoringExceptions(directory, tempFileName);
+      }
+    }
+
+    try (IndexInput vectorDataInput = directory.openInput(tempFileName, segmentWriteState.context)) {
+      long vectorDataOffset = vectorData.getFilePointer();
+      vectorData.copyBytes(vectorDataInput, vectorDataInput.length());
+      long vectorDataLength = vectorData.getFilePointer() - vectorDataOffset;
+
+      // ordinals are the only identifiers that the graph builder needs
+      Lucene70VectorReader.OffHeapVectorValues randomAccess = new Lucene70VectorReader.OffHeapVectorValues(
+          fieldInfo.getVectorDimension(), docIds.length, null, fieldInfo.getVectorSimilarityFunction(), vectorDataInput);
+      HnswGraphBuilder graphBuilder = newGraphBuilder(fieldInfo, randomAccess);
+      if (mergeState != null) {
+        initializeFromLargestGraph(graphBuilder, mergeState, fieldInfo, docIds);
+      }
+      writeGraphAndMeta(fieldInfo, vectorDataOffset, vectorDataLength, docIds, graphBuilder);
+    } finally {
+      IOUtils.deleteFilesIgnoringExceptions(directory, tempFileName);
+    }
+  }
+
+  private HnswGraphBuilder newGraphBuilder(FieldInfo fieldInfo, RandomAccessVectorValues vectors) throws IOException {
+    HnswGraphBuilder graphBuilder = new HnswGraphBuilder(vectors, fieldInfo.getVectorSimilarityFunction(),
+        maxConn, beamWidth, HnswGraphBuilder.DEFAULT_RAND_SEED);
+    graphBuilder.setInfoStream(segmentWriteState.infoStream);
+    return graphBuilder;
+  }
+
+  /**
+   * Copies the graph of the largest incoming segment into the graph builder, if that segment was
+   * written by this format and has no deletions: its nodes then keep their connections, and only
+   * the vectors of the other segments need to be inserted.
+   */
+  private static void initializeFromLargestGraph(HnswGraphBuilder graphBuilder, MergeState mergeState,
+                                                 FieldInfo fieldInfo, int[] docIds) throws IOException {
+    int initializerIndex = -1;
+    int initializerSize = 0;
+    for (int i = 0; i < mergeState.vectorReaders.length; i++) {
+      VectorReader reader = mergeState.vectorReaders[i];
+      if (mergeState.liveDocs[i] != null || reader instanceof Lucene70VectorReader == false) {
+        continue;
+      }
+      FieldInfo readerFieldInfo = mergeState.fieldInfos[i].fieldInfo(fieldInfo.name);
+      if (readerFieldInfo == null || readerFieldInfo.getVectorDimension() == 0) {
+        continue;
+      }
+      VectorValues values = reader.getVectorValues(fieldInfo.name);
+      if (values != null && values.size() > initializerSize) {
+        initializerIndex = i;
+        initializerSize = values.size();
+      }
+    }
+    if (initializerIndex == -1) {
+      return;
+    }
+
+    Lucene70VectorReader reader = (Lucene70VectorReader) mergeState.vectorReaders[initializerIndex];
+    MergeState.DocMap docMap = mergeState.docMaps[initializerIndex];
+    VectorValues values = reader.getVectorValues(fieldInfo.name);
+    int[] oldToNewOrd = new int[initializerSize];
+    int oldOrd = 0;
+    for (int doc = values.nextDoc(); doc != NO_MORE_DOCS; doc = values.nextDoc()) {
+      // merged ordinals are assigned in increasing merged doc ID order
+      int newOrd = Arrays.binarySearch(docIds, docMap.get(doc));
+      assert newOrd >= 0 : "doc " + doc + " of a segment without deletions is missing from the merged segment";
+      oldToNewOrd[oldOrd++] = newOrd;
+    }
+    HnswGraph initializerGraph = reader.getGraph(fieldInfo.name);
+    graphBuilder.initializeFromGraph(initializerGraph, oldToNewOrd);
+  }
+
+  private void writeGraphAndMeta(FieldInfo fieldInfo, long vectorDataOffset, long vectorDataLength,
+                                 int[] docIds, HnswGraphBuilder graphBuilder) throws IOException {
+    long vectorIndexOffset = vectorIndex.getFilePointer();
+    OnHeapHnswGraph graph = graphBuilder.build();
+    writeGraph(vectorIndex, graph);
+    long vectorIndexLength = vectorIndex.getFilePointer() - vectorIndexOffset;
+    writeMeta(fieldInfo, vectorDataOffset, vectorDataLength, vectorIndexOffset, vectorIndexLength, docIds, graph);
+  }
+
+  /** Writes the vectors in big-endian order, and returns the doc IDs that have a vector. */
+  private static int[] writeVectorData(IndexOutput output, FieldInfo fieldInfo, VectorValues vectors) throws IOException {
+    final int dimension = fieldInfo.getVectorDimension();
+    final ByteBuffer buffer = ByteBuffer.allocate(dimension * Float.BYTES);
+    final FloatBuffer floatBuffer = buffer.asFloatBuffer();
+    int[] docIds = new int[vectors.size()];
+    int count = 0;
+    for (int doc = vectors.nextDoc(); doc != NO_MORE_DOCS; doc = vectors.nextDoc()) {
+      float[] value = vectors.vectorValue();
+      if (value.length != dimension) {
+        throw new IllegalArgumentException("field=\"" + fieldInfo.name + "\": vector has dimension "
+            + value.length + " but the field has dimension " + dimension);
+      }
+      floatBuffer.position(0);
+      floatBuffer.put(value);
+      output.writeBytes(buffer.array(), buffer.array().length);
+      if (count == docIds.length) {
+        docIds = ArrayUtil.grow(docIds, count + 1);
+      }
+      docIds[count++] = doc;
+    }
+    return count == docIds.length ? docIds : Arrays.copyOf(docIds, count);
+  }
+
+  /** Writes the neighbors of each node of each level in blocks of fixed size. */
+  private static void writeGraph(IndexOutput graphData, OnHeapHnswGraph graph) throws IOException {
+    for (int level = 0; level < graph.numLevels(); level++) {
+      final int maxConnOnLevel = graph.maxConn(level);
+      final DocIdSetIterator nodes = graph.getNodesOnLevel(level);
+      for (int node = nodes.nextDoc(); node != NO_MORE_DOCS; node = nodes.nextDoc()) {
+        NeighborArray neighbors = graph.getNeighbors(level, node);
+        assert neighbors.size() <= maxConnOnLevel;
+        graphData.writeInt(neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+          graphData.writeInt(neighbors.node(i));
+        }
+        for (int i = neighbors.size(); i < maxConnOnLevel; i++) {
+          graphData.writeInt(0);
+        }
+      }
+    }
+  }
+
+  private void writeMeta(FieldInfo field, long vectorDataOffset, long vectorDataLength, long vectorIndexOffset,
+                         long vectorIndexLength, int[] docIds, OnHeapHnswGraph graph) throws IOException {
+    meta.writeInt(field.number);
+    meta.writeInt(field.getVectorSimilarityFunction().ordinal());
+    meta.writeVLong(vectorDataOffset);
+    meta.writeVLong(vectorDataLength);
+    meta.writeVLong(vectorIndexOffset);
+    meta.writeVLong(vectorIndexLength);
+    meta.writeInt(field.getVectorDimension());
+    meta.writeInt(docIds.length);
+    if (docIds.length != maxDoc) {
+      // sparse: record the doc ID of each ordinal
+      int lastDoc = 0;
+      for (int doc : docIds) {
+        meta.writeVInt(doc - lastDoc);
+        lastDoc = doc;
+      }
+    }
+    meta.writeVInt(maxConn);
+    meta.writeVInt(graph.numLevels());
+    int[] nodes = new int[0];
+    for (int level = 1; level < graph.numLevels(); level++) {
+      int numNodes = 0;
+      DocIdSetIterator it = graph.getNodesOnLevel(level);
+      for (int node = it.nextDoc(); node != NO_MORE_DOCS; node = it.nextDoc()) {
+        if (numNodes == nodes.length) {
+          nodes = ArrayUtil.grow(nodes, numNodes + 1);
+        }
+        nodes[numNodes++] = node;
+      }
+      meta.writeVInt(numNodes);
+      int lastNode = 0;
+      for (int i = 0; i < numNodes; i++) {
+        meta.writeVInt(nodes[i] - lastNode);
+        lastNode = nodes[i];
+      }
+    }
+    meta.writeInt(graph.entryNode());
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (finished) {
+      throw new IllegalStateException("already finished");
+    }
+    finished = true;
+
+    // write end of fields marker
+    meta.writeInt(-1);
+    CodecUtil.writeFooter(meta);
+    CodecUtil.writeFooter(vectorData);
+    CodecUtil.writeFooter(vectorIndex);
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(meta, vectorData, vectorIndex);
+  }
+}
@@ -191,6 +191,11 @@
  * numeric range filtering and large numeric values like BigInteger and BigDecimal (1D)
  * and geographic shape intersection (2D, 3D).
  * </li>
+ * <li>
+ * {@link org.apache.lucene.codecs.lucene70.Lucene70VectorFormat Vector values}.
+ * Optional files, recording fixed-dimension numeric vectors together with a
+ * graph connecting them, to enable approximate nearest-neighbor search.
+ * </li>
  * </ul>
  * <p>Details on each of these are provided in their linked pages.</p>
  * </div>
@@ -313,6 +318,11 @@
  * <td>.dii, .dim</td>
  * <td>Holds indexed points, if any</td>
  * </tr>
+ * <tr>
+ * <td>{@link org.apache.lucene.codecs.lucene70.Lucene70VectorFormat Vector values}</td>
+ * <td>.vec, .vex, .vem</td>
+ * <td>Holds indexed vectors and their nearest-neighbor graph, if any</td>
+ * </tr>
  * </table>
  * </div>
  * <a name="Lock_File"></a>
@@ -388,7 +398,8 @@
  * <li>In version 6.0, Points were added, for multi-dimensional range/distance search.
  * <li>In version 6.2, new Segment info format that reads/writes the index sort, to support index sorting.
  * <li>In version 7.0, DocValues have been improved to better support sparse doc values
- * thanks to an iterator API.
+ * thanks to an iterator API. Vector values were added, for approximate
+ * nearest-neighbor search.
  * </li>
  * </ul>
  * <a name="Limitations"></a>
@@ -22,6 +22,7 @@ import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableFieldType;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.VectorValues;
 
 /**
  * Describes the properties of a field.
@@ -40,6 +41,8 @@ public class FieldType implements IndexableFieldType  {
   private DocValuesType docValuesType = DocValuesType.NONE;
   private int dimensionCount;
   private int dimensionNumBytes;
+  private int vectorDimension;
+  private VectorValues.SimilarityFunction vectorSimilarityFunction = VectorValues.SimilarityFunction.NONE;
 
   /**
    * Create a new mutable FieldType with all of the properties from <code>ref</code>
@@ -56,6 +59,8 @@ public class FieldType implements IndexableFieldType  {
     this.docValuesType = ref.docValuesType();
     this.dimensionCount = ref.pointDimensionCount();
     this.dimensionNumBytes = ref.pointNumBytes();
+    this.vectorDimension = ref.vectorDimension();
+    this.vectorSimilarityFunction = ref.vectorSimilarityFunction();
     // Do not copy frozen!
   }
   
@@ -315,6 +320,36 @@ public class FieldType implements IndexableFieldType  {
     return dimensionNumBytes;
   }
 
+  /**
+   * Enables vector indexing, with the given number of dimensions and similarity function.
+   * @throws IllegalStateException if this FieldType is frozen against
+   *         future modifications.
+   */
+  public void setVectorDimensionsAndSimilarityFunction(int numDimensions, VectorValues.SimilarityFunction similarityFunction) {
+    checkIfFrozen();
+    if (numDimensions <= 0) {
+      throw new IllegalArgumentException("vector numDimensions must be > 0; got " + numDimensions);
+    }
+    if (numDimensions > VectorValues.MAX_DIMENSIONS) {
+      throw new IllegalArgumentException("vector numDimensions must be <= VectorValues.MAX_DIMENSIONS (=" + VectorValues.MAX_DIMENSIONS + "); got " + numDimensions);
+    }
+    if (similarityFunction == null || similarityFunction == VectorValues.SimilarityFunction.NONE) {
+      throw new IllegalArgumentException("vector similarity function must not be null or NONE; got " + similarityFunction);
+    }
+    this.vectorDimension = numDimensions;
+    this.vectorSimilarityFunction = similarityFunction;
+  }
+
+  @Override
+  public int vectorDimension() {
+    return vectorDimension;
+  }
+
+  @Override
+  public VectorValues.SimilarityFunction vectorSimilarityFunction() {
+    return vectorSimilarityFunction;
+  }
+
   /** Prints a Field for human consumption. */
   @Override
   public String toString() {
@@ -358,6 +393,15 @@ public class FieldType implements IndexableFieldType  {
       result.append(",pointNumBytes=");
       result.append(dimensionNumBytes);
     }
+    if (vectorDimension != 0) {
+      if (result.length() > 0) {
+        result.append(",");
+      }
+      result.append("vectorDimension=");
+      result.append(vectorDimension);
+      result.append(",vectorSimilarityFunction=");
+      result.append(vectorSimilarityFunction);
+    }
     if (docValuesType != DocValuesType.NONE) {
       if (result.length() > 0) {
         result.append(",");
@@ -401,6 +445,8 @@ public class FieldType implements IndexableFieldType  {
     int result = 1;
     result = prime * result + dimensionCount;
     result = prime * result + dimensionNumBytes;
+    result = prime * result + vectorDimension;
+    result = prime * result + vectorSimilarityFunction.hashCode();
     result = prime * result + ((docValuesType == null) ? 0 : docValuesType.hashCode());
     result = prime * result + indexOptions.hashCode();
     result = prime * result + (omitNorms ? 1231 : 1237);
@@ -421,6 +467,8 @@ public class FieldType implements IndexableFieldType  {
     FieldType other = (FieldType) obj;
     if (dimensionCount != other.dimensionCount) return false;
     if (dimensionNumBytes != other.dimensionNumBytes) return false;
+    if (vectorDimension != other.vectorDimension) return false;
+    if (vectorSimilarityFunction != other.vectorSimilarityFunction) return false;
     if (docValuesType != other.docValuesType) return false;
     if (indexOptions != other.indexOptions) return false;
     if (omitNorms != other.omitNorms) return false;
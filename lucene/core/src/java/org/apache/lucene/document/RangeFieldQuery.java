@@ -113,7 +113,7 @@ abstract class RangeFieldQuery extends Query {
     return new ConstantScoreWeight(this, boost) {
       final RangeFieldComparator target = new RangeFieldComparator();
       private DocIdSet buildMatchingDocIdSet(LeafReader reader, PointValues values) throws IOException {
-        DocIdSetBuilder result = new DocIdSetBuilder(reader.maxDoc(), values, field);
+        DocIdSetBuilder result = new DocIdSetBuilder(reader.maxDoc(), values, field, searcher.getMemoryAccountant());
         values.intersect(
             new IntersectVisitor() {
               DocIdSetBuilder.BulkAdder adder;
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -27,6 +28,7 @@ import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocValuesRangeIterator;
 import org.apache.lucene.search.FieldValueQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -144,8 +146,13 @@ abstract class SortedSetDocValuesRangeQuery extends Query {
           return null;
         }
 
+        final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null
+            && (skipper.minValueGlobal() > maxOrd || skipper.maxValueGlobal() < minOrd)) {
+          return null;
+        }
         final SortedDocValues singleton = DocValues.unwrapSingleton(values);
-        final TwoPhaseIterator iterator;
+        TwoPhaseIterator iterator;
         if (singleton != null) {
           iterator = new TwoPhaseIterator(singleton) {
             @Override
@@ -179,6 +186,9 @@ abstract class SortedSetDocValuesRangeQuery extends Query {
             }
           };
         }
+        if (skipper != null) {
+          iterator = new DocValuesRangeIterator(iterator, skipper, minOrd, maxOrd, false);
+        }
         return new ConstantScoreScorer(this, score(), iterator);
       }
     };
@@ -17,9 +17,12 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.NumberFormat;
@@ -31,6 +34,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesProducer;
@@ -62,8 +71,10 @@ import org.apache.lucene.util.CommandLineUtil;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.SuppressForbidden;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.Version;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
@@ -457,6 +468,22 @@ public final class CheckIndex implements Closeable {
   }
 
   private boolean verbose;
+
+  private int threadCount = 1;
+
+  /** Sets the number of threads used to check segments concurrently;
+   *  1 (the default) checks them sequentially in the calling thread. */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be >= 1, got " + threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
+  /** See {@link #setThreadCount}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
   
   /** See {@link #getChecksumsOnly}. */
   public boolean getChecksumsOnly() {
@@ -510,8 +537,40 @@ public final class CheckIndex implements Closeable {
    *
    *  <p>As this method checks every byte in the specified
    *  segments, on a large index it can take quite a long
-   *  time to run. */
+   *  time to run.  If {@link #setThreadCount} is greater than 1,
+   *  segments are checked concurrently. */
   public Status checkIndex(List<String> onlySegments) throws IOException {
+    if (threadCount <= 1) {
+      return checkIndex(onlySegments, null);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount, new NamedThreadFactory("CheckIndex"));
+    try {
+      return checkIndex(onlySegments, executor);
+    } finally {
+      executor.shutdown();
+      try {
+        // make sure all segment readers are closed before returning
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      }
+    }
+  }
+
+  /** Returns a {@link Status} instance detailing
+   *  the state of the index, checking segments and the
+   *  independent parts of each segment (postings, stored fields,
+   *  doc values, ...) concurrently on the given executor.
+   *  Messages are still printed to the infoStream one segment at
+   *  a time, in segment order. At most {@link #getThreadCount()}
+   *  segments are open at the same time.
+   *
+   *  @param onlySegments list of specific segment names to check
+   *  @param executor executor to check segments with, or null to
+   *  check them sequentially in the current thread
+   *
+   *  @lucene.experimental */
+  public Status checkIndex(List<String> onlySegments, Executor executor) throws IOException {
     ensureOpen();
     long startNS = System.nanoTime();
     NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
@@ -631,6 +690,10 @@ public final class CheckIndex implements Closeable {
     result.newSegments.clear();
     result.maxSegmentName = -1;
 
+    // collect the segments to check up front, so they can be checked concurrently
+    // and their output still be printed in segment order
+    final List<SegmentCheck> checks = new ArrayList<>();
+    long totalBytes = 0;
     for(int i=0;i<numSegments;i++) {
       final SegmentCommitInfo info = sis.info(i);
       int segmentName = Integer.parseInt(info.info.name.substring(1), Character.MAX_RADIX);
@@ -640,174 +703,75 @@ public final class CheckIndex implements Closeable {
       if (onlySegments != null && !onlySegments.contains(info.info.name)) {
         continue;
       }
-      Status.SegmentInfoStatus segInfoStat = new Status.SegmentInfoStatus();
-      result.segmentInfos.add(segInfoStat);
-      msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
-      segInfoStat.name = info.info.name;
-      segInfoStat.maxDoc = info.info.maxDoc();
-      
-      final Version version = info.info.getVersion();
-      if (info.info.maxDoc() <= 0) {
-        throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
-      }
-
-      int toLoseDocCount = info.info.maxDoc();
-
-      SegmentReader reader = null;
-      Sort previousIndexSort = null;
-
+      SegmentCheck check = new SegmentCheck(i, info, infoStream, executor != null);
+      result.segmentInfos.add(check.status);
+      checks.add(check);
       try {
-        msg(infoStream, "    version=" + (version == null ? "3.0" : version));
-        msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
-        final Codec codec = info.info.getCodec();
-        msg(infoStream, "    codec=" + codec);
-        segInfoStat.codec = codec;
-        msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
-        segInfoStat.compound = info.info.getUseCompoundFile();
-        msg(infoStream, "    numFiles=" + info.files().size());
-        Sort indexSort = info.info.getIndexSort();
-        if (indexSort != null) {
-          msg(infoStream, "    sort=" + indexSort);
-          if (previousIndexSort != null) {
-            if (previousIndexSort.equals(indexSort) == false) {
-              throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
-            }
-          } else {
-            previousIndexSort = indexSort;
-          }
-        }
-        segInfoStat.numFiles = info.files().size();
-        segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
-        msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
-        Map<String,String> diagnostics = info.info.getDiagnostics();
-        segInfoStat.diagnostics = diagnostics;
-        if (diagnostics.size() > 0) {
-          msg(infoStream, "    diagnostics = " + diagnostics);
-        }
+        totalBytes += info.sizeInBytes();
+      } catch (IOException ignored) {
+        // missing files are reported when the segment itself is checked
+      }
+    }
 
-        if (!info.hasDeletions()) {
-          msg(infoStream, "    no deletions");
-          segInfoStat.hasDeletions = false;
+    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    if (executor != null) {
+      // a segment is only opened once the segment threadCount places before it is closed,
+      // so that we don't hold the readers of all segments at once
+      final SegmentInfos infos = sis;
+      for (int i = 0; i < checks.size(); i++) {
+        final SegmentCheck check = checks.get(i);
+        if (i < threadCount) {
+          futures.add(checkSegmentAsync(infos, numSegments, check, nf, executor));
         } else {
-          msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
-          segInfoStat.hasDeletions = true;
-          segInfoStat.deletionsGen = info.getDelGen();
+          futures.add(futures.get(i - threadCount)
+              .handle((v, t) -> null)
+              .thenCompose(v -> checkSegmentAsync(infos, numSegments, check, nf, executor)));
         }
-        
-        long startOpenReaderNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: open reader.........");
-        reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
-
-        segInfoStat.openReaderPassed = true;
-        
-        long startIntegrityNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: check integrity.....");
-        reader.checkIntegrity();
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
+      }
+    }
 
-        if (reader.maxDoc() != info.info.maxDoc()) {
-          throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
-        }
-        
-        final int numDocs = reader.numDocs();
-        toLoseDocCount = numDocs;
-        
-        if (reader.hasDeletions()) {
-          if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
-          }
-          if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
-            throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-          if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-        } else {
-          if (info.getDelCount() != 0) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+    final long startSegmentsNS = System.nanoTime();
+    long checkedBytes = 0;
+    for (int i = 0; i < checks.size(); i++) {
+      final SegmentCheck check = checks.get(i);
+      if (executor == null) {
+        checkSegment(sis, numSegments, check, nf);
+      } else {
+        Throwable error = null;
+        try {
+          futures.get(i).join();
+        } catch (CompletionException e) {
+          error = e.getCause();
+          if (error instanceof UncheckedIOException) {
+            // rethrow the original exception in failFast mode
+            error = error.getCause();
           }
         }
-        
-        if (checksumsOnly == false) {
-          // Test Livedocs
-          segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast);
-
-          // Test Fieldinfos
-          segInfoStat.fieldInfoStatus = testFieldInfos(reader, infoStream, failFast);
-        
-          // Test Field Norms
-          segInfoStat.fieldNormStatus = testFieldNorms(reader, infoStream, failFast);
-
-          // Test the Term Index
-          segInfoStat.termIndexStatus = testPostings(reader, infoStream, verbose, failFast, version);
-
-          // Test Stored Fields
-          segInfoStat.storedFieldStatus = testStoredFields(reader, infoStream, failFast);
-
-          // Test Term Vectors
-          segInfoStat.termVectorStatus = testTermVectors(reader, infoStream, verbose, crossCheckTermVectors, failFast, version);
-
-          // Test Docvalues
-          segInfoStat.docValuesStatus = testDocValues(reader, infoStream, failFast);
-
-          // Test PointValues
-          segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast);
-
-          // Test index sort
-          segInfoStat.indexSortStatus = testSort(reader, indexSort, infoStream, failFast);
-
-          // Rethrow the first exception we encountered
-          //  This will cause stats for failed segments to be incremented properly
-          if (segInfoStat.liveDocStatus.error != null) {
-            throw new RuntimeException("Live docs test failed");
-          } else if (segInfoStat.fieldInfoStatus.error != null) {
-            throw new RuntimeException("Field Info test failed");
-          } else if (segInfoStat.fieldNormStatus.error != null) {
-            throw new RuntimeException("Field Norm test failed");
-          } else if (segInfoStat.termIndexStatus.error != null) {
-            throw new RuntimeException("Term Index test failed");
-          } else if (segInfoStat.storedFieldStatus.error != null) {
-            throw new RuntimeException("Stored Field test failed");
-          } else if (segInfoStat.termVectorStatus.error != null) {
-            throw new RuntimeException("Term Vector test failed");
-          } else if (segInfoStat.docValuesStatus.error != null) {
-            throw new RuntimeException("DocValues test failed");
-          } else if (segInfoStat.pointsStatus.error != null) {
-            throw new RuntimeException("Points test failed");
-          }
+        if (check.output != null) {
+          check.infoStream.flush();
+          check.output.writeTo(infoStream);
         }
-
-        msg(infoStream, "");
-        
-        if (verbose) {
-          msg(infoStream, "detailed segment RAM usage: ");
-          msg(infoStream, Accountables.toString(reader));
+        if (error != null) {
+          IOUtils.reThrow(error);
         }
+      }
 
-      } catch (Throwable t) {
-        if (failFast) {
-          IOUtils.reThrow(t);
-        }
-        msg(infoStream, "FAILED");
-        String comment;
-        comment = "exorciseIndex() would remove reference to this segment";
-        msg(infoStream, "    WARNING: " + comment + "; full exception:");
-        if (infoStream != null)
-          t.printStackTrace(infoStream);
-        msg(infoStream, "");
-        result.totLoseDocCount += toLoseDocCount;
+      if (check.error != null) {
+        result.totLoseDocCount += check.toLoseDocCount;
         result.numBadSegments++;
-        continue;
-      } finally {
-        if (reader != null)
-          reader.close();
+      } else {
+        // Keeper
+        result.newSegments.add(check.info.clone());
       }
 
-      // Keeper
-      result.newSegments.add(info.clone());
+      if (checks.size() > 1) {
+        try {
+          checkedBytes += check.info.sizeInBytes();
+        } catch (IOException ignored) {
+          // already reported as a broken segment
+        }
+        msgProgress(i + 1, checks.size(), checkedBytes, totalBytes, System.nanoTime() - startSegmentsNS);
+      }
     }
 
     if (0 == result.numBadSegments) {
@@ -830,6 +794,309 @@ public final class CheckIndex implements Closeable {
     return result;
   }
 
+  /** Holds the state of checking a single segment. When segments are checked
+   *  concurrently, messages are buffered so they can be printed in segment order. */
+  private static final class SegmentCheck {
+    final int ord;
+    final SegmentCommitInfo info;
+    final Status.SegmentInfoStatus status = new Status.SegmentInfoStatus();
+    final ByteArrayOutputStream output;
+    final PrintStream infoStream;
+    SegmentReader reader;
+    Sort indexSort;
+    int toLoseDocCount;
+    Throwable error;
+
+    SegmentCheck(int ord, SegmentCommitInfo info, PrintStream infoStream, boolean buffered) {
+      this.ord = ord;
+      this.info = info;
+      this.toLoseDocCount = info.info.maxDoc();
+      if (buffered && infoStream != null) {
+        output = new ByteArrayOutputStream();
+        this.infoStream = newBufferedStream(output);
+      } else {
+        output = null;
+        this.infoStream = infoStream;
+      }
+    }
+  }
+
+  /** One independent part of checking a segment, e.g. its postings or its stored fields. */
+  @FunctionalInterface
+  private interface SegmentPartCheck {
+    void check(PrintStream infoStream) throws IOException;
+  }
+
+  private static PrintStream newBufferedStream(ByteArrayOutputStream output) {
+    try {
+      return new PrintStream(output, true, IOUtils.UTF_8);
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /** Checks a segment and its parts in the current thread. */
+  private void checkSegment(SegmentInfos sis, int numSegments, SegmentCheck check, NumberFormat nf) throws IOException {
+    startSegment(numSegments, check);
+    try {
+      openSegment(sis, check, nf);
+      if (checksumsOnly == false) {
+        for (SegmentPartCheck part : segmentParts(check)) {
+          part.check(check.infoStream);
+        }
+      }
+      finishSegment(check);
+    } catch (Throwable t) {
+      segmentFailed(check, t);
+    } finally {
+      if (check.reader != null)
+        check.reader.close();
+    }
+  }
+
+  /** Checks a segment on the given executor, checking its parts concurrently as well.
+   *  No task ever waits for another one, so any executor can be used. */
+  private CompletableFuture<Void> checkSegmentAsync(SegmentInfos sis, int numSegments, SegmentCheck check, NumberFormat nf, Executor executor) {
+    final List<ByteArrayOutputStream> partOutputs = new ArrayList<>();
+    return CompletableFuture.runAsync(() -> {
+      startSegment(numSegments, check);
+      try {
+        openSegment(sis, check, nf);
+      } catch (Throwable t) {
+        check.error = t;
+      }
+    }, executor).thenCompose(v -> {
+      if (check.error != null || checksumsOnly) {
+        return CompletableFuture.completedFuture(null);
+      }
+      final List<SegmentPartCheck> parts = segmentParts(check);
+      final CompletableFuture<?>[] partFutures = new CompletableFuture<?>[parts.size()];
+      for (int i = 0; i < parts.size(); i++) {
+        final SegmentPartCheck part = parts.get(i);
+        final ByteArrayOutputStream partOutput = check.output == null ? null : new ByteArrayOutputStream();
+        partOutputs.add(partOutput);
+        partFutures[i] = CompletableFuture.runAsync(() -> {
+          PrintStream partStream = partOutput == null ? null : newBufferedStream(partOutput);
+          try {
+            part.check(partStream);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } finally {
+            if (partStream != null)
+              partStream.flush();
+          }
+        }, executor);
+      }
+      return CompletableFuture.allOf(partFutures);
+    }).handle((v, t) -> {
+      try {
+        for (ByteArrayOutputStream partOutput : partOutputs) {
+          if (partOutput != null) {
+            partOutput.writeTo(check.infoStream);
+          }
+        }
+        if (t != null) {
+          // a part failed in failFast mode
+          check.error = t instanceof CompletionException ? t.getCause() : t;
+          if (check.error instanceof UncheckedIOException) {
+            check.error = check.error.getCause();
+          }
+        }
+        if (check.error == null) {
+          try {
+            finishSegment(check);
+          } catch (Throwable t2) {
+            check.error = t2;
+          }
+        }
+        if (check.error != null) {
+          segmentFailed(check, check.error);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        if (check.reader != null) {
+          try {
+            check.reader.close();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  private void startSegment(int numSegments, SegmentCheck check) {
+    final SegmentCommitInfo info = check.info;
+    msg(check.infoStream, "  " + (1+check.ord) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
+    check.status.name = info.info.name;
+    check.status.maxDoc = info.info.maxDoc();
+
+    if (info.info.maxDoc() <= 0) {
+      throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
+    }
+  }
+
+  /** Prints the segment's metadata, then opens it and verifies its checksums and deletions. */
+  private void openSegment(SegmentInfos sis, SegmentCheck check, NumberFormat nf) throws IOException {
+    final SegmentCommitInfo info = check.info;
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    final PrintStream infoStream = check.infoStream;
+    final Version version = info.info.getVersion();
+
+    msg(infoStream, "    version=" + (version == null ? "3.0" : version));
+    msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
+    final Codec codec = info.info.getCodec();
+    msg(infoStream, "    codec=" + codec);
+    segInfoStat.codec = codec;
+    msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
+    segInfoStat.compound = info.info.getUseCompoundFile();
+    msg(infoStream, "    numFiles=" + info.files().size());
+    check.indexSort = info.info.getIndexSort();
+    if (check.indexSort != null) {
+      msg(infoStream, "    sort=" + check.indexSort);
+    }
+    segInfoStat.numFiles = info.files().size();
+    segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
+    msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
+    Map<String,String> diagnostics = info.info.getDiagnostics();
+    segInfoStat.diagnostics = diagnostics;
+    if (diagnostics.size() > 0) {
+      msg(infoStream, "    diagnostics = " + diagnostics);
+    }
+
+    if (!info.hasDeletions()) {
+      msg(infoStream, "    no deletions");
+      segInfoStat.hasDeletions = false;
+    } else {
+      msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
+      segInfoStat.hasDeletions = true;
+      segInfoStat.deletionsGen = info.getDelGen();
+    }
+
+    long startOpenReaderNS = System.nanoTime();
+    if (infoStream != null)
+      infoStream.print("    test: open reader.........");
+    final SegmentReader reader = check.reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
+    msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
+
+    segInfoStat.openReaderPassed = true;
+
+    long startIntegrityNS = System.nanoTime();
+    if (infoStream != null)
+      infoStream.print("    test: check integrity.....");
+    reader.checkIntegrity();
+    msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
+
+    if (reader.maxDoc() != info.info.maxDoc()) {
+      throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+    }
+
+    check.toLoseDocCount = reader.numDocs();
+
+    if (reader.hasDeletions()) {
+      if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
+        throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
+      }
+      if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
+        throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
+      }
+      if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
+        throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+      }
+    } else {
+      if (info.getDelCount() != 0) {
+        throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+      }
+    }
+  }
+
+  /** Returns the independent parts of checking an opened segment, in the order they are reported. */
+  private List<SegmentPartCheck> segmentParts(SegmentCheck check) {
+    final SegmentReader reader = check.reader;
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    final Version version = check.info.info.getVersion();
+    return Arrays.<SegmentPartCheck>asList(
+        // Test Livedocs
+        infoStream -> segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast),
+        // Test Fieldinfos
+        infoStream -> segInfoStat.fieldInfoStatus = testFieldInfos(reader, infoStream, failFast),
+        // Test Field Norms
+        infoStream -> segInfoStat.fieldNormStatus = testFieldNorms(reader, infoStream, failFast),
+        // Test the Term Index
+        infoStream -> segInfoStat.termIndexStatus = testPostings(reader, infoStream, verbose, failFast, version),
+        // Test Stored Fields
+        infoStream -> segInfoStat.storedFieldStatus = testStoredFields(reader, infoStream, failFast),
+        // Test Term Vectors
+        infoStream -> segInfoStat.termVectorStatus = testTermVectors(reader, infoStream, verbose, crossCheckTermVectors, failFast, version),
+        // Test Docvalues
+        infoStream -> segInfoStat.docValuesStatus = testDocValues(reader, infoStream, failFast),
+        // Test PointValues
+        infoStream -> segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast),
+        // Test index sort
+        infoStream -> segInfoStat.indexSortStatus = testSort(reader, check.indexSort, infoStream, failFast));
+  }
+
+  private void finishSegment(SegmentCheck check) {
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    if (checksumsOnly == false) {
+      // Rethrow the first exception we encountered
+      //  This will cause stats for failed segments to be incremented properly
+      if (segInfoStat.liveDocStatus.error != null) {
+        throw new RuntimeException("Live docs test failed");
+      } else if (segInfoStat.fieldInfoStatus.error != null) {
+        throw new RuntimeException("Field Info test failed");
+      } else if (segInfoStat.fieldNormStatus.error != null) {
+        throw new RuntimeException("Field Norm test failed");
+      } else if (segInfoStat.termIndexStatus.error != null) {
+        throw new RuntimeException("Term Index test failed");
+      } else if (segInfoStat.storedFieldStatus.error != null) {
+        throw new RuntimeException("Stored Field test failed");
+      } else if (segInfoStat.termVectorStatus.error != null) {
+        throw new RuntimeException("Term Vector test failed");
+      } else if (segInfoStat.docValuesStatus.error != null) {
+        throw new RuntimeException("DocValues test failed");
+      } else if (segInfoStat.pointsStatus.error != null) {
+        throw new RuntimeException("Points test failed");
+      }
+    }
+
+    msg(check.infoStream, "");
+
+    if (verbose) {
+      msg(check.infoStream, "detailed segment RAM usage: ");
+      msg(check.infoStream, Accountables.toString(check.reader));
+    }
+  }
+
+  private void segmentFailed(SegmentCheck check, Throwable t) throws IOException {
+    check.error = t;
+    if (failFast) {
+      IOUtils.reThrow(t);
+    }
+    final PrintStream infoStream = check.infoStream;
+    msg(infoStream, "FAILED");
+    String comment;
+    comment = "exorciseIndex() would remove reference to this segment";
+    msg(infoStream, "    WARNING: " + comment + "; full exception:");
+    if (infoStream != null)
+      t.printStackTrace(infoStream);
+    msg(infoStream, "");
+  }
+
+  private void msgProgress(int checkedSegments, int totalSegments, long checkedBytes, long totalBytes, long elapsedNS) {
+    if (infoStream == null) {
+      return;
+    }
+    final double fraction = totalBytes > 0 ? (double) checkedBytes / totalBytes : (double) checkedSegments / totalSegments;
+    final double elapsedSec = nsToSec(elapsedNS);
+    final double etaSec = fraction > 0 ? elapsedSec * (1 - fraction) / fraction : 0;
+    msg(infoStream, String.format(Locale.ROOT, "  progress: %d of %d segments checked (%.1f%% of %.3f MB) [took %.3f sec, ETA %.3f sec]",
+        checkedSegments, totalSegments, 100 * fraction, totalBytes / (1024. * 1024.), elapsedSec, etaSec));
+    msg(infoStream, "");
+  }
+
   /**
    * Tests index sort order.
    * @lucene.experimental
@@ -2620,7 +2887,7 @@ public final class CheckIndex implements Closeable {
     <p>
     Run it like this:
     <pre>
-    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y]
+    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y] [-threads N]
     </pre>
     <ul>
     <li><code>-exorcise</code>: actually write a new segments_N file, removing any problematic segments. *LOSES DATA*
@@ -2630,6 +2897,9 @@ public final class CheckIndex implements Closeable {
     to check more than one segment, eg <code>-segment _2
     -segment _a</code>.  You can't use this with the -exorcise
     option.
+
+    <li><code>-threads N</code>: check up to N segments, and the
+    independent parts of each segment, concurrently.
     </ul>
 
     <p><b>WARNING</b>: <code>-exorcise</code> should only be used on an emergency basis as it will cause
@@ -2660,6 +2930,7 @@ public final class CheckIndex implements Closeable {
     boolean doCrossCheckTermVectors = false;
     boolean verbose = false;
     boolean doChecksumsOnly = false;
+    int threadCount = 1;
     List<String> onlySegments = new ArrayList<>();
     String indexPath = null;
     String dirImpl = null;
@@ -2752,6 +3023,19 @@ public final class CheckIndex implements Closeable {
         }
         i++;
         opts.onlySegments.add(args[i]);
+      } else if ("-threads".equals(arg)) {
+        if (i == args.length - 1) {
+          throw new IllegalArgumentException("ERROR: missing value for -threads option");
+        }
+        i++;
+        try {
+          opts.threadCount = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("ERROR: -threads option requires a number, got '" + args[i] + "'");
+        }
+        if (opts.threadCount < 1) {
+          throw new IllegalArgumentException("ERROR: -threads option must be at least 1, got " + opts.threadCount);
+        }
       } else if ("-dir-impl".equals(arg)) {
         if (i == args.length - 1) {
           throw new IllegalArgumentException("ERROR: missing value for -dir-impl option");
@@ -2769,7 +3053,7 @@ public final class CheckIndex implements Closeable {
 
     if (opts.indexPath == null) {
       throw new IllegalArgumentException("\nERROR: index path not specified" +
-                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-crossCheckTermVectors] [-segment X] [-segment Y] [-dir-impl X]\n" +
+                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-crossCheckTermVectors] [-segment X] [-segment Y] [-threads N] [-dir-impl X]\n" +
                          "\n" +
                          "  -exorcise: actually write a new segments_N file, removing any problematic segments\n" +
                          "  -fast: just verify file checksums, omitting logical integrity checks\n" + 
@@ -2779,6 +3063,7 @@ public final class CheckIndex implements Closeable {
                          "  -segment X: only check the specified segments.  This can be specified multiple\n" + 
                          "              times, to check more than one segment, eg '-segment _2 -segment _a'.\n" +
                          "              You can't use this with the -exorcise option\n" +
+                         "  -threads N: check up to N segments, and the parts of each segment, concurrently\n" +
                          "  -dir-impl X: use a specific " + FSDirectory.class.getSimpleName() + " implementation. " +
                          "If no package is specified the " + FSDirectory.class.getPackage().getName() + " package will be used.\n" +
                          "\n" +
@@ -2818,6 +3103,7 @@ public final class CheckIndex implements Closeable {
   public int doCheck(Options opts) throws IOException, InterruptedException {
     setCrossCheckTermVectors(opts.doCrossCheckTermVectors);
     setChecksumsOnly(opts.doChecksumsOnly);
+    setThreadCount(opts.threadCount);
     setInfoStream(opts.out, opts.verbose);
 
     Status result = checkIndex(opts.onlySegments);
@@ -29,8 +29,11 @@ import org.apache.lucene.codecs.NormsProducer;
 import org.apache.lucene.codecs.PointsReader;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.Bits;
 
 /**
  * LeafReader implemented by codec APIs.
@@ -76,6 +79,15 @@ public abstract class CodecReader extends LeafReader implements Accountable {
    * @lucene.internal
    */
   public abstract PointsReader getPointsReader();
+
+  /**
+   * Expert: retrieve underlying VectorReader, or null if this reader
+   * does not support vectors, which is the default
+   * @lucene.internal
+   */
+  public VectorReader getVectorReader() {
+    return null;
+  }
   
   @Override
   public final void document(int docID, StoredFieldVisitor visitor) throws IOException {
@@ -176,6 +188,19 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     return getDocValuesReader().getSortedSet(fi);
   }
   
+  @Override
+  public final DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null
+        || fi.getDocValuesType() == DocValuesType.NONE
+        || fi.getDocValuesType() == DocValuesType.BINARY) {
+      // Field does not exist or has no doc values that can be summarized
+      return null;
+    }
+    return getDocValuesReader().getSkipper(fi);
+  }
+
   @Override
   public final NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -200,6 +225,30 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     return getPointsReader().getValues(field);
   }
 
+  @Override
+  public final VectorValues getVectorValues(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getVectorDimension() == 0 || getVectorReader() == null) {
+      // Field does not exist or does not index vectors
+      return null;
+    }
+
+    return getVectorReader().getVectorValues(field);
+  }
+
+  @Override
+  public final TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getVectorDimension() == 0 || getVectorReader() == null) {
+      // Field does not exist or does not index vectors
+      return null;
+    }
+
+    return getVectorReader().search(field, target, k, acceptDocs, visitedLimit);
+  }
+
   @Override
   protected void doClose() throws IOException {
   }
@@ -235,6 +284,11 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     if (getPointsReader() != null) {
       ramBytesUsed += getPointsReader().ramBytesUsed();
     }
+
+    // vectors
+    if (getVectorReader() != null) {
+      ramBytesUsed += getVectorReader().ramBytesUsed();
+    }
     
     return ramBytesUsed;
   }
@@ -242,7 +296,7 @@ public abstract class CodecReader extends LeafReader implements Accountable {
   @Override
   public Collection<Accountable> getChildResources() {
     ensureOpen();
-    final List<Accountable> resources = new ArrayList<>(6);
+    final List<Accountable> resources = new ArrayList<>(7);
     
     // terms/postings
     resources.add(Accountables.namedAccountable("postings", getPostingsReader()));
@@ -271,6 +325,11 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     if (getPointsReader() != null) {
       resources.add(Accountables.namedAccountable("points", getPointsReader()));
     }
+
+    // vectors
+    if (getVectorReader() != null) {
+      resources.add(Accountables.namedAccountable("vectors", getVectorReader()));
+    }
     
     return Collections.unmodifiableList(resources);
   }
@@ -306,5 +365,10 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     if (getPointsReader() != null) {
       getPointsReader().checkIntegrity();
     }
+
+    // vectors
+    if (getVectorReader() != null) {
+      getVectorReader().checkIntegrity();
+    }
   }
 }
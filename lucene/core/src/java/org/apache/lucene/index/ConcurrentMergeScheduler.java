@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -632,6 +634,47 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     return thread;
   }
 
+  /**
+   * Returns an executor that runs each task in its own daemon thread,
+   * running at most {@link #getMaxThreadCount()} tasks at once. Callers
+   * block in {@link Executor#execute} until a thread is available.
+   */
+  @Override
+  public Executor getAddIndexesExecutor(IndexWriter writer) throws IOException {
+    initDynamicDefaults(writer);
+    final Semaphore permits = new Semaphore(getMaxThreadCount());
+    return task -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException ie) {
+        throw new ThreadInterruptedException(ie);
+      }
+      boolean success = false;
+      try {
+        final Thread thread = new Thread(() -> {
+          try {
+            task.run();
+          } finally {
+            permits.release();
+          }
+        });
+        thread.setDaemon(true);
+        synchronized (this) {
+          thread.setName("Lucene AddIndexes Thread #" + mergeThreadCount++);
+        }
+        if (verbose()) {
+          message("launch new addIndexes thread [" + thread.getName() + "]");
+        }
+        thread.start();
+        success = true;
+      } finally {
+        if (success == false) {
+          permits.release();
+        }
+      }
+    };
+  }
+
   /** Runs a merge thread to execute a single merge, then exits. */
   protected class MergeThread extends Thread implements Comparable<MergeThread> {
     final IndexWriter writer;
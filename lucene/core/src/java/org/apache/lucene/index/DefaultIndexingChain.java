@@ -34,7 +34,10 @@ import org.apache.lucene.codecs.NormsConsumer;
 import org.apache.lucene.codecs.NormsFormat;
 import org.apache.lucene.codecs.PointsFormat;
 import org.apache.lucene.codecs.PointsWriter;
+import org.apache.lucene.codecs.VectorFormat;
+import org.apache.lucene.codecs.VectorWriter;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.VectorField;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.similarities.Similarity;
@@ -139,6 +142,12 @@ final class DefaultIndexingChain extends DocConsumer {
     if (docState.infoStream.isEnabled("IW")) {
       docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write points");
     }
+
+    t0 = System.nanoTime();
+    writeVectors(state, sortMap);
+    if (docState.infoStream.isEnabled("IW")) {
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write vectors");
+    }
     
     // it's possible all docs hit non-aborting exceptions...
     t0 = System.nanoTime();
@@ -222,6 +231,50 @@ final class DefaultIndexingChain extends DocConsumer {
     }
   }
 
+  /** Writes all buffered vectors. */
+  private void writeVectors(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    VectorWriter vectorWriter = null;
+    boolean success = false;
+    try {
+      for (int i=0;i<fieldHash.length;i++) {
+        PerField perField = fieldHash[i];
+        while (perField != null) {
+          if (perField.vectorValuesWriter != null) {
+            if (perField.fieldInfo.getVectorDimension() == 0) {
+              // BUG
+              throw new AssertionError("segment=" + state.segmentInfo + ": field=\"" + perField.fieldInfo.name + "\" has no vectors but wrote them");
+            }
+            if (vectorWriter == null) {
+              // lazy init
+              VectorFormat fmt = state.segmentInfo.getCodec().vectorFormat();
+              if (fmt == null) {
+                throw new IllegalStateException("field=\"" + perField.fieldInfo.name + "\" was indexed as vectors but codec does not support vectors");
+              }
+              vectorWriter = fmt.fieldsWriter(state);
+            }
+
+            perField.vectorValuesWriter.flush(sortMap, vectorWriter);
+            perField.vectorValuesWriter = null;
+          } else if (perField.fieldInfo.getVectorDimension() != 0) {
+            // BUG
+            throw new AssertionError("segment=" + state.segmentInfo + ": field=\"" + perField.fieldInfo.name + "\" has vectors but did not write them");
+          }
+          perField = perField.next;
+        }
+      }
+      if (vectorWriter != null) {
+        vectorWriter.finish();
+      }
+      success = true;
+    } finally {
+      if (success) {
+        IOUtils.close(vectorWriter);
+      } else {
+        IOUtils.closeWhileHandlingException(vectorWriter);
+      }
+    }
+  }
+
   /** Writes all buffered doc values (called from {@link #flush}). */
   private void writeDocValues(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
     int maxDoc = state.segmentInfo.maxDoc();
@@ -472,6 +525,12 @@ final class DefaultIndexingChain extends DocConsumer {
       }
       indexPoint(fp, field);
     }
+    if (fieldType.vectorDimension() != 0) {
+      if (fp == null) {
+        fp = getOrAddField(fieldName, fieldType, false);
+      }
+      indexVector(fp, field);
+    }
     
     return fieldCount;
   }
@@ -515,6 +574,28 @@ final class DefaultIndexingChain extends DocConsumer {
     fp.pointValuesWriter.addPackedValue(docState.docID, field.binaryValue());
   }
 
+  /** Called from processDocument to index one field's vector value */
+  private void indexVector(PerField fp, IndexableField field) throws IOException {
+    if (field instanceof VectorField == false) {
+      throw new IllegalArgumentException("field=\"" + field.name() + "\": vector values must be indexed with a VectorField");
+    }
+    int vectorDimension = field.fieldType().vectorDimension();
+    VectorValues.SimilarityFunction similarityFunction = field.fieldType().vectorSimilarityFunction();
+
+    // Record dimension and similarity function for this field; this setter will throw IllegalArgExc if
+    // the dimension or similarity function were already set to something different:
+    if (fp.fieldInfo.getVectorDimension() == 0) {
+      fieldInfos.globalFieldNumbers.setVectorDimensionAndSimilarityFunction(fp.fieldInfo.number, fp.fieldInfo.name, vectorDimension, similarityFunction);
+    }
+
+    fp.fieldInfo.setVectorDimensionAndSimilarityFunction(vectorDimension, similarityFunction);
+
+    if (fp.vectorValuesWriter == null) {
+      fp.vectorValuesWriter = new VectorValuesWriter(fp.fieldInfo, bytesUsed);
+    }
+    fp.vectorValuesWriter.addValue(docState.docID, ((VectorField) field).vectorValue());
+  }
+
   /** Called from processDocument to index one field's doc value */
   private void indexDocValue(PerField fp, DocValuesType dvType, IndexableField field) throws IOException {
 
@@ -646,6 +727,9 @@ final class DefaultIndexingChain extends DocConsumer {
     // Non-null if this field ever had points in this segment:
     PointValuesWriter pointValuesWriter;
 
+    // Non-null if this field ever had vectors in this segment:
+    VectorValuesWriter vectorValuesWriter;
+
     /** We use this to know when a PerField is seen for the
      *  first time in the current document. */
     long fieldGen = -1;
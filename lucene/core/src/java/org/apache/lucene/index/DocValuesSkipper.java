@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * A summary of the doc values of a field over consecutive ranges of doc IDs,
+ * called blocks, which allows queries to skip over blocks whose values can't
+ * match. Values are the numbers of {@link NumericDocValues} and
+ * {@link SortedNumericDocValues}, and the ordinals of {@link SortedDocValues}
+ * and {@link SortedSetDocValues}. Statistics are computed at index time and
+ * ignore deletions, so they may cover values of deleted documents.
+ * <p>
+ * A skipper is unpositioned until {@link #advance(int)} is called for the first
+ * time. It is most effective on segments whose documents are sorted by the
+ * field, since blocks then cover narrow ranges of values.
+ * @see LeafReader#getDocValuesSkipper(String)
+ * @lucene.experimental
+ */
+public abstract class DocValuesSkipper {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected DocValuesSkipper() {}
+
+  /**
+   * Move to the first block whose {@link #maxDocID()} is greater than or equal
+   * to {@code target} and that has at least one document with a value. If there
+   * is no such block, {@link #minDocID()} and {@link #maxDocID()} both return
+   * {@link DocIdSetIterator#NO_MORE_DOCS} afterwards. {@code target} may be
+   * less than or equal to the current {@link #maxDocID()}, in which case the
+   * skipper does not move.
+   */
+  public abstract void advance(int target) throws IOException;
+
+  /** Return the first doc ID of the current block, -1 if the skipper is unpositioned or
+   *  {@link DocIdSetIterator#NO_MORE_DOCS} if it is exhausted. The block may not have a
+   *  value for this document. */
+  public abstract int minDocID();
+
+  /** Return the last doc ID of the current block, -1 if the skipper is unpositioned or
+   *  {@link DocIdSetIterator#NO_MORE_DOCS} if it is exhausted. The block may not have a
+   *  value for this document. */
+  public abstract int maxDocID();
+
+  /** Return the minimum value of the current block. */
+  public abstract long minValue();
+
+  /** Return the maximum value of the current block. */
+  public abstract long maxValue();
+
+  /** Return the number of documents of the current block that have a value. */
+  public abstract int docCount();
+
+  /** Return the minimum value across all blocks. */
+  public abstract long minValueGlobal();
+
+  /** Return the maximum value across all blocks. */
+  public abstract long maxValueGlobal();
+
+  /** Return the number of documents that have a value across all blocks. */
+  public abstract int docCountGlobal();
+}
@@ -127,12 +127,27 @@ final class DocumentsWriterDeleteQueue implements Accountable {
     return seqNo;
   }
   
+  static Node<Term> newNode(Term term) {
+    return new TermNode(term);
+  }
+
+  static Node<DocValuesUpdate[]> newNode(DocValuesUpdate... updates) {
+    return new DocValuesUpdatesNode(updates);
+  }
+
   /**
    * invariant for document update
    */
   long add(Term term, DeleteSlice slice) {
-    final TermNode termNode = new TermNode(term);
-    long seqNo = add(termNode);
+    return add(newNode(term), slice);
+  }
+
+  /**
+   * invariant for document update, where the node is either a delete term or
+   * a set of doc values updates (soft deletes) for the updated documents
+   */
+  long add(Node<?> deleteNode, DeleteSlice slice) {
+    long seqNo = add(deleteNode);
     /*
      * this is an update request where the term is the updated documents
      * delTerm. in that case we need to guarantee that this insert is atomic
@@ -143,7 +158,7 @@ final class DocumentsWriterDeleteQueue implements Accountable {
      * will apply this delete next time we update our slice and one of the two
      * competing updates wins!
      */
-    slice.sliceTail = termNode;
+    slice.sliceTail = deleteNode;
     assert slice.sliceHead != slice.sliceTail : "slice head and tail must differ after add";
     tryApplyGlobalSlice(); // TODO doing this each time is not necessary maybe
     // we can do it just every n times or so?
@@ -290,6 +305,14 @@ final class DocumentsWriterDeleteQueue implements Accountable {
       return sliceTail.item == item;
     }
 
+    /**
+     * Returns <code>true</code> iff the given node is the slices tail,
+     * otherwise <code>false</code>.
+     */
+    boolean isTail(Node<?> node) {
+      return sliceTail == node;
+    }
+
     boolean isEmpty() {
       return sliceHead == sliceTail;
     }
@@ -310,7 +333,7 @@ final class DocumentsWriterDeleteQueue implements Accountable {
     }
   }
 
-  private static class Node<T> {
+  static class Node<T> {
     volatile Node<?> next;
     final T item;
 
@@ -321,6 +344,11 @@ final class DocumentsWriterDeleteQueue implements Accountable {
     void apply(BufferedUpdates bufferedDeletes, int docIDUpto) {
       throw new IllegalStateException("sentinel item must never be applied");
     }
+
+    /** Returns <code>true</code> iff this node hard-deletes the documents it matches. */
+    boolean isDelete() {
+      return true;
+    }
   }
 
   private static final class TermNode extends Node<Term> {
@@ -377,6 +405,11 @@ final class DocumentsWriterDeleteQueue implements Accountable {
       super(updates);
     }
 
+    @Override
+    boolean isDelete() {
+      return false;
+    }
+
     @Override
     void apply(BufferedUpdates bufferedUpdates, int docIDUpto) {
       for (DocValuesUpdate update : item) {
@@ -53,14 +53,35 @@ public final class FieldInfo {
   private int pointDimensionCount;
   private int pointNumBytes;
 
+  /** If this is positive, it means this field indexed vectors
+   *  (see {@link org.apache.lucene.codecs.VectorFormat}). */
+  private int vectorDimension;
+  private VectorValues.SimilarityFunction vectorSimilarityFunction;
+
   /**
-   * Sole constructor.
+   * Creates a field that does not index vectors.
    *
+   * @deprecated Use {@link #FieldInfo(String, int, boolean, boolean, boolean, IndexOptions, DocValuesType,
+   *             long, Map, int, int, int, VectorValues.SimilarityFunction)} instead.
    * @lucene.experimental
    */
+  @Deprecated
   public FieldInfo(String name, int number, boolean storeTermVector, boolean omitNorms, 
                    boolean storePayloads, IndexOptions indexOptions, DocValuesType docValues,
                    long dvGen, Map<String,String> attributes, int pointDimensionCount, int pointNumBytes) {
+    this(name, number, storeTermVector, omitNorms, storePayloads, indexOptions, docValues, dvGen, attributes,
+         pointDimensionCount, pointNumBytes, 0, VectorValues.SimilarityFunction.NONE);
+  }
+
+  /**
+   * Creates a field.
+   *
+   * @lucene.experimental
+   */
+  public FieldInfo(String name, int number, boolean storeTermVector, boolean omitNorms, 
+                   boolean storePayloads, IndexOptions indexOptions, DocValuesType docValues,
+                   long dvGen, Map<String,String> attributes, int pointDimensionCount, int pointNumBytes,
+                   int vectorDimension, VectorValues.SimilarityFunction vectorSimilarityFunction) {
     this.name = Objects.requireNonNull(name);
     this.number = number;
     this.docValuesType = Objects.requireNonNull(docValues, "DocValuesType must not be null (field: \"" + name + "\")");
@@ -78,6 +99,8 @@ public final class FieldInfo {
     this.attributes = Objects.requireNonNull(attributes);
     this.pointDimensionCount = pointDimensionCount;
     this.pointNumBytes = pointNumBytes;
+    this.vectorDimension = vectorDimension;
+    this.vectorSimilarityFunction = Objects.requireNonNull(vectorSimilarityFunction, "VectorSimilarityFunction must not be null (field: \"" + name + "\")");
     assert checkConsistency();
   }
 
@@ -118,6 +141,18 @@ public final class FieldInfo {
     if (pointNumBytes != 0 && pointDimensionCount == 0) {
       throw new IllegalStateException("pointDimensionCount must be > 0 when pointNumBytes=" + pointNumBytes);
     }
+
+    if (vectorDimension < 0) {
+      throw new IllegalStateException("vectorDimension must be >= 0; got " + vectorDimension);
+    }
+
+    if (vectorDimension != 0 && vectorSimilarityFunction == VectorValues.SimilarityFunction.NONE) {
+      throw new IllegalStateException("vector similarity function must be set when vectorDimension=" + vectorDimension);
+    }
+
+    if (vectorDimension == 0 && vectorSimilarityFunction != VectorValues.SimilarityFunction.NONE) {
+      throw new IllegalStateException("vector similarity function must be NONE when the field does not index vectors; got " + vectorSimilarityFunction);
+    }
     
     if (dvGen != -1 && docValuesType == DocValuesType.NONE) {
       throw new IllegalStateException("field '" + name + "' cannot have a docvalues update generation without having docvalues");
@@ -128,7 +163,7 @@ public final class FieldInfo {
 
   // should only be called by FieldInfos#addOrUpdate
   void update(boolean storeTermVector, boolean omitNorms, boolean storePayloads, IndexOptions indexOptions,
-              int dimensionCount, int dimensionNumBytes) {
+              int dimensionCount, int dimensionNumBytes, int vectorDimension, VectorValues.SimilarityFunction vectorSimilarityFunction) {
     if (indexOptions == null) {
       throw new NullPointerException("IndexOptions must not be null (field: \"" + name + "\")");
     }
@@ -149,6 +184,13 @@ public final class FieldInfo {
       throw new IllegalArgumentException("cannot change field \"" + name + "\" from points dimensionCount=" + this.pointDimensionCount + ", numBytes=" + this.pointNumBytes + " to inconsistent dimensionCount=" + dimensionCount + ", numBytes=" + dimensionNumBytes);
     }
 
+    if (this.vectorDimension == 0 && vectorDimension != 0) {
+      this.vectorDimension = vectorDimension;
+      this.vectorSimilarityFunction = vectorSimilarityFunction;
+    } else if (vectorDimension != 0 && (this.vectorDimension != vectorDimension || this.vectorSimilarityFunction != vectorSimilarityFunction)) {
+      throw new IllegalArgumentException("cannot change field \"" + name + "\" from vector dimension=" + this.vectorDimension + ", similarityFunction=" + this.vectorSimilarityFunction + " to inconsistent dimension=" + vectorDimension + ", similarityFunction=" + vectorSimilarityFunction);
+    }
+
     if (this.indexOptions != IndexOptions.NONE) { // if updated field data is not for indexing, leave the updates out
       this.storeTermVector |= storeTermVector;                // once vector, always vector
       this.storePayloads |= storePayloads;
@@ -203,6 +245,41 @@ public final class FieldInfo {
     return pointNumBytes;
   }
 
+  /** Record that this field is indexed with vectors, with the
+   *  specified number of dimensions and similarity function. */
+  public void setVectorDimensionAndSimilarityFunction(int dimension, VectorValues.SimilarityFunction similarityFunction) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("vector dimension must be > 0; got " + dimension + " for field=\"" + name + "\"");
+    }
+    if (dimension > VectorValues.MAX_DIMENSIONS) {
+      throw new IllegalArgumentException("vector dimension must be <= VectorValues.MAX_DIMENSIONS (= " + VectorValues.MAX_DIMENSIONS + "); got " + dimension + " for field=\"" + name + "\"");
+    }
+    if (similarityFunction == null || similarityFunction == VectorValues.SimilarityFunction.NONE) {
+      throw new IllegalArgumentException("vector similarity function must be set; got " + similarityFunction + " for field=\"" + name + "\"");
+    }
+    if (vectorDimension != 0 && vectorDimension != dimension) {
+      throw new IllegalArgumentException("cannot change vector dimension from " + vectorDimension + " to " + dimension + " for field=\"" + name + "\"");
+    }
+    if (vectorSimilarityFunction != VectorValues.SimilarityFunction.NONE && vectorSimilarityFunction != similarityFunction) {
+      throw new IllegalArgumentException("cannot change vector similarity function from " + vectorSimilarityFunction + " to " + similarityFunction + " for field=\"" + name + "\"");
+    }
+
+    vectorDimension = dimension;
+    vectorSimilarityFunction = similarityFunction;
+
+    assert checkConsistency();
+  }
+
+  /** Returns the number of dimensions of the vectors of this field, or 0 if it does not index vectors */
+  public int getVectorDimension() {
+    return vectorDimension;
+  }
+
+  /** Returns the function used to compare the vectors of this field */
+  public VectorValues.SimilarityFunction getVectorSimilarityFunction() {
+    return vectorSimilarityFunction;
+  }
+
   /** Record that this field is indexed with docvalues, with the specified type */
   public void setDocValuesType(DocValuesType type) {
     if (type == null) {
@@ -42,6 +42,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
   private final boolean hasNorms;
   private final boolean hasDocValues;
   private final boolean hasPointValues;
+  private final boolean hasVectorValues;
   
   // used only by fieldInfo(int)
   private final FieldInfo[] byNumberTable; // contiguous
@@ -62,6 +63,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
     boolean hasNorms = false;
     boolean hasDocValues = false;
     boolean hasPointValues = false;
+    boolean hasVectorValues = false;
     
     TreeMap<Integer, FieldInfo> byNumber = new TreeMap<>();
     for (FieldInfo info : infos) {
@@ -85,6 +87,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
       hasDocValues |= info.getDocValuesType() != DocValuesType.NONE;
       hasPayloads |= info.hasPayloads();
       hasPointValues |= (info.getPointDimensionCount() != 0);
+      hasVectorValues |= (info.getVectorDimension() != 0);
     }
     
     this.hasVectors = hasVectors;
@@ -95,6 +98,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
     this.hasNorms = hasNorms;
     this.hasDocValues = hasDocValues;
     this.hasPointValues = hasPointValues;
+    this.hasVectorValues = hasVectorValues;
     this.values = Collections.unmodifiableCollection(byNumber.values());
     Integer max = byNumber.isEmpty() ? null : Collections.max(byNumber.keySet());
     
@@ -153,6 +157,11 @@ public class FieldInfos implements Iterable<FieldInfo> {
   public boolean hasPointValues() {
     return hasPointValues;
   }
+
+  /** Returns true if any fields have VectorValues */
+  public boolean hasVectorValues() {
+    return hasVectorValues;
+  }
   
   /** Returns the number of fields */
   public int size() {
@@ -208,6 +217,16 @@ public class FieldInfos implements Iterable<FieldInfo> {
       this.dimensionNumBytes = dimensionNumBytes;
     }
   }
+
+  static final class FieldVectorProperties {
+    public final int dimension;
+    public final VectorValues.SimilarityFunction similarityFunction;
+
+    public FieldVectorProperties(int dimension, VectorValues.SimilarityFunction similarityFunction) {
+      this.dimension = dimension;
+      this.similarityFunction = similarityFunction;
+    }
+  }
   
   static final class FieldNumbers {
     
@@ -220,6 +239,8 @@ public class FieldInfos implements Iterable<FieldInfo> {
 
     private final Map<String,FieldDimensions> dimensions;
 
+    private final Map<String,FieldVectorProperties> vectorProps;
+
     // TODO: we should similarly catch an attempt to turn
     // norms back on after they were already ommitted; today
     // we silently discard the norm but this is badly trappy
@@ -230,6 +251,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
       this.numberToName = new HashMap<>();
       this.docValuesType = new HashMap<>();
       this.dimensions = new HashMap<>();
+      this.vectorProps = new HashMap<>();
     }
     
     /**
@@ -238,7 +260,8 @@ public class FieldInfos implements Iterable<FieldInfo> {
      * number assigned if possible otherwise the first unassigned field number
      * is used as the field number.
      */
-    synchronized int addOrGet(String fieldName, int preferredFieldNumber, DocValuesType dvType, int dimensionCount, int dimensionNumBytes) {
+    synchronized int addOrGet(String fieldName, int preferredFieldNumber, DocValuesType dvType, int dimensionCount, int dimensionNumBytes,
+                              int vectorDimension, VectorValues.SimilarityFunction vectorSimilarityFunction) {
       if (dvType != DocValuesType.NONE) {
         DocValuesType currentDVType = docValuesType.get(fieldName);
         if (currentDVType == null) {
@@ -260,6 +283,19 @@ public class FieldInfos implements Iterable<FieldInfo> {
           dimensions.put(fieldName, new FieldDimensions(dimensionCount, dimensionNumBytes));
         }
       }
+      if (vectorDimension != 0) {
+        FieldVectorProperties props = vectorProps.get(fieldName);
+        if (props != null) {
+          if (props.dimension != vectorDimension) {
+            throw new IllegalArgumentException("cannot change vector dimension from " + props.dimension + " to " + vectorDimension + " for field=\"" + fieldName + "\"");
+          }
+          if (props.similarityFunction != vectorSimilarityFunction) {
+            throw new IllegalArgumentException("cannot change vector similarity function from " + props.similarityFunction + " to " + vectorSimilarityFunction + " for field=\"" + fieldName + "\"");
+          }
+        } else {
+          vectorProps.put(fieldName, new FieldVectorProperties(vectorDimension, vectorSimilarityFunction));
+        }
+      }
       Integer fieldNumber = nameToNumber.get(fieldName);
       if (fieldNumber == null) {
         final Integer preferredBoxed = Integer.valueOf(preferredFieldNumber);
@@ -312,6 +348,24 @@ public class FieldInfos implements Iterable<FieldInfo> {
       }
     }
 
+    synchronized void verifyConsistentVectorProperties(Integer number, String name, int vectorDimension, VectorValues.SimilarityFunction similarityFunction) {
+      if (name.equals(numberToName.get(number)) == false) {
+        throw new IllegalArgumentException("field number " + number + " is already mapped to field name \"" + numberToName.get(number) + "\", not \"" + name + "\"");
+      }
+      if (number.equals(nameToNumber.get(name)) == false) {
+        throw new IllegalArgumentException("field name \"" + name + "\" is already mapped to field number \"" + nameToNumber.get(name) + "\", not \"" + number + "\"");
+      }
+      FieldVectorProperties props = vectorProps.get(name);
+      if (props != null) {
+        if (props.dimension != vectorDimension) {
+          throw new IllegalArgumentException("cannot change vector dimension from " + props.dimension + " to " + vectorDimension + " for field=\"" + name + "\"");
+        }
+        if (props.similarityFunction != similarityFunction) {
+          throw new IllegalArgumentException("cannot change vector similarity function from " + props.similarityFunction + " to " + similarityFunction + " for field=\"" + name + "\"");
+        }
+      }
+    }
+
     /**
      * Returns true if the {@code fieldName} exists in the map and is of the
      * same {@code dvType}.
@@ -335,6 +389,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
       nameToNumber.clear();
       docValuesType.clear();
       dimensions.clear();
+      vectorProps.clear();
     }
 
     synchronized void setDocValuesType(int number, String name, DocValuesType dvType) {
@@ -352,6 +407,14 @@ public class FieldInfos implements Iterable<FieldInfo> {
       verifyConsistentDimensions(number, name, dimensionCount, dimensionNumBytes);
       dimensions.put(name, new FieldDimensions(dimensionCount, dimensionNumBytes));
     }
+
+    synchronized void setVectorDimensionAndSimilarityFunction(int number, String name, int vectorDimension, VectorValues.SimilarityFunction similarityFunction) {
+      if (vectorDimension > VectorValues.MAX_DIMENSIONS) {
+        throw new IllegalArgumentException("vector dimension must be <= VectorValues.MAX_DIMENSIONS (= " + VectorValues.MAX_DIMENSIONS + "); got " + vectorDimension + " for field=\"" + name + "\"");
+      }
+      verifyConsistentVectorProperties(number, name, vectorDimension, similarityFunction);
+      vectorProps.put(name, new FieldVectorProperties(vectorDimension, similarityFunction));
+    }
   }
   
   static final class Builder {
@@ -385,8 +448,9 @@ public class FieldInfos implements Iterable<FieldInfo> {
         // number for this field.  If the field was seen
         // before then we'll get the same name and number,
         // else we'll allocate a new one:
-        final int fieldNumber = globalFieldNumbers.addOrGet(name, -1, DocValuesType.NONE, 0, 0);
-        fi = new FieldInfo(name, fieldNumber, false, false, false, IndexOptions.NONE, DocValuesType.NONE, -1, new HashMap<>(), 0, 0);
+        final int fieldNumber = globalFieldNumbers.addOrGet(name, -1, DocValuesType.NONE, 0, 0, 0, VectorValues.SimilarityFunction.NONE);
+        fi = new FieldInfo(name, fieldNumber, false, false, false, IndexOptions.NONE, DocValuesType.NONE, -1, new HashMap<>(), 0, 0,
+                           0, VectorValues.SimilarityFunction.NONE);
         assert !byName.containsKey(fi.name);
         globalFieldNumbers.verifyConsistent(Integer.valueOf(fi.number), fi.name, DocValuesType.NONE);
         byName.put(fi.name, fi);
@@ -398,7 +462,8 @@ public class FieldInfos implements Iterable<FieldInfo> {
     private FieldInfo addOrUpdateInternal(String name, int preferredFieldNumber,
                                           boolean storeTermVector,
                                           boolean omitNorms, boolean storePayloads, IndexOptions indexOptions, DocValuesType docValues,
-                                          int dimensionCount, int dimensionNumBytes) {
+                                          int dimensionCount, int dimensionNumBytes,
+                                          int vectorDimension, VectorValues.SimilarityFunction vectorSimilarityFunction) {
       if (docValues == null) {
         throw new NullPointerException("DocValuesType must not be null");
       }
@@ -409,13 +474,16 @@ public class FieldInfos implements Iterable<FieldInfo> {
         // number for this field.  If the field was seen
         // before then we'll get the same name and number,
         // else we'll allocate a new one:
-        final int fieldNumber = globalFieldNumbers.addOrGet(name, preferredFieldNumber, docValues, dimensionCount, dimensionNumBytes);
-        fi = new FieldInfo(name, fieldNumber, storeTermVector, omitNorms, storePayloads, indexOptions, docValues, -1, new HashMap<>(), dimensionCount, dimensionNumBytes);
+        final int fieldNumber = globalFieldNumbers.addOrGet(name, preferredFieldNumber, docValues, dimensionCount, dimensionNumBytes,
+                                                            vectorDimension, vectorSimilarityFunction);
+        fi = new FieldInfo(name, fieldNumber, storeTermVector, omitNorms, storePayloads, indexOptions, docValues, -1, new HashMap<>(),
+                           dimensionCount, dimensionNumBytes, vectorDimension, vectorSimilarityFunction);
         assert !byName.containsKey(fi.name);
         globalFieldNumbers.verifyConsistent(Integer.valueOf(fi.number), fi.name, fi.getDocValuesType());
         byName.put(fi.name, fi);
       } else {
-        fi.update(storeTermVector, omitNorms, storePayloads, indexOptions, dimensionCount, dimensionNumBytes);
+        fi.update(storeTermVector, omitNorms, storePayloads, indexOptions, dimensionCount, dimensionNumBytes,
+                  vectorDimension, vectorSimilarityFunction);
 
         if (docValues != DocValuesType.NONE) {
           // Only pay the synchronization cost if fi does not already have a DVType
@@ -438,7 +506,8 @@ public class FieldInfos implements Iterable<FieldInfo> {
       return addOrUpdateInternal(fi.name, fi.number, fi.hasVectors(),
                                  fi.omitsNorms(), fi.hasPayloads(),
                                  fi.getIndexOptions(), fi.getDocValuesType(),
-                                 fi.getPointDimensionCount(), fi.getPointNumBytes());
+                                 fi.getPointDimensionCount(), fi.getPointNumBytes(),
+                                 fi.getVectorDimension(), fi.getVectorSimilarityFunction());
     }
     
     public FieldInfo fieldInfo(String fieldName) {
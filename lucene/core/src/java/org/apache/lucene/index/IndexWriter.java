@@ -33,6 +33,9 @@ import java.util.Map.Entry;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -1071,7 +1074,8 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
     for(SegmentCommitInfo info : segmentInfos) {
       FieldInfos fis = readFieldInfos(info);
       for(FieldInfo fi : fis) {
-        map.addOrGet(fi.name, fi.number, fi.getDocValuesType(), fi.getPointDimensionCount(), fi.getPointNumBytes());
+        map.addOrGet(fi.name, fi.number, fi.getDocValuesType(), fi.getPointDimensionCount(), fi.getPointNumBytes(),
+                     fi.getVectorDimension(), fi.getVectorSimilarityFunction());
       }
     }
 
@@ -1310,7 +1314,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    * @throws IOException if there is a low-level IO error
    */
   public long addDocument(Iterable<? extends IndexableField> doc) throws IOException {
-    return updateDocument(null, doc);
+    return updateDocument((DocumentsWriterDeleteQueue.Node<?>) null, doc);
   }
 
   /**
@@ -1354,7 +1358,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    * @lucene.experimental
    */
   public long addDocuments(Iterable<? extends Iterable<? extends IndexableField>> docs) throws IOException {
-    return updateDocuments(null, docs);
+    return updateDocuments((DocumentsWriterDeleteQueue.Node<?>) null, docs);
   }
 
   /**
@@ -1374,11 +1378,56 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    * @lucene.experimental
    */
   public long updateDocuments(Term delTerm, Iterable<? extends Iterable<? extends IndexableField>> docs) throws IOException {
+    return updateDocuments(delTerm == null ? null : DocumentsWriterDeleteQueue.newNode(delTerm), docs);
+  }
+
+  /**
+   * Expert: Atomically updates documents matching the provided
+   * term with the given doc-values fields
+   * and adds a block of documents with sequentially
+   * assigned document IDs, such that an external reader
+   * will see all or none of the documents.
+   *
+   * One use of this API is to retain older versions of
+   * documents instead of replacing them. The existing
+   * documents can be updated to reflect they are no
+   * longer current while atomically adding new documents
+   * at the same time.
+   *
+   * In contrast to {@link #updateDocuments(Term, Iterable)}
+   * this method will not delete documents in the index
+   * matching the given term but instead update them with
+   * the given doc-values fields which can be used as a
+   * soft-delete mechanism.
+   *
+   * See {@link #addDocuments(Iterable)}
+   * and {@link #updateDocuments(Term, Iterable)}.
+   *
+   * @return The <a href="#sequence_number">sequence number</a>
+   * for this operation
+   *
+   * @throws CorruptIndexException if the index is corrupt
+   * @throws IOException if there is a low-level IO error
+   *
+   * @see IndexWriterConfig#setSoftDeletesField(String)
+   * @lucene.experimental
+   */
+  public long softUpdateDocuments(Term term, Iterable<? extends Iterable<? extends IndexableField>> docs, Field... softDeletes) throws IOException {
+    if (term == null) {
+      throw new IllegalArgumentException("term must not be null");
+    }
+    if (softDeletes == null || softDeletes.length == 0) {
+      throw new IllegalArgumentException("at least one soft delete must be present");
+    }
+    return updateDocuments(DocumentsWriterDeleteQueue.newNode(buildDocValuesUpdate(term, softDeletes, true)), docs);
+  }
+
+  private long updateDocuments(final DocumentsWriterDeleteQueue.Node<?> delNode, Iterable<? extends Iterable<? extends IndexableField>> docs) throws IOException {
     ensureOpen();
     try {
       boolean success = false;
       try {
-        long seqNo = docWriter.updateDocuments(docs, analyzer, delTerm);
+        long seqNo = docWriter.updateDocuments(docs, analyzer, delNode);
         if (seqNo < 0) {
           seqNo = -seqNo;
           processEvents(true, false);
@@ -1561,11 +1610,60 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    * @throws IOException if there is a low-level IO error
    */
   public long updateDocument(Term term, Iterable<? extends IndexableField> doc) throws IOException {
+    return updateDocument(term == null ? null : DocumentsWriterDeleteQueue.newNode(term), doc);
+  }
+
+  /**
+   * Expert: Updates a document by first updating the document(s)
+   * containing <code>term</code> with the given doc-values fields
+   * and then adding the new document.  The doc-values update and
+   * then add are atomic as seen by a reader on the same index
+   * (flush may happen only after the add).
+   *
+   * One use of this API is to retain older versions of
+   * documents instead of replacing them. The existing
+   * documents can be updated to reflect they are no
+   * longer current while atomically adding new documents
+   * at the same time.
+   *
+   * In contrast to {@link #updateDocument(Term, Iterable)}
+   * this method will not delete documents in the index
+   * matching the given term but instead update them with
+   * the given doc-values fields which can be used as a
+   * soft-delete mechanism. Soft-deleted documents are still
+   * live as far as this writer is concerned; wrap readers with
+   * {@link SoftDeletesDirectoryReaderWrapper} to hide them and
+   * use {@link SoftDeletesRetentionMergePolicy} to control when
+   * merges reclaim them.
+   *
+   * See {@link #addDocuments(Iterable)}
+   * and {@link #updateDocuments(Term, Iterable)}.
+   *
+   * @return The <a href="#sequence_number">sequence number</a>
+   * for this operation
+   *
+   * @throws CorruptIndexException if the index is corrupt
+   * @throws IOException if there is a low-level IO error
+   *
+   * @see IndexWriterConfig#setSoftDeletesField(String)
+   * @lucene.experimental
+   */
+  public long softUpdateDocument(Term term, Iterable<? extends IndexableField> doc, Field... softDeletes) throws IOException {
+    if (term == null) {
+      throw new IllegalArgumentException("term must not be null");
+    }
+    if (softDeletes == null || softDeletes.length == 0) {
+      throw new IllegalArgumentException("at least one soft delete must be present");
+    }
+    return updateDocument(DocumentsWriterDeleteQueue.newNode(buildDocValuesUpdate(term, softDeletes, true)), doc);
+  }
+
+  private long updateDocument(final DocumentsWriterDeleteQueue.Node<?> delNode, Iterable<? extends IndexableField> doc) throws IOException {
     ensureOpen();
     try {
       boolean success = false;
       try {
-        long seqNo = docWriter.updateDocument(doc, analyzer, term);
+        long seqNo = docWriter.updateDocument(doc, analyzer, delNode);
         if (seqNo < 0) {
           seqNo = - seqNo;
           processEvents(true, false);
@@ -1696,6 +1794,32 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    */
   public long updateDocValues(Term term, Field... updates) throws IOException {
     ensureOpen();
+    DocValuesUpdate[] dvUpdates = buildDocValuesUpdate(term, updates, false);
+    try {
+      long seqNo = docWriter.updateDocValues(dvUpdates);
+      if (seqNo < 0) {
+        seqNo = -seqNo;
+        processEvents(true, false);
+      }
+      return seqNo;
+    } catch (VirtualMachineError tragedy) {
+      tragicEvent(tragedy, "updateDocValues");
+
+      // dead code but javac disagrees:
+      return -1;
+    }
+  }
+
+  private DocValuesUpdate[] buildDocValuesUpdate(Term term, Field[] updates, boolean softDeletes) {
+    if (softDeletes) {
+      final String softDeletesField = config.getSoftDeletesField();
+      if (softDeletesField == null) {
+        throw new IllegalArgumentException("soft deletes are disabled: the soft deletes field must be set on IndexWriterConfig");
+      }
+      if (Arrays.stream(updates).noneMatch(f -> softDeletesField.equals(f.name()))) {
+        throw new IllegalArgumentException("at least one soft delete must update the soft deletes field: " + softDeletesField);
+      }
+    }
     DocValuesUpdate[] dvUpdates = new DocValuesUpdate[updates.length];
     for (int i = 0; i < updates.length; i++) {
       final Field f = updates[i];
@@ -1706,7 +1830,11 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       if (dvType == DocValuesType.NONE) {
         throw new IllegalArgumentException("can only update NUMERIC or BINARY fields! field=" + f.name());
       }
-      if (!globalFieldNumberMap.contains(f.name(), dvType)) {
+      if (softDeletes) {
+        // soft deletes may be the first time this field is seen by the index; registering it
+        // globally fails with a consistent error message if the doc values type does not match
+        globalFieldNumberMap.addOrGet(f.name(), -1, dvType, 0, 0, 0, VectorValues.SimilarityFunction.NONE);
+      } else if (!globalFieldNumberMap.contains(f.name(), dvType)) {
         throw new IllegalArgumentException("can only update existing docvalues fields! field=" + f.name() + ", type=" + dvType);
       }
       if (config.getIndexSortFields().contains(f.name())) {
@@ -1723,19 +1851,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
           throw new IllegalArgumentException("can only update NUMERIC or BINARY fields: field=" + f.name() + ", type=" + dvType);
       }
     }
-    try {
-      long seqNo = docWriter.updateDocValues(dvUpdates);
-      if (seqNo < 0) {
-        seqNo = -seqNo;
-        processEvents(true, false);
-      }
-      return seqNo;
-    } catch (VirtualMachineError tragedy) {
-      tragicEvent(tragedy, "updateDocValues");
-
-      // dead code but javac disagrees:
-      return -1;
-    }
+    return dvUpdates;
   }
   
   // for test purpose
@@ -2691,7 +2807,8 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
             FieldInfos fis = readFieldInfos(info);
             for(FieldInfo fi : fis) {
               // This will throw exceptions if any of the incoming fields have an illegal schema change:
-              globalFieldNumberMap.addOrGet(fi.name, fi.number, fi.getDocValuesType(), fi.getPointDimensionCount(), fi.getPointNumBytes());
+              globalFieldNumberMap.addOrGet(fi.name, fi.number, fi.getDocValuesType(), fi.getPointDimensionCount(), fi.getPointNumBytes(),
+                                            fi.getVectorDimension(), fi.getVectorSimilarityFunction());
             }
             infos.add(copySegmentAsIs(info, newSegName, context));
           }
@@ -2781,16 +2898,20 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    * index.
    * 
    * <p>
-   * <b>NOTE:</b> this merges all given {@link LeafReader}s in one
-   * merge. If you intend to merge a large number of readers, it may be better
-   * to call this method multiple times, each time with a small set of readers.
-   * In principle, if you use a merge policy with a {@code mergeFactor} or
-   * {@code maxMergeAtOnce} parameter, you should pass that many readers in one
-   * call.
+   * <b>NOTE:</b> the given {@link LeafReader}s are split into groups by
+   * {@link MergePolicy#findAddIndexesMerges(List, IndexWriter)}, which by default
+   * merges all readers in one merge. Each group is merged into its own new
+   * segment, and groups are merged concurrently on the executor provided by
+   * {@link MergeScheduler#getAddIndexesExecutor(IndexWriter)}. The new segments
+   * are only added to the index once all groups have been merged successfully,
+   * so this method remains atomic. If you intend to merge a large number of
+   * readers with the default merge policy settings, it may be better to call
+   * this method multiple times, each time with a small set of readers, or to
+   * set {@link MergePolicy#setMaxAddIndexesMergeAtOnce(int)}.
    * 
    * <p>
-   * <b>NOTE:</b> this method does not call or make use of the {@link MergeScheduler},
-   * so any custom bandwidth throttling is at the moment ignored.
+   * <b>NOTE:</b> merge IO throttling of the {@link MergeScheduler} is at the
+   * moment ignored by this method.
    * 
    * @return The <a href="#sequence_number">sequence number</a>
    * for this operation
@@ -2808,8 +2929,6 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
     // long so we can detect int overflow:
     long numDocs = 0;
 
-    Sort indexSort = config.getIndexSort();
-
     long seqNo;
 
     try {
@@ -2818,8 +2937,6 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       }
       flush(false, true);
 
-      String mergedName = newSegmentName();
-
       for (CodecReader leaf : readers) {
         numDocs += leaf.numDocs();
         validateMergeReader(leaf);
@@ -2828,95 +2945,162 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       // Best-effort up front check:
       testReserveDocs(numDocs);
 
-      final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
+      if (readers.length == 0) {
+        return docWriter.deleteQueue.getNextSequenceNumber();
+      }
 
-      // TODO: somehow we should fix this merge so it's
-      // abortable so that IW.close(false) is able to stop it
-      TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
+      final List<List<CodecReader>> groups = config.getMergePolicy().findAddIndexesMerges(Arrays.asList(readers), this);
+      if (infoStream.isEnabled("IW")) {
+        infoStream.message("IW", "addIndexes(CodecReader...): merge " + readers.length + " readers in " + groups.size() + " merges");
+      }
 
-      // We set the min version to null for now, it will be set later by SegmentMerger
-      SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
-                                         false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>(), config.getIndexSort());
+      final List<SegmentCommitInfo> infos = new ArrayList<>();
+      boolean success = false;
+      try {
+        if (groups.size() == 1) {
+          SegmentCommitInfo info = addIndexesMerge(groups.get(0));
+          if (info != null) {
+            infos.add(info);
+          }
+        } else {
+          final Executor executor = config.getMergeScheduler().getAddIndexesExecutor(this);
+          final List<FutureTask<SegmentCommitInfo>> tasks = new ArrayList<>();
+          for (List<CodecReader> group : groups) {
+            FutureTask<SegmentCommitInfo> task = new FutureTask<>(() -> addIndexesMerge(group));
+            tasks.add(task);
+            executor.execute(task);
+          }
+          Throwable th = null;
+          for (FutureTask<SegmentCommitInfo> task : tasks) {
+            try {
+              SegmentCommitInfo info = task.get();
+              if (info != null) {
+                infos.add(info);
+              }
+            } catch (ExecutionException e) {
+              if (th == null) {
+                th = e.getCause();
+              } else {
+                th.addSuppressed(e.getCause());
+              }
+            } catch (InterruptedException ie) {
+              throw new ThreadInterruptedException(ie);
+            }
+          }
+          IOUtils.reThrow(th);
+        }
 
-      SegmentMerger merger = new SegmentMerger(Arrays.asList(readers), info, infoStream, trackingDir,
-                                               globalFieldNumberMap, 
-                                               context);
+        // Register the new segments
+        synchronized(this) {
+          if (stopMerges) {
+            return docWriter.deleteQueue.getNextSequenceNumber();
+          }
+          ensureOpen();
 
-      if (!merger.shouldMerge()) {
-        return docWriter.deleteQueue.getNextSequenceNumber();
+          // Now reserve the docs, just before we update SIS:
+          reserveDocs(numDocs);
+        
+          for (SegmentCommitInfo info : infos) {
+            segmentInfos.add(info);
+          }
+          seqNo = docWriter.deleteQueue.getNextSequenceNumber();
+          checkpoint();
+          success = true;
+        }
+      } finally {
+        if (success == false) {
+          for (SegmentCommitInfo info : infos) {
+            // Safe: these files must exist
+            deleteNewFiles(info.files());
+          }
+        }
       }
+    } catch (VirtualMachineError tragedy) {
+      tragicEvent(tragedy, "addIndexes(CodecReader...)");
+      // dead code but javac disagrees:
+      seqNo = -1;
+    }
+    maybeMerge();
 
-      merger.merge();                // merge 'em
+    return seqNo;
+  }
 
-      SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, -1L, -1L, -1L);
+  /** Merges the given readers into a new segment that is not yet registered
+   *  with the index, or returns null if there is nothing to merge or merges
+   *  were stopped. */
+  private SegmentCommitInfo addIndexesMerge(List<CodecReader> readers) throws IOException {
+    String mergedName = newSegmentName();
 
-      info.setFiles(new HashSet<>(trackingDir.getCreatedFiles()));
-      trackingDir.clearCreatedFiles();
-                                         
-      setDiagnostics(info, SOURCE_ADDINDEXES_READERS);
+    long numDocs = 0;
+    for (CodecReader leaf : readers) {
+      numDocs += leaf.numDocs();
+    }
 
-      final MergePolicy mergePolicy = config.getMergePolicy();
-      boolean useCompoundFile;
-      synchronized(this) { // Guard segmentInfos
-        if (stopMerges) {
-          // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
+    final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
 
-          return docWriter.deleteQueue.getNextSequenceNumber();
-        }
-        ensureOpen();
-        useCompoundFile = mergePolicy.useCompoundFile(segmentInfos, infoPerCommit, this);
-      }
+    // TODO: somehow we should fix this merge so it's
+    // abortable so that IW.close(false) is able to stop it
+    TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
 
-      // Now create the compound file if needed
-      if (useCompoundFile) {
-        Collection<String> filesToDelete = infoPerCommit.files();
-        TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
-        // TODO: unlike merge, on exception we arent sniping any trash cfs files here?
-        // createCompoundFile tries to cleanup, but it might not always be able to...
-        try {
-          createCompoundFile(infoStream, trackingCFSDir, info, context);
-        } finally {
-          // delete new non cfs files directly: they were never
-          // registered with IFD
-          deleteNewFiles(filesToDelete);
-        }
-        info.setUseCompoundFile(true);
-      }
+    // We set the min version to null for now, it will be set later by SegmentMerger
+    SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
+                                       false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>(), config.getIndexSort());
 
-      // Have codec write SegmentInfo.  Must do this after
-      // creating CFS so that 1) .si isn't slurped into CFS,
-      // and 2) .si reflects useCompoundFile=true change
-      // above:
-      codec.segmentInfoFormat().write(trackingDir, info, context);
+    SegmentMerger merger = new SegmentMerger(readers, info, infoStream, trackingDir,
+                                             globalFieldNumberMap, 
+                                             context);
 
-      info.addFiles(trackingDir.getCreatedFiles());
+    if (!merger.shouldMerge()) {
+      return null;
+    }
 
-      // Register the new segment
-      synchronized(this) {
-        if (stopMerges) {
-          // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
+    merger.merge();                // merge 'em
 
-          return docWriter.deleteQueue.getNextSequenceNumber();
-        }
-        ensureOpen();
+    SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, -1L, -1L, -1L);
 
-        // Now reserve the docs, just before we update SIS:
-        reserveDocs(numDocs);
-      
-        segmentInfos.add(infoPerCommit);
-        seqNo = docWriter.deleteQueue.getNextSequenceNumber();
-        checkpoint();
+    info.setFiles(new HashSet<>(trackingDir.getCreatedFiles()));
+    trackingDir.clearCreatedFiles();
+                                       
+    setDiagnostics(info, SOURCE_ADDINDEXES_READERS);
+
+    final MergePolicy mergePolicy = config.getMergePolicy();
+    boolean useCompoundFile;
+    synchronized(this) { // Guard segmentInfos
+      if (stopMerges) {
+        // Safe: these files must exist
+        deleteNewFiles(infoPerCommit.files());
+
+        return null;
       }
-    } catch (VirtualMachineError tragedy) {
-      tragicEvent(tragedy, "addIndexes(CodecReader...)");
-      // dead code but javac disagrees:
-      seqNo = -1;
+      ensureOpen();
+      useCompoundFile = mergePolicy.useCompoundFile(segmentInfos, infoPerCommit, this);
     }
-    maybeMerge();
 
-    return seqNo;
+    // Now create the compound file if needed
+    if (useCompoundFile) {
+      Collection<String> filesToDelete = infoPerCommit.files();
+      TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
+      // TODO: unlike merge, on exception we arent sniping any trash cfs files here?
+      // createCompoundFile tries to cleanup, but it might not always be able to...
+      try {
+        createCompoundFile(infoStream, trackingCFSDir, info, context);
+      } finally {
+        // delete new non cfs files directly: they were never
+        // registered with IFD
+        deleteNewFiles(filesToDelete);
+      }
+      info.setUseCompoundFile(true);
+    }
+
+    // Have codec write SegmentInfo.  Must do this after
+    // creating CFS so that 1) .si isn't slurped into CFS,
+    // and 2) .si reflects useCompoundFile=true change
+    // above:
+    codec.segmentInfoFormat().write(trackingDir, info, context);
+
+    info.addFiles(trackingDir.getCreatedFiles());
+
+    return infoPerCommit;
   }
 
   /** Copies the segment files as-is into the IndexWriter's directory. */
@@ -3531,18 +3715,20 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
   private void maybeApplyMergedDVUpdates(MergePolicy.OneMerge merge, MergeState mergeState,
       MergedDeletesAndUpdates holder, String[] mergingFields, DocValuesFieldUpdates[] dvFieldUpdates,
       DocValuesFieldUpdates.Iterator[] updatesIters, int segment, int curDoc) throws IOException {
-    int newDoc = -1;
+    int newDoc = -2;
     for (int idx = 0; idx < mergingFields.length; idx++) {
       DocValuesFieldUpdates.Iterator updatesIter = updatesIters[idx];
       if (updatesIter.doc() == curDoc) { // document has an update
-        if (holder.mergedDeletesAndUpdates == null) {
-          holder.init(readerPool, merge, false);
-        }
-        if (newDoc == -1) { // map once per all field updates, but only if there are any updates
+        if (newDoc == -2) { // map once per all field updates, but only if there are any updates
           newDoc = mergeState.docMaps[segment].get(curDoc);
         }
-        DocValuesFieldUpdates dvUpdates = dvFieldUpdates[idx];
-        dvUpdates.add(newDoc, updatesIter.value());
+        if (newDoc != -1) { // the merge may have dropped the document, e.g. if it was soft-deleted
+          if (holder.mergedDeletesAndUpdates == null) {
+            holder.init(readerPool, merge, false);
+          }
+          DocValuesFieldUpdates dvUpdates = dvFieldUpdates[idx];
+          dvUpdates.add(newDoc, updatesIter.value());
+        }
         updatesIter.nextDoc(); // advance to next document
       } else {
         assert updatesIter.doc() > curDoc : "field=" + mergingFields[idx] + " updateDoc=" + updatesIter.doc() + " curDoc=" + curDoc;
@@ -3646,10 +3832,13 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
               assert currentLiveDocs.get(j) == false;
             } else if (currentLiveDocs.get(j) == false) {
               // the document was deleted while we were merging:
-              if (holder.mergedDeletesAndUpdates == null || holder.initializedWritableLiveDocs == false) {
-                holder.init(readerPool, merge, true);
+              final int mappedDoc = mergeState.docMaps[i].get(mergeState.leafDocMaps[i].get(j));
+              if (mappedDoc != -1) { // the merge may have dropped the document, e.g. if it was soft-deleted
+                if (holder.mergedDeletesAndUpdates == null || holder.initializedWritableLiveDocs == false) {
+                  holder.init(readerPool, merge, true);
+                }
+                holder.mergedDeletesAndUpdates.delete(mappedDoc);
               }
-              holder.mergedDeletesAndUpdates.delete(mergeState.docMaps[i].get(mergeState.leafDocMaps[i].get(j)));
               if (mergingFields != null) { // advance all iters beyond the deleted document
                 skipDeletedDoc(updatesIters, j);
               }
@@ -3675,10 +3864,13 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         // does:
         for (int j = 0; j < maxDoc; j++) {
           if (currentLiveDocs.get(j) == false) {
-            if (holder.mergedDeletesAndUpdates == null || !holder.initializedWritableLiveDocs) {
-              holder.init(readerPool, merge, true);
+            final int mappedDoc = mergeState.docMaps[i].get(mergeState.leafDocMaps[i].get(j));
+            if (mappedDoc != -1) { // the merge may have dropped the document, e.g. if it was soft-deleted
+              if (holder.mergedDeletesAndUpdates == null || !holder.initializedWritableLiveDocs) {
+                holder.init(readerPool, merge, true);
+              }
+              holder.mergedDeletesAndUpdates.delete(mappedDoc);
             }
-            holder.mergedDeletesAndUpdates.delete(mergeState.docMaps[i].get(mergeState.leafDocMaps[i].get(j)));
             if (mergingFields != null) { // advance all iters beyond the deleted document
               skipDeletedDoc(updatesIters, j);
             }
@@ -4385,6 +4577,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
                              (mergeState.mergeFieldInfos.hasProx() ? "prox" : "no prox") + "; " + 
                              (mergeState.mergeFieldInfos.hasProx() ? "freqs" : "no freqs") + "; " +
                              (mergeState.mergeFieldInfos.hasPointValues() ? "points" : "no points") + "; " +
+                             (mergeState.mergeFieldInfos.hasVectorValues() ? "vector values" : "no vector values") + "; " +
                              String.format(Locale.ROOT,
                                            "%.1f sec%s to merge segment [%.2f MB, %.2f MB/sec]",
                                            sec,
@@ -25,6 +25,7 @@ import java.util.stream.Collectors;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Field; // javadocs
 import org.apache.lucene.index.IndexWriter.IndexReaderWarmer;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
@@ -480,6 +481,29 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Sets the soft deletes field. A soft delete field in lucene is a doc-values field that marks a document as soft-deleted if a
+   * document has at least one value in that field. If a document is marked as soft-deleted the document is treated as
+   * if it has been hard-deleted through the IndexWriter API ({@link IndexWriter#deleteDocuments(Term...)}, once
+   * readers are wrapped with a {@link SoftDeletesDirectoryReaderWrapper}.
+   * Merges will reclaim soft-deleted as well as hard-deleted documents once they are no longer retained by a
+   * {@link SoftDeletesRetentionMergePolicy}. Index readers obtained from this writer
+   * still see soft-deleted documents unless they are wrapped.
+   *
+   * Soft deletes are applied through {@link IndexWriter#softUpdateDocument(Term, Iterable, Field...)} and
+   * {@link IndexWriter#softUpdateDocuments(Term, Iterable, Field...)}, which mark the previous versions of a
+   * document through a doc-values update instead of buffering a delete, so they are never resolved into
+   * the live docs of a segment.
+   *
+   * The default value for this is <code>null</code> which disables soft-deletes.
+   *
+   * @param softDeletesField the field to use as a soft-deletes field
+   */
+  public IndexWriterConfig setSoftDeletesField(String softDeletesField) {
+    this.softDeletesField = softDeletesField;
+    return this;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder(super.toString());
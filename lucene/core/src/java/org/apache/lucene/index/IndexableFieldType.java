@@ -106,4 +106,14 @@ public interface IndexableFieldType {
    * The number of bytes in each dimension's values.
    */
   public int pointNumBytes();
+
+  /**
+   * The number of dimensions of the field's vector value
+   */
+  public int vectorDimension();
+
+  /**
+   * The {@link VectorValues.SimilarityFunction} of the field's vector value
+   */
+  public VectorValues.SimilarityFunction vectorSimilarityFunction();
 }
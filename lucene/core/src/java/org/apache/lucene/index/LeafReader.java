@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 import java.io.IOException;
 
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Bits;
 
 /** {@code LeafReader} is an abstract class, providing an interface for accessing an
@@ -212,6 +213,15 @@ public abstract class LeafReader extends IndexReader {
    *  used by a single thread. */
   public abstract NumericDocValues getNormValues(String field) throws IOException;
 
+  /** Returns a {@link DocValuesSkipper} for the doc values of this field, or
+   *  null if the field has no numeric, sorted numeric, sorted or sorted set
+   *  doc values, or if they do not record such a summary. The returned instance
+   *  should only be used by a single thread.
+   *  @lucene.experimental */
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    return null;
+  }
+
   /**
    * Get the {@link FieldInfos} describing all fields in
    * this reader.
@@ -236,6 +246,62 @@ public abstract class LeafReader extends IndexReader {
    *  are no point fields. */
   public abstract PointValues getPointValues(String field) throws IOException;
 
+  /** Returns the {@link VectorValues} for the given {@code field}, or
+   *  null if the field does not index vectors. The returned instance
+   *  should only be used by a single thread. The default implementation
+   *  returns null, for readers that don't support vectors.
+   *  @lucene.experimental */
+  public VectorValues getVectorValues(String field) throws IOException {
+    return null;
+  }
+
+  /**
+   * Return the k nearest neighbor documents as determined by comparison of their vector values for
+   * this field, to the given vector, by the field's similarity function. The score of each document
+   * is derived from the vector similarity in a way that ensures scores are positive and that a
+   * larger score corresponds to a higher ranking.
+   * <p>
+   * The search is allowed to be approximate, meaning the results are not guaranteed to be the
+   * true k closest neighbors. For large values of k (for example when k is close to the total
+   * number of documents), the search may also retrieve fewer than k documents.
+   * <p>
+   * This is a shortcut for {@link #searchNearestVectors(String, float[], int, Bits, int)}
+   * without a limit on the number of visited vectors.
+   *
+   * @param field the vector field to search
+   * @param target the vector-valued query
+   * @param k the number of docs to return
+   * @param acceptDocs {@link Bits} that represents the allowed documents to match, or
+   *     {@code null} if they are all allowed to match.
+   * @return the k nearest neighbor documents by decreasing score, or null if the field
+   *     does not index vectors
+   * @lucene.experimental
+   */
+  public final TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs) throws IOException {
+    return searchNearestVectors(field, target, k, acceptDocs, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Return the k nearest neighbor documents like {@link #searchNearestVectors(String, float[], int, Bits)},
+   * but stop once {@code visitedLimit} vectors have been compared to the target. {@link TopDocs#totalHits}
+   * is the number of compared vectors: when it reaches {@code visitedLimit}, the search may have
+   * been cut short and the results may be incomplete.
+   *
+   * @param field the vector field to search
+   * @param target the vector-valued query
+   * @param k the number of docs to return
+   * @param acceptDocs {@link Bits} that represents the allowed documents to match, or
+   *     {@code null} if they are all allowed to match.
+   * @param visitedLimit the maximum number of vectors to compare to the target
+   * @return the k nearest neighbor documents by decreasing score, or null if the field
+   *     does not index vectors; the default implementation returns null, for readers
+   *     that don't support vectors
+   * @lucene.experimental
+   */
+  public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+    return null;
+  }
+
   /**
    * Checks consistency of this reader.
    * <p>
@@ -454,6 +454,10 @@ public abstract class MergePolicy {
    *  this value then it will not use compound file format. */
   protected long maxCFSSegmentSize = DEFAULT_MAX_CFS_SEGMENT_SIZE;
 
+  /** Maximum number of incoming readers that {@link #findAddIndexesMerges}
+   *  merges into a single new segment. */
+  protected int maxAddIndexesMergeAtOnce = Integer.MAX_VALUE;
+
   /**
    * Creates a new merge policy instance.
    */
@@ -510,6 +514,31 @@ public abstract class MergePolicy {
           SegmentInfos segmentInfos, int maxSegmentCount, Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer)
       throws IOException;
 
+  /**
+   * Expert: determines how the readers passed to {@link IndexWriter#addIndexes(CodecReader...)}
+   * are merged. Each returned group of readers is merged into its own new segment, and
+   * groups may be merged concurrently using {@link MergeScheduler#getAddIndexesExecutor(IndexWriter)}.
+   * All new segments are added to the index atomically once every group has been merged.
+   *
+   * <p>The default implementation splits the readers, in order, into the smallest number of
+   * evenly sized groups of at most {@link #getMaxAddIndexesMergeAtOnce()} readers each, so by
+   * default all readers are merged into a single new segment.
+   *
+   * @param readers the readers to add to the index, never empty
+   * @param writer the IndexWriter to find the merges on
+   */
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, IndexWriter writer) throws IOException {
+    final int numGroups = readers.isEmpty() ? 0 : 1 + (readers.size() - 1) / maxAddIndexesMergeAtOnce;
+    List<List<CodecReader>> groups = new ArrayList<>(numGroups);
+    int start = 0;
+    for (int i = 0; i < numGroups; i++) {
+      final int end = (int) ((long) readers.size() * (i + 1) / numGroups);
+      groups.add(readers.subList(start, end));
+      start = end;
+    }
+    return groups;
+  }
+
   /**
    * Determine what set of merge operations is necessary in order to expunge all
    * deletes from the index.
@@ -604,4 +633,24 @@ public abstract class MergePolicy {
     v *= 1024 * 1024;
     this.maxCFSSegmentSize = v > Long.MAX_VALUE ? Long.MAX_VALUE : (long) v;
   }
+
+  /** Returns the current {@code maxAddIndexesMergeAtOnce}.
+   *
+   *  @see #setMaxAddIndexesMergeAtOnce */
+  public int getMaxAddIndexesMergeAtOnce() {
+    return maxAddIndexesMergeAtOnce;
+  }
+
+  /** Maximum number of incoming readers that
+   *  {@link IndexWriter#addIndexes(CodecReader...)} merges into
+   *  a single new segment. Lower values produce more, smaller
+   *  segments that can be merged concurrently by the
+   *  {@link MergeScheduler}. Default is {@link Integer#MAX_VALUE},
+   *  which merges all readers into a single segment. */
+  public void setMaxAddIndexesMergeAtOnce(int v) {
+    if (v < 1) {
+      throw new IllegalArgumentException("maxAddIndexesMergeAtOnce must be >= 1 (got " + v + ")");
+    }
+    this.maxAddIndexesMergeAtOnce = v;
+  }
 }
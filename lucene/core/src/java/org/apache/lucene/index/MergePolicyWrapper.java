@@ -17,6 +17,7 @@
 package org.apache.lucene.index;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -55,6 +56,11 @@ public class MergePolicyWrapper extends MergePolicy {
     return in.findForcedDeletesMerges(segmentInfos, writer);
   }
 
+  @Override
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, IndexWriter writer) throws IOException {
+    return in.findAddIndexesMerges(readers, writer);
+  }
+
   @Override
   public boolean useCompoundFile(SegmentInfos infos, SegmentCommitInfo mergedInfo, IndexWriter writer)
       throws IOException {
@@ -81,6 +87,16 @@ public class MergePolicyWrapper extends MergePolicy {
     in.setMaxCFSSegmentSizeMB(v);
   }
 
+  @Override
+  public int getMaxAddIndexesMergeAtOnce() {
+    return in.getMaxAddIndexesMergeAtOnce();
+  }
+
+  @Override
+  public final void setMaxAddIndexesMergeAtOnce(int v) {
+    in.setMaxAddIndexesMergeAtOnce(v);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "(" + in + ")";
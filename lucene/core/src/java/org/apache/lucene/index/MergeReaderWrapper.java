@@ -24,6 +24,7 @@ import org.apache.lucene.codecs.FieldsProducer;
 import org.apache.lucene.codecs.NormsProducer;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Bits;
 
 /** This is a hack to make index sorting fast, with a {@link LeafReader} that always returns merge instances when you ask for the codec readers. */
@@ -149,6 +150,19 @@ class MergeReaderWrapper extends LeafReader {
     return docValues.getSortedSet(fi);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null
+        || fi.getDocValuesType() == DocValuesType.NONE
+        || fi.getDocValuesType() == DocValuesType.BINARY) {
+      // Field does not exist or has no doc values that can be summarized
+      return null;
+    }
+    return docValues.getSkipper(fi);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -190,6 +204,16 @@ class MergeReaderWrapper extends LeafReader {
     return in.getPointValues(fieldName);
   }
 
+  @Override
+  public VectorValues getVectorValues(String fieldName) throws IOException {
+    return in.getVectorValues(fieldName);
+  }
+
+  @Override
+  public TopDocs searchNearestVectors(String fieldName, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+    return in.searchNearestVectors(fieldName, target, k, acceptDocs, visitedLimit);
+  }
+
   @Override
   public int numDocs() {
     return in.numDocs();
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.Directory;
@@ -54,6 +55,17 @@ public abstract class MergeScheduler implements Closeable {
     return in;
   }
 
+  /**
+   * Expert: returns the {@link Executor} that {@link IndexWriter#addIndexes(CodecReader...)}
+   * uses to merge the groups of readers selected by
+   * {@link MergePolicy#findAddIndexesMerges(java.util.List, IndexWriter)}. The
+   * caller waits for all tasks to complete. The default implementation runs the
+   * tasks on the calling thread.
+   */
+  public Executor getAddIndexesExecutor(IndexWriter writer) throws IOException {
+    return Runnable::run;
+  }
+
   /** Close this MergeScheduler. */
   @Override
   public abstract void close() throws IOException;
@@ -21,16 +21,30 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.index.MultiTermsEnum.TermsEnumIndex;
 import org.apache.lucene.index.MultiTermsEnum.TermsEnumWithSlice;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefArray;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InPlaceMergeSorter;
+import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.PriorityQueue;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
 
@@ -568,6 +582,19 @@ public class MultiDocValues {
    * </p>  
    */
   public static SortedDocValues getSortedValues(final IndexReader r, final String field) throws IOException {
+    return getSortedValues(r, field, null, null);
+  }
+
+  /** Returns a SortedDocValues for a reader's docvalues, like {@link #getSortedValues(IndexReader, String)},
+   * but reusing the global ordinals of {@code previous} for the segments that did not change
+   * since it was built. {@code previous} is typically the {@link MultiSortedDocValues#mapping mapping} of the
+   * values that were returned for the same field by an earlier point-in-time view of the index,
+   * such as the reader that {@code r} was reopened from.
+   * @param previous an ordinal map to update, or null
+   * @param executor used to process segments concurrently, or null to do all the work in the calling thread
+   * @lucene.experimental
+   */
+  public static SortedDocValues getSortedValues(final IndexReader r, final String field, OrdinalMap previous, ExecutorService executor) throws IOException {
     final List<LeafReaderContext> leaves = r.leaves();
     final int size = leaves.size();
     
@@ -579,10 +606,13 @@ public class MultiDocValues {
     
     boolean anyReal = false;
     final SortedDocValues[] values = new SortedDocValues[size];
+    final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[size];
     final int[] starts = new int[size+1];
     long totalCost = 0;
     for (int i = 0; i < size; i++) {
       LeafReaderContext context = leaves.get(i);
+      IndexReader.CacheHelper coreCacheHelper = context.reader().getCoreCacheHelper();
+      segmentKeys[i] = coreCacheHelper == null ? null : coreCacheHelper.getKey();
       SortedDocValues v = context.reader().getSortedDocValues(field);
       if (v == null) {
         v = DocValues.emptySorted();
@@ -600,7 +630,7 @@ public class MultiDocValues {
     } else {
       IndexReader.CacheHelper cacheHelper = r.getReaderCacheHelper();
       IndexReader.CacheKey owner = cacheHelper == null ? null : cacheHelper.getKey();
-      OrdinalMap mapping = OrdinalMap.build(owner, values, PackedInts.DEFAULT);
+      OrdinalMap mapping = OrdinalMap.build(owner, segmentKeys, values, PackedInts.DEFAULT, previous, executor);
       return new MultiSortedDocValues(values, starts, mapping, totalCost);
     }
   }
@@ -612,6 +642,19 @@ public class MultiDocValues {
    * </p>  
    */
   public static SortedSetDocValues getSortedSetValues(final IndexReader r, final String field) throws IOException {
+    return getSortedSetValues(r, field, null, null);
+  }
+
+  /** Returns a SortedSetDocValues for a reader's docvalues, like {@link #getSortedSetValues(IndexReader, String)},
+   * but reusing the global ordinals of {@code previous} for the segments that did not change
+   * since it was built. {@code previous} is typically the {@link MultiSortedSetDocValues#mapping mapping} of the
+   * values that were returned for the same field by an earlier point-in-time view of the index,
+   * such as the reader that {@code r} was reopened from.
+   * @param previous an ordinal map to update, or null
+   * @param executor used to process segments concurrently, or null to do all the work in the calling thread
+   * @lucene.experimental
+   */
+  public static SortedSetDocValues getSortedSetValues(final IndexReader r, final String field, OrdinalMap previous, ExecutorService executor) throws IOException {
     final List<LeafReaderContext> leaves = r.leaves();
     final int size = leaves.size();
     
@@ -623,10 +666,13 @@ public class MultiDocValues {
     
     boolean anyReal = false;
     final SortedSetDocValues[] values = new SortedSetDocValues[size];
+    final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[size];
     final int[] starts = new int[size+1];
     long totalCost = 0;
     for (int i = 0; i < size; i++) {
       LeafReaderContext context = leaves.get(i);
+      IndexReader.CacheHelper coreCacheHelper = context.reader().getCoreCacheHelper();
+      segmentKeys[i] = coreCacheHelper == null ? null : coreCacheHelper.getKey();
       SortedSetDocValues v = context.reader().getSortedSetDocValues(field);
       if (v == null) {
         v = DocValues.emptySortedSet();
@@ -644,7 +690,7 @@ public class MultiDocValues {
     } else {
       IndexReader.CacheHelper cacheHelper = r.getReaderCacheHelper();
       IndexReader.CacheKey owner = cacheHelper == null ? null : cacheHelper.getKey();
-      OrdinalMap mapping = OrdinalMap.build(owner, values, PackedInts.DEFAULT);
+      OrdinalMap mapping = OrdinalMap.build(owner, segmentKeys, values, PackedInts.DEFAULT, previous, executor);
       return new MultiSortedSetDocValues(values, starts, mapping, totalCost);
     }
   }
@@ -711,34 +757,92 @@ public class MultiDocValues {
       }
     }
 
+    /** Iterates over the global ordinals of a segment, in the order of its segment ordinals. */
+    private static class SegmentGlobalOrds {
+      final int segment;
+      final PackedLongValues.Iterator ordDeltas;
+      long segmentOrd = -1;
+      long globalOrd;
+
+      SegmentGlobalOrds(int segment, PackedLongValues ordDeltas) {
+        this.segment = segment;
+        this.ordDeltas = ordDeltas.iterator();
+      }
+
+      boolean next() {
+        if (ordDeltas.hasNext() == false) {
+          return false;
+        }
+        segmentOrd++;
+        globalOrd = segmentOrd + ordDeltas.next();
+        return true;
+      }
+    }
+
     /**
      * Create an ordinal map that uses the number of unique values of each
      * {@link SortedDocValues} instance as a weight.
      * @see #build(IndexReader.CacheKey, TermsEnum[], long[], float)
      */
     public static OrdinalMap build(IndexReader.CacheKey owner, SortedDocValues[] values, float acceptableOverheadRatio) throws IOException {
+      return build(owner, null, values, acceptableOverheadRatio, null, null);
+    }
+
+    /**
+     * Create an ordinal map that uses the number of unique values of each
+     * {@link SortedSetDocValues} instance as a weight.
+     * @see #build(IndexReader.CacheKey, TermsEnum[], long[], float)
+     */
+    public static OrdinalMap build(IndexReader.CacheKey owner, SortedSetDocValues[] values, float acceptableOverheadRatio) throws IOException {
+      return build(owner, null, values, acceptableOverheadRatio, null, null);
+    }
+
+    /**
+     * Create an ordinal map that uses the number of unique values of each
+     * {@link SortedDocValues} instance as a weight, and that reuses the work
+     * done by {@code previous} for the segments it has in common with
+     * {@code values}.
+     * @param owner a cache key
+     * @param segmentKeys the {@link IndexReader#getCoreCacheHelper() core cache key}
+     *             of each segment, or null if unknown. They are used to recognize
+     *             the segments of {@code previous}.
+     * @param values the doc values of each segment
+     * @param previous an ordinal map of an earlier point-in-time view of the same
+     *             index, or null. It is only used if the segments that it does not
+     *             know about have fewer unique values than those that it does.
+     * @param executor used to process segments concurrently, or null to do all the
+     *             work in the calling thread
+     * @see #build(IndexReader.CacheKey, TermsEnum[], long[], float)
+     * @lucene.experimental
+     */
+    public static OrdinalMap build(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, SortedDocValues[] values,
+        float acceptableOverheadRatio, OrdinalMap previous, ExecutorService executor) throws IOException {
       final TermsEnum[] subs = new TermsEnum[values.length];
       final long[] weights = new long[values.length];
       for (int i = 0; i < values.length; ++i) {
         subs[i] = values[i].termsEnum();
         weights[i] = values[i].getValueCount();
       }
-      return build(owner, subs, weights, acceptableOverheadRatio);
+      return build(owner, segmentKeys, subs, weights, acceptableOverheadRatio, previous, executor);
     }
 
     /**
      * Create an ordinal map that uses the number of unique values of each
-     * {@link SortedSetDocValues} instance as a weight.
-     * @see #build(IndexReader.CacheKey, TermsEnum[], long[], float)
+     * {@link SortedSetDocValues} instance as a weight, and that reuses the work
+     * done by {@code previous} for the segments it has in common with
+     * {@code values}.
+     * @see #build(IndexReader.CacheKey, IndexReader.CacheKey[], SortedDocValues[], float, OrdinalMap, ExecutorService)
+     * @lucene.experimental
      */
-    public static OrdinalMap build(IndexReader.CacheKey owner, SortedSetDocValues[] values, float acceptableOverheadRatio) throws IOException {
+    public static OrdinalMap build(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] values,
+        float acceptableOverheadRatio, OrdinalMap previous, ExecutorService executor) throws IOException {
       final TermsEnum[] subs = new TermsEnum[values.length];
       final long[] weights = new long[values.length];
       for (int i = 0; i < values.length; ++i) {
         subs[i] = values[i].termsEnum();
         weights[i] = values[i].getValueCount();
       }
-      return build(owner, subs, weights, acceptableOverheadRatio);
+      return build(owner, segmentKeys, subs, weights, acceptableOverheadRatio, previous, executor);
     }
 
     /** 
@@ -759,29 +863,29 @@ public class MultiDocValues {
 
       // enums are not sorted, so let's sort to save memory
       final SegmentMap segmentMap = new SegmentMap(weights);
-      return new OrdinalMap(owner, subs, segmentMap, acceptableOverheadRatio);
+      return buildFromTerms(owner, null, null, subs, segmentMap, acceptableOverheadRatio, null);
     }
 
-    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OrdinalMap.class);
+    private static OrdinalMap build(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, TermsEnum[] subs, long[] valueCounts,
+        float acceptableOverheadRatio, OrdinalMap previous, ExecutorService executor) throws IOException {
+      if (segmentKeys != null && segmentKeys.length != subs.length) {
+        throw new IllegalArgumentException("segmentKeys and values must have the same length");
+      }
+      final SegmentMap segmentMap = new SegmentMap(valueCounts);
+      if (previous != null && previous.segmentKeys != null && segmentKeys != null) {
+        OrdinalMap map = update(owner, segmentKeys, subs, valueCounts, segmentMap, acceptableOverheadRatio, previous, executor);
+        if (map != null) {
+          return map;
+        }
+      }
+      return buildFromTerms(owner, segmentKeys, valueCounts, subs, segmentMap, acceptableOverheadRatio, executor);
+    }
 
-    /** Cache key of whoever asked for this awful thing */
-    public final IndexReader.CacheKey owner;
-    // globalOrd -> (globalOrd - segmentOrd) where segmentOrd is the the ordinal in the first segment that contains this term
-    final PackedLongValues globalOrdDeltas;
-    // globalOrd -> first segment container
-    final PackedLongValues firstSegments;
-    // for every segment, segmentOrd -> globalOrd
-    final LongValues segmentToGlobalOrds[];
-    // the map from/to segment ids
-    final SegmentMap segmentMap;
-    // ram usage
-    final long ramBytesUsed;
-    
-    OrdinalMap(IndexReader.CacheKey owner, TermsEnum subs[], SegmentMap segmentMap, float acceptableOverheadRatio) throws IOException {
+    /** Builds an ordinal map from scratch, by merging the terms of all segments. */
+    private static OrdinalMap buildFromTerms(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, long[] valueCounts,
+        TermsEnum subs[], SegmentMap segmentMap, float acceptableOverheadRatio, ExecutorService executor) throws IOException {
       // create the ordinal mappings by pulling a termsenum over each sub's 
       // unique terms, and walking a multitermsenum over those
-      this.owner = owner;
-      this.segmentMap = segmentMap;
       // even though we accept an overhead ratio, we keep these ones with COMPACT
       // since they are only used to resolve values given a global ord, which is
       // slow anyway
@@ -830,51 +934,366 @@ public class MultiDocValues {
         globalOrdDeltas.add(globalOrdDelta);
         globalOrd++;
       }
-      this.firstSegments = firstSegments.build();
-      this.globalOrdDeltas = globalOrdDeltas.build();
-      // ordDeltas is typically the bottleneck, so let's see what we can do to make it faster
-      segmentToGlobalOrds = new LongValues[subs.length];
-      long ramBytesUsed = BASE_RAM_BYTES_USED + this.globalOrdDeltas.ramBytesUsed()
-          + this.firstSegments.ramBytesUsed() + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
-          + segmentMap.ramBytesUsed();
+      final PackedLongValues[] builtOrdDeltas = new PackedLongValues[ordDeltas.length];
       for (int i = 0; i < ordDeltas.length; ++i) {
-        final PackedLongValues deltas = ordDeltas[i].build();
-        if (ordDeltaBits[i] == 0L) {
-          // segment ords perfectly match global ordinals
-          // likely in case of low cardinalities and large segments
-          segmentToGlobalOrds[i] = LongValues.IDENTITY;
+        builtOrdDeltas[i] = ordDeltas[i].build();
+      }
+      return new OrdinalMap(owner, segmentKeys, valueCounts, segmentMap, globalOrdDeltas.build(), firstSegments.build(),
+          builtOrdDeltas, ordDeltaBits, acceptableOverheadRatio, executor);
+    }
+
+    /**
+     * Builds an ordinal map by updating {@code previous}. Only the terms of the segments that
+     * {@code previous} does not know about are merged. They are then located among the global
+     * terms of {@code previous} by seeking the segments that it knows about, and the global
+     * ordinals of these segments are shifted accordingly, without reading their terms again.
+     * Returns null if too many terms would need to be merged for this to be worth it.
+     */
+    private static OrdinalMap update(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, TermsEnum[] subs,
+        long[] valueCounts, SegmentMap segmentMap, float acceptableOverheadRatio, OrdinalMap previous,
+        ExecutorService executor) throws IOException {
+      final Map<IndexReader.CacheKey,Integer> previousSegments = new HashMap<>();
+      for (int i = 0; i < previous.segmentKeys.length; ++i) {
+        if (previous.segmentKeys[i] != null) {
+          previousSegments.put(previous.segmentKeys[i], i);
+        }
+      }
+
+      // for every segment, its index in previous, or -1 if it is new
+      final int[] previousSegment = new int[subs.length];
+      final List<Integer> keptSegments = new ArrayList<>();
+      final List<Integer> newSegments = new ArrayList<>();
+      long keptValueCount = 0, newValueCount = 0;
+      for (int i = 0; i < subs.length; ++i) {
+        Integer p = segmentKeys[i] == null ? null : previousSegments.remove(segmentKeys[i]);
+        // sorted doc values can't be updated, so a segment whose unique values
+        // don't add up is not the same one, e.g. it may be wrapped differently
+        if (p != null && previous.segmentValueCounts[p] == valueCounts[i]) {
+          previousSegment[i] = p;
+          keptSegments.add(i);
+          keptValueCount += valueCounts[i];
         } else {
-          final int bitsRequired = ordDeltaBits[i] < 0 ? 64 : PackedInts.bitsRequired(ordDeltaBits[i]);
-          final long monotonicBits = deltas.ramBytesUsed() * 8;
-          final long packedBits = bitsRequired * deltas.size();
-          if (deltas.size() <= Integer.MAX_VALUE
-              && packedBits <= monotonicBits * (1 + acceptableOverheadRatio)) {
-            // monotonic compression mostly adds overhead, let's keep the mapping in plain packed ints
-            final int size = (int) deltas.size();
-            final PackedInts.Mutable newDeltas = PackedInts.getMutable(size, bitsRequired, acceptableOverheadRatio);
-            final PackedLongValues.Iterator it = deltas.iterator();
-            for (int ord = 0; ord < size; ++ord) {
-              newDeltas.set(ord, it.next());
+          previousSegment[i] = -1;
+          newSegments.add(i);
+          newValueCount += valueCounts[i];
+        }
+      }
+      if (keptSegments.isEmpty() || newValueCount > keptValueCount || newValueCount > Integer.MAX_VALUE) {
+        // better merge all terms
+        return null;
+      }
+
+      // 1. merge the terms of the new segments
+      final BytesRefArray newTerms = new BytesRefArray(Counter.newCounter());
+      final PackedLongValues.Builder[] newSegmentTermOrdsBuilders = new PackedLongValues.Builder[newSegments.size()];
+      final long[] newSegmentOrds = new long[newSegments.size()];
+      final ReaderSlice slices[] = new ReaderSlice[newSegments.size()];
+      final TermsEnumIndex indexes[] = new TermsEnumIndex[newSegments.size()];
+      for (int i = 0; i < slices.length; i++) {
+        newSegmentTermOrdsBuilders[i] = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        slices[i] = new ReaderSlice(0, 0, i);
+        indexes[i] = new TermsEnumIndex(subs[newSegments.get(i)], i);
+      }
+      if (slices.length > 0) {
+        final MultiTermsEnum mte = new MultiTermsEnum(slices);
+        mte.reset(indexes);
+        for (BytesRef term = mte.next(); term != null; term = mte.next()) {
+          final int newTermOrd = newTerms.append(term);
+          final TermsEnumWithSlice matches[] = mte.getMatchArray();
+          for (int i = 0; i < mte.getMatchCount(); i++) {
+            final int segmentIndex = matches[i].index;
+            final long segmentOrd = matches[i].terms.ord();
+            while (newSegmentOrds[segmentIndex] <= segmentOrd) {
+              newSegmentTermOrdsBuilders[segmentIndex].add(newTermOrd);
+              newSegmentOrds[segmentIndex]++;
             }
-            assert !it.hasNext();
-            segmentToGlobalOrds[i] = new LongValues() {
-              @Override
-              public long get(long ord) {
-                return ord + newDeltas.get((int) ord);
+          }
+        }
+      }
+      final int numNewTerms = newTerms.size();
+
+      // 2. find, for every new term, the least global ord of previous whose term is
+      // greater than or equal to it, and whether it is equal
+      final long[] ceilOrds = new long[numNewTerms];
+      Arrays.fill(ceilOrds, Long.MAX_VALUE);
+      final FixedBitSet exists = new FixedBitSet(numNewTerms);
+      if (numNewTerms > 0) {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int segment : keptSegments) {
+          final TermsEnum termsEnum = subs[segment];
+          final LongValues globalOrds = previous.getGlobalOrds(previousSegment[segment]);
+          tasks.add(() -> {
+            final long[] segmentCeilOrds = new long[numNewTerms];
+            Arrays.fill(segmentCeilOrds, Long.MAX_VALUE);
+            final FixedBitSet segmentExists = new FixedBitSet(numNewTerms);
+            final BytesRefBuilder spare = new BytesRefBuilder();
+            BytesRef current = null;
+            for (int i = 0; i < numNewTerms; ++i) {
+              final BytesRef term = newTerms.get(spare, i);
+              // new terms are sorted, so the enum only needs to move when it is behind
+              if (current == null || current.compareTo(term) < 0) {
+                if (termsEnum.seekCeil(term) == TermsEnum.SeekStatus.END) {
+                  break;
+                }
+                current = termsEnum.term();
               }
-            };
-            ramBytesUsed += newDeltas.ramBytesUsed();
-          } else {
-            segmentToGlobalOrds[i] = new LongValues() {
-              @Override
-              public long get(long ord) {
-                return ord + deltas.get(ord);
+              segmentCeilOrds[i] = globalOrds.get(termsEnum.ord());
+              if (current.equals(term)) {
+                segmentExists.set(i);
+              }
+            }
+            synchronized (ceilOrds) {
+              for (int i = 0; i < numNewTerms; ++i) {
+                ceilOrds[i] = Math.min(ceilOrds[i], segmentCeilOrds[i]);
               }
-            };
-            ramBytesUsed += deltas.ramBytesUsed();
+              exists.or(segmentExists);
+            }
+            return null;
+          });
+        }
+        runTasks(tasks, executor);
+      }
+
+      // 3. find the global ords of previous that still exist, if segments went away
+      LongBitSet live = null;
+      if (keptSegments.size() < previous.segmentKeys.length) {
+        live = new LongBitSet(previous.getValueCount());
+        for (int segment : keptSegments) {
+          final LongValues globalOrds = previous.getGlobalOrds(previousSegment[segment]);
+          for (long ord = 0; ord < valueCounts[segment]; ++ord) {
+            live.set(globalOrds.get(ord));
+          }
+        }
+      }
+
+      // 4. interleave the global ords of previous and the new terms
+      final PackedLongValues.Builder previousToGlobalBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+      final PackedLongValues.Builder newTermToGlobalBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+      long globalOrd = 0;
+      int newTermOrd = 0;
+      for (long previousOrd = 0; previousOrd < previous.getValueCount(); ++previousOrd) {
+        for (; newTermOrd < numNewTerms && ceilOrds[newTermOrd] <= previousOrd; ++newTermOrd) {
+          if (exists.get(newTermOrd)) {
+            // same term as previousOrd, which comes next
+            assert ceilOrds[newTermOrd] == previousOrd;
+            newTermToGlobalBuilder.add(globalOrd);
+          } else {
+            newTermToGlobalBuilder.add(globalOrd++);
+          }
+        }
+        if (live == null || live.get(previousOrd)) {
+          previousToGlobalBuilder.add(globalOrd++);
+        } else {
+          // not used by any segment anymore
+          previousToGlobalBuilder.add(globalOrd);
+        }
+      }
+      for (; newTermOrd < numNewTerms; ++newTermOrd) {
+        assert exists.get(newTermOrd) == false;
+        newTermToGlobalBuilder.add(globalOrd++);
+      }
+      final long valueCount = globalOrd;
+      final PackedLongValues previousToGlobal = previousToGlobalBuilder.build();
+      final PackedLongValues newTermToGlobal = newTermToGlobalBuilder.build();
+
+      // 5. compute the deltas between segment ords and global ords of every segment
+      final PackedLongValues[] ordDeltas = new PackedLongValues[subs.length];
+      final long[] ordDeltaBits = new long[subs.length];
+      final List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < subs.length; ++i) {
+        final int index = i;
+        final int segment = segmentMap.newToOld(i);
+        final LongValues segmentToGlobal;
+        if (previousSegment[segment] != -1) {
+          final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegment[segment]);
+          segmentToGlobal = new LongValues() {
+            @Override
+            public long get(long ord) {
+              return previousToGlobal.get(previousGlobalOrds.get(ord));
+            }
+          };
+        } else {
+          final PackedLongValues newTermOrds = newSegmentTermOrdsBuilders[newSegments.indexOf(segment)].build();
+          segmentToGlobal = new LongValues() {
+            @Override
+            public long get(long ord) {
+              return newTermToGlobal.get(newTermOrds.get(ord));
+            }
+          };
+        }
+        final long segmentValueCount = valueCounts[segment];
+        tasks.add(() -> {
+          final PackedLongValues.Builder deltas = PackedLongValues.monotonicBuilder(acceptableOverheadRatio);
+          long deltaBits = 0;
+          for (long ord = 0; ord < segmentValueCount; ++ord) {
+            final long delta = segmentToGlobal.get(ord) - ord;
+            deltaBits |= delta;
+            deltas.add(delta);
+          }
+          ordDeltas[index] = deltas.build();
+          ordDeltaBits[index] = deltaBits;
+          return null;
+        });
+      }
+      runTasks(tasks, executor);
+
+      // 6. find the first segment of every global ord, by merging the global ords of all segments
+      final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+      final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+      final PriorityQueue<SegmentGlobalOrds> queue = new PriorityQueue<SegmentGlobalOrds>(subs.length) {
+        @Override
+        protected boolean lessThan(SegmentGlobalOrds a, SegmentGlobalOrds b) {
+          if (a.globalOrd != b.globalOrd) {
+            return a.globalOrd < b.globalOrd;
+          }
+          return a.segment < b.segment;
+        }
+      };
+      for (int i = 0; i < subs.length; ++i) {
+        final SegmentGlobalOrds segmentGlobalOrds = new SegmentGlobalOrds(i, ordDeltas[i]);
+        if (segmentGlobalOrds.next()) {
+          queue.add(segmentGlobalOrds);
+        }
+      }
+      long nextGlobalOrd = 0;
+      while (queue.size() > 0) {
+        final SegmentGlobalOrds top = queue.top();
+        if (top.globalOrd == nextGlobalOrd) {
+          firstSegments.add(top.segment);
+          globalOrdDeltas.add(top.globalOrd - top.segmentOrd);
+          nextGlobalOrd++;
+        } else {
+          assert top.globalOrd < nextGlobalOrd;
+        }
+        if (top.next()) {
+          queue.updateTop();
+        } else {
+          queue.pop();
+        }
+      }
+      assert nextGlobalOrd == valueCount;
+
+      return new OrdinalMap(owner, segmentKeys, valueCounts, segmentMap, globalOrdDeltas.build(), firstSegments.build(),
+          ordDeltas, ordDeltaBits, acceptableOverheadRatio, executor);
+    }
+
+    /** Runs the given tasks with the executor, or in the calling thread if it is null. */
+    private static void runTasks(List<Callable<Void>> tasks, ExecutorService executor) throws IOException {
+      Throwable th = null;
+      if (executor == null) {
+        for (Callable<Void> task : tasks) {
+          try {
+            task.call();
+          } catch (Throwable t) {
+            th = t;
+            break;
           }
-          ramBytesUsed += RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds[i]);
         }
+      } else {
+        final List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Void> task : tasks) {
+          futures.add(executor.submit(task));
+        }
+        // wait for all tasks, even if some failed, since they share state
+        for (Future<Void> future : futures) {
+          try {
+            future.get();
+          } catch (InterruptedException e) {
+            throw new ThreadInterruptedException(e);
+          } catch (ExecutionException e) {
+            if (th == null) {
+              th = e.getCause();
+            }
+          }
+        }
+      }
+      IOUtils.reThrow(th);
+    }
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OrdinalMap.class);
+
+    /** Cache key of whoever asked for this awful thing */
+    public final IndexReader.CacheKey owner;
+    // globalOrd -> (globalOrd - segmentOrd) where segmentOrd is the the ordinal in the first segment that contains this term
+    final PackedLongValues globalOrdDeltas;
+    // globalOrd -> first segment container
+    final PackedLongValues firstSegments;
+    // for every segment, segmentOrd -> globalOrd
+    final LongValues segmentToGlobalOrds[];
+    // the map from/to segment ids
+    final SegmentMap segmentMap;
+    // for every segment, its core cache key, or null if unknown
+    final IndexReader.CacheKey[] segmentKeys;
+    // for every segment, its number of unique values, or null if unknown
+    final long[] segmentValueCounts;
+    // ram usage
+    final long ramBytesUsed;
+    
+    OrdinalMap(IndexReader.CacheKey owner, IndexReader.CacheKey[] segmentKeys, long[] segmentValueCounts, SegmentMap segmentMap,
+        PackedLongValues globalOrdDeltas, PackedLongValues firstSegments, PackedLongValues[] ordDeltas, long[] ordDeltaBits,
+        float acceptableOverheadRatio, ExecutorService executor) throws IOException {
+      this.owner = owner;
+      this.segmentKeys = segmentKeys == null ? null : segmentKeys.clone();
+      this.segmentValueCounts = segmentKeys == null ? null : segmentValueCounts;
+      this.segmentMap = segmentMap;
+      this.firstSegments = firstSegments;
+      this.globalOrdDeltas = globalOrdDeltas;
+      // ordDeltas is typically the bottleneck, so let's see what we can do to make it faster
+      segmentToGlobalOrds = new LongValues[ordDeltas.length];
+      final long[] segmentRamBytesUsed = new long[ordDeltas.length];
+      final List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < ordDeltas.length; ++i) {
+        final int segment = i;
+        tasks.add(() -> {
+          final PackedLongValues deltas = ordDeltas[segment];
+          if (ordDeltaBits[segment] == 0L) {
+            // segment ords perfectly match global ordinals
+            // likely in case of low cardinalities and large segments
+            segmentToGlobalOrds[segment] = LongValues.IDENTITY;
+          } else {
+            final int bitsRequired = ordDeltaBits[segment] < 0 ? 64 : PackedInts.bitsRequired(ordDeltaBits[segment]);
+            final long monotonicBits = deltas.ramBytesUsed() * 8;
+            final long packedBits = bitsRequired * deltas.size();
+            if (deltas.size() <= Integer.MAX_VALUE
+                && packedBits <= monotonicBits * (1 + acceptableOverheadRatio)) {
+              // monotonic compression mostly adds overhead, let's keep the mapping in plain packed ints
+              final int size = (int) deltas.size();
+              final PackedInts.Mutable newDeltas = PackedInts.getMutable(size, bitsRequired, acceptableOverheadRatio);
+              final PackedLongValues.Iterator it = deltas.iterator();
+              for (int ord = 0; ord < size; ++ord) {
+                newDeltas.set(ord, it.next());
+              }
+              assert !it.hasNext();
+              segmentToGlobalOrds[segment] = new LongValues() {
+                @Override
+                public long get(long ord) {
+                  return ord + newDeltas.get((int) ord);
+                }
+              };
+              segmentRamBytesUsed[segment] = newDeltas.ramBytesUsed();
+            } else {
+              segmentToGlobalOrds[segment] = new LongValues() {
+                @Override
+                public long get(long ord) {
+                  return ord + deltas.get(ord);
+                }
+              };
+              segmentRamBytesUsed[segment] = deltas.ramBytesUsed();
+            }
+            segmentRamBytesUsed[segment] += RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds[segment]);
+          }
+          return null;
+        });
+      }
+      runTasks(tasks, executor);
+      long ramBytesUsed = BASE_RAM_BYTES_USED + this.globalOrdDeltas.ramBytesUsed()
+          + this.firstSegments.ramBytesUsed() + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
+          + segmentMap.ramBytesUsed();
+      for (long segmentRam : segmentRamBytesUsed) {
+        ramBytesUsed += segmentRam;
+      }
+      if (this.segmentKeys != null) {
+        ramBytesUsed += RamUsageEstimator.shallowSizeOf(this.segmentKeys) + RamUsageEstimator.sizeOf(this.segmentValueCounts);
       }
       this.ramBytesUsed = ramBytesUsed;
     }
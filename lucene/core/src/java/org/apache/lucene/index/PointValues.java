@@ -207,6 +207,28 @@ public abstract class PointValues {
      *  docID order. */
     void visit(int docID, byte[] packedValue) throws IOException;
 
+    /** Called for a run of documents in a leaf cell that's fully contained by the query,
+     *  for instance when the doc IDs of a leaf block are stored as a range or a bit set.
+     *  The consumer should blindly accept all docIDs of the iterator.  The default
+     *  implementation calls {@link #visit(int)} for every document. */
+    default void visit(DocIdSetIterator iterator) throws IOException {
+      int docID;
+      while ((docID = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        visit(docID);
+      }
+    }
+
+    /** Called for a run of documents in a leaf cell that crosses the query and that all
+     *  share the same packedValue, so that the consumer only needs to scrutinize it once.
+     *  The iterator must not be used once this method returns, as it may be reused.  The
+     *  default implementation calls {@link #visit(int, byte[])} for every document. */
+    default void visit(DocIdSetIterator iterator, byte[] packedValue) throws IOException {
+      int docID;
+      while ((docID = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        visit(docID, packedValue);
+      }
+    }
+
     /** Called for non-leaf cells to test how the cell relates to the query, to
      *  determine how to further recurse down the tree. */
     Relation compare(byte[] minPackedValue, byte[] maxPackedValue);
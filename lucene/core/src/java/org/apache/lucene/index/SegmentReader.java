@@ -30,6 +30,7 @@ import org.apache.lucene.codecs.NormsProducer;
 import org.apache.lucene.codecs.PointsReader;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.codecs.VectorReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.Bits;
@@ -240,6 +241,12 @@ public final class SegmentReader extends CodecReader {
     return core.pointsReader;
   }
 
+  @Override
+  public VectorReader getVectorReader() {
+    ensureOpen();
+    return core.vectorReader;
+  }
+
   @Override
   public NormsProducer getNormsReader() {
     ensureOpen();
@@ -26,6 +26,8 @@ import org.apache.lucene.codecs.NormsProducer;
 import org.apache.lucene.codecs.PointsReader;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Bits;
 
 /**
@@ -96,6 +98,11 @@ public final class SlowCodecReaderWrapper {
           return pointValuesToReader(reader);
         }
 
+        @Override
+        public VectorReader getVectorReader() {
+          return vectorValuesToReader(reader);
+        }
+
         @Override
         public Bits getLiveDocs() {
           return reader.getLiveDocs();
@@ -159,6 +166,36 @@ public final class SlowCodecReaderWrapper {
     };
   }
   
+  private static VectorReader vectorValuesToReader(LeafReader reader) {
+    return new VectorReader() {
+
+      @Override
+      public VectorValues getVectorValues(String field) throws IOException {
+        return reader.getVectorValues(field);
+      }
+
+      @Override
+      public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+        return reader.searchNearestVectors(field, target, k, acceptDocs, visitedLimit);
+      }
+
+      @Override
+      public void checkIntegrity() throws IOException {
+        // We already checkIntegrity the entire reader up front
+      }
+
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public long ramBytesUsed() {
+        return 0;
+      }
+
+    };
+  }
+
   private static NormsProducer readerToNormsProducer(final LeafReader reader) {
     return new NormsProducer() {
 
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * This reader filters out documents that have a doc values value in the given field and treat these
+ * documents as soft deleted. Hard deleted documents will also be filtered out in the live docs of this reader.
+ *
+ * @see IndexWriterConfig#setSoftDeletesField(String)
+ * @see IndexWriter#softUpdateDocument(Term, Iterable, org.apache.lucene.document.Field...)
+ * @see SoftDeletesRetentionMergePolicy
+ * @lucene.experimental
+ */
+public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryReader {
+  private final String field;
+  private final CacheHelper readerCacheHelper;
+
+  /**
+   * Creates a new soft deletes wrapper.
+   * @param in the incoming directory reader
+   * @param field the soft deletes field
+   */
+  public SoftDeletesDirectoryReaderWrapper(DirectoryReader in, String field) throws IOException {
+    super(in, new SoftDeletesSubReaderWrapper(field));
+    this.field = field;
+    readerCacheHelper = in.getReaderCacheHelper() == null ? null : new DelegatingCacheHelper(in.getReaderCacheHelper());
+  }
+
+  @Override
+  protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+    return new SoftDeletesDirectoryReaderWrapper(in, field);
+  }
+
+  @Override
+  public CacheHelper getReaderCacheHelper() {
+    return readerCacheHelper;
+  }
+
+  private static class SoftDeletesSubReaderWrapper extends SubReaderWrapper {
+    private final String field;
+
+    SoftDeletesSubReaderWrapper(String field) {
+      Objects.requireNonNull(field, "Field must not be null");
+      this.field = field;
+    }
+
+    @Override
+    public LeafReader wrap(LeafReader reader) {
+      try {
+        return SoftDeletesDirectoryReaderWrapper.wrap(reader, field);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  static LeafReader wrap(LeafReader reader, String field) throws IOException {
+    DocIdSetIterator iterator = getDocValuesDocIdSetIterator(field, reader);
+    if (iterator == null) {
+      return reader;
+    }
+    Bits liveDocs = reader.getLiveDocs();
+    final FixedBitSet bits;
+    if (liveDocs != null) {
+      bits = copyLiveDocs(liveDocs, reader.maxDoc());
+    } else {
+      bits = new FixedBitSet(reader.maxDoc());
+      bits.set(0, reader.maxDoc());
+    }
+    int numDeletes = reader.numDeletedDocs() + applySoftDeletes(iterator, bits);
+    int numDocs = reader.maxDoc() - numDeletes;
+    return new SoftDeletesFilterLeafReader(reader, bits, numDocs);
+  }
+
+  /**
+   * Clears all bits in the given bitset that are set and are also in the given DocIdSetIterator.
+   *
+   * @param iterator the doc ID set iterator for apply
+   * @param bits the bit set to apply the deletes to
+   * @return the number of bits changed by this function
+   */
+  static int applySoftDeletes(DocIdSetIterator iterator, FixedBitSet bits) throws IOException {
+    assert iterator != null;
+    int newDeletes = 0;
+    int docID;
+    while ((docID = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+      if (bits.get(docID)) { // doc is live - clear it
+        bits.clear(docID);
+        newDeletes++;
+      }
+    }
+    return newDeletes;
+  }
+
+  static FixedBitSet copyLiveDocs(Bits liveDocs, int maxDoc) {
+    assert liveDocs.length() == maxDoc;
+    final FixedBitSet bits;
+    if (liveDocs instanceof FixedBitSet) {
+      bits = ((FixedBitSet) liveDocs).clone();
+    } else {
+      bits = new FixedBitSet(maxDoc);
+      for (int i = 0; i < maxDoc; i++) {
+        if (liveDocs.get(i)) {
+          bits.set(i);
+        }
+      }
+    }
+    return bits;
+  }
+
+  /**
+   * Returns an iterator over all documents that have a doc values value for the given field,
+   * or <code>null</code> if the field doesn't exist or doesn't have doc values in this reader.
+   */
+  static DocIdSetIterator getDocValuesDocIdSetIterator(String field, LeafReader reader) throws IOException {
+    FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+    if (fieldInfo == null) {
+      return null;
+    }
+    switch (fieldInfo.getDocValuesType()) {
+      case NONE:
+        return null;
+      case NUMERIC:
+        return reader.getNumericDocValues(field);
+      case BINARY:
+        return reader.getBinaryDocValues(field);
+      case SORTED:
+        return reader.getSortedDocValues(field);
+      case SORTED_NUMERIC:
+        return reader.getSortedNumericDocValues(field);
+      case SORTED_SET:
+        return reader.getSortedSetDocValues(field);
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  private static final class SoftDeletesFilterLeafReader extends FilterLeafReader {
+    private final Bits liveDocs;
+    private final int numDocs;
+    private final CacheHelper readerCacheHelper;
+
+    private SoftDeletesFilterLeafReader(LeafReader in, Bits liveDocs, int numDocs) {
+      super(in);
+      this.liveDocs = liveDocs;
+      this.numDocs = numDocs;
+      readerCacheHelper = in.getReaderCacheHelper() == null ? null : new DelegatingCacheHelper(in.getReaderCacheHelper());
+    }
+
+    @Override
+    public Bits getLiveDocs() {
+      return liveDocs;
+    }
+
+    @Override
+    public int numDocs() {
+      return numDocs;
+    }
+
+    @Override
+    public CacheHelper getCoreCacheHelper() {
+      return in.getCoreCacheHelper();
+    }
+
+    @Override
+    public CacheHelper getReaderCacheHelper() {
+      return readerCacheHelper;
+    }
+  }
+
+  /**
+   * Exposes its own cache key, since this reader's live docs differ from the
+   * wrapped reader's, but is closed together with the wrapped reader.
+   */
+  private static final class DelegatingCacheHelper implements CacheHelper {
+    private final CacheHelper delegate;
+    private final CacheKey cacheKey = new CacheKey();
+
+    DelegatingCacheHelper(CacheHelper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public CacheKey getKey() {
+      return cacheKey;
+    }
+
+    @Override
+    public void addClosedListener(ClosedListener listener) {
+      // the wrapped reader's key is closed at the same time as ours
+      delegate.addClosedListener(unused -> listener.onClose(cacheKey));
+    }
+  }
+}
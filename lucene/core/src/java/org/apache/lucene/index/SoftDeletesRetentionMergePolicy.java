@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * This {@link MergePolicy} allows to carry over soft deleted documents across merges. The policy wraps
+ * the merge reader and marks documents as "live" that have a value in the soft delete field and match the
+ * provided query. This allows for instance to keep documents alive based on time or any other constraint in the index.
+ * The main purpose for this merge policy is to implement retention policies for document modification to vanish in the
+ * index. Using this merge policy allows to control when soft deletes are claimed by merges.
+ * Soft deleted documents that don't match the retention query, as well as hard deleted documents, are dropped
+ * by the merge as usual.
+ *
+ * <p><b>NOTE</b>: merge selection is still driven by hard deletes only, so segments are not
+ * picked for merging because they contain many soft deleted documents.
+ *
+ * @see IndexWriterConfig#setSoftDeletesField(String)
+ * @see SoftDeletesDirectoryReaderWrapper
+ * @lucene.experimental
+ */
+public final class SoftDeletesRetentionMergePolicy extends OneMergeWrappingMergePolicy {
+
+  /**
+   * Creates a new {@link SoftDeletesRetentionMergePolicy}
+   * @param field the soft deletes field
+   * @param retentionQuerySupplier a query supplier for the retention query
+   * @param in the wrapped MergePolicy
+   */
+  public SoftDeletesRetentionMergePolicy(String field, Supplier<Query> retentionQuerySupplier, MergePolicy in) {
+    super(in, toWrap -> new RetentionOneMerge(toWrap, field, retentionQuerySupplier));
+    Objects.requireNonNull(field, "field must not be null");
+    Objects.requireNonNull(retentionQuerySupplier, "retentionQuerySupplier must not be null");
+  }
+
+  private static final class RetentionOneMerge extends OneMerge {
+    private final OneMerge wrapped;
+    private final String field;
+    private final Supplier<Query> retentionQuerySupplier;
+
+    RetentionOneMerge(OneMerge wrapped, String field, Supplier<Query> retentionQuerySupplier) {
+      super(wrapped.segments);
+      this.wrapped = wrapped;
+      this.field = field;
+      this.retentionQuerySupplier = retentionQuerySupplier;
+    }
+
+    @Override
+    public CodecReader wrapForMerge(CodecReader reader) throws IOException {
+      CodecReader wrappedReader = wrapped.wrapForMerge(reader);
+      return applyRetentionQuery(field, retentionQuerySupplier.get(), wrappedReader);
+    }
+  }
+
+  // pkg private for testing
+  static CodecReader applyRetentionQuery(String softDeleteField, Query retentionQuery, CodecReader reader) throws IOException {
+    DocIdSetIterator softDeletes = SoftDeletesDirectoryReaderWrapper.getDocValuesDocIdSetIterator(softDeleteField, reader);
+    if (softDeletes == null) {
+      // no soft deletes in this segment, the merge will only drop hard deletes
+      return reader;
+    }
+    Bits liveDocs = reader.getLiveDocs();
+    final FixedBitSet bits;
+    if (liveDocs != null) {
+      bits = SoftDeletesDirectoryReaderWrapper.copyLiveDocs(liveDocs, reader.maxDoc());
+    } else {
+      bits = new FixedBitSet(reader.maxDoc());
+      bits.set(0, reader.maxDoc());
+    }
+    int numSoftDeletes = SoftDeletesDirectoryReaderWrapper.applySoftDeletes(softDeletes, bits);
+    if (numSoftDeletes == 0) {
+      return reader;
+    }
+
+    // now bring back all soft deleted documents that should be retained, unless they are hard deleted
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    Weight weight = searcher.createNormalizedWeight(retentionQuery, false);
+    Scorer scorer = weight.scorer(reader.getContext());
+    if (scorer != null) {
+      DocIdSetIterator retained = scorer.iterator();
+      int docID;
+      while ((docID = retained.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        if (bits.get(docID) == false && (liveDocs == null || liveDocs.get(docID))) {
+          bits.set(docID);
+          numSoftDeletes--;
+        }
+      }
+    }
+    final int numDocs = reader.numDocs() - numSoftDeletes;
+    return new FilterCodecReader(reader) {
+      @Override
+      public Bits getLiveDocs() {
+        return bits;
+      }
+
+      @Override
+      public int numDocs() {
+        return numDocs;
+      }
+
+      @Override
+      public CacheHelper getCoreCacheHelper() {
+        return in.getCoreCacheHelper();
+      }
+
+      @Override
+      public CacheHelper getReaderCacheHelper() {
+        // live docs differ from the wrapped reader's
+        return null;
+      }
+    };
+  }
+}
@@ -23,7 +23,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RAMFile;
@@ -297,6 +299,74 @@ class SortingLeafReader extends FilterLeafReader {
     }
   }
 
+  private final Map<String,CachedVectorValues> cachedVectorValues = new HashMap<>();
+
+  static class CachedVectorValues {
+    private final float[][] values;
+    private final BitSet docsWithField;
+    private final int size;
+
+    public CachedVectorValues(float[][] values, BitSet docsWithField, int size) {
+      this.values = values;
+      this.docsWithField = docsWithField;
+      this.size = size;
+    }
+  }
+
+  static class SortingVectorValues extends VectorValues {
+
+    private final CachedVectorValues vectors;
+    private final int dimension;
+    private final SimilarityFunction similarityFunction;
+    private int docID = -1;
+
+    public SortingVectorValues(CachedVectorValues vectors, int dimension, SimilarityFunction similarityFunction) {
+      this.vectors = vectors;
+      this.dimension = dimension;
+      this.similarityFunction = similarityFunction;
+    }
+
+    @Override
+    public int docID() {
+      return docID;
+    }
+
+    @Override
+    public int nextDoc() {
+      return advance(docID + 1);
+    }
+
+    @Override
+    public int advance(int target) {
+      if (target >= vectors.docsWithField.length()) {
+        docID = NO_MORE_DOCS;
+      } else {
+        docID = vectors.docsWithField.nextSetBit(target);
+      }
+      return docID;
+    }
+
+    @Override
+    public float[] vectorValue() {
+      return vectors.values[docID];
+    }
+
+    @Override
+    public int size() {
+      return vectors.size;
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public SimilarityFunction similarityFunction() {
+      return similarityFunction;
+    }
+  }
+
   private static class SortingPointValues extends PointValues {
 
     private final PointValues in;
@@ -1093,8 +1163,69 @@ class SortingLeafReader extends FilterLeafReader {
     }
   }
 
+  @Override
+  public VectorValues getVectorValues(String field) throws IOException {
+    final VectorValues oldVectorValues = in.getVectorValues(field);
+    if (oldVectorValues == null) return null;
+    CachedVectorValues vectors;
+    synchronized (cachedVectorValues) {
+      vectors = cachedVectorValues.get(field);
+      if (vectors == null) {
+        FixedBitSet docsWithField = new FixedBitSet(maxDoc());
+        float[][] values = new float[maxDoc()][];
+        int size = 0;
+        while (true) {
+          int docID = oldVectorValues.nextDoc();
+          if (docID == NO_MORE_DOCS) {
+            break;
+          }
+          int newDocID = docMap.oldToNew(docID);
+          docsWithField.set(newDocID);
+          values[newDocID] = oldVectorValues.vectorValue().clone();
+          size++;
+        }
+        vectors = new CachedVectorValues(values, docsWithField, size);
+        cachedVectorValues.put(field, vectors);
+      }
+    }
+    return new SortingVectorValues(vectors, oldVectorValues.dimension(), oldVectorValues.similarityFunction());
+  }
+
+  @Override
+  public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
+    final Bits oldAcceptDocs;
+    if (acceptDocs == null) {
+      oldAcceptDocs = null;
+    } else {
+      oldAcceptDocs = new Bits() {
+        @Override
+        public boolean get(int index) {
+          return acceptDocs.get(docMap.oldToNew(index));
+        }
+
+        @Override
+        public int length() {
+          return acceptDocs.length();
+        }
+      };
+    }
+    final TopDocs topDocs = in.searchNearestVectors(field, target, k, oldAcceptDocs, visitedLimit);
+    if (topDocs != null) {
+      for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+        scoreDoc.doc = docMap.oldToNew(scoreDoc.doc);
+      }
+    }
+    return topDocs;
+  }
+
   private final Map<String,CachedNumericDVs> cachedNorms = new HashMap<>();
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    // blocks of the wrapped reader don't map to ranges of sorted doc IDs
+    return null;
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     final NumericDocValues oldNorms = in.getNormValues(field);
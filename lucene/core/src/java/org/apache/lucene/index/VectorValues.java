@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Access to per-document fixed-dimension float vectors, as indexed with
+ * {@link org.apache.lucene.document.VectorField}. Documents are visited in
+ * increasing doc ID order and each document has at most one vector.
+ *
+ * @see LeafReader#getVectorValues(String)
+ * @see LeafReader#searchNearestVectors(String, float[], int, org.apache.lucene.util.Bits)
+ * @lucene.experimental
+ */
+public abstract class VectorValues extends DocIdSetIterator {
+
+  /** The maximum length of a vector */
+  public static final int MAX_DIMENSIONS = 1024;
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected VectorValues() {}
+
+  /** Return the dimension of the vectors */
+  public abstract int dimension();
+
+  /** Return the number of documents that have a vector. */
+  public abstract int size();
+
+  /** Return the function used to compare vectors of this field. */
+  public abstract SimilarityFunction similarityFunction();
+
+  /**
+   * Return the vector value for the current document ID.
+   * It is illegal to call this method when the iterator is not positioned:
+   * before advancing, or after failing to advance. The returned array may be
+   * shared across calls, re-used, and modified as the iterator advances.
+   */
+  public abstract float[] vectorValue() throws IOException;
+
+  @Override
+  public long cost() {
+    return size();
+  }
+
+  /**
+   * How vectors of a field are compared with each other, and with query vectors.
+   * Similarities are turned into scores where higher is more similar, so that
+   * nearest neighbors are the top-scoring documents.
+   */
+  public enum SimilarityFunction {
+
+    /** No similarity function is provided: the field does not index vectors. */
+    NONE {
+      @Override
+      public float compare(float[] v1, float[] v2) {
+        throw new UnsupportedOperationException("the field does not index vectors");
+      }
+    },
+
+    /** Euclidean distance. Scores are {@code 1 / (1 + squareDistance)}. */
+    EUCLIDEAN {
+      @Override
+      public float compare(float[] v1, float[] v2) {
+        return 1 / (1 + VectorUtil.squareDistance(v1, v2));
+      }
+    },
+
+    /**
+     * Dot product, which is equivalent to cosine similarity for unit-length
+     * vectors, but cheaper to compute. Vectors must be normalized to unit
+     * length. Scores are {@code (1 + dotProduct) / 2}.
+     */
+    DOT_PRODUCT {
+      @Override
+      public float compare(float[] v1, float[] v2) {
+        return Math.max((1 + VectorUtil.dotProduct(v1, v2)) / 2, 0);
+      }
+    },
+
+    /**
+     * Cosine similarity, for vectors that are not normalized. Prefer
+     * {@link #DOT_PRODUCT} and normalize vectors upfront when possible.
+     * Scores are {@code (1 + cosine) / 2}.
+     */
+    COSINE {
+      @Override
+      public float compare(float[] v1, float[] v2) {
+        return (1 + VectorUtil.cosine(v1, v2)) / 2;
+      }
+    };
+
+    /**
+     * Calculates a similarity score between the two vectors with this function.
+     * Scores are non-negative, and higher scores mean more similar vectors.
+     * @throws IllegalArgumentException if the vectors' dimensions differ.
+     */
+    public abstract float compare(float[] v1, float[] v2);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValues;
+import org.apache.lucene.util.hnsw.RandomAccessVectorValuesProducer;
+
+/** Buffers up pending vector value per doc, then flushes when segment flushes. */
+class VectorValuesWriter {
+  private final FieldInfo fieldInfo;
+  private final Counter iwBytesUsed;
+  private final List<float[]> vectors = new ArrayList<>();
+  private int[] docIDs;
+  private int lastDocID = -1;
+
+  public VectorValuesWriter(FieldInfo fieldInfo, Counter iwBytesUsed) {
+    this.fieldInfo = fieldInfo;
+    this.iwBytesUsed = iwBytesUsed;
+    docIDs = new int[16];
+    iwBytesUsed.addAndGet(16 * Integer.BYTES);
+  }
+
+  /**
+   * Adds a value for the given document. Only a single value may be added.
+   * @param docID the value is added to this document
+   * @param vectorValue the value to add
+   * @throws IllegalArgumentException if a value has already been added to the given document
+   */
+  public void addValue(int docID, float[] vectorValue) {
+    if (docID == lastDocID) {
+      throw new IllegalArgumentException("VectorField \"" + fieldInfo.name + "\" appears more than once in this document (only one value is allowed per field)");
+    }
+    if (vectorValue == null) {
+      throw new IllegalArgumentException("field=\"" + fieldInfo.name + "\": vector value must not be null");
+    }
+    if (vectorValue.length != fieldInfo.getVectorDimension()) {
+      throw new IllegalArgumentException("Attempt to index a vector of dimension " + vectorValue.length +
+          " but \"" + fieldInfo.name + "\" has dimension " + fieldInfo.getVectorDimension());
+    }
+    assert docID > lastDocID;
+    final int numVectors = vectors.size();
+    if (docIDs.length == numVectors) {
+      docIDs = ArrayUtil.grow(docIDs, numVectors + 1);
+      iwBytesUsed.addAndGet((docIDs.length - numVectors) * Integer.BYTES);
+    }
+    docIDs[numVectors] = docID;
+    // copy the value: the caller is free to reuse its array for the next document
+    final float[] copy = vectorValue.clone();
+    vectors.add(copy);
+    iwBytesUsed.addAndGet(RamUsageEstimator.sizeOf(copy) + RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+    lastDocID = docID;
+  }
+
+  /**
+   * Flush this field's values to storage, sorting the values in accordance with sortMap
+   * @param sortMap specifies the order of documents being flushed, or null if they are to be flushed in docid order
+   * @param vectorWriter the Codec's vector writer that handles the actual encoding and I/O
+   * @throws IOException if there is an error writing the field and its values
+   */
+  public void flush(Sorter.DocMap sortMap, VectorWriter vectorWriter) throws IOException {
+    final int numVectors = vectors.size();
+    final int[] docs;
+    final float[][] values;
+    if (sortMap == null) {
+      docs = Arrays.copyOf(docIDs, numVectors);
+      values = vectors.toArray(new float[numVectors][]);
+    } else {
+      // index the buffered values by their new doc ID, then read them back in new doc ID order
+      final float[][] valuesByNewDoc = new float[sortMap.size()][];
+      for (int i = 0; i < numVectors; i++) {
+        valuesByNewDoc[sortMap.oldToNew(docIDs[i])] = vectors.get(i);
+      }
+      docs = new int[numVectors];
+      values = new float[numVectors][];
+      int ord = 0;
+      for (int newDoc = 0; newDoc < valuesByNewDoc.length; newDoc++) {
+        if (valuesByNewDoc[newDoc] != null) {
+          docs[ord] = newDoc;
+          values[ord] = valuesByNewDoc[newDoc];
+          ord++;
+        }
+      }
+      assert ord == numVectors;
+    }
+    vectorWriter.writeField(fieldInfo, new BufferedVectorValues(docs, values,
+        fieldInfo.getVectorDimension(), fieldInfo.getVectorSimilarityFunction()));
+  }
+
+  /** Iterates over the buffered vectors, which are also accessible by ordinal so that the codec
+   *  may build search structures without copying them. */
+  private static class BufferedVectorValues extends VectorValues
+      implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    private final int[] docs;
+    private final float[][] values;
+    private final int dimension;
+    private final SimilarityFunction similarityFunction;
+    private int ord = -1;
+    private int docID = -1;
+
+    BufferedVectorValues(int[] docs, float[][] values, int dimension, SimilarityFunction similarityFunction) {
+      this.docs = docs;
+      this.values = values;
+      this.dimension = dimension;
+      this.similarityFunction = similarityFunction;
+    }
+
+    @Override
+    public int docID() {
+      return docID;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (++ord >= docs.length) {
+        docID = NO_MORE_DOCS;
+      } else {
+        docID = docs[ord];
+      }
+      return docID;
+    }
+
+    @Override
+    public int advance(int target) {
+      while (docID < target) {
+        nextDoc();
+      }
+      return docID;
+    }
+
+    @Override
+    public float[] vectorValue() {
+      return values[ord];
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) {
+      return values[targetOrd];
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public SimilarityFunction similarityFunction() {
+      return similarityFunction;
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return new BufferedVectorValues(docs, values, dimension, similarityFunction);
+    }
+
+    @Override
+    public RandomAccessVectorValues copy() {
+      return randomAccess();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.DocValuesSkipper;
+
+/**
+ * A {@link TwoPhaseIterator} that wraps another two-phase iterator over doc
+ * values and uses a {@link DocValuesSkipper} to skip blocks of documents whose
+ * values are all outside of {@code [lowerValue, upperValue]}. Documents of
+ * blocks whose values are all inside of the range are matched without calling
+ * the wrapped {@link TwoPhaseIterator#matches()}, and without even advancing
+ * the wrapped iterator if all documents of the block have a value.
+ * @lucene.experimental
+ */
+public final class DocValuesRangeIterator extends TwoPhaseIterator {
+
+  private enum Match {
+    /** None of the documents of the block match. */
+    NO,
+    /** Documents of the block need to be checked one by one. */
+    MAYBE,
+    /** All documents of the block that have a value match. */
+    IF_DOC_HAS_VALUE,
+    /** All documents of the block match. */
+    YES
+  }
+
+  private final Approximation approximation;
+  private final TwoPhaseIterator innerTwoPhase;
+
+  /**
+   * Sole constructor.
+   * @param innerTwoPhase the iterator over documents whose values are in the range
+   * @param skipper the skipper over the values that {@code innerTwoPhase} checks
+   * @param lowerValue the lower bound of the range, inclusive
+   * @param upperValue the upper bound of the range, inclusive
+   * @param queryRangeHasGaps whether some values within {@code [lowerValue, upperValue]} don't
+   *        match, in which case blocks whose values are all in the range still need to be
+   *        checked document by document
+   */
+  public DocValuesRangeIterator(TwoPhaseIterator innerTwoPhase, DocValuesSkipper skipper,
+      long lowerValue, long upperValue, boolean queryRangeHasGaps) {
+    this(new Approximation(innerTwoPhase.approximation(), skipper, lowerValue, upperValue, queryRangeHasGaps), innerTwoPhase);
+  }
+
+  private DocValuesRangeIterator(Approximation approximation, TwoPhaseIterator innerTwoPhase) {
+    super(approximation);
+    this.approximation = approximation;
+    this.innerTwoPhase = innerTwoPhase;
+  }
+
+  private static class Approximation extends DocIdSetIterator {
+
+    private final DocIdSetIterator innerApproximation;
+    private final DocValuesSkipper skipper;
+    private final long lowerValue;
+    private final long upperValue;
+    private final boolean queryRangeHasGaps;
+
+    private int doc = -1;
+    // last doc ID of the block that match applies to
+    private int upTo = -1;
+    private Match match = Match.MAYBE;
+
+    Approximation(DocIdSetIterator innerApproximation, DocValuesSkipper skipper,
+        long lowerValue, long upperValue, boolean queryRangeHasGaps) {
+      this.innerApproximation = innerApproximation;
+      this.skipper = skipper;
+      this.lowerValue = lowerValue;
+      this.upperValue = upperValue;
+      this.queryRangeHasGaps = queryRangeHasGaps;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      while (true) {
+        if (target > upTo) {
+          skipper.advance(target);
+          if (skipper.minDocID() == NO_MORE_DOCS) {
+            return doc = NO_MORE_DOCS;
+          }
+          target = Math.max(target, skipper.minDocID());
+          upTo = skipper.maxDocID();
+          match = match();
+        }
+        switch (match) {
+          case YES:
+            return doc = target;
+          case MAYBE:
+          case IF_DOC_HAS_VALUE:
+            // the inner approximation may already be ahead if it was not used on previous blocks
+            final int next = innerApproximation.docID() >= target
+                ? innerApproximation.docID()
+                : innerApproximation.advance(target);
+            if (next <= upTo) {
+              return doc = next;
+            } else if (next == NO_MORE_DOCS) {
+              return doc = NO_MORE_DOCS;
+            }
+            target = next;
+            break;
+          case NO:
+            target = upTo + 1;
+            break;
+          default:
+            throw new AssertionError("Unknown match: " + match);
+        }
+      }
+    }
+
+    private Match match() {
+      final long minValue = skipper.minValue();
+      final long maxValue = skipper.maxValue();
+      if (minValue > upperValue || maxValue < lowerValue) {
+        return Match.NO;
+      } else if (minValue >= lowerValue && maxValue <= upperValue && queryRangeHasGaps == false) {
+        if (skipper.docCount() == skipper.maxDocID() - skipper.minDocID() + 1) {
+          return Match.YES;
+        } else {
+          return Match.IF_DOC_HAS_VALUE;
+        }
+      } else {
+        return Match.MAYBE;
+      }
+    }
+
+    @Override
+    public long cost() {
+      return innerApproximation.cost();
+    }
+  }
+
+  @Override
+  public boolean matches() throws IOException {
+    switch (approximation.match) {
+      case YES:
+      case IF_DOC_HAS_VALUE:
+        return true;
+      case MAYBE:
+        return innerTwoPhase.matches();
+      case NO:
+      default:
+        throw new AssertionError("Unexpected match: " + approximation.match);
+    }
+  }
+
+  @Override
+  public float matchCost() {
+    return innerTwoPhase.matchCost();
+  }
+}
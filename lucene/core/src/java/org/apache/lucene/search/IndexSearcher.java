@@ -141,6 +141,7 @@ public class IndexSearcher {
 
   private QueryCache queryCache = DEFAULT_QUERY_CACHE;
   private QueryCachingPolicy queryCachingPolicy = DEFAULT_CACHING_POLICY;
+  private MemoryAccountant memoryAccountant;
 
   /**
    * Expert: returns a default Similarity instance.
@@ -290,6 +291,28 @@ public class IndexSearcher {
     return queryCachingPolicy;
   }
 
+  /**
+   * Set the {@link MemoryAccountant} that is notified of the memory that is
+   * allocated by collectors and queries while searching. A value of
+   * {@code null}, the default, disables accounting. This method should be
+   * called <b>before</b> starting using this {@link IndexSearcher}.
+   * @see MemoryBudget
+   * @lucene.experimental
+   */
+  public void setMemoryAccountant(MemoryAccountant memoryAccountant) {
+    this.memoryAccountant = memoryAccountant;
+  }
+
+  /**
+   * Return the {@link MemoryAccountant} that was last set through
+   * {@link #setMemoryAccountant(MemoryAccountant)}, or {@code null} if memory
+   * is not accounted.
+   * @lucene.experimental
+   */
+  public MemoryAccountant getMemoryAccountant() {
+    return memoryAccountant;
+  }
+
   /**
    * Expert: Creates an array of leaf slices each holding a subset of the given leaves.
    * Each {@link LeafSlice} is executed in a single thread. By default there
@@ -421,6 +444,9 @@ public class IndexSearcher {
 
       @Override
       public TopScoreDocCollector newCollector() throws IOException {
+        if (memoryAccountant != null) {
+          memoryAccountant.addBytes(TopScoreDocCollector.estimateRamBytesUsed(cappedNumHits));
+        }
         return TopScoreDocCollector.create(cappedNumHits, after);
       }
 
@@ -548,6 +574,9 @@ public class IndexSearcher {
       @Override
       public TopFieldCollector newCollector() throws IOException {
         final boolean fillFields = true;
+        if (memoryAccountant != null) {
+          memoryAccountant.addBytes(TopFieldCollector.estimateRamBytesUsed(sort, cappedNumHits));
+        }
         return TopFieldCollector.create(sort, cappedNumHits, after, fillFields, doDocScores, doMaxScore);
       }
 
@@ -610,6 +639,10 @@ public class IndexSearcher {
         } catch (InterruptedException e) {
           throw new ThreadInterruptedException(e);
         } catch (ExecutionException e) {
+          if (e.getCause() instanceof MemoryBudgetExceededException) {
+            // callers catch this one by type, as if the search ran on the calling thread
+            throw (MemoryBudgetExceededException) e.getCause();
+          }
           throw new RuntimeException(e);
         }
       }
@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * Uses {@link LeafReader#searchNearestVectors} to find the k nearest neighbors of a target vector
+ * in a vector field, as determined by the field's similarity function. The search is approximate:
+ * it walks the HNSW graph of each segment, so it may miss some of the true nearest neighbors.
+ * <p>
+ * An optional filter restricts the documents that may be returned. It is applied while the graph
+ * is searched, rather than to the top hits, so that k documents are still returned when the filter
+ * is selective. When a segment has no more than k documents matching the filter, their vectors are
+ * compared with the target directly, which is both exact and cheaper than searching the graph.
+ * Otherwise the graph search may visit at most as many vectors as there are matching documents;
+ * if it reaches that limit, it gives up and the matching documents are compared directly instead.
+ * <p>
+ * The query is executed entirely in {@link #rewrite}, which returns a query matching the top k
+ * documents with their similarity scores; it may therefore only be run against the reader it was
+ * rewritten with.
+ *
+ * @lucene.experimental
+ */
+public class KnnVectorQuery extends Query {
+
+  private final String field;
+  private final float[] target;
+  private final int k;
+  private final Query filter;
+
+  /**
+   * Find the <code>k</code> nearest documents to the target vector according to the vectors in the
+   * given field.
+   *
+   * @param field a field that has been indexed as a {@link org.apache.lucene.document.VectorField}.
+   * @param target the target of the search
+   * @param k the number of documents to find
+   * @throws IllegalArgumentException if <code>k</code> is less than 1
+   */
+  public KnnVectorQuery(String field, float[] target, int k) {
+    this(field, target, k, null);
+  }
+
+  /**
+   * Find the <code>k</code> nearest documents to the target vector according to the vectors in the
+   * given field, among the documents that match the given filter.
+   *
+   * @param field a field that has been indexed as a {@link org.apache.lucene.document.VectorField}.
+   * @param target the target of the search
+   * @param k the number of documents to find
+   * @param filter a filter applied before the vector search, or null to consider all documents
+   * @throws IllegalArgumentException if <code>k</code> is less than 1
+   */
+  public KnnVectorQuery(String field, float[] target, int k, Query filter) {
+    this.field = Objects.requireNonNull(field, "field");
+    this.target = Objects.requireNonNull(target, "target");
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be at least 1, got: " + k);
+    }
+    this.k = k;
+    this.filter = filter;
+  }
+
+  /** Returns the vector field that is searched. */
+  public String getField() {
+    return field;
+  }
+
+  /** Returns the number of documents to find. */
+  public int getK() {
+    return k;
+  }
+
+  /** Returns the filter, or null if all documents are considered. */
+  public Query getFilter() {
+    return filter;
+  }
+
+  @Override
+  public Query rewrite(IndexReader reader) throws IOException {
+    Weight filterWeight = null;
+    if (filter != null) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      searcher.setQueryCache(null);
+      filterWeight = searcher.createNormalizedWeight(filter, false);
+    }
+
+    TopDocs[] perLeafResults = new TopDocs[reader.leaves().size()];
+    for (LeafReaderContext ctx : reader.leaves()) {
+      perLeafResults[ctx.ord] = searchLeaf(ctx, filterWeight);
+    }
+    // Merge sort the results
+    TopDocs topK = TopDocs.merge(k, perLeafResults);
+    if (topK.scoreDocs.length == 0) {
+      return new MatchNoDocsQuery();
+    }
+    return createRewrittenQuery(reader, topK);
+  }
+
+  private TopDocs searchLeaf(LeafReaderContext ctx, Weight filterWeight) throws IOException {
+    final LeafReader reader = ctx.reader();
+    final FieldInfo fi = reader.getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getVectorDimension() == 0) {
+      // The field does not exist or does not index vectors
+      return emptyTopDocs();
+    }
+    if (fi.getVectorDimension() != target.length) {
+      throw new IllegalArgumentException("vector dimensions differ: field \"" + field + "\" has dimension "
+          + fi.getVectorDimension() + " but the target has dimension " + target.length);
+    }
+
+    final TopDocs results;
+    if (filterWeight == null) {
+      results = approximateSearch(reader, reader.getLiveDocs(), Integer.MAX_VALUE);
+    } else {
+      Scorer scorer = filterWeight.scorer(ctx);
+      if (scorer == null) {
+        return emptyTopDocs();
+      }
+      final FixedBitSet acceptDocs = createBitSet(scorer.iterator(), reader.getLiveDocs(), reader.maxDoc());
+      final int cost = acceptDocs.cardinality();
+      if (cost <= k) {
+        // Few enough documents match the filter to just compare them all with the target
+        results = exactSearch(reader, acceptDocs, fi.getVectorSimilarityFunction());
+      } else {
+        // Searching the graph is not worth it if it compares more vectors than there are matching docs
+        TopDocs approximateResults = approximateSearch(reader, acceptDocs, cost);
+        if (approximateResults.totalHits >= cost) {
+          results = exactSearch(reader, acceptDocs, fi.getVectorSimilarityFunction());
+        } else {
+          results = approximateResults;
+        }
+      }
+    }
+
+    if (ctx.docBase > 0) {
+      for (ScoreDoc scoreDoc : results.scoreDocs) {
+        scoreDoc.doc += ctx.docBase;
+      }
+    }
+    return results;
+  }
+
+  private static FixedBitSet createBitSet(DocIdSetIterator iterator, Bits liveDocs, int maxDoc) throws IOException {
+    FixedBitSet bitSet = new FixedBitSet(maxDoc);
+    for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+      if (liveDocs == null || liveDocs.get(doc)) {
+        bitSet.set(doc);
+      }
+    }
+    return bitSet;
+  }
+
+  private TopDocs approximateSearch(LeafReader reader, Bits acceptDocs, int visitedLimit) throws IOException {
+    TopDocs results = reader.searchNearestVectors(field, target, k, acceptDocs, visitedLimit);
+    return results == null ? emptyTopDocs() : results;
+  }
+
+  private TopDocs exactSearch(LeafReader reader, FixedBitSet acceptDocs, VectorValues.SimilarityFunction similarityFunction) throws IOException {
+    VectorValues vectorValues = reader.getVectorValues(field);
+    if (vectorValues == null) {
+      return emptyTopDocs();
+    }
+    HitQueue queue = new HitQueue(k, false);
+    int visited = 0;
+    DocIdSetIterator acceptIterator = new BitSetIterator(acceptDocs, acceptDocs.cardinality());
+    for (int doc = acceptIterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = acceptIterator.nextDoc()) {
+      if (vectorValues.docID() < doc) {
+        vectorValues.advance(doc);
+      }
+      if (vectorValues.docID() == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+      if (vectorValues.docID() != doc) {
+        continue;
+      }
+      visited++;
+      float score = similarityFunction.compare(target, vectorValues.vectorValue());
+      queue.insertWithOverflow(new ScoreDoc(doc, score));
+    }
+
+    ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+    for (int i = scoreDocs.length - 1; i >= 0; i--) {
+      scoreDocs[i] = queue.pop();
+    }
+    return new TopDocs(visited, scoreDocs, scoreDocs.length == 0 ? Float.NaN : scoreDocs[0].score);
+  }
+
+  private static TopDocs emptyTopDocs() {
+    return new TopDocs(0, new ScoreDoc[0], Float.NaN);
+  }
+
+  private Query createRewrittenQuery(IndexReader reader, TopDocs topK) {
+    int len = topK.scoreDocs.length;
+    Arrays.sort(topK.scoreDocs, (a, b) -> Integer.compare(a.doc, b.doc));
+    int[] docs = new int[len];
+    float[] scores = new float[len];
+    for (int i = 0; i < len; i++) {
+      docs[i] = topK.scoreDocs[i].doc;
+      scores[i] = topK.scoreDocs[i].score;
+    }
+    int[] segmentStarts = findSegmentStarts(reader, docs);
+    return new DocAndScoreQuery(k, docs, scores, segmentStarts, reader.getContext().id());
+  }
+
+  /** Returns, for each leaf and one past the last leaf, the index of the first doc that is in that leaf or after it */
+  private static int[] findSegmentStarts(IndexReader reader, int[] docs) {
+    int[] starts = new int[reader.leaves().size() + 1];
+    starts[starts.length - 1] = docs.length;
+    if (starts.length == 2) {
+      return starts;
+    }
+    int resultIndex = 0;
+    for (int i = 1; i < starts.length - 1; i++) {
+      int upper = reader.leaves().get(i).docBase;
+      resultIndex = Arrays.binarySearch(docs, resultIndex, docs.length, upper);
+      if (resultIndex < 0) {
+        resultIndex = -1 - resultIndex;
+      }
+      starts[i] = resultIndex;
+    }
+    return starts;
+  }
+
+  @Override
+  public String toString(String field) {
+    StringBuilder buffer = new StringBuilder();
+    buffer.append(getClass().getSimpleName());
+    buffer.append(":");
+    buffer.append(this.field);
+    buffer.append("[");
+    buffer.append(target[0]);
+    buffer.append(",...][");
+    buffer.append(k);
+    buffer.append("]");
+    if (filter != null) {
+      buffer.append("[");
+      buffer.append(filter.toString(field));
+      buffer.append("]");
+    }
+    return buffer.toString();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return sameClassAs(other) &&
+           equalsTo(getClass().cast(other));
+  }
+
+  private boolean equalsTo(KnnVectorQuery other) {
+    return k == other.k &&
+           field.equals(other.field) &&
+           Arrays.equals(target, other.target) &&
+           Objects.equals(filter, other.filter);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = classHash();
+    h = 31 * h + field.hashCode();
+    h = 31 * h + Arrays.hashCode(target);
+    h = 31 * h + k;
+    h = 31 * h + Objects.hashCode(filter);
+    return h;
+  }
+
+  /** Caches the results of a KnnVector search: a list of docs and their scores */
+  static class DocAndScoreQuery extends Query {
+
+    private final int k;
+    private final int[] docs;
+    private final float[] scores;
+    private final int[] segmentStarts;
+    private final Object contextIdentity;
+
+    /**
+     * Constructor
+     *
+     * @param k the number of documents requested
+     * @param docs the global docids of documents that match, in ascending order
+     * @param scores the scores of the matching documents
+     * @param segmentStarts the indexes in docs and scores corresponding to the first matching
+     *     document in each segment. If a segment has no matching documents, it should be assigned
+     *     the index of the next segment that does. There should be a final entry that is always
+     *     docs.length.
+     * @param contextIdentity an object identifying the reader context that was used to build this
+     *     query
+     */
+    DocAndScoreQuery(int k, int[] docs, float[] scores, int[] segmentStarts, Object contextIdentity) {
+      this.k = k;
+      this.docs = docs;
+      this.scores = scores;
+      this.segmentStarts = segmentStarts;
+      this.contextIdentity = contextIdentity;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+      if (searcher.getIndexReader().getContext().id() != contextIdentity) {
+        throw new IllegalStateException("This DocAndScore query was created by a different reader");
+      }
+      return new Weight(this) {
+        @Override
+        public void extractTerms(Set<Term> terms) {
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) {
+          int found = Arrays.binarySearch(docs, doc + context.docBase);
+          if (found < 0) {
+            return Explanation.noMatch("not in top " + k);
+          }
+          return Explanation.match(scores[found] * boost, "within top " + k);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) {
+          if (segmentStarts[context.ord] == segmentStarts[context.ord + 1]) {
+            return null;
+          }
+          return new Scorer(this) {
+            final int lower = segmentStarts[context.ord];
+            final int upper = segmentStarts[context.ord + 1];
+            int upTo = -1;
+
+            @Override
+            public DocIdSetIterator iterator() {
+              return new DocIdSetIterator() {
+                @Override
+                public int docID() {
+                  return docIdNoShadow();
+                }
+
+                @Override
+                public int nextDoc() {
+                  if (upTo == -1) {
+                    upTo = lower;
+                  } else {
+                    ++upTo;
+                  }
+                  return docIdNoShadow();
+                }
+
+                @Override
+                public int advance(int target) throws IOException {
+                  return slowAdvance(target);
+                }
+
+                @Override
+                public long cost() {
+                  return upper - lower;
+                }
+              };
+            }
+
+            @Override
+            public float score() {
+              return scores[upTo] * boost;
+            }
+
+            @Override
+            public int freq() {
+              return 1;
+            }
+
+            @Override
+            public int docID() {
+              return docIdNoShadow();
+            }
+
+            private int docIdNoShadow() {
+              if (upTo == -1) {
+                return -1;
+              }
+              if (upTo >= upper) {
+                return DocIdSetIterator.NO_MORE_DOCS;
+              }
+              return docs[upTo] - context.docBase;
+            }
+          };
+        }
+      };
+    }
+
+    @Override
+    public String toString(String field) {
+      return "DocAndScore[" + k + "]";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (sameClassAs(obj) == false) {
+        return false;
+      }
+      DocAndScoreQuery other = (DocAndScoreQuery) obj;
+      return contextIdentity == other.contextIdentity &&
+             Arrays.equals(docs, other.docs) &&
+             Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(classHash(), contextIdentity, Arrays.hashCode(docs), Arrays.hashCode(scores));
+    }
+  }
+}
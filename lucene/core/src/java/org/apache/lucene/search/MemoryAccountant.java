@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+/**
+ * Tracks the memory that queries allocate for their own data-structures,
+ * such as the doc ID sets of multi-term queries or the priority queues of
+ * top-docs collectors, and may refuse allocations that would exceed a budget.
+ * <p>
+ * The accountant of an {@link IndexSearcher} is shared by all queries that it
+ * runs, see {@link IndexSearcher#setMemoryAccountant(MemoryAccountant)}. To
+ * enforce a budget per query, either create a new {@link IndexSearcher},
+ * which is cheap, with its own {@link MemoryBudget} for every query, or use an
+ * accountant that looks up the budget of the current request, for instance
+ * with a thread-local.
+ *
+ * @see MemoryBudget
+ * @lucene.experimental
+ */
+public interface MemoryAccountant {
+
+  /**
+   * Record that {@code bytes} bytes are about to be allocated for the current
+   * query. This should be called before allocating so that an allocation that
+   * would not fit does not happen at all.
+   * @throws MemoryBudgetExceededException if the allocation would exceed the budget of the query
+   */
+  void addBytes(long bytes);
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link MemoryAccountant} that allows a fixed number of bytes to be
+ * allocated, and then throws {@link MemoryBudgetExceededException}s.
+ * Instances are thread-safe so that a single budget may be used by a query
+ * that runs on several threads, see
+ * {@link IndexSearcher#IndexSearcher(org.apache.lucene.index.IndexReader, java.util.concurrent.ExecutorService)}.
+ * <p>
+ * Memory is never given back to the budget: it tracks the total amount of
+ * memory that a query allocates rather than its live memory, which is
+ * simpler to track and also bounds the garbage that a single query creates.
+ *
+ * @lucene.experimental
+ */
+public class MemoryBudget implements MemoryAccountant {
+
+  private final long maxBytes;
+  private final AtomicLong usedBytes = new AtomicLong();
+
+  /** Create a budget of {@code maxBytes} bytes. */
+  public MemoryBudget(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes must be >= 0, got " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public void addBytes(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("bytes must be >= 0, got " + bytes);
+    }
+    final long used = usedBytes.addAndGet(bytes);
+    if (used > maxBytes) {
+      // give the bytes back since they won't be allocated
+      usedBytes.addAndGet(-bytes);
+      throw new MemoryBudgetExceededException(maxBytes, used);
+    }
+  }
+
+  /** Return the maximum number of bytes that may be allocated. */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /** Return the number of bytes that have been allocated so far. */
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  @Override
+  public String toString() {
+    return "MemoryBudget(used=" + getUsedBytes() + ",max=" + maxBytes + ")";
+  }
+}
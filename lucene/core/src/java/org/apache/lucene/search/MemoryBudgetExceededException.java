@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+/** Thrown by a {@link MemoryAccountant} when a query tries to allocate
+ *  more memory than its budget allows. The query can't complete, so unlike
+ *  {@link CollectionTerminatedException} this exception is not swallowed
+ *  by {@link IndexSearcher}.
+ *  @lucene.experimental */
+@SuppressWarnings("serial")
+public final class MemoryBudgetExceededException extends RuntimeException {
+
+  private final long budgetBytes;
+  private final long requestedBytes;
+
+  /** Sole constructor. */
+  public MemoryBudgetExceededException(long budgetBytes, long requestedBytes) {
+    super("Query would use " + requestedBytes + " bytes of memory, which exceeds its budget of " + budgetBytes + " bytes");
+    this.budgetBytes = budgetBytes;
+    this.requestedBytes = requestedBytes;
+  }
+
+  /** Return the budget of the query, in bytes. */
+  public long getBudgetBytes() {
+    return budgetBytes;
+  }
+
+  /** Return the number of bytes that the query would have used if the allocation had succeeded. */
+  public long getRequestedBytes() {
+    return requestedBytes;
+  }
+
+}
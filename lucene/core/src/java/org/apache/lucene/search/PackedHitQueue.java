@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A replacement for {@link HitQueue} that stores every hit as a single long
+ * instead of a {@link ScoreDoc}. The upper 32 bits of a hit are the sortable bits of its
+ * score and the lower 32 bits are {@code Integer.MAX_VALUE - doc}, so that
+ * comparing two hits is a single comparison of longs and hits sort by score
+ * ascending, then by doc descending, like in {@link HitQueue}.
+ * <p>
+ * The queue is always pre-populated with sentinel hits that have a score of
+ * {@link Float#NEGATIVE_INFINITY} and a doc of {@link Integer#MAX_VALUE}.
+ */
+final class PackedHitQueue implements Accountable {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PackedHitQueue.class);
+
+  /** The encoded sentinel hit. */
+  static final long SENTINEL = encode(Integer.MAX_VALUE, Float.NEGATIVE_INFINITY);
+
+  private final long[] heap;
+  private int size;
+
+  /** Creates a queue of {@code size} sentinel hits. */
+  PackedHitQueue(int size) {
+    if (size >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("size must be < Integer.MAX_VALUE; got: " + size);
+    }
+    // 1-based, like PriorityQueue
+    heap = new long[size + 1];
+    Arrays.fill(heap, 1, heap.length, SENTINEL);
+    this.size = size;
+  }
+
+  /** Encodes a hit. Hits that compare greater are better hits. */
+  static long encode(int doc, float score) {
+    assert doc >= 0;
+    assert Float.isNaN(score) == false;
+    // -0 and 0 must be equal so that ties are broken by doc
+    final int sortableScore = NumericUtils.floatToSortableInt(score == 0f ? 0f : score);
+    return ((long) sortableScore << 32) | (Integer.MAX_VALUE - doc);
+  }
+
+  /** Returns the doc of an encoded hit. */
+  static int decodeDoc(long hit) {
+    return Integer.MAX_VALUE - (int) hit;
+  }
+
+  /** Returns the score of an encoded hit. */
+  static float decodeScore(long hit) {
+    return NumericUtils.sortableIntToFloat((int) (hit >> 32));
+  }
+
+  /** Returns the least hit of the queue. */
+  long top() {
+    return heap[1];
+  }
+
+  /** Replaces the least hit of the queue and returns the new least hit. */
+  long updateTop(long newTop) {
+    heap[1] = newTop;
+    downHeap();
+    return heap[1];
+  }
+
+  /** Removes and returns the least hit of the queue. */
+  long pop() {
+    assert size > 0;
+    final long result = heap[1];
+    heap[1] = heap[size];
+    size--;
+    downHeap();
+    return result;
+  }
+
+  /** Returns the number of hits in the queue, including sentinels. */
+  int size() {
+    return size;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(heap);
+  }
+
+  /** Returns the memory that a queue of {@code size} hits uses, before creating it. */
+  static long ramBytesUsed(int size) {
+    return BASE_RAM_BYTES_USED
+        + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (size + 1L) * Long.BYTES);
+  }
+
+  private void downHeap() {
+    int i = 1;
+    final long node = heap[i];  // save top node
+    int j = i << 1;             // find smaller child
+    int k = j + 1;
+    if (k <= size && heap[k] < heap[j]) {
+      j = k;
+    }
+    while (j <= size && heap[j] < node) {
+      heap[i] = heap[j];        // shift up child
+      i = j;
+      j = i << 1;
+      k = j + 1;
+      if (k <= size && heap[k] < heap[j]) {
+        j = k;
+      }
+    }
+    heap[i] = node;             // install saved node
+  }
+}
@@ -106,6 +106,21 @@ public abstract class PointRangeQuery extends Query {
 
     return new ConstantScoreWeight(this, boost) {
 
+      private boolean matches(byte[] packedValue) {
+        for(int dim=0;dim<numDims;dim++) {
+          int offset = dim*bytesPerDim;
+          if (StringHelper.compare(bytesPerDim, packedValue, offset, lowerPoint, offset) < 0) {
+            // Doc's value is too low, in this dimension
+            return false;
+          }
+          if (StringHelper.compare(bytesPerDim, packedValue, offset, upperPoint, offset) > 0) {
+            // Doc's value is too high, in this dimension
+            return false;
+          }
+        }
+        return true;
+      }
+
       private IntersectVisitor getIntersectVisitor(DocIdSetBuilder result) {
         return new IntersectVisitor() {
 
@@ -121,22 +136,28 @@ public abstract class PointRangeQuery extends Query {
             adder.add(docID);
           }
 
+          @Override
+          public void visit(DocIdSetIterator iterator) throws IOException {
+            int docID;
+            while ((docID = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+              adder.add(docID);
+            }
+          }
+
           @Override
           public void visit(int docID, byte[] packedValue) {
-            for(int dim=0;dim<numDims;dim++) {
-              int offset = dim*bytesPerDim;
-              if (StringHelper.compare(bytesPerDim, packedValue, offset, lowerPoint, offset) < 0) {
-                // Doc's value is too low, in this dimension
-                return;
-              }
-              if (StringHelper.compare(bytesPerDim, packedValue, offset, upperPoint, offset) > 0) {
-                // Doc's value is too high, in this dimension
-                return;
-              }
+            if (matches(packedValue)) {
+              // Doc is in-bounds
+              adder.add(docID);
             }
+          }
 
-            // Doc is in-bounds
-            adder.add(docID);
+          @Override
+          public void visit(DocIdSetIterator iterator, byte[] packedValue) throws IOException {
+            // All docs of the iterator share the same value, so we only need to check it once
+            if (matches(packedValue)) {
+              visit(iterator);
+            }
           }
 
           @Override
@@ -179,19 +200,18 @@ public abstract class PointRangeQuery extends Query {
 
           @Override
           public void visit(int docID, byte[] packedValue) {
-            for(int dim=0;dim<numDims;dim++) {
-              int offset = dim*bytesPerDim;
-              if (StringHelper.compare(bytesPerDim, packedValue, offset, lowerPoint, offset) < 0) {
-                // Doc's value is too low, in this dimension
-                result.clear(docID);
-                cost[0]--;
-                return;
-              }
-              if (StringHelper.compare(bytesPerDim, packedValue, offset, upperPoint, offset) > 0) {
-                // Doc's value is too high, in this dimension
-                result.clear(docID);
-                cost[0]--;
-                return;
+            if (matches(packedValue) == false) {
+              result.clear(docID);
+              cost[0]--;
+            }
+          }
+
+          @Override
+          public void visit(DocIdSetIterator iterator, byte[] packedValue) throws IOException {
+            if (matches(packedValue) == false) {
+              int docID;
+              while ((docID = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                visit(docID);
               }
             }
           }
@@ -275,7 +295,7 @@ public abstract class PointRangeQuery extends Query {
         } else {
           return new ScorerSupplier() {
 
-            final DocIdSetBuilder result = new DocIdSetBuilder(reader.maxDoc(), values, field);
+            final DocIdSetBuilder result = new DocIdSetBuilder(reader.maxDoc(), values, field, searcher.getMemoryAccountant());
             final IntersectVisitor visitor = getIntersectVisitor(result);
             long cost = -1;
 
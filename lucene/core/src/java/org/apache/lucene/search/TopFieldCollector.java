@@ -21,7 +21,10 @@ import java.io.IOException;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.RamUsageEstimator;
 
 /**
  * A {@link Collector} that sorts by {@link SortField} using
@@ -32,7 +35,7 @@ import org.apache.lucene.util.PriorityQueue;
  *
  * @lucene.experimental
  */
-public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
+public abstract class TopFieldCollector extends TopDocsCollector<Entry> implements Accountable {
 
   // TODO: one optimization we could do is to pre-fill
   // the queue with sentinel value that guaranteed to
@@ -289,6 +292,62 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     return needsScores;
   }
 
+  private static final long ENTRY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Entry.class);
+
+  /**
+   * Returns an estimate of the memory that this collector uses once its
+   * queue is full: comparators allocate their slots up-front, but entries of
+   * the queue are only allocated as hits are collected.
+   */
+  @Override
+  public long ramBytesUsed() {
+    return RamUsageEstimator.shallowSizeOf(this) + hitsRamBytesUsed(((FieldValueHitQueue<Entry>) pq).fields, numHits);
+  }
+
+  private static final long MAX_SHALLOW_RAM_BYTES_USED = Math.max(
+      RamUsageEstimator.shallowSizeOfInstance(SimpleFieldCollector.class),
+      RamUsageEstimator.shallowSizeOfInstance(PagingFieldCollector.class));
+
+  /**
+   * Returns an upper bound of the {@link #ramBytesUsed() memory} of a
+   * collector that is {@link #create(Sort, int, FieldDoc, boolean, boolean, boolean) created}
+   * for the given sort and number of hits, so that memory can be accounted
+   * before comparators allocate their slots.
+   */
+  public static long estimateRamBytesUsed(Sort sort, int numHits) {
+    return MAX_SHALLOW_RAM_BYTES_USED + hitsRamBytesUsed(sort.getSort(), numHits);
+  }
+
+  private static long hitsRamBytesUsed(SortField[] fields, int numHits) {
+    long bytesPerHit = RamUsageEstimator.NUM_BYTES_OBJECT_REF + ENTRY_RAM_BYTES_USED;
+    for (SortField field : fields) {
+      bytesPerHit += bytesPerSlot(field);
+    }
+    return (numHits + 1L) * bytesPerHit;
+  }
+
+  private static long bytesPerSlot(SortField field) {
+    switch (field.getType()) {
+      case SCORE:
+      case DOC:
+      case INT:
+      case FLOAT:
+        return Integer.BYTES;
+      case LONG:
+      case DOUBLE:
+        return Long.BYTES;
+      case STRING:
+        // ord, reader generation and value
+        return 2 * Integer.BYTES + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+            + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class);
+      case STRING_VAL:
+        return RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class);
+      default:
+        // custom comparators: at least a reference per slot
+        return RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    }
+  }
+
   /**
    * Creates a new {@link TopFieldCollector} from the given
    * arguments.
@@ -20,6 +20,8 @@ package org.apache.lucene.search;
 import java.io.IOException;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
 
 /**
  * A {@link Collector} implementation that collects the top-scoring hits,
@@ -34,7 +36,7 @@ import org.apache.lucene.index.LeafReaderContext;
  * collector will not properly collect hits with such
  * scores.
  */
-public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
+public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> implements Accountable {
 
   abstract static class ScorerLeafCollector implements LeafCollector {
 
@@ -68,15 +70,13 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
           assert !Float.isNaN(score);
 
           totalHits++;
-          if (score <= pqTop.score) {
+          if (score <= pqTopScore) {
             // Since docs are returned in-order (i.e., increasing doc Id), a document
-            // with equal score to pqTop.score cannot compete since HitQueue favors
+            // with equal score to pqTopScore cannot compete since the queue favors
             // documents with lower doc Ids. Therefore reject those docs too.
             return;
           }
-          pqTop.doc = doc + docBase;
-          pqTop.score = score;
-          pqTop = pq.updateTop();
+          updateTop(doc + docBase, score);
         }
 
       };
@@ -97,7 +97,7 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
     @Override
     protected int topDocsSize() {
-      return collectedHits < pq.size() ? collectedHits : pq.size();
+      return collectedHits < queue.size() ? collectedHits : queue.size();
     }
 
     @Override
@@ -125,16 +125,14 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
             return;
           }
 
-          if (score <= pqTop.score) {
+          if (score <= pqTopScore) {
             // Since docs are returned in-order (i.e., increasing doc Id), a document
-            // with equal score to pqTop.score cannot compete since HitQueue favors
+            // with equal score to pqTopScore cannot compete since the queue favors
             // documents with lower doc Ids. Therefore reject those docs too.
             return;
           }
           collectedHits++;
-          pqTop.doc = doc + docBase;
-          pqTop.score = score;
-          pqTop = pq.updateTop();
+          updateTop(doc + docBase, score);
         }
       };
     }
@@ -148,7 +146,7 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
    * <p><b>NOTE</b>: The instances returned by this method
    * pre-allocate a full array of length
    * <code>numHits</code>, and fill the array with sentinel
-   * objects.
+   * values.
    */
   public static TopScoreDocCollector create(int numHits) {
     return create(numHits, null);
@@ -162,7 +160,7 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
    * <p><b>NOTE</b>: The instances returned by this method
    * pre-allocate a full array of length
    * <code>numHits</code>, and fill the array with sentinel
-   * objects.
+   * values.
    */
   public static TopScoreDocCollector create(int numHits, ScoreDoc after) {
 
@@ -177,14 +175,51 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
     }
   }
 
-  ScoreDoc pqTop;
+  // hits are packed into longs rather than held in a PriorityQueue<ScoreDoc>,
+  // and only the returned hits are materialized as ScoreDocs
+  final PackedHitQueue queue;
+  // score of the top of the queue, so that non-competitive hits are rejected without encoding them
+  float pqTopScore;
 
   // prevents instantiation
   TopScoreDocCollector(int numHits) {
-    super(new HitQueue(numHits, true));
-    // HitQueue implements getSentinelObject to return a ScoreDoc, so we know
-    // that at this point top() is already initialized.
-    pqTop = pq.top();
+    super(null);
+    queue = new PackedHitQueue(numHits);
+    // the queue is pre-populated with sentinel values, so we know that at
+    // this point top() is already initialized.
+    pqTopScore = PackedHitQueue.decodeScore(queue.top());
+  }
+
+  final void updateTop(int doc, float score) {
+    final long top = queue.updateTop(PackedHitQueue.encode(doc, score));
+    pqTopScore = PackedHitQueue.decodeScore(top);
+  }
+
+  @Override
+  protected int topDocsSize() {
+    return totalHits < queue.size() ? totalHits : queue.size();
+  }
+
+  @Override
+  public TopDocs topDocs(int start, int howMany) {
+    // Same as TopDocsCollector, but on the packed queue
+    int size = topDocsSize();
+    if (start < 0 || start >= size || howMany <= 0) {
+      return newTopDocs(null, start);
+    }
+    howMany = Math.min(size - start, howMany);
+    ScoreDoc[] results = new ScoreDoc[howMany];
+    for (int i = queue.size() - start - howMany; i > 0; i--) { queue.pop(); }
+    populateResults(results, howMany);
+    return newTopDocs(results, start);
+  }
+
+  @Override
+  protected void populateResults(ScoreDoc[] results, int howMany) {
+    for (int i = howMany - 1; i >= 0; i--) {
+      final long hit = queue.pop();
+      results[i] = new ScoreDoc(PackedHitQueue.decodeDoc(hit), PackedHitQueue.decodeScore(hit));
+    }
   }
 
   @Override
@@ -201,8 +236,8 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
     if (start == 0) {
       maxScore = results[0].score;
     } else {
-      for (int i = pq.size(); i > 1; i--) { pq.pop(); }
-      maxScore = pq.pop().score;
+      for (int i = queue.size(); i > 1; i--) { queue.pop(); }
+      maxScore = PackedHitQueue.decodeScore(queue.pop());
     }
 
     return new TopDocs(totalHits, results, maxScore);
@@ -212,4 +247,24 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
   public boolean needsScores() {
     return true;
   }
+
+  @Override
+  public long ramBytesUsed() {
+    // the ScoreDocs that are returned by topDocs() are not accounted
+    return RamUsageEstimator.shallowSizeOf(this) + queue.ramBytesUsed();
+  }
+
+  private static final long MAX_SHALLOW_RAM_BYTES_USED = Math.max(
+      RamUsageEstimator.shallowSizeOfInstance(SimpleTopScoreDocCollector.class),
+      RamUsageEstimator.shallowSizeOfInstance(PagingTopScoreDocCollector.class));
+
+  /**
+   * Returns an upper bound of the {@link #ramBytesUsed() memory} of a
+   * collector that is {@link #create(int, ScoreDoc) created} for
+   * {@code numHits} hits, so that memory can be accounted before the queue
+   * gets allocated.
+   */
+  public static long estimateRamBytesUsed(int numHits) {
+    return MAX_SHALLOW_RAM_BYTES_USED + PackedHitQueue.ramBytesUsed(numHits);
+  }
 }
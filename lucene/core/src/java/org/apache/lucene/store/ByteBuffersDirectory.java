@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+
+/**
+ * A memory-resident {@link Directory} that stores every file as a list of
+ * fixed-size {@link ByteBuffer} blocks, which may be heap or direct buffers.
+ * <p>
+ * Compared to {@link RAMDirectory}, blocks are larger and allocated by a
+ * configurable function, the first block of a file starts small and doubles
+ * until it reaches the block size, so that small files don't allocate a full
+ * block, the last block of every file is trimmed to the exact length of the
+ * file once it is closed, and files are read through
+ * the same {@link IndexInput} implementation as {@link MMapDirectory}, which
+ * never takes locks. Direct buffers keep file data off the Java heap; their
+ * memory is released when they are garbage collected.
+ * <p>
+ * Files can't be opened for reading until they are closed for writing.
+ * @lucene.experimental
+ */
+public final class ByteBuffersDirectory extends BaseDirectory implements Accountable {
+
+  /** Default size of blocks, in bytes. */
+  public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+  /** Initial size of the first block of a file, in bytes. */
+  static final int MIN_BLOCK_SIZE = 1 << 10;
+
+  /** Allocates blocks on the Java heap. */
+  public static final IntFunction<ByteBuffer> HEAP_ALLOCATOR = ByteBuffer::allocate;
+
+  /** Allocates blocks in direct memory, off the Java heap. */
+  public static final IntFunction<ByteBuffer> DIRECT_ALLOCATOR = ByteBuffer::allocateDirect;
+
+  private final Map<String,FileEntry> files = new ConcurrentHashMap<>();
+  private final AtomicLong sizeInBytes = new AtomicLong();
+  private final AtomicLong nextTempFileCounter = new AtomicLong();
+  private final int blockSizePower;
+  private final IntFunction<ByteBuffer> allocator;
+
+  /** Create a directory that stores files in heap blocks of {@link #DEFAULT_BLOCK_SIZE} bytes
+   *  and uses a {@link SingleInstanceLockFactory}. */
+  public ByteBuffersDirectory() {
+    this(new SingleInstanceLockFactory());
+  }
+
+  /** Create a directory that stores files in heap blocks of {@link #DEFAULT_BLOCK_SIZE} bytes. */
+  public ByteBuffersDirectory(LockFactory lockFactory) {
+    this(lockFactory, DEFAULT_BLOCK_SIZE, HEAP_ALLOCATOR);
+  }
+
+  /**
+   * Create a directory.
+   * @param lockFactory the lock factory to use
+   * @param blockSize the size of blocks in bytes, must be a power of two
+   * @param allocator the function that allocates blocks, such as {@link #HEAP_ALLOCATOR}
+   *        or {@link #DIRECT_ALLOCATOR}
+   */
+  public ByteBuffersDirectory(LockFactory lockFactory, int blockSize, IntFunction<ByteBuffer> allocator) {
+    super(lockFactory);
+    if (blockSize <= 0 || Integer.bitCount(blockSize) != 1 || blockSize > (1 << 30)) {
+      throw new IllegalArgumentException("blockSize must be a power of two between 1 and 2^30, got " + blockSize);
+    }
+    this.blockSizePower = Integer.numberOfTrailingZeros(blockSize);
+    this.allocator = allocator;
+  }
+
+  @Override
+  public String[] listAll() {
+    ensureOpen();
+    // the view of the keys is weakly consistent, collect them before sorting
+    List<String> names = new ArrayList<>(files.keySet());
+    String[] namesArray = names.toArray(new String[names.size()]);
+    Arrays.sort(namesArray);
+    return namesArray;
+  }
+
+  /** Returns true iff the named file exists in this directory. */
+  public boolean fileNameExists(String name) {
+    ensureOpen();
+    return files.containsKey(name);
+  }
+
+  @Override
+  public long fileLength(String name) throws IOException {
+    ensureOpen();
+    FileEntry file = files.get(name);
+    if (file == null) {
+      throw new FileNotFoundException(name);
+    }
+    return file.length();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    ensureOpen();
+    return sizeInBytes.get();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Accountables.namedAccountables("file", files);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    ensureOpen();
+    FileEntry file = files.remove(name);
+    if (file == null) {
+      throw new FileNotFoundException(name);
+    }
+    file.delete();
+  }
+
+  @Override
+  public IndexOutput createOutput(String name, IOContext context) throws IOException {
+    ensureOpen();
+    FileEntry file = new FileEntry(name);
+    if (files.putIfAbsent(name, file) != null) {
+      throw new FileAlreadyExistsException(name);
+    }
+    return file.output;
+  }
+
+  @Override
+  public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
+    ensureOpen();
+    while (true) {
+      String name = IndexFileNames.segmentFileName(prefix, suffix + "_" + Long.toString(nextTempFileCounter.getAndIncrement(), Character.MAX_RADIX), "tmp");
+      FileEntry file = new FileEntry(name);
+      if (files.putIfAbsent(name, file) == null) {
+        return file.output;
+      }
+    }
+  }
+
+  @Override
+  public void sync(Collection<String> names) throws IOException {
+  }
+
+  @Override
+  public void rename(String source, String dest) throws IOException {
+    ensureOpen();
+    FileEntry file = files.get(source);
+    if (file == null) {
+      throw new FileNotFoundException(source);
+    }
+    if (files.putIfAbsent(dest, file) != null) {
+      throw new FileAlreadyExistsException(dest);
+    }
+    if (!files.remove(source, file)) {
+      throw new IllegalStateException("file was unexpectedly replaced: " + source);
+    }
+  }
+
+  @Override
+  public void syncMetaData() throws IOException {
+    // we are by definition not durable!
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    ensureOpen();
+    FileEntry file = files.get(name);
+    if (file == null) {
+      throw new FileNotFoundException(name);
+    }
+    return file.openInput();
+  }
+
+  @Override
+  public void close() {
+    isOpen = false;
+    files.clear();
+  }
+
+  /** A file: blocks are appended by its output, and published when the output is closed. */
+  private final class FileEntry implements Accountable {
+    private final String name;
+    private final Output output;
+    // null until the output is closed
+    private volatile ByteBuffer[] blocks;
+    private volatile long length;
+    private volatile boolean deleted;
+    private final AtomicLong ramBytesUsed = new AtomicLong();
+
+    FileEntry(String name) {
+      this.name = name;
+      this.output = new Output(this);
+    }
+
+    long length() {
+      return blocks == null ? output.getFilePointer() : length;
+    }
+
+    void addRamBytesUsed(long bytes) {
+      ramBytesUsed.addAndGet(bytes);
+      if (deleted == false) {
+        sizeInBytes.addAndGet(bytes);
+      }
+    }
+
+    void delete() {
+      deleted = true;
+      sizeInBytes.addAndGet(-ramBytesUsed.get());
+    }
+
+    IndexInput openInput() throws IOException {
+      final ByteBuffer[] blocks = this.blocks;
+      if (blocks == null) {
+        throw new AccessDeniedException(name, null, "file is still open for writing");
+      }
+      // inputs move the position of the blocks they read, so every input needs its own views
+      final ByteBuffer[] views = new ByteBuffer[blocks.length];
+      for (int i = 0; i < blocks.length; ++i) {
+        views[i] = blocks[i].duplicate();
+      }
+      final String resourceDescription = "ByteBuffersIndexInput(name=\"" + name + "\")";
+      return ByteBufferIndexInput.newInstance(resourceDescription, views, length, blockSizePower,
+          new ByteBufferGuard(resourceDescription, null));
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return ramBytesUsed.get();
+    }
+
+    @Override
+    public String toString() {
+      return "ByteBuffersFile(name=" + name + ")";
+    }
+  }
+
+  private final class Output extends IndexOutput {
+    private final FileEntry file;
+    private final Checksum crc = new BufferedChecksum(new CRC32());
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private ByteBuffer current;
+    private boolean closed;
+
+    Output(FileEntry file) {
+      super("ByteBuffersIndexOutput(name=\"" + file.name + "\")", file.name);
+      this.file = file;
+    }
+
+    private void nextBlock() {
+      final int blockSize = 1 << blockSizePower;
+      if (current != null && current.capacity() < blockSize) {
+        // the first block is full but smaller than the block size: double it
+        assert blocks.size() == 1;
+        final ByteBuffer bigger = allocator.apply(Math.min(current.capacity() << 1, blockSize));
+        current.flip();
+        bigger.put(current);
+        blocks.set(0, bigger);
+        file.addRamBytesUsed(bigger.capacity() - current.capacity());
+        current = bigger;
+      } else {
+        current = allocator.apply(blocks.isEmpty() ? Math.min(MIN_BLOCK_SIZE, blockSize) : blockSize);
+        assert current.position() == 0;
+        blocks.add(current);
+        file.addRamBytesUsed(current.capacity());
+      }
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+      if (current == null || current.hasRemaining() == false) {
+        nextBlock();
+      }
+      current.put(b);
+      crc.update(b);
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+      crc.update(b, offset, length);
+      while (length > 0) {
+        if (current == null || current.hasRemaining() == false) {
+          nextBlock();
+        }
+        final int chunk = Math.min(length, current.remaining());
+        current.put(b, offset, chunk);
+        offset += chunk;
+        length -= chunk;
+      }
+    }
+
+    @Override
+    public long getFilePointer() {
+      if (current == null) {
+        return 0;
+      }
+      return ((long) (blocks.size() - 1) << blockSizePower) + current.position();
+    }
+
+    @Override
+    public long getChecksum() throws IOException {
+      return crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      final long length = getFilePointer();
+      // ByteBufferIndexInput expects full blocks followed by a last, possibly empty, block
+      final int numFullBlocks = Math.toIntExact(length >>> blockSizePower);
+      final ByteBuffer[] published = new ByteBuffer[numFullBlocks + 1];
+      for (int i = 0; i < numFullBlocks; ++i) {
+        ByteBuffer block = blocks.get(i);
+        block.flip();
+        published[i] = block.asReadOnlyBuffer();
+      }
+      final int lastBlockLength = (int) (length & ((1L << blockSizePower) - 1));
+      final ByteBuffer lastBlock;
+      if (lastBlockLength == 0) {
+        lastBlock = ByteBuffer.allocate(0);
+      } else {
+        ByteBuffer block = blocks.get(numFullBlocks);
+        block.flip();
+        if (block.capacity() == lastBlockLength) {
+          lastBlock = block;
+        } else {
+          // trim the last block to the length of the file
+          lastBlock = allocator.apply(lastBlockLength);
+          lastBlock.put(block);
+          lastBlock.flip();
+          file.addRamBytesUsed(lastBlockLength - block.capacity());
+        }
+      }
+      published[numFullBlocks] = lastBlock.asReadOnlyBuffer();
+      file.length = length;
+      file.blocks = published;
+      blocks.clear();
+      current = null;
+    }
+  }
+}
@@ -30,9 +30,14 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -79,6 +84,16 @@ import org.apache.lucene.util.SuppressForbidden;
  * will be automatically enabled (with no guarantees; if you discover
  * any problems, you can disable it).
  * <p>
+ * Which files get their pages loaded into physical memory when they are
+ * opened can be configured per file and {@link IOContext}, see
+ * {@link #setPreload(BiPredicate)}, for instance to only preload the terms
+ * index, norms and doc values. The {@link ReadAdvice} of a file is computed
+ * from its name and {@link IOContext} as well (see {@link #setReadAdvice}),
+ * so that merges may be read sequentially without evicting the pages that
+ * searches need. Plain Java cannot pass this advice to the operating system,
+ * subclasses do it by overriding {@link #madvise}, like
+ * {@code NativeMMapDirectory} from the Lucene {@code misc} module.
+ * <p>
  * <b>NOTE:</b> Accessing this class either directly or
  * indirectly from a thread while it's interrupted can close the
  * underlying channel immediately if at the same time the thread is
@@ -92,7 +107,26 @@ import org.apache.lucene.util.SuppressForbidden;
  */
 public class MMapDirectory extends FSDirectory {
   private boolean useUnmapHack = UNMAP_SUPPORTED;
-  private boolean preload;
+  private BiPredicate<String, IOContext> preload = NO_FILES;
+  private BiFunction<String, IOContext, ReadAdvice> readAdvice = DEFAULT_READ_ADVICE;
+
+  /** Argument for {@link #setPreload(BiPredicate)} that configures all files to be preloaded. */
+  public static final BiPredicate<String, IOContext> ALL_FILES = (filename, context) -> true;
+
+  /** Argument for {@link #setPreload(BiPredicate)} that configures no files to be preloaded. */
+  public static final BiPredicate<String, IOContext> NO_FILES = (filename, context) -> false;
+
+  /**
+   * Default argument for {@link #setReadAdvice}: files that are opened for merging or that are
+   * read once are read {@link ReadAdvice#SEQUENTIAL sequentially}, other files get
+   * {@link ReadAdvice#NORMAL normal} advice.
+   */
+  public static final BiFunction<String, IOContext, ReadAdvice> DEFAULT_READ_ADVICE = (filename, context) -> {
+    if (context.context == IOContext.Context.MERGE || context.readOnce) {
+      return ReadAdvice.SEQUENTIAL;
+    }
+    return ReadAdvice.NORMAL;
+  };
 
   /** 
    * Default max chunk size.
@@ -208,19 +242,70 @@ public class MMapDirectory extends FSDirectory {
    * into physical memory on init. The behavior is best-effort 
    * and operating system dependent.
    * @see MappedByteBuffer#load
+   * @see #setPreload(BiPredicate)
    */
   public void setPreload(boolean preload) {
-    this.preload = preload;
+    setPreload(preload ? ALL_FILES : NO_FILES);
   }
-  
+
   /**
-   * Returns {@code true} if mapped pages should be loaded.
+   * Configure which files to preload in physical memory upon opening, based
+   * on the file name and the {@link IOContext} it is opened with. The
+   * behavior is best-effort and operating system dependent.
+   * <p><b>NOTE:</b> files of compound segments are all stored in the
+   * {@code .cfs} file, so rules on extensions only apply to non-compound
+   * segments.
+   * @see MappedByteBuffer#load
+   * @see #ALL_FILES
+   * @see #NO_FILES
+   * @see #preloadExtensions
+   */
+  public void setPreload(BiPredicate<String, IOContext> preload) {
+    this.preload = Objects.requireNonNull(preload);
+  }
+
+  /**
+   * Returns {@code true} if mapped pages of some files may be loaded.
    * @see #setPreload
    */
   public boolean getPreload() {
-    return preload;
+    return preload != NO_FILES;
   }
-  
+
+  /**
+   * Returns an argument for {@link #setPreload(BiPredicate)} that preloads
+   * files whose extension is one of the given extensions (without the dot,
+   * for instance {@code "tip"} or {@code "nvd"}). Files that are opened
+   * for merging are never preloaded since merges read them only once.
+   */
+  public static BiPredicate<String, IOContext> preloadExtensions(String... extensions) {
+    final Set<String> extensionSet = new HashSet<>(Arrays.asList(extensions));
+    return (filename, context) -> context.context != IOContext.Context.MERGE
+        && extensionSet.contains(FileSwitchDirectory.getExtension(filename));
+  }
+
+  /**
+   * Configure the {@link ReadAdvice} of files based on their name and the
+   * {@link IOContext} they are opened with. It is passed to {@link #madvise}
+   * for every mapped buffer of files whose advice is not
+   * {@link ReadAdvice#NORMAL}.
+   * @see #DEFAULT_READ_ADVICE
+   */
+  public void setReadAdvice(BiFunction<String, IOContext, ReadAdvice> readAdvice) {
+    this.readAdvice = Objects.requireNonNull(readAdvice);
+  }
+
+  /**
+   * Pass the advice of how {@code buffer} is going to be read to the
+   * operating system. This implementation does nothing as plain Java has
+   * no API for it, subclasses may override it to call {@code madvise}
+   * through native code.
+   * @param buffer a memory-mapped buffer
+   * @param advice the advice, never {@link ReadAdvice#NORMAL}
+   */
+  protected void madvise(ByteBuffer buffer, ReadAdvice advice) throws IOException {
+  }
+
   /**
    * Returns the current mmap chunk size.
    * @see #MMapDirectory(Path, LockFactory, int)
@@ -238,14 +323,17 @@ public class MMapDirectory extends FSDirectory {
     try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
+      final boolean preload = this.preload.test(name, context);
+      final ReadAdvice advice = Objects.requireNonNull(readAdvice.apply(name, context));
       return ByteBufferIndexInput.newInstance(resourceDescription,
-          map(resourceDescription, c, 0, c.size()), 
+          map(resourceDescription, c, 0, c.size(), preload, advice),
           c.size(), chunkSizePower, new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
     }
   }
 
   /** Maps a file into a set of buffers */
-  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length) throws IOException {
+  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length,
+      boolean preload, ReadAdvice advice) throws IOException {
     if ((length >>> chunkSizePower) >= Integer.MAX_VALUE)
       throw new IllegalArgumentException("RandomAccessFile too big for chunk size: " + resourceDescription);
     
@@ -268,6 +356,9 @@ public class MMapDirectory extends FSDirectory {
       } catch (IOException ioe) {
         throw convertMapFailedIOException(ioe, resourceDescription, bufSize);
       }
+      if (advice != ReadAdvice.NORMAL && bufSize > 0) {
+        madvise(buffer, advice);
+      }
       if (preload) {
         buffer.load();
       }
@@ -19,14 +19,16 @@ package org.apache.lucene.store;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.NoSuchFileException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.IntFunction;
 
-import org.apache.lucene.store.RAMDirectory;      // javadocs
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.IOUtils;
@@ -36,7 +38,7 @@ import org.apache.lucene.util.IOUtils;
 //   - rename to MergeCacheingDir?  NRTCachingDir
 
 /**
- * Wraps a {@link RAMDirectory}
+ * Wraps a {@link ByteBuffersDirectory}
  * around any provided delegate directory, to
  * be used during NRT search.
  *
@@ -69,8 +71,7 @@ import org.apache.lucene.util.IOUtils;
 
 public class NRTCachingDirectory extends FilterDirectory implements Accountable {
 
-  private final RAMDirectory cache = new RAMDirectory();
-
+  private final ByteBuffersDirectory cache;
 
   private final long maxMergeSizeBytes;
   private final long maxCachedBytes;
@@ -83,7 +84,20 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
    *  {@code <= maxMergeSizeMB}, and 2) the total cached bytes is 
    *  {@code <= maxCachedMB} */
   public NRTCachingDirectory(Directory delegate, double maxMergeSizeMB, double maxCachedMB) {
+    this(delegate, maxMergeSizeMB, maxCachedMB, ByteBuffersDirectory.DEFAULT_BLOCK_SIZE, ByteBuffersDirectory.HEAP_ALLOCATOR);
+  }
+
+  /**
+   *  Same as {@link #NRTCachingDirectory(Directory, double, double)}, but also
+   *  configures the size of the blocks that cached files are stored in and how
+   *  they are allocated, for instance
+   *  {@link ByteBuffersDirectory#DIRECT_ALLOCATOR} to keep cached files off the
+   *  Java heap.
+   *  @see ByteBuffersDirectory#ByteBuffersDirectory(LockFactory, int, IntFunction) */
+  public NRTCachingDirectory(Directory delegate, double maxMergeSizeMB, double maxCachedMB,
+      int blockSize, IntFunction<ByteBuffer> allocator) {
     super(delegate);
+    cache = new ByteBuffersDirectory(new SingleInstanceLockFactory(), blockSize, allocator);
     maxMergeSizeBytes = (long) (maxMergeSizeMB*1024*1024);
     maxCachedBytes = (long) (maxCachedMB*1024*1024);
   }
@@ -220,7 +234,7 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
   }
 
   /** Subclass can override this to customize logic; return
-   *  true if this file should be written to the RAMDirectory. */
+   *  true if this file should be written to the cache. */
   protected boolean doCacheWrite(String name, IOContext context) {
     //System.out.println(Thread.currentThread().getName() + ": CACHE check merge=" + merge + " size=" + (merge==null ? 0 : merge.estimatedMergeBytes));
 
@@ -281,15 +295,18 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
   }
 
   /** Returns true if the file exists
-   *  (can be opened), false if it cannot be opened, and
-   *  (unlike Java's File.exists) throws IOException if
-   *  there's some unexpected error. */
+   *  (can be opened, or is still open for writing), false if it
+   *  cannot be opened, and (unlike Java's File.exists) throws
+   *  IOException if there's some unexpected error. */
   static boolean slowFileExists(Directory dir, String fileName) throws IOException {
     try {
       dir.openInput(fileName, IOContext.DEFAULT).close();
       return true;
     } catch (NoSuchFileException | FileNotFoundException e) {
       return false;
+    } catch (AccessDeniedException e) {
+      // e.g. ByteBuffersDirectory refuses to open files that are still being written
+      return true;
     }
   }
 
@@ -25,6 +25,7 @@ import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.MemoryAccountant;
 import org.apache.lucene.util.packed.PackedInts;
 
 /**
@@ -91,6 +92,7 @@ public final class DocIdSetBuilder {
   // pkg-private for testing
   final boolean multivalued;
   final double numValuesPerDoc;
+  private final MemoryAccountant memoryAccountant;
 
   private List<Buffer> buffers = new ArrayList<>();
   private int totalAllocated; // accumulated size of the allocated buffers
@@ -104,22 +106,50 @@ public final class DocIdSetBuilder {
    * Create a builder that can contain doc IDs between {@code 0} and {@code maxDoc}.
    */
   public DocIdSetBuilder(int maxDoc) {
-    this(maxDoc, -1, -1);
+    this(maxDoc, (MemoryAccountant) null);
+  }
+
+  /**
+   * Create a builder that can contain doc IDs between {@code 0} and {@code maxDoc}
+   * and that notifies the given {@link MemoryAccountant}, if not {@code null},
+   * before allocating memory.
+   * @lucene.experimental
+   */
+  public DocIdSetBuilder(int maxDoc, MemoryAccountant memoryAccountant) {
+    this(maxDoc, -1, -1, memoryAccountant);
   }
 
   /** Create a {@link DocIdSetBuilder} instance that is optimized for
    *  accumulating docs that match the given {@link Terms}. */
   public DocIdSetBuilder(int maxDoc, Terms terms) throws IOException {
-    this(maxDoc, terms.getDocCount(), terms.getSumDocFreq());
+    this(maxDoc, terms, null);
+  }
+
+  /** Same as {@link #DocIdSetBuilder(int, Terms)} but notifies the given
+   *  {@link MemoryAccountant}, if not {@code null}, before allocating memory.
+   *  @lucene.experimental */
+  public DocIdSetBuilder(int maxDoc, Terms terms, MemoryAccountant memoryAccountant) throws IOException {
+    this(maxDoc, terms.getDocCount(), terms.getSumDocFreq(), memoryAccountant);
   }
 
   /** Create a {@link DocIdSetBuilder} instance that is optimized for
    *  accumulating docs that match the given {@link PointValues}. */
   public DocIdSetBuilder(int maxDoc, PointValues values, String field) throws IOException {
-    this(maxDoc, values.getDocCount(), values.size());
+    this(maxDoc, values, field, null);
+  }
+
+  /** Same as {@link #DocIdSetBuilder(int, PointValues, String)} but notifies the
+   *  given {@link MemoryAccountant}, if not {@code null}, before allocating memory.
+   *  @lucene.experimental */
+  public DocIdSetBuilder(int maxDoc, PointValues values, String field, MemoryAccountant memoryAccountant) throws IOException {
+    this(maxDoc, values.getDocCount(), values.size(), memoryAccountant);
   }
 
   DocIdSetBuilder(int maxDoc, int docCount, long valueCount) {
+    this(maxDoc, docCount, valueCount, null);
+  }
+
+  DocIdSetBuilder(int maxDoc, int docCount, long valueCount, MemoryAccountant memoryAccountant) {
     this.maxDoc = maxDoc;
     this.multivalued = docCount < 0 || docCount != valueCount;
     if (docCount <= 0 || valueCount < 0) {
@@ -140,6 +170,7 @@ public final class DocIdSetBuilder {
     this.threshold = maxDoc >>> 7;
 
     this.bitSet = null;
+    this.memoryAccountant = memoryAccountant;
   }
 
   /**
@@ -217,7 +248,14 @@ public final class DocIdSetBuilder {
     return c;
   }
 
+  private void accountBytes(long bytes) {
+    if (memoryAccountant != null) {
+      memoryAccountant.addBytes(bytes);
+    }
+  }
+
   private Buffer addBuffer(int len) {
+    accountBytes((long) len * Integer.BYTES);
     Buffer buffer = new Buffer(len);
     buffers.add(buffer);
     adder = new BufferAdder(buffer);
@@ -226,12 +264,15 @@ public final class DocIdSetBuilder {
   }
 
   private void growBuffer(Buffer buffer, int additionalCapacity) {
+    accountBytes((long) additionalCapacity * Integer.BYTES);
     buffer.array = Arrays.copyOf(buffer.array, buffer.array.length + additionalCapacity);
     totalAllocated += additionalCapacity;
   }
 
   private void upgradeToBitSet() {
     assert bitSet == null;
+    // buffers are not given back since they are only freed once the bit set is built
+    accountBytes((long) FixedBitSet.bits2words(maxDoc) * Long.BYTES);
     FixedBitSet bitSet = new FixedBitSet(maxDoc);
     long counter = 0;
     for (Buffer buffer : buffers) {
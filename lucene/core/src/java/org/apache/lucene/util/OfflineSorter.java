@@ -203,6 +203,24 @@ public class OfflineSorter {
     this(dir, tempFileNamePrefix, comparator, BufferSize.automatic(), MAX_TEMPFILES, -1, null, 0);
   }
 
+  /**
+   * Constructor with a custom comparator that sorts up to {@code maxPartitionsInRAM} partitions
+   * and runs merges concurrently using the given {@link ExecutorService}. Partitions are sorted
+   * while input is still being read, and share the {@link BufferSize#automatic() automatic}
+   * buffer size.
+   */
+  public OfflineSorter(Directory dir, String tempFileNamePrefix, Comparator<BytesRef> comparator,
+                       ExecutorService exec, int maxPartitionsInRAM) throws IOException {
+    this(dir, tempFileNamePrefix, comparator, automaticBufferSize(maxPartitionsInRAM), MAX_TEMPFILES, -1, exec, maxPartitionsInRAM);
+  }
+
+  private static BufferSize automaticBufferSize(int maxPartitionsInRAM) {
+    if (maxPartitionsInRAM <= 0) {
+      throw new IllegalArgumentException("maxPartitionsInRAM must be > 0; got " + maxPartitionsInRAM);
+    }
+    return new BufferSize(Math.max(ABSOLUTE_MIN_SORT_BUFFER_SIZE, BufferSize.automatic().bytes / maxPartitionsInRAM));
+  }
+
   /**
    * All-details constructor.  If {@code valueLength} is -1 (the default), the length of each value differs; otherwise,
    * all values have the specified length.  If you pass a non-null {@code ExecutorService} then it will be
@@ -308,7 +326,10 @@ public class OfflineSorter {
       // the caller, who often consumes the result just once, instead?
 
       // Merge all partitions down to 1 (basically a forceMerge(1)):
-      while (segments.size() > 1) {     
+      while (segments.size() > maxTempFiles) {
+        mergeRound(trackingDir, segments);
+      }
+      if (segments.size() > 1) {
         mergePartitions(trackingDir, segments);
       }
 
@@ -371,6 +392,40 @@ public class OfflineSorter {
     sortInfo.tempMergeFiles++;
   }
 
+  /** Merge the most recent partitions with as many concurrent merges as necessary so that at
+   *  most {@code maxTempFiles} partitions remain, or as few as possible if that would require
+   *  more than one merge level. */
+  void mergeRound(Directory trackingDir, List<Future<Partition>> segments) {
+    assert segments.size() > maxTempFiles;
+    // every merge of maxTempFiles partitions removes maxTempFiles-1 partitions
+    final int excess = segments.size() - maxTempFiles;
+    int numMerges = (excess + maxTempFiles - 2) / (maxTempFiles - 1);
+    int numInputs = excess + numMerges;
+    if (numInputs > segments.size()) {
+      // not enough partitions to get down to maxTempFiles in a single round
+      numInputs = segments.size();
+      numMerges = (numInputs + maxTempFiles - 1) / maxTempFiles;
+    }
+
+    List<Future<Partition>> inputs = segments.subList(segments.size() - numInputs, segments.size());
+    List<Future<Partition>> segmentsToMerge = new ArrayList<>(inputs);
+    inputs.clear();
+
+    // spread inputs evenly across merges, which are independent from each other so that they can run concurrently
+    int start = 0;
+    for (int i = 0; i < numMerges; ++i) {
+      final int end = (int) ((long) numInputs * (i + 1) / numMerges);
+      if (end - start == 1) {
+        segments.add(segmentsToMerge.get(start));
+      } else {
+        sortInfo.mergeRounds++;
+        segments.add(exec.submit(new MergePartitionsTask(trackingDir, new ArrayList<>(segmentsToMerge.subList(start, end)))));
+        sortInfo.tempMergeFiles++;
+      }
+      start = end;
+    }
+  }
+
   /** Holds one partition of items, either loaded into memory or based on a file. */
   private static class Partition {
     public final SortableBytesRefArray buffer;
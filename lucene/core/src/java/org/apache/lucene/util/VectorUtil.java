@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util;
+
+
+/**
+ * Utilities for computations with numeric arrays
+ * @lucene.internal
+ */
+public final class VectorUtil {
+
+  // No instance:
+  private VectorUtil() {
+  }
+
+  /**
+   * Returns the vector dot product of the two vectors.
+   * @throws IllegalArgumentException if the vectors' dimensions differ.
+   */
+  public static float dotProduct(float[] a, float[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    float res = 0f;
+    // manually unroll the loop so that the JIT can use several accumulators
+    int i = 0;
+    final int upperBound = a.length & ~3;
+    float acc1 = 0, acc2 = 0, acc3 = 0, acc4 = 0;
+    for (; i < upperBound; i += 4) {
+      acc1 += a[i] * b[i];
+      acc2 += a[i + 1] * b[i + 1];
+      acc3 += a[i + 2] * b[i + 2];
+      acc4 += a[i + 3] * b[i + 3];
+    }
+    for (; i < a.length; i++) {
+      res += a[i] * b[i];
+    }
+    return res + acc1 + acc2 + acc3 + acc4;
+  }
+
+  /**
+   * Returns the cosine similarity between the two vectors.
+   * @throws IllegalArgumentException if the vectors' dimensions differ.
+   */
+  public static float cosine(float[] a, float[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    double sum = 0, norm1 = 0, norm2 = 0;
+    for (int i = 0; i < a.length; i++) {
+      sum += a[i] * b[i];
+      norm1 += a[i] * a[i];
+      norm2 += b[i] * b[i];
+    }
+    return (float) (sum / Math.sqrt(norm1 * norm2));
+  }
+
+  /**
+   * Returns the sum of squared differences of the two vectors.
+   * @throws IllegalArgumentException if the vectors' dimensions differ.
+   */
+  public static float squareDistance(float[] a, float[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    float res = 0f;
+    int i = 0;
+    final int upperBound = a.length & ~3;
+    float acc1 = 0, acc2 = 0, acc3 = 0, acc4 = 0;
+    for (; i < upperBound; i += 4) {
+      final float d1 = a[i] - b[i];
+      final float d2 = a[i + 1] - b[i + 1];
+      final float d3 = a[i + 2] - b[i + 2];
+      final float d4 = a[i + 3] - b[i + 3];
+      acc1 += d1 * d1;
+      acc2 += d2 * d2;
+      acc3 += d3 * d3;
+      acc4 += d4 * d4;
+    }
+    for (; i < a.length; i++) {
+      final float diff = a[i] - b[i];
+      res += diff * diff;
+    }
+    return res + acc1 + acc2 + acc3 + acc4;
+  }
+
+  /**
+   * Modifies the argument to be unit length, dividing by its l2-norm.
+   * @return the input array after normalization, useful for chained calls
+   * @throws IllegalArgumentException if the vector has a zero norm
+   */
+  public static float[] l2normalize(float[] v) {
+    double squareSum = 0.0;
+    for (float x : v) {
+      squareSum += x * x;
+    }
+    if (squareSum == 0) {
+      throw new IllegalArgumentException("Cannot normalize a zero-length vector");
+    }
+    final double length = Math.sqrt(squareSum);
+    for (int i = 0; i < v.length; i++) {
+      v[i] /= length;
+    }
+    return v;
+  }
+}
@@ -17,12 +17,15 @@
 package org.apache.lucene.util.bkd;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.PointValues;
-import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.ByteArrayIndexInput;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.MathUtil;
@@ -48,16 +51,25 @@ public final class BKDReader extends PointValues implements Accountable {
   final int version;
   protected final int packedBytesLength;
 
-  // Used for 6.4.0+ index format:
-  final byte[] packedIndex;
+  // Used for 6.4.0+ index format, either backed by a byte[] or read off-heap from a slice of the data file:
+  final IndexInput packedIndex;
+  final boolean packedIndexOffHeap;
 
   // Used for Legacy (pre-6.4.0) index format, to hold a compact form of the index:
   final private byte[] splitPackedValues; 
   final int bytesPerIndexEntry;
   final long[] leafBlockFPs;
 
-  /** Caller must pre-seek the provided {@link IndexInput} to the index location that {@link BKDWriter#finish} returned */
+  /** Caller must pre-seek the provided {@link IndexInput} to the index location that {@link BKDWriter#finish} returned.
+   *  The packed index is read off-heap if the input supports random access, e.g. if it is memory-mapped. */
   public BKDReader(IndexInput in) throws IOException {
+    this(in, in instanceof RandomAccessInput);
+  }
+
+  /** Caller must pre-seek the provided {@link IndexInput} to the index location that {@link BKDWriter#finish} returned.
+   *  If {@code offHeapIndex} is true, the packed index is not loaded on the heap but read from {@code in} as
+   *  the tree is traversed, which is only efficient if {@code in} is memory-mapped. */
+  public BKDReader(IndexInput in, boolean offHeapIndex) throws IOException {
     version = CodecUtil.checkHeader(in, BKDWriter.CODEC_NAME, BKDWriter.VERSION_START, BKDWriter.VERSION_CURRENT);
     numDims = in.readVInt();
     maxPointsInLeafNode = in.readVInt();
@@ -87,8 +99,16 @@ public final class BKDReader extends PointValues implements Accountable {
 
     if (version >= BKDWriter.VERSION_PACKED_INDEX) {
       int numBytes = in.readVInt();
-      packedIndex = new byte[numBytes];
-      in.readBytes(packedIndex, 0, numBytes);
+      if (offHeapIndex) {
+        final long start = in.getFilePointer();
+        packedIndex = in.slice("packedIndex", start, numBytes);
+        in.seek(start + numBytes);
+      } else {
+        byte[] bytes = new byte[numBytes];
+        in.readBytes(bytes, 0, numBytes);
+        packedIndex = new ByteArrayIndexInput("packedIndex", bytes);
+      }
+      packedIndexOffHeap = offHeapIndex;
       leafBlockFPs = null;
       splitPackedValues = null;
     } else {
@@ -133,14 +153,17 @@ public final class BKDReader extends PointValues implements Accountable {
       
       this.leafBlockFPs = leafBlockFPs;
       packedIndex = null;
+      packedIndexOffHeap = false;
     }
 
     this.in = in;
   }
 
-  long getMinLeafBlockFP() {
+  long getMinLeafBlockFP() throws IOException {
     if (packedIndex != null) {
-      return new ByteArrayDataInput(packedIndex).readVLong();
+      final IndexInput in = packedIndex.clone();
+      in.seek(0);
+      return in.readVLong();
     } else {
       long minFP = Long.MAX_VALUE;
       for(long fp : leafBlockFPs) {
@@ -341,8 +364,8 @@ public final class BKDReader extends PointValues implements Accountable {
    *  format takes advantage of the limited access pattern to the BKD tree at search time, i.e. starting at the root node and recursing
    *  downwards one child at a time. */
   private final class PackedIndexTree extends IndexTree {
-    // used to read the packed byte[]
-    private final ByteArrayDataInput in;
+    // used to read the packed index
+    private final IndexInput in;
     // holds the minimum (left most) leaf block file pointer for each level we've recursed to:
     private final long[] leafBlockFPStack;
     // holds the address, in the packed byte[] index, of the left-node of each level:
@@ -369,9 +392,9 @@ public final class BKDReader extends PointValues implements Accountable {
       splitDims = new int[treeDepth+1];
       negativeDeltas = new boolean[numDims*(treeDepth+1)];
 
-      in = new ByteArrayDataInput(packedIndex);
+      in = packedIndex.clone();
       splitValuesStack[0] = new byte[packedBytesLength];
-      readNodeData(false);
+      readNodeData(0, false);
       scratch = new BytesRef();
       scratch.length = bytesPerDim;
     }
@@ -398,8 +421,7 @@ public final class BKDReader extends PointValues implements Accountable {
       System.arraycopy(negativeDeltas, (level-1)*numDims, negativeDeltas, level*numDims, numDims);
       assert splitDim != -1;
       negativeDeltas[level*numDims+splitDim] = true;
-      in.setPosition(nodePosition);
-      readNodeData(true);
+      readNodeData(nodePosition, true);
     }
     
     @Override
@@ -409,8 +431,7 @@ public final class BKDReader extends PointValues implements Accountable {
       System.arraycopy(negativeDeltas, (level-1)*numDims, negativeDeltas, level*numDims, numDims);
       assert splitDim != -1;
       negativeDeltas[level*numDims+splitDim] = false;
-      in.setPosition(nodePosition);
-      readNodeData(false);
+      readNodeData(nodePosition, false);
     }
 
     @Override
@@ -433,7 +454,16 @@ public final class BKDReader extends PointValues implements Accountable {
       return scratch;
     }
 
-    private void readNodeData(boolean isLeft) {
+    private void readNodeData(long nodePosition, boolean isLeft) {
+      try {
+        in.seek(nodePosition);
+        readNodeData(isLeft);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void readNodeData(boolean isLeft) throws IOException {
 
       leafBlockFPStack[level] = leafBlockFPStack[level-1];
 
@@ -477,7 +507,7 @@ public final class BKDReader extends PointValues implements Accountable {
           leftNumBytes = 0;
         }
 
-        leftNodePositions[level] = in.getPosition();
+        leftNodePositions[level] = (int) in.getFilePointer();
         rightNodePositions[level] = leftNodePositions[level] + leftNumBytes;
       }
     }
@@ -622,12 +652,41 @@ public final class BKDReader extends PointValues implements Accountable {
         : readCompressedDim(in);
 
     if (compressedDim == -1) {
-      visitRawDocValues(commonPrefixLengths, scratchPackedValue, in, docIDs, count, visitor);
+      if (allEqual(commonPrefixLengths)) {
+        visitAllEqualDocValues(scratchPackedValue, docIDs, count, visitor);
+      } else {
+        visitRawDocValues(commonPrefixLengths, scratchPackedValue, in, docIDs, count, visitor);
+      }
+    } else if (compressedDim == -2) {
+      visitLowCardinalityDocValues(commonPrefixLengths, scratchPackedValue, in, docIDs, count, visitor);
     } else {
       visitCompressedDocValues(commonPrefixLengths, scratchPackedValue, in, docIDs, count, visitor, compressedDim);
     }
   }
 
+  private boolean allEqual(int[] commonPrefixLengths) {
+    for(int dim=0;dim<numDims;dim++) {
+      if (commonPrefixLengths[dim] != bytesPerDim) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // All docs of the leaf share the value that was read as common prefixes
+  private void visitAllEqualDocValues(byte[] scratchPackedValue, int[] docIDs, int count, IntersectVisitor visitor) throws IOException {
+    if (count == 1 || DocIdsIterator.isStrictlySorted(docIDs, 0, count) == false) {
+      // a doc that has the same value more than once is visited once per value
+      for (int i = 0; i < count; ++i) {
+        visitor.visit(docIDs[i], scratchPackedValue);
+      }
+    } else {
+      DocIdsIterator iterator = new DocIdsIterator(docIDs);
+      iterator.reset(0, count);
+      visitor.visit(iterator, scratchPackedValue);
+    }
+  }
+
   // Just read suffixes for every dimension
   private void visitRawDocValues(int[] commonPrefixLengths, byte[] scratchPackedValue, IndexInput in, int[] docIDs, int count, IntersectVisitor visitor) throws IOException {
     for (int i = 0; i < count; ++i) {
@@ -639,6 +698,35 @@ public final class BKDReader extends PointValues implements Accountable {
     }
   }
 
+  // Every run of equal values is stored once, with the number of docs in the run
+  private void visitLowCardinalityDocValues(int[] commonPrefixLengths, byte[] scratchPackedValue, IndexInput in, int[] docIDs, int count, IntersectVisitor visitor) throws IOException {
+    DocIdsIterator iterator = null;
+    int i;
+    for (i = 0; i < count; ) {
+      final int runLen = in.readVInt();
+      if (runLen <= 0 || runLen > count - i) {
+        throw new CorruptIndexException("Got runLen=" + runLen + " with " + (count - i) + " remaining docs", in);
+      }
+      for(int dim=0;dim<numDims;dim++) {
+        int prefix = commonPrefixLengths[dim];
+        in.readBytes(scratchPackedValue, dim*bytesPerDim + prefix, bytesPerDim - prefix);
+      }
+      if (runLen == 1 || DocIdsIterator.isStrictlySorted(docIDs, i, i + runLen) == false) {
+        // a doc that has the same value more than once is visited once per value
+        for (int j = i; j < i + runLen; ++j) {
+          visitor.visit(docIDs[j], scratchPackedValue);
+        }
+      } else {
+        if (iterator == null) {
+          iterator = new DocIdsIterator(docIDs);
+        }
+        iterator.reset(i, i + runLen);
+        visitor.visit(iterator, scratchPackedValue);
+      }
+      i += runLen;
+    }
+  }
+
   private void visitCompressedDocValues(int[] commonPrefixLengths, byte[] scratchPackedValue, IndexInput in, int[] docIDs, int count, IntersectVisitor visitor, int compressedDim) throws IOException {
     // the byte at `compressedByteOffset` is compressed using run-length compression,
     // other suffix bytes are stored verbatim
@@ -664,7 +752,7 @@ public final class BKDReader extends PointValues implements Accountable {
 
   private int readCompressedDim(IndexInput in) throws IOException {
     int compressedDim = in.readByte();
-    if (compressedDim < -1 || compressedDim >= numDims) {
+    if (compressedDim < (version < BKDWriter.VERSION_LOW_CARDINALITY_LEAVES ? -1 : -2) || compressedDim >= numDims) {
       throw new CorruptIndexException("Got compressedDim="+compressedDim, in);
     }
     return compressedDim;
@@ -804,7 +892,7 @@ public final class BKDReader extends PointValues implements Accountable {
   @Override
   public long ramBytesUsed() {
     if (packedIndex != null) {
-      return packedIndex.length;
+      return packedIndexOffHeap ? 0 : packedIndex.length();
     } else {
       return RamUsageEstimator.sizeOf(splitPackedValues) + RamUsageEstimator.sizeOf(leafBlockFPs);
     }
@@ -843,4 +931,53 @@ public final class BKDReader extends PointValues implements Accountable {
   public boolean isLeafNode(int nodeID) {
     return nodeID >= leafNodeOffset;
   }
+
+  /** Iterates over a strictly increasing slice of an array of doc IDs. */
+  private static final class DocIdsIterator extends DocIdSetIterator {
+    private final int[] docIDs;
+    private int upto, end;
+    private int doc = -1;
+
+    DocIdsIterator(int[] docIDs) {
+      this.docIDs = docIDs;
+    }
+
+    static boolean isStrictlySorted(int[] docIDs, int from, int to) {
+      for (int i = from + 1; i < to; ++i) {
+        if (docIDs[i - 1] >= docIDs[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void reset(int from, int to) {
+      upto = from;
+      end = to;
+      doc = -1;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (upto == end) {
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = docIDs[upto++];
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      return slowAdvance(target);
+    }
+
+    @Override
+    public long cost() {
+      return end - upto;
+    }
+  }
 }
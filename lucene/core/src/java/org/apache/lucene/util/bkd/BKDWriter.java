@@ -20,7 +20,6 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.function.IntFunction;
 
@@ -39,14 +38,11 @@ import org.apache.lucene.store.RAMOutputStream;
 import org.apache.lucene.store.TrackingDirectoryWrapper;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.BytesRefComparator;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
-import org.apache.lucene.util.LongBitSet;
-import org.apache.lucene.util.MSBRadixSorter;
 import org.apache.lucene.util.NumericUtils;
-import org.apache.lucene.util.OfflineSorter;
 import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.RadixSelector;
 import org.apache.lucene.util.StringHelper;
 
 // TODO
@@ -71,8 +67,10 @@ import org.apache.lucene.util.StringHelper;
  *  <p>
  *  See <a href="https://www.cs.duke.edu/~pankaj/publications/papers/bkd-sstd.pdf">this paper</a> for details.
  *
- *  <p>This consumes heap during writing: it allocates a <code>LongBitSet(numPoints)</code>,
- *  and then uses up to the specified {@code maxMBSortInHeap} heap space for writing.
+ *  <p>This consumes heap during writing: it uses up to the specified {@code maxMBSortInHeap} heap space for writing.
+ *  Points that fit in heap are partitioned in place; otherwise they are spilled to a temp file, and each node
+ *  selects its split value with sequential passes over its points before writing them to a left and a right
+ *  partition, until few enough points remain to switch to heap.
  *
  *  <p>
  *  <b>NOTE</b>: This can write at most Integer.MAX_VALUE * <code>maxPointsInLeafNode</code> total points.
@@ -87,9 +85,10 @@ public class BKDWriter implements Closeable {
   public static final int VERSION_COMPRESSED_VALUES = 2;
   public static final int VERSION_IMPLICIT_SPLIT_DIM_1D = 3;
   public static final int VERSION_PACKED_INDEX = 4;
-  public static final int VERSION_CURRENT = VERSION_PACKED_INDEX;
+  public static final int VERSION_LOW_CARDINALITY_LEAVES = 5;
+  public static final int VERSION_CURRENT = VERSION_LOW_CARDINALITY_LEAVES;
 
-  /** How many bytes each docs takes in the fixed-width offline format */
+  /** How many bytes each docs takes in the fixed-width offline format: the packed value and the doc ID */
   private final int bytesPerDoc;
 
   /** Default maximum number of point in each leaf block */
@@ -138,32 +137,21 @@ public class BKDWriter implements Closeable {
 
   protected long pointCount;
 
-  /** true if we have so many values that we must write ords using long (8 bytes) instead of int (4 bytes) */
-  protected final boolean longOrds;
-
   /** An upper bound on how many points the caller will add (includes deletions) */
   private final long totalPointCount;
 
-  /** True if every document has at most one value.  We specialize this case by not bothering to store the ord since it's redundant with docID.  */
-  protected final boolean singleValuePerDoc;
-
-  /** How much heap OfflineSorter is allowed to use */
-  protected final OfflineSorter.BufferSize offlineSorterBufferMB;
-
-  /** How much heap OfflineSorter is allowed to use */
-  protected final int offlineSorterMaxTempFiles;
-
   private final int maxDoc;
 
+  /** @deprecated Points are partitioned on their value and doc ID, so whether documents have a single value does
+   *  not matter anymore; use {@link #BKDWriter(int, Directory, String, int, int, int, double, long)} instead. */
+  @Deprecated
   public BKDWriter(int maxDoc, Directory tempDir, String tempFileNamePrefix, int numDims, int bytesPerDim,
                    int maxPointsInLeafNode, double maxMBSortInHeap, long totalPointCount, boolean singleValuePerDoc) throws IOException {
-    this(maxDoc, tempDir, tempFileNamePrefix, numDims, bytesPerDim, maxPointsInLeafNode, maxMBSortInHeap, totalPointCount, singleValuePerDoc,
-         totalPointCount > Integer.MAX_VALUE, Math.max(1, (long) maxMBSortInHeap), OfflineSorter.MAX_TEMPFILES);
+    this(maxDoc, tempDir, tempFileNamePrefix, numDims, bytesPerDim, maxPointsInLeafNode, maxMBSortInHeap, totalPointCount);
   }
 
-  protected BKDWriter(int maxDoc, Directory tempDir, String tempFileNamePrefix, int numDims, int bytesPerDim,
-                      int maxPointsInLeafNode, double maxMBSortInHeap, long totalPointCount,
-                      boolean singleValuePerDoc, boolean longOrds, long offlineSorterBufferMB, int offlineSorterMaxTempFiles) throws IOException {
+  public BKDWriter(int maxDoc, Directory tempDir, String tempFileNamePrefix, int numDims, int bytesPerDim,
+                   int maxPointsInLeafNode, double maxMBSortInHeap, long totalPointCount) throws IOException {
     verifyParams(numDims, maxPointsInLeafNode, maxMBSortInHeap, totalPointCount);
     // We use tracking dir to deal with removing files on exception, so each place that
     // creates temp files doesn't need crazy try/finally/sucess logic:
@@ -174,8 +162,6 @@ public class BKDWriter implements Closeable {
     this.bytesPerDim = bytesPerDim;
     this.totalPointCount = totalPointCount;
     this.maxDoc = maxDoc;
-    this.offlineSorterBufferMB = OfflineSorter.BufferSize.megabytes(offlineSorterBufferMB);
-    this.offlineSorterMaxTempFiles = offlineSorterMaxTempFiles;
     docsSeen = new FixedBitSet(maxDoc);
     packedBytesLength = numDims * bytesPerDim;
 
@@ -187,32 +173,20 @@ public class BKDWriter implements Closeable {
     minPackedValue = new byte[packedBytesLength];
     maxPackedValue = new byte[packedBytesLength];
 
-    // If we may have more than 1+Integer.MAX_VALUE values, then we must encode ords with long (8 bytes), else we can use int (4 bytes).
-    this.longOrds = longOrds;
-
-    this.singleValuePerDoc = singleValuePerDoc;
-
-    // dimensional values (numDims * bytesPerDim) + ord (int or long) + docID (int)
-    if (singleValuePerDoc) {
-      // Lucene only supports up to 2.1 docs, so we better not need longOrds in this case:
-      assert longOrds == false;
-      bytesPerDoc = packedBytesLength + Integer.BYTES;
-    } else if (longOrds) {
-      bytesPerDoc = packedBytesLength + Long.BYTES + Integer.BYTES;
-    } else {
-      bytesPerDoc = packedBytesLength + Integer.BYTES + Integer.BYTES;
-    }
+    // dimensional values (numDims * bytesPerDim) + docID (int); no ords are needed since points are only ever
+    // partitioned on their value in the split dimension, tie-broken by doc ID:
+    bytesPerDoc = packedBytesLength + Integer.BYTES;
 
     // As we recurse, we compute temporary partitions of the data, halving the
     // number of points at each recursion.  Once there are few enough points,
-    // we can switch to sorting in heap instead of offline (on disk).  At any
-    // time in the recursion, we hold the number of points at that level, plus
-    // all recursive halves (i.e. 16 + 8 + 4 + 2) so the memory usage is 2X
-    // what that level would consume, so we multiply by 0.5 to convert from
-    // bytes to points here.  Each dimension has its own sorted partition, so
-    // we must divide by numDims as wel.
+    // we can switch to partitioning in heap instead of offline (on disk).  At
+    // any time in the recursion, we may hold both the left and the right
+    // partition in heap, so the memory usage is 2X what that level would
+    // consume, so we multiply by 0.5 to convert from bytes to points here.
+    // Only the split dimension is partitioned at each level, so there is a
+    // single copy of the points regardless of the number of dimensions.
 
-    maxPointsSortInHeap = (int) (0.5 * (maxMBSortInHeap * 1024 * 1024) / (bytesPerDoc * numDims));
+    maxPointsSortInHeap = (int) (0.5 * (maxMBSortInHeap * 1024 * 1024) / bytesPerDoc);
 
     // Finally, we must be able to hold at least the leaf node in heap during build:
     if (maxPointsSortInHeap < maxPointsInLeafNode) {
@@ -220,7 +194,7 @@ public class BKDWriter implements Closeable {
     }
 
     // We write first maxPointsSortInHeap in heap, then cutover to offline for additional points:
-    heapPointWriter = new HeapPointWriter(16, maxPointsSortInHeap, packedBytesLength, longOrds, singleValuePerDoc);
+    heapPointWriter = newHeapPointWriter(16, maxPointsSortInHeap);
 
     this.maxMBSortInHeap = maxMBSortInHeap;
   }
@@ -245,11 +219,11 @@ public class BKDWriter implements Closeable {
     }
   }
 
-  /** If the current segment has too many points then we spill over to temp files / offline sort. */
+  /** If the current segment has too many points then we spill over to temp files. */
   private void spillToOffline() throws IOException {
 
-    // For each .add we just append to this input file, then in .finish we sort this input and resursively build the tree:
-    offlinePointWriter = new OfflinePointWriter(tempDir, tempFileNamePrefix, packedBytesLength, longOrds, "spill", 0, singleValuePerDoc);
+    // For each .add we just append to this input file, then in .finish we recursively partition it to build the tree:
+    offlinePointWriter = newOfflinePointWriter("spill", 0);
     tempInput = offlinePointWriter.out;
     PointReader reader = heapPointWriter.getReader(0, pointCount);
     for(int i=0;i<pointCount;i++) {
@@ -749,178 +723,6 @@ public class BKDWriter implements Closeable {
     }
   }
 
-  // TODO: if we fixed each partition step to just record the file offset at the "split point", we could probably handle variable length
-  // encoding and not have our own ByteSequencesReader/Writer
-
-  /** Sort the heap writer by the specified dim */
-  private void sortHeapPointWriter(final HeapPointWriter writer, int dim) {
-    final int pointCount = Math.toIntExact(this.pointCount);
-    // Tie-break by docID:
-
-    // No need to tie break on ord, for the case where the same doc has the same value in a given dimension indexed more than once: it
-    // can't matter at search time since we don't write ords into the index:
-    new MSBRadixSorter(bytesPerDim + Integer.BYTES) {
-
-      @Override
-      protected int byteAt(int i, int k) {
-        assert k >= 0;
-        if (k < bytesPerDim) {
-          // dim bytes
-          int block = i / writer.valuesPerBlock;
-          int index = i % writer.valuesPerBlock;
-          return writer.blocks.get(block)[index * packedBytesLength + dim * bytesPerDim + k] & 0xff;
-        } else {
-          // doc id
-          int s = 3 - (k - bytesPerDim);
-          return (writer.docIDs[i] >>> (s * 8)) & 0xff;
-        }
-      }
-
-      @Override
-      protected void swap(int i, int j) {
-        int docID = writer.docIDs[i];
-        writer.docIDs[i] = writer.docIDs[j];
-        writer.docIDs[j] = docID;
-
-        if (singleValuePerDoc == false) {
-          if (longOrds) {
-            long ord = writer.ordsLong[i];
-            writer.ordsLong[i] = writer.ordsLong[j];
-            writer.ordsLong[j] = ord;
-          } else {
-            int ord = writer.ords[i];
-            writer.ords[i] = writer.ords[j];
-            writer.ords[j] = ord;
-          }
-        }
-
-        byte[] blockI = writer.blocks.get(i / writer.valuesPerBlock);
-        int indexI = (i % writer.valuesPerBlock) * packedBytesLength;
-        byte[] blockJ = writer.blocks.get(j / writer.valuesPerBlock);
-        int indexJ = (j % writer.valuesPerBlock) * packedBytesLength;
-
-        // scratch1 = values[i]
-        System.arraycopy(blockI, indexI, scratch1, 0, packedBytesLength);
-        // values[i] = values[j]
-        System.arraycopy(blockJ, indexJ, blockI, indexI, packedBytesLength);
-        // values[j] = scratch1
-        System.arraycopy(scratch1, 0, blockJ, indexJ, packedBytesLength);
-      }
-
-    }.sort(0, pointCount);
-  }
-
-  // useful for debugging:
-  /*
-  private void printPathSlice(String desc, PathSlice slice, int dim) throws IOException {
-    System.out.println("    " + desc + " dim=" + dim + " count=" + slice.count + ":");    
-    try(PointReader r = slice.writer.getReader(slice.start, slice.count)) {
-      int count = 0;
-      while (r.next()) {
-        byte[] v = r.packedValue();
-        System.out.println("      " + count + ": " + new BytesRef(v, dim*bytesPerDim, bytesPerDim));
-        count++;
-        if (count == slice.count) {
-          break;
-        }
-      }
-    }
-  }
-  */
-
-  private PointWriter sort(int dim) throws IOException {
-    assert dim >= 0 && dim < numDims;
-
-    if (heapPointWriter != null) {
-
-      assert tempInput == null;
-
-      // We never spilled the incoming points to disk, so now we sort in heap:
-      HeapPointWriter sorted;
-
-      if (dim == 0) {
-        // First dim can re-use the current heap writer
-        sorted = heapPointWriter;
-      } else {
-        // Subsequent dims need a private copy
-        sorted = new HeapPointWriter((int) pointCount, (int) pointCount, packedBytesLength, longOrds, singleValuePerDoc);
-        sorted.copyFrom(heapPointWriter);
-      }
-
-      //long t0 = System.nanoTime();
-      sortHeapPointWriter(sorted, dim);
-      //long t1 = System.nanoTime();
-      //System.out.println("BKD: sort took " + ((t1-t0)/1000000.0) + " msec");
-
-      sorted.close();
-      return sorted;
-    } else {
-
-      // Offline sort:
-      assert tempInput != null;
-
-      final int offset = bytesPerDim * dim;
-
-      Comparator<BytesRef> cmp;
-      if (dim == numDims - 1) {
-        // in that case the bytes for the dimension and for the doc id are contiguous,
-        // so we don't need a branch
-        cmp = new BytesRefComparator(bytesPerDim + Integer.BYTES) {
-          @Override
-          protected int byteAt(BytesRef ref, int i) {
-            return ref.bytes[ref.offset + offset + i] & 0xff;
-          }
-        };
-      } else {
-        cmp = new BytesRefComparator(bytesPerDim + Integer.BYTES) {
-          @Override
-          protected int byteAt(BytesRef ref, int i) {
-            if (i < bytesPerDim) {
-              return ref.bytes[ref.offset + offset + i] & 0xff;
-            } else {
-              return ref.bytes[ref.offset + packedBytesLength + i - bytesPerDim] & 0xff;
-            }
-          }
-        };
-      }
-
-      OfflineSorter sorter = new OfflineSorter(tempDir, tempFileNamePrefix + "_bkd" + dim, cmp, offlineSorterBufferMB, offlineSorterMaxTempFiles, bytesPerDoc, null, 0) {
-
-          /** We write/read fixed-byte-width file that {@link OfflinePointReader} can read. */
-          @Override
-          protected ByteSequencesWriter getWriter(IndexOutput out, long count) {
-            return new ByteSequencesWriter(out) {
-              @Override
-              public void write(byte[] bytes, int off, int len) throws IOException {
-                assert len == bytesPerDoc: "len=" + len + " bytesPerDoc=" + bytesPerDoc;
-                out.writeBytes(bytes, off, len);
-              }
-            };
-          }
-
-          /** We write/read fixed-byte-width file that {@link OfflinePointReader} can read. */
-          @Override
-          protected ByteSequencesReader getReader(ChecksumIndexInput in, String name) throws IOException {
-            return new ByteSequencesReader(in, name) {
-              final BytesRef scratch = new BytesRef(new byte[bytesPerDoc]);
-              @Override
-              public BytesRef next() throws IOException {
-                if (in.getFilePointer() >= end) {
-                  return null;
-                }
-                in.readBytes(scratch.bytes, 0, bytesPerDoc);
-                return scratch;
-              }
-            };
-          }
-        };
-
-      String name = sorter.sort(tempInput.getName());
-
-      return new OfflinePointWriter(tempDir, name, packedBytesLength, pointCount, longOrds, singleValuePerDoc);
-    }
-  }
-
   private void checkMaxLeafNodeCount(int numLeaves) {
     if ((1+bytesPerDim) * (long) numLeaves > ArrayUtil.MAX_ARRAY_LENGTH) {
       throw new IllegalStateException("too many nodes; increase maxPointsInLeafNode (currently " + maxPointsInLeafNode + ") and reindex");
@@ -946,17 +748,6 @@ public class BKDWriter implements Closeable {
       throw new IllegalStateException("must index at least one point");
     }
 
-    LongBitSet ordBitSet;
-    if (numDims > 1) {
-      if (singleValuePerDoc) {
-        ordBitSet = new LongBitSet(maxDoc);
-      } else {
-        ordBitSet = new LongBitSet(pointCount);
-      }
-    } else {
-      ordBitSet = null;
-    }
-
     long countPerLeaf = pointCount;
     long innerNodeCount = 1;
 
@@ -981,53 +772,45 @@ public class BKDWriter implements Closeable {
     // Make sure the math above "worked":
     assert pointCount / numLeaves <= maxPointsInLeafNode: "pointCount=" + pointCount + " numLeaves=" + numLeaves + " maxPointsInLeafNode=" + maxPointsInLeafNode;
 
-    // Sort all docs once by each dimension:
-    PathSlice[] sortedPointWriters = new PathSlice[numDims];
-
-    // This is only used on exception; on normal code paths we close all files we opened:
-    List<Closeable> toCloseHeroically = new ArrayList<>();
+    final int[] parentSplits = new int[numDims];
+    final int[] spareDocIds = new int[maxPointsInLeafNode];
 
     boolean success = false;
     try {
-      //long t0 = System.nanoTime();
-      for(int dim=0;dim<numDims;dim++) {
-        sortedPointWriters[dim] = new PathSlice(sort(dim), 0, pointCount);
-      }
-      //long t1 = System.nanoTime();
-      //System.out.println("sort time: " + ((t1-t0)/1000000.0) + " msec");
+      if (heapPointWriter != null) {
+        assert tempInput == null;
 
-      if (tempInput != null) {
-        tempDir.deleteFile(tempInput.getName());
-        tempInput = null;
-      } else {
-        assert heapPointWriter != null;
+        // We never spilled the incoming points to disk, so we partition them in place, in heap:
+        HeapPointWriter points = heapPointWriter;
         heapPointWriter = null;
-      }
-
-      final int[] parentSplits = new int[numDims];
-      build(1, numLeaves, sortedPointWriters,
-            ordBitSet, out,
-            minPackedValue, maxPackedValue,
-            parentSplits,
-            splitPackedValues,
-            leafBlockFPs,
-            toCloseHeroically);
-      assert Arrays.equals(parentSplits, new int[numDims]);
+        build(1, numLeaves, new HeapMutablePointValues(points, Math.toIntExact(pointCount)), 0, Math.toIntExact(pointCount), out,
+              minPackedValue, maxPackedValue,
+              parentSplits,
+              splitPackedValues,
+              leafBlockFPs,
+              spareDocIds);
+      } else {
+        assert tempInput != null;
 
-      for(PathSlice slice : sortedPointWriters) {
-        slice.writer.destroy();
+        // The offline build takes ownership of the spill file and deletes it once it is partitioned:
+        tempInput = null;
+        build(1, numLeaves, offlinePointWriter, pointCount, out,
+              minPackedValue, maxPackedValue,
+              parentSplits,
+              splitPackedValues,
+              leafBlockFPs,
+              spareDocIds);
+        offlinePointWriter = null;
       }
+      assert Arrays.equals(parentSplits, new int[numDims]);
 
       // If no exception, we should have cleaned everything up:
       assert tempDir.getCreatedFiles().isEmpty();
-      //long t2 = System.nanoTime();
-      //System.out.println("write time: " + ((t2-t1)/1000000.0) + " msec");
 
       success = true;
     } finally {
       if (success == false) {
         IOUtils.deleteFilesIgnoringExceptions(tempDir, tempDir.getCreatedFiles());
-        IOUtils.closeWhileHandlingException(toCloseHeroically);
       }
     }
 
@@ -1277,8 +1060,36 @@ public class BKDWriter implements Closeable {
       out.writeByte((byte) -1);
     } else {
       assert commonPrefixLengths[sortedDim] < bytesPerDim;
-      out.writeByte((byte) sortedDim);
       int compressedByteOffset = sortedDim * bytesPerDim + commonPrefixLengths[sortedDim];
+
+      // Count the runs of the byte that is run-length compressed, and the runs of equal values, to pick the smaller encoding:
+      int numRunLens = 0;
+      int leafCardinality = 1;
+      for (int i = 0; i < count; ) {
+        int runLen = runLen(packedValues, i, Math.min(i + 0xff, count), compressedByteOffset);
+        numRunLens++;
+        i += runLen;
+      }
+      BytesRef previous = packedValues.apply(0);
+      System.arraycopy(previous.bytes, previous.offset, scratch1, 0, packedBytesLength);
+      for (int i = 1; i < count; ++i) {
+        BytesRef ref = packedValues.apply(i);
+        if (StringHelper.compare(packedBytesLength, scratch1, 0, ref.bytes, ref.offset) != 0) {
+          leafCardinality++;
+          System.arraycopy(ref.bytes, ref.offset, scratch1, 0, packedBytesLength);
+        }
+      }
+      final int suffixBytes = packedBytesLength - prefixLenSum;
+      final long highCardinalityCost = (long) count * (suffixBytes - 1) + 2L * numRunLens;
+      // assume one byte per run length:
+      final long lowCardinalityCost = (long) leafCardinality * (suffixBytes + 1);
+      if (lowCardinalityCost < highCardinalityCost) {
+        out.writeByte((byte) -2);
+        writeLowCardinalityLeafBlockPackedValues(out, commonPrefixLengths, count, packedValues);
+        return;
+      }
+
+      out.writeByte((byte) sortedDim);
       commonPrefixLengths[sortedDim]++;
       for (int i = 0; i < count; ) {
         // do run-length compression on the byte at compressedByteOffset
@@ -1295,6 +1106,33 @@ public class BKDWriter implements Closeable {
     }
   }
 
+  /** Writes every run of equal values once, preceded by the length of the run, so that readers can visit all
+   *  documents of a run at once. */
+  private void writeLowCardinalityLeafBlockPackedValues(DataOutput out, int[] commonPrefixLengths, int count, IntFunction<BytesRef> packedValues) throws IOException {
+    BytesRef value = packedValues.apply(0);
+    System.arraycopy(value.bytes, value.offset, scratch1, 0, packedBytesLength);
+    int runLen = 1;
+    for (int i = 1; i <= count; ++i) {
+      if (i < count) {
+        BytesRef ref = packedValues.apply(i);
+        if (StringHelper.compare(packedBytesLength, scratch1, 0, ref.bytes, ref.offset) == 0) {
+          runLen++;
+          continue;
+        }
+      }
+      out.writeVInt(runLen);
+      for(int dim=0;dim<numDims;dim++) {
+        int prefix = commonPrefixLengths[dim];
+        out.writeBytes(scratch1, dim*bytesPerDim + prefix, bytesPerDim - prefix);
+      }
+      if (i < count) {
+        value = packedValues.apply(i);
+        System.arraycopy(value.bytes, value.offset, scratch1, 0, packedBytesLength);
+        runLen = 1;
+      }
+    }
+  }
+
   private void writeLeafBlockPackedValuesRange(DataOutput out, int[] commonPrefixLengths, int start, int end, IntFunction<BytesRef> packedValues) throws IOException {
     for (int i = start; i < end; ++i) {
       BytesRef ref = packedValues.apply(i);
@@ -1342,24 +1180,6 @@ public class BKDWriter implements Closeable {
     }
   }
 
-  /** Sliced reference to points in an OfflineSorter.ByteSequencesWriter file. */
-  private static final class PathSlice {
-    final PointWriter writer;
-    final long start;
-    final long count;
-
-    public PathSlice(PointWriter writer, long start, long count) {
-      this.writer = writer;
-      this.start = start;
-      this.count = count;
-    }
-
-    @Override
-    public String toString() {
-      return "PathSlice(start=" + start + " count=" + count + " writer=" + writer + ")";
-    }
-  }
-
   /** Called on exception, to check whether the checksum is also corrupt in this source, and add that
    *  information (checksum matched or didn't) as a suppressed exception. */
   private void verifyChecksum(Throwable priorException, PointWriter writer) throws IOException {
@@ -1379,31 +1199,6 @@ public class BKDWriter implements Closeable {
     }
   }
 
-  /** Marks bits for the ords (points) that belong in the right sub tree (those docs that have values >= the splitValue). */
-  private byte[] markRightTree(long rightCount, int splitDim, PathSlice source, LongBitSet ordBitSet) throws IOException {
-
-    // Now we mark ords that fall into the right half, so we can partition on all other dims that are not the split dim:
-
-    // Read the split value, then mark all ords in the right tree (larger than the split value):
-
-    // TODO: find a way to also checksum this reader?  If we changed to markLeftTree, and scanned the final chunk, it could work?
-    try (PointReader reader = source.writer.getReader(source.start + source.count - rightCount, rightCount)) {
-      boolean result = reader.next();
-      assert result: "rightCount=" + rightCount + " source.count=" + source.count + " source.writer=" + source.writer;
-      System.arraycopy(reader.packedValue(), splitDim*bytesPerDim, scratch1, 0, bytesPerDim);
-      if (numDims > 1) {
-        assert ordBitSet.get(reader.ord()) == false;
-        ordBitSet.set(reader.ord());
-        // Subtract 1 from rightCount because we already did the first value above (so we could record the split value):
-        reader.markOrds(rightCount-1, ordBitSet);
-      }
-    } catch (Throwable t) {
-      verifyChecksum(t, source.writer);
-    }
-
-    return scratch1;
-  }
-
   /** Called only in assert */
   private boolean valueInBounds(BytesRef packedValue, byte[] minPackedValue, byte[] maxPackedValue) {
     for(int dim=0;dim<numDims;dim++) {
@@ -1457,25 +1252,141 @@ public class BKDWriter implements Closeable {
   }
 
   /** Pull a partition back into heap once the point count is low enough while recursing. */
-  private PathSlice switchToHeap(PathSlice source, List<Closeable> toCloseHeroically) throws IOException {
-    int count = Math.toIntExact(source.count);
-    // Not inside the try because we don't want to close it here:
-    PointReader reader = source.writer.getSharedReader(source.start, source.count, toCloseHeroically);
-    try (PointWriter writer = new HeapPointWriter(count, count, packedBytesLength, longOrds, singleValuePerDoc)) {
-      for(int i=0;i<count;i++) {
+  private HeapPointWriter switchToHeap(PointWriter source, long count) throws IOException {
+    int size = Math.toIntExact(count);
+    try (PointReader reader = source.getReader(0, count);
+         HeapPointWriter writer = newHeapPointWriter(size, size)) {
+      for(int i=0;i<size;i++) {
         boolean hasNext = reader.next();
         assert hasNext;
         writer.append(reader.packedValue(), reader.ord(), reader.docID());
       }
-      return new PathSlice(writer, 0, count);
+      return writer;
     } catch (Throwable t) {
-      verifyChecksum(t, source.writer);
+      verifyChecksum(t, source);
 
       // Dead code but javac disagrees:
       return null;
     }
   }
 
+  /** Selects the point that would be at index {@code k} if all points were sorted by their value in dimension
+   *  {@code splitDim}, then by doc ID, writes its key (the value followed by the big-endian doc ID) into
+   *  {@code splitKey}, and returns the number of points that sort strictly before it.  Rather than sorting the
+   *  points, each sequential pass computes the histogram of the next byte of the keys that share the prefix selected
+   *  so far, until there are few enough such points to select among them in heap. */
+  private long selectSplitKey(PointWriter points, long count, int splitDim, int commonPrefixLen, long k,
+                              byte[] minPackedValue, byte[] splitKey) throws IOException {
+    final int offset = splitDim * bytesPerDim;
+    final int keyLength = bytesPerDim + Integer.BYTES;
+
+    // All points share the common prefix of the min and max values:
+    System.arraycopy(minPackedValue, offset, splitKey, 0, commonPrefixLen);
+
+    long lessThanCount = 0;
+    long candidateCount = count;
+    int prefixLen = commonPrefixLen;
+    final long[] histogram = new long[256];
+    while (prefixLen < keyLength && candidateCount > maxPointsSortInHeap) {
+      Arrays.fill(histogram, 0);
+      try (PointReader reader = points.getReader(0, count)) {
+        for(long i=0;i<count;i++) {
+          boolean hasNext = reader.next();
+          assert hasNext;
+          byte[] packedValue = reader.packedValue();
+          int docID = reader.docID();
+          if (keyStartsWith(packedValue, docID, offset, splitKey, commonPrefixLen, prefixLen)) {
+            histogram[keyByteAt(packedValue, docID, offset, prefixLen)]++;
+          }
+        }
+      } catch (Throwable t) {
+        verifyChecksum(t, points);
+      }
+
+      // Narrow down to the bucket that holds the k-th point:
+      int bucket = 0;
+      while (lessThanCount + histogram[bucket] <= k) {
+        lessThanCount += histogram[bucket];
+        bucket++;
+      }
+      splitKey[prefixLen++] = (byte) bucket;
+      candidateCount = histogram[bucket];
+    }
+
+    if (prefixLen < keyLength) {
+      // Load the remaining bytes of the candidate keys in heap and select among them:
+      final int suffixLen = keyLength - prefixLen;
+      final int numCandidates = Math.toIntExact(candidateCount);
+      final byte[] candidates = new byte[numCandidates * suffixLen];
+      int upto = 0;
+      try (PointReader reader = points.getReader(0, count)) {
+        for(long i=0;i<count;i++) {
+          boolean hasNext = reader.next();
+          assert hasNext;
+          byte[] packedValue = reader.packedValue();
+          int docID = reader.docID();
+          if (keyStartsWith(packedValue, docID, offset, splitKey, commonPrefixLen, prefixLen)) {
+            for(int j=prefixLen;j<keyLength;j++) {
+              candidates[upto++] = (byte) keyByteAt(packedValue, docID, offset, j);
+            }
+          }
+        }
+      } catch (Throwable t) {
+        verifyChecksum(t, points);
+      }
+      assert upto == candidates.length;
+
+      final int index = Math.toIntExact(k - lessThanCount);
+      final byte[] scratch = new byte[suffixLen];
+      new RadixSelector(suffixLen) {
+
+        @Override
+        protected int byteAt(int i, int j) {
+          return Byte.toUnsignedInt(candidates[i * suffixLen + j]);
+        }
+
+        @Override
+        protected void swap(int i, int j) {
+          System.arraycopy(candidates, i * suffixLen, scratch, 0, suffixLen);
+          System.arraycopy(candidates, j * suffixLen, candidates, i * suffixLen, suffixLen);
+          System.arraycopy(scratch, 0, candidates, j * suffixLen, suffixLen);
+        }
+      }.select(0, numCandidates, index);
+      System.arraycopy(candidates, index * suffixLen, splitKey, prefixLen, suffixLen);
+
+      for(int i=0;i<numCandidates;i++) {
+        if (StringHelper.compare(suffixLen, candidates, i * suffixLen, splitKey, prefixLen) < 0) {
+          lessThanCount++;
+        }
+      }
+    }
+
+    assert lessThanCount <= k;
+    return lessThanCount;
+  }
+
+  /** Returns the {@code k}-th byte of the key that points are partitioned on offline: their value in the split
+   *  dimension that starts at {@code offset}, followed by their big-endian doc ID. */
+  private int keyByteAt(byte[] packedValue, int docID, int offset, int k) {
+    if (k < bytesPerDim) {
+      return Byte.toUnsignedInt(packedValue[offset + k]);
+    } else {
+      int shift = (Integer.BYTES - 1 - (k - bytesPerDim)) << 3;
+      return (docID >>> shift) & 0xff;
+    }
+  }
+
+  /** Returns true if bytes {@code from} (inclusive) to {@code to} (exclusive) of the key of the point are equal to
+   *  the same bytes of {@code key}. */
+  private boolean keyStartsWith(byte[] packedValue, int docID, int offset, byte[] key, int from, int to) {
+    for(int k=from;k<to;k++) {
+      if (keyByteAt(packedValue, docID, offset, k) != Byte.toUnsignedInt(key[k])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /* Recursively reorders the provided reader and writes the bkd-tree on the fly; this method is used
    * when we are writing a new segment directly from IndexWriter's indexing buffer (MutablePointsReader). */
   private void build(int nodeID, int leafNodeOffset,
@@ -1615,219 +1526,121 @@ public class BKDWriter implements Closeable {
     }
   }
 
-  /** The array (sized numDims) of PathSlice describe the cell we have currently recursed to.
-  /*  This method is used when we are merging previously written segments, in the numDims > 1 case. */
+  /* Recursively partitions the provided points and writes the bkd-tree on the fly; this method is used when the
+   * points added with BKDWriter#add did not fit in heap.  Instead of sorting all points once per dimension up front,
+   * each node selects the median of its split dimension with a few sequential passes over its points and writes
+   * them to a left and a right partition, until there are few enough points to partition them in place in heap. */
   private void build(int nodeID, int leafNodeOffset,
-                     PathSlice[] slices,
-                     LongBitSet ordBitSet,
+                     PointWriter points, long count,
                      IndexOutput out,
                      byte[] minPackedValue, byte[] maxPackedValue,
                      int[] parentSplits,
                      byte[] splitPackedValues,
                      long[] leafBlockFPs,
-                     List<Closeable> toCloseHeroically) throws IOException {
-
-    for(PathSlice slice : slices) {
-      assert slice.count == slices[0].count;
-    }
-    
-    if (numDims == 1 && slices[0].writer instanceof OfflinePointWriter && slices[0].count <= maxPointsSortInHeap) {
-      // Special case for 1D, to cutover to heap once we recurse deeply enough:
-      slices[0] = switchToHeap(slices[0], toCloseHeroically);
-    }
-
-    if (nodeID >= leafNodeOffset) {
-
-      // Leaf node: write block
-      // We can write the block in any order so by default we write it sorted by the dimension that has the
-      // least number of unique bytes at commonPrefixLengths[dim], which makes compression more efficient
-      int sortedDim = 0;
-      int sortedDimCardinality = Integer.MAX_VALUE;
-
-      for (int dim=0;dim<numDims;dim++) {
-        if (slices[dim].writer instanceof HeapPointWriter == false) {
-          // Adversarial cases can cause this, e.g. very lopsided data, all equal points, such that we started
-          // offline, but then kept splitting only in one dimension, and so never had to rewrite into heap writer
-          slices[dim] = switchToHeap(slices[dim], toCloseHeroically);
-        }
-
-        PathSlice source = slices[dim];
-
-        HeapPointWriter heapSource = (HeapPointWriter) source.writer;
-
-        // Find common prefix by comparing first and last values, already sorted in this dimension:
-        heapSource.readPackedValue(Math.toIntExact(source.start), scratch1);
-        heapSource.readPackedValue(Math.toIntExact(source.start + source.count - 1), scratch2);
-
-        int offset = dim * bytesPerDim;
-        commonPrefixLengths[dim] = bytesPerDim;
-        for(int j=0;j<bytesPerDim;j++) {
-          if (scratch1[offset+j] != scratch2[offset+j]) {
-            commonPrefixLengths[dim] = j;
-            break;
-          }
-        }
-
-        int prefix = commonPrefixLengths[dim];
-        if (prefix < bytesPerDim) {
-          int cardinality = 1;
-          byte previous = scratch1[offset + prefix];
-          for (long i = 1; i < source.count; ++i) {
-            heapSource.readPackedValue(Math.toIntExact(source.start + i), scratch2);
-            byte b = scratch2[offset + prefix];
-            assert Byte.toUnsignedInt(previous) <= Byte.toUnsignedInt(b);
-            if (b != previous) {
-              cardinality++;
-              previous = b;
-            }
-          }
-          assert cardinality <= 256;
-          if (cardinality < sortedDimCardinality) {
-            sortedDim = dim;
-            sortedDimCardinality = cardinality;
-          }
-        }
-      }
-
-      PathSlice source = slices[sortedDim];
-
-      // We ensured that maxPointsSortInHeap was >= maxPointsInLeafNode, so we better be in heap at this point:
-      HeapPointWriter heapSource = (HeapPointWriter) source.writer;
-
-      // Save the block file pointer:
-      leafBlockFPs[nodeID - leafNodeOffset] = out.getFilePointer();
-      //System.out.println("  write leaf block @ fp=" + out.getFilePointer());
-
-      // Write docIDs first, as their own chunk, so that at intersect time we can add all docIDs w/o
-      // loading the values:
-      int count = Math.toIntExact(source.count);
-      assert count > 0: "nodeID=" + nodeID + " leafNodeOffset=" + leafNodeOffset;
-      writeLeafBlockDocs(out, heapSource.docIDs, Math.toIntExact(source.start), count);
-
-      // TODO: minor opto: we don't really have to write the actual common prefixes, because BKDReader on recursing can regenerate it for us
-      // from the index, much like how terms dict does so from the FST:
-
-      // Write the common prefixes:
-      writeCommonPrefixes(out, commonPrefixLengths, scratch1);
-
-      // Write the full values:
-      IntFunction<BytesRef> packedValues = new IntFunction<BytesRef>() {
-        final BytesRef scratch = new BytesRef();
-
-        {
-          scratch.length = packedBytesLength;
-        }
-
-        @Override
-        public BytesRef apply(int i) {
-          heapSource.getPackedValueSlice(Math.toIntExact(source.start + i), scratch);
-          return scratch;
-        }
-      };
-      assert valuesInOrderAndBounds(count, sortedDim, minPackedValue, maxPackedValue, packedValues,
-          heapSource.docIDs, Math.toIntExact(source.start));
-      writeLeafBlockPackedValues(out, commonPrefixLengths, count, sortedDim, packedValues);
-
-    } else {
-      // Inner node: partition/recurse
+                     int[] spareDocIds) throws IOException {
 
-      int splitDim;
-      if (numDims > 1) {
-        splitDim = split(minPackedValue, maxPackedValue, parentSplits);
+    if (count <= maxPointsSortInHeap) {
+      HeapPointWriter heapPoints;
+      if (points instanceof HeapPointWriter) {
+        heapPoints = (HeapPointWriter) points;
       } else {
-        splitDim = 0;
+        heapPoints = switchToHeap(points, count);
+        points.destroy();
       }
+      int size = Math.toIntExact(count);
+      build(nodeID, leafNodeOffset, new HeapMutablePointValues(heapPoints, size), 0, size, out,
+          minPackedValue, maxPackedValue, parentSplits,
+          splitPackedValues, leafBlockFPs, spareDocIds);
+      return;
+    }
 
-      PathSlice source = slices[splitDim];
-
-      assert nodeID < splitPackedValues.length: "nodeID=" + nodeID + " splitValues.length=" + splitPackedValues.length;
-
-      // How many points will be in the left tree:
-      long rightCount = source.count / 2;
-      long leftCount = source.count - rightCount;
-
-      byte[] splitValue = markRightTree(rightCount, splitDim, source, ordBitSet);
-      int address = nodeID * (1+bytesPerDim);
-      splitPackedValues[address] = (byte) splitDim;
-      System.arraycopy(splitValue, 0, splitPackedValues, address + 1, bytesPerDim);
-
-      // Partition all PathSlice that are not the split dim into sorted left and right sets, so we can recurse:
-
-      PathSlice[] leftSlices = new PathSlice[numDims];
-      PathSlice[] rightSlices = new PathSlice[numDims];
+    // We ensured that maxPointsSortInHeap was >= maxPointsInLeafNode, so we better be on an inner node:
+    assert nodeID < leafNodeOffset: "nodeID=" + nodeID + " leafNodeOffset=" + leafNodeOffset;
 
-      byte[] minSplitPackedValue = new byte[packedBytesLength];
-      System.arraycopy(minPackedValue, 0, minSplitPackedValue, 0, packedBytesLength);
+    final int splitDim;
+    if (numDims > 1) {
+      splitDim = split(minPackedValue, maxPackedValue, parentSplits);
+    } else {
+      splitDim = 0;
+    }
+    final int offset = splitDim * bytesPerDim;
 
-      byte[] maxSplitPackedValue = new byte[packedBytesLength];
-      System.arraycopy(maxPackedValue, 0, maxSplitPackedValue, 0, packedBytesLength);
+    // How many points will be in the left tree:
+    final long rightCount = count / 2;
+    final long leftCount = count - rightCount;
 
-      // When we are on this dim, below, we clear the ordBitSet:
-      int dimToClear;
-      if (numDims - 1 == splitDim) {
-        dimToClear = numDims - 2;
-      } else {
-        dimToClear = numDims - 1;
+    int commonPrefixLen = bytesPerDim;
+    for (int i = 0; i < bytesPerDim; ++i) {
+      if (minPackedValue[offset + i] != maxPackedValue[offset + i]) {
+        commonPrefixLen = i;
+        break;
       }
+    }
 
-      for(int dim=0;dim<numDims;dim++) {
-
-        if (dim == splitDim) {
-          // No need to partition on this dim since it's a simple slice of the incoming already sorted slice, and we
-          // will re-use its shared reader when visiting it as we recurse:
-          leftSlices[dim] = new PathSlice(source.writer, source.start, leftCount);
-          rightSlices[dim] = new PathSlice(source.writer, source.start + leftCount, rightCount);
-          System.arraycopy(splitValue, 0, minSplitPackedValue, dim*bytesPerDim, bytesPerDim);
-          System.arraycopy(splitValue, 0, maxSplitPackedValue, dim*bytesPerDim, bytesPerDim);
-          continue;
+    // The split value is the value of the first point of the right tree, tie-breaking by doc ID:
+    final byte[] splitKey = new byte[bytesPerDim + Integer.BYTES];
+    final long lessThanCount = selectSplitKey(points, count, splitDim, commonPrefixLen, leftCount, minPackedValue, splitKey);
+    final byte[] splitValue = Arrays.copyOf(splitKey, bytesPerDim);
+    final int splitDocID = ((splitKey[bytesPerDim] & 0xFF) << 24) | ((splitKey[bytesPerDim+1] & 0xFF) << 16)
+        | ((splitKey[bytesPerDim+2] & 0xFF) << 8) | (splitKey[bytesPerDim+3] & 0xFF);
+
+    final int address = nodeID * (1+bytesPerDim);
+    splitPackedValues[address] = (byte) splitDim;
+    System.arraycopy(splitValue, 0, splitPackedValues, address + 1, bytesPerDim);
+
+    // Points that sort before the split point go left, points that sort after it go right, and duplicates of the
+    // split point fill the left tree first:
+    PointWriter leftPoints = null;
+    PointWriter rightPoints = null;
+    try (PointReader reader = points.getReader(0, count);
+         PointWriter leftPointWriter = getPointWriter(leftCount, "left" + splitDim);
+         PointWriter rightPointWriter = getPointWriter(rightCount, "right" + splitDim)) {
+      long equalsToLeft = leftCount - lessThanCount;
+      long actualLeftCount = 0;
+      for(long i=0;i<count;i++) {
+        boolean hasNext = reader.next();
+        assert hasNext;
+        byte[] packedValue = reader.packedValue();
+        int cmp = StringHelper.compare(bytesPerDim, packedValue, offset, splitValue, 0);
+        if (cmp == 0) {
+          cmp = Integer.compare(reader.docID(), splitDocID);
         }
-
-        // Not inside the try because we don't want to close this one now, so that after recursion is done,
-        // we will have done a singel full sweep of the file:
-        PointReader reader = slices[dim].writer.getSharedReader(slices[dim].start, slices[dim].count, toCloseHeroically);
-
-        try (PointWriter leftPointWriter = getPointWriter(leftCount, "left" + dim);
-             PointWriter rightPointWriter = getPointWriter(source.count - leftCount, "right" + dim)) {
-
-          long nextRightCount = reader.split(source.count, ordBitSet, leftPointWriter, rightPointWriter, dim == dimToClear);
-          if (rightCount != nextRightCount) {
-            throw new IllegalStateException("wrong number of points in split: expected=" + rightCount + " but actual=" + nextRightCount);
-          }
-
-          leftSlices[dim] = new PathSlice(leftPointWriter, 0, leftCount);
-          rightSlices[dim] = new PathSlice(rightPointWriter, 0, rightCount);
-        } catch (Throwable t) {
-          verifyChecksum(t, slices[dim].writer);
+        if (cmp == 0 && equalsToLeft > 0) {
+          equalsToLeft--;
+          cmp = -1;
         }
-      }
-
-      parentSplits[splitDim]++;
-      // Recurse on left tree:
-      build(2*nodeID, leafNodeOffset, leftSlices,
-            ordBitSet, out,
-            minPackedValue, maxSplitPackedValue, parentSplits,
-            splitPackedValues, leafBlockFPs, toCloseHeroically);
-      for(int dim=0;dim<numDims;dim++) {
-        // Don't destroy the dim we split on because we just re-used what our caller above gave us for that dim:
-        if (dim != splitDim) {
-          leftSlices[dim].writer.destroy();
+        if (cmp < 0) {
+          leftPointWriter.append(packedValue, reader.ord(), reader.docID());
+          actualLeftCount++;
+        } else {
+          rightPointWriter.append(packedValue, reader.ord(), reader.docID());
         }
       }
-
-      // TODO: we could "tail recurse" here?  have our parent discard its refs as we recurse right?
-      // Recurse on right tree:
-      build(2*nodeID+1, leafNodeOffset, rightSlices,
-            ordBitSet, out,
-            minSplitPackedValue, maxPackedValue, parentSplits,
-            splitPackedValues, leafBlockFPs, toCloseHeroically);
-      for(int dim=0;dim<numDims;dim++) {
-        // Don't destroy the dim we split on because we just re-used what our caller above gave us for that dim:
-        if (dim != splitDim) {
-          rightSlices[dim].writer.destroy();
-        }
+      if (actualLeftCount != leftCount) {
+        throw new IllegalStateException("wrong number of points in split: expected=" + leftCount + " but actual=" + actualLeftCount);
       }
-      parentSplits[splitDim]--;
+      leftPoints = leftPointWriter;
+      rightPoints = rightPointWriter;
+    } catch (Throwable t) {
+      verifyChecksum(t, points);
     }
+    points.destroy();
+
+    byte[] minSplitPackedValue = Arrays.copyOf(minPackedValue, packedBytesLength);
+    byte[] maxSplitPackedValue = Arrays.copyOf(maxPackedValue, packedBytesLength);
+    System.arraycopy(splitValue, 0, minSplitPackedValue, offset, bytesPerDim);
+    System.arraycopy(splitValue, 0, maxSplitPackedValue, offset, bytesPerDim);
+
+    parentSplits[splitDim]++;
+    // Recurse on left tree:
+    build(2*nodeID, leafNodeOffset, leftPoints, leftCount, out,
+          minPackedValue, maxSplitPackedValue, parentSplits,
+          splitPackedValues, leafBlockFPs, spareDocIds);
+    // Recurse on right tree:
+    build(2*nodeID+1, leafNodeOffset, rightPoints, rightCount, out,
+          minSplitPackedValue, maxPackedValue, parentSplits,
+          splitPackedValues, leafBlockFPs, spareDocIds);
+    parentSplits[splitDim]--;
   }
 
   // only called from assert
@@ -1868,10 +1681,141 @@ public class BKDWriter implements Closeable {
   PointWriter getPointWriter(long count, String desc) throws IOException {
     if (count <= maxPointsSortInHeap) {
       int size = Math.toIntExact(count);
-      return new HeapPointWriter(size, size, packedBytesLength, longOrds, singleValuePerDoc);
+      return newHeapPointWriter(size, size);
     } else {
-      return new OfflinePointWriter(tempDir, tempFileNamePrefix, packedBytesLength, longOrds, desc, count, singleValuePerDoc);
+      return newOfflinePointWriter(desc, count);
     }
   }
 
+  // Point writers are created as if each doc had a single value so that they don't store ords, which we never read:
+
+  private HeapPointWriter newHeapPointWriter(int initSize, int maxSize) {
+    return new HeapPointWriter(initSize, maxSize, packedBytesLength, false, true);
+  }
+
+  private OfflinePointWriter newOfflinePointWriter(String desc, long expectedCount) throws IOException {
+    return new OfflinePointWriter(tempDir, tempFileNamePrefix, packedBytesLength, false, desc, expectedCount, true);
+  }
+
+
+  /** Exposes the points buffered in a {@link HeapPointWriter} as {@link MutablePointValues}, so that they can be
+   *  partitioned in place while building the tree.  Like for the indexing buffer, only an array of indices is
+   *  reordered, so that values returned by {@link #getValue} remain valid across swaps. */
+  private final class HeapMutablePointValues extends MutablePointValues {
+
+    private final HeapPointWriter points;
+    private final int[] ords;
+
+    HeapMutablePointValues(HeapPointWriter points, int size) {
+      this.points = points;
+      ords = new int[size];
+      for (int i = 0; i < size; ++i) {
+        ords[i] = i;
+      }
+    }
+
+    @Override
+    public void getValue(int i, BytesRef packedValue) {
+      packedValue.length = packedBytesLength;
+      points.getPackedValueSlice(ords[i], packedValue);
+    }
+
+    @Override
+    public byte getByteAt(int i, int k) {
+      final int ord = ords[i];
+      return points.blocks.get(ord / points.valuesPerBlock)[(ord % points.valuesPerBlock) * packedBytesLength + k];
+    }
+
+    @Override
+    public int getDocID(int i) {
+      return points.docIDs[ords[i]];
+    }
+
+    @Override
+    public void swap(int i, int j) {
+      int tmp = ords[i];
+      ords[i] = ords[j];
+      ords[j] = tmp;
+    }
+
+    @Override
+    public void intersect(IntersectVisitor visitor) throws IOException {
+      final Relation r = visitor.compare(getMinPackedValue(), getMaxPackedValue());
+      if (r == Relation.CELL_OUTSIDE_QUERY) {
+        return;
+      }
+      visitor.grow(ords.length);
+      final byte[] packedValue = new byte[packedBytesLength];
+      for (int i = 0; i < ords.length; ++i) {
+        if (r == Relation.CELL_INSIDE_QUERY) {
+          visitor.visit(getDocID(i));
+        } else {
+          points.readPackedValue(ords[i], packedValue);
+          visitor.visit(getDocID(i), packedValue);
+        }
+      }
+    }
+
+    @Override
+    public long estimatePointCount(IntersectVisitor visitor) {
+      if (visitor.compare(getMinPackedValue(), getMaxPackedValue()) == Relation.CELL_OUTSIDE_QUERY) {
+        return 0;
+      }
+      return size();
+    }
+
+    @Override
+    public byte[] getMinPackedValue() {
+      return computeBound(true);
+    }
+
+    @Override
+    public byte[] getMaxPackedValue() {
+      return computeBound(false);
+    }
+
+    private byte[] computeBound(boolean min) {
+      final byte[] bound = new byte[packedBytesLength];
+      if (ords.length == 0) {
+        return bound;
+      }
+      final byte[] packedValue = new byte[packedBytesLength];
+      points.readPackedValue(ords[0], bound);
+      for (int i = 1; i < ords.length; ++i) {
+        points.readPackedValue(ords[i], packedValue);
+        for (int dim = 0; dim < numDims; ++dim) {
+          final int offset = dim * bytesPerDim;
+          final int cmp = StringHelper.compare(bytesPerDim, packedValue, offset, bound, offset);
+          if (min ? cmp < 0 : cmp > 0) {
+            System.arraycopy(packedValue, offset, bound, offset, bytesPerDim);
+          }
+        }
+      }
+      return bound;
+    }
+
+    @Override
+    public int getNumDimensions() {
+      return numDims;
+    }
+
+    @Override
+    public int getBytesPerDimension() {
+      return bytesPerDim;
+    }
+
+    @Override
+    public long size() {
+      return ords.length;
+    }
+
+    @Override
+    public int getDocCount() {
+      final FixedBitSet docs = new FixedBitSet(maxDoc);
+      for (int i = 0; i < ords.length; ++i) {
+        docs.set(getDocID(i));
+      }
+      return docs.cardinality();
+    }
+  }
 }
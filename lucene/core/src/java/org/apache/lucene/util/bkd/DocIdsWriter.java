@@ -18,12 +18,20 @@ package org.apache.lucene.util.bkd;
 
 import java.io.IOException;
 
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.FixedBitSet;
 
 class DocIdsWriter {
 
+  /** Strictly increasing doc IDs without gaps, stored as the first doc ID. */
+  private static final byte CONTINUOUS_IDS = (byte) -2;
+  /** Strictly increasing doc IDs that are dense enough to be stored as a bit set. */
+  private static final byte BITSET_IDS = (byte) -1;
+
   private DocIdsWriter() {}
 
   static void writeDocIds(int[] docIds, int start, int count, DataOutput out) throws IOException {
@@ -37,6 +45,27 @@ class DocIdsWriter {
       }
     }
     if (sorted) {
+      boolean strictlySorted = true;
+      for (int i = 1; i < count; ++i) {
+        if (docIds[start + i - 1] == docIds[start + i]) {
+          strictlySorted = false;
+          break;
+        }
+      }
+      if (strictlySorted && count > 0) {
+        final int min = docIds[start];
+        final int max = docIds[start + count - 1];
+        final long min2max = (long) max - min + 1;
+        if (min2max == count) {
+          out.writeByte(CONTINUOUS_IDS);
+          out.writeVInt(min);
+          return;
+        } else if (min2max <= (count << 3)) {
+          // a bit set takes at most one byte per doc, like delta-coded vints at best, but is faster to decode
+          writeIdsAsBitSet(docIds, start, count, out);
+          return;
+        }
+      }
       out.writeByte((byte) 0);
       int previous = 0;
       for (int i = 0; i < count; ++i) {
@@ -64,10 +93,32 @@ class DocIdsWriter {
     }
   }
 
+  private static void writeIdsAsBitSet(int[] docIds, int start, int count, DataOutput out) throws IOException {
+    final int offsetWords = docIds[start] >>> 6;
+    final int offsetBits = offsetWords << 6;
+    final long[] words = new long[FixedBitSet.bits2words(docIds[start + count - 1] - offsetBits + 1)];
+    for (int i = 0; i < count; ++i) {
+      final int index = docIds[start + i] - offsetBits;
+      words[index >> 6] |= 1L << index;
+    }
+    out.writeByte(BITSET_IDS);
+    out.writeVInt(offsetWords);
+    out.writeVInt(words.length);
+    for (long word : words) {
+      out.writeLong(word);
+    }
+  }
+
   /** Read {@code count} integers into {@code docIDs}. */
   static void readInts(IndexInput in, int count, int[] docIDs) throws IOException {
     final int bpv = in.readByte();
     switch (bpv) {
+      case CONTINUOUS_IDS:
+        readContinuousIds(in, count, docIDs);
+        break;
+      case BITSET_IDS:
+        readBitSet(in, count, docIDs);
+        break;
       case 0:
         readDeltaVInts(in, count, docIDs);
         break;
@@ -82,6 +133,30 @@ class DocIdsWriter {
     }
   }
 
+  private static void readContinuousIds(IndexInput in, int count, int[] docIDs) throws IOException {
+    final int min = in.readVInt();
+    for (int i = 0; i < count; i++) {
+      docIDs[i] = min + i;
+    }
+  }
+
+  private static void readBitSet(IndexInput in, int count, int[] docIDs) throws IOException {
+    final int offsetBits = in.readVInt() << 6;
+    final int numWords = in.readVInt();
+    int upto = 0;
+    for (int i = 0; i < numWords; i++) {
+      long word = in.readLong();
+      while (word != 0) {
+        final int ntz = Long.numberOfTrailingZeros(word);
+        docIDs[upto++] = offsetBits + (i << 6) + ntz;
+        word ^= 1L << ntz;
+      }
+    }
+    if (upto != count) {
+      throw new CorruptIndexException("Expected " + count + " doc IDs in bit set, but got " + upto, in);
+    }
+  }
+
   private static void readDeltaVInts(IndexInput in, int count, int[] docIDs) throws IOException {
     int doc = 0;
     for (int i = 0; i < count; i++) {
@@ -116,10 +191,27 @@ class DocIdsWriter {
     }
   }
 
-  /** Read {@code count} integers and feed the result directly to {@link IntersectVisitor#visit(int)}. */
+  /** Read {@code count} integers and feed the result directly to {@link IntersectVisitor#visit(int)}, or to
+   *  {@link IntersectVisitor#visit(DocIdSetIterator)} for runs of doc IDs. */
   static void readInts(IndexInput in, int count, IntersectVisitor visitor) throws IOException {
     final int bpv = in.readByte();
     switch (bpv) {
+      case CONTINUOUS_IDS:
+        final int min = in.readVInt();
+        visitor.visit(new RangeIterator(min, min + count));
+        break;
+      case BITSET_IDS:
+        final int offsetBits = in.readVInt() << 6;
+        final long[] words = new long[in.readVInt()];
+        for (int i = 0; i < words.length; i++) {
+          words[i] = in.readLong();
+        }
+        final FixedBitSet bits = new FixedBitSet(words, words.length << 6);
+        if (bits.cardinality() != count) {
+          throw new CorruptIndexException("Expected " + count + " doc IDs in bit set, but got " + bits.cardinality(), in);
+        }
+        visitor.visit(new OffsetBitSetIterator(bits, offsetBits, count));
+        break;
       case 0:
         readDeltaVInts(in, count, visitor);
         break;
@@ -167,4 +259,80 @@ class DocIdsWriter {
       visitor.visit((Short.toUnsignedInt(in.readShort()) << 8) | Byte.toUnsignedInt(in.readByte()));
     }
   }
+
+  /** Iterates over all doc IDs between {@code min} (inclusive) and {@code max} (exclusive). */
+  private static final class RangeIterator extends DocIdSetIterator {
+    private final int min, max;
+    private int doc = -1;
+
+    RangeIterator(int min, int max) {
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      if (target >= max) {
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = Math.max(target, min);
+    }
+
+    @Override
+    public long cost() {
+      return max - min;
+    }
+  }
+
+  /** Iterates over the set bits of a {@link FixedBitSet}, whose first bit is doc ID {@code offset}. */
+  private static final class OffsetBitSetIterator extends DocIdSetIterator {
+    private final FixedBitSet bits;
+    private final int offset;
+    private final long cost;
+    private int doc = -1;
+
+    OffsetBitSetIterator(FixedBitSet bits, int offset, long cost) {
+      this.bits = bits;
+      this.offset = offset;
+      this.cost = cost;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      final int index = Math.max(target - offset, 0);
+      if (index >= bits.length()) {
+        return doc = NO_MORE_DOCS;
+      }
+      final int next = bits.nextSetBit(index);
+      if (next == NO_MORE_DOCS) {
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = offset + next;
+    }
+
+    @Override
+    public long cost() {
+      return cost;
+    }
+  }
 }
@@ -19,14 +19,12 @@ package org.apache.lucene.util.fst;
 
 import java.io.IOException;
 
+import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntsRef;
 import org.apache.lucene.util.IntsRefBuilder;
 import org.apache.lucene.util.fst.FST.INPUT_TYPE; // javadoc
 
-// TODO: could we somehow stream an FST to disk while we
-// build it?
-
 /**
  * Builds a minimal FST (maps an IntsRef term to an arbitrary
  * output) from pre-sorted terms with outputs.  The FST
@@ -45,6 +43,11 @@ import org.apache.lucene.util.fst.FST.INPUT_TYPE; // javadoc
  * 4.2).  FSTs containing more than 2.1B nodes are also now
  * possible, however they cannot be packed.
  *
+ * <p>To build very large FSTs, the RAM used for suffix sharing can be
+ * bounded, and the FST bytes can be written to a {@link DataOutput} as
+ * they are produced instead of being held in memory, see
+ * {@link #Builder(FST.INPUT_TYPE, int, int, boolean, boolean, int, Outputs, boolean, int, double, DataOutput)}.
+ *
  * @lucene.experimental
  */
 
@@ -91,6 +94,8 @@ public class Builder<T> {
 
   BytesStore bytes;
 
+  private final DataOutput dataOutput;
+
   /**
    * Instantiates an FST/FSA builder without any pruning. A shortcut
    * to {@link #Builder(FST.INPUT_TYPE, int, int, boolean,
@@ -149,16 +154,47 @@ public class Builder<T> {
   public Builder(FST.INPUT_TYPE inputType, int minSuffixCount1, int minSuffixCount2, boolean doShareSuffix,
                  boolean doShareNonSingletonNodes, int shareMaxTailLength, Outputs<T> outputs,
                  boolean allowArrayArcs, int bytesPageBits) {
+    this(inputType, minSuffixCount1, minSuffixCount2, doShareSuffix, doShareNonSingletonNodes, shareMaxTailLength,
+        outputs, allowArrayArcs, bytesPageBits, Double.POSITIVE_INFINITY, null);
+  }
+
+  /**
+   * Same as {@link #Builder(FST.INPUT_TYPE, int, int, boolean, boolean, int, Outputs, boolean, int)},
+   * with control over the RAM used for suffix sharing and over where the FST bytes go.
+   *
+   * @param suffixRAMLimitMB
+   *    Only used if doShareSuffix is true. Approximate amount of RAM that the hash of
+   *    shared suffixes may use, in MB. Once this limit is reached, suffixes that have not been
+   *    shared recently are forgotten, so the FST may not be minimal anymore. Pass
+   *    {@link Double#POSITIVE_INFINITY} to build a minimal FST.
+   *
+   * @param dataOutput
+   *    If not null, the FST bytes are written to this output as they are produced
+   *    instead of being kept in memory, and the FST returned by {@link #finish()} can only be
+   *    used to {@link FST#saveMetadata(DataOutput) save its metadata}. The FST can then be loaded
+   *    with {@link FST#FST(org.apache.lucene.store.DataInput, org.apache.lucene.store.DataInput, Outputs)}.
+   */
+  public Builder(FST.INPUT_TYPE inputType, int minSuffixCount1, int minSuffixCount2, boolean doShareSuffix,
+                 boolean doShareNonSingletonNodes, int shareMaxTailLength, Outputs<T> outputs,
+                 boolean allowArrayArcs, int bytesPageBits, double suffixRAMLimitMB, DataOutput dataOutput) {
+    if (suffixRAMLimitMB <= 0 || Double.isNaN(suffixRAMLimitMB)) {
+      throw new IllegalArgumentException("suffixRAMLimitMB must be > 0; got " + suffixRAMLimitMB);
+    }
     this.minSuffixCount1 = minSuffixCount1;
     this.minSuffixCount2 = minSuffixCount2;
     this.doShareNonSingletonNodes = doShareNonSingletonNodes;
     this.shareMaxTailLength = shareMaxTailLength;
     this.allowArrayArcs = allowArrayArcs;
-    fst = new FST<>(inputType, outputs, bytesPageBits);
+    this.dataOutput = dataOutput;
+    fst = new FST<>(inputType, outputs, bytesPageBits, dataOutput);
     bytes = fst.bytes;
     assert bytes != null;
     if (doShareSuffix) {
-      dedupHash = new NodeHash<>(fst, bytes.getReverseReader(false));
+      final long ramLimitBytes = suffixRAMLimitMB == Double.POSITIVE_INFINITY
+          ? Long.MAX_VALUE
+          : (long) (suffixRAMLimitMB * 1024 * 1024);
+      // nodes that are written to the output can't be read back, so the hash keeps copies of them
+      dedupHash = new NodeHash<>(fst, dataOutput == null ? bytes.getReverseReader(false) : null, ramLimitBytes);
     } else {
       dedupHash = null;
     }
@@ -213,6 +249,11 @@ public class Builder<T> {
 
     nodeIn.clear();
 
+    if (dataOutput != null) {
+      // bytes of frozen nodes never change
+      bytes.flush();
+    }
+
     final CompiledNode fn = new CompiledNode();
     fn.node = node;
     return fn;
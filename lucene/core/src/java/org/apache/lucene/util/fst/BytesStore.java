@@ -44,11 +44,25 @@ class BytesStore extends DataOutput implements Accountable {
   private byte[] current;
   private int nextWrite;
 
+  // if not null, complete blocks are written to this output and released
+  private final DataOutput out;
+  private int numFlushedBlocks;
+
   public BytesStore(int blockBits) {
+    this(blockBits, null);
+  }
+
+  /** Create a store whose blocks are written to {@code out} and released
+   *  by {@link #flush} once they are complete, instead of being kept in
+   *  memory. Such a store can't be read, except through
+   *  {@link #readBytes(long, byte[], int, int)} for bytes that have not
+   *  been flushed yet. */
+  BytesStore(int blockBits, DataOutput out) {
     this.blockBits = blockBits;
     blockSize = 1 << blockBits;
     blockMask = blockSize-1;
     nextWrite = blockSize;
+    this.out = out;
   }
 
   /** Pulls bytes from the provided IndexInput.  */
@@ -73,6 +87,7 @@ class BytesStore extends DataOutput implements Accountable {
 
     // So .getPosition still works
     nextWrite = blocks.get(blocks.size()-1).length;
+    out = null;
   }
 
   /** Absolute write byte; you must ensure dest is &lt; max
@@ -335,23 +350,72 @@ class BytesStore extends DataOutput implements Accountable {
     assert newLen == getPosition();
   }
 
-  public void finish() {
+  public void finish() throws IOException {
     if (current != null) {
       byte[] lastBuffer = new byte[nextWrite];
       System.arraycopy(current, 0, lastBuffer, 0, nextWrite);
       blocks.set(blocks.size()-1, lastBuffer);
       current = null;
     }
+    if (out != null) {
+      flush(blocks.size());
+    }
+  }
+
+  /** Returns true if blocks are written to a {@link DataOutput} rather than kept in memory. */
+  boolean isStreamed() {
+    return out != null;
+  }
+
+  /** Writes all complete blocks to the output that was passed to the
+   *  constructor and releases them. Bytes that have been written so far
+   *  must not be modified anymore. */
+  void flush() throws IOException {
+    assert out != null;
+    // the last block may still be written to
+    flush(blocks.size() - 1);
+  }
+
+  private void flush(int upTo) throws IOException {
+    for (; numFlushedBlocks < upTo; ++numFlushedBlocks) {
+      final byte[] block = blocks.get(numFlushedBlocks);
+      out.writeBytes(block, 0, block.length);
+      blocks.set(numFlushedBlocks, null);
+    }
+  }
+
+  /** Absolute read of bytes that have not been flushed. */
+  void readBytes(long src, byte[] b, int offset, int len) {
+    int blockIndex = (int) (src >> blockBits);
+    int upto = (int) (src & blockMask);
+    while (len > 0) {
+      final byte[] block = blocks.get(blockIndex);
+      assert block != null : "bytes have been flushed";
+      final int chunk = Math.min(len, blockSize - upto);
+      System.arraycopy(block, upto, b, offset, chunk);
+      offset += chunk;
+      len -= chunk;
+      blockIndex++;
+      upto = 0;
+    }
+  }
+
+  private void ensureNotStreamed() {
+    if (out != null) {
+      throw new IllegalStateException("bytes are written to a DataOutput and can't be read back from this store");
+    }
   }
 
   /** Writes all of our bytes to the target {@link DataOutput}. */
   public void writeTo(DataOutput out) throws IOException {
+    ensureNotStreamed();
     for(byte[] block : blocks) {
       out.writeBytes(block, 0, block.length);
     }
   }
 
   public FST.BytesReader getForwardReader() {
+    ensureNotStreamed();
     if (blocks.size() == 1) {
       return new ForwardBytesReader(blocks.get(0));
     }
@@ -420,6 +484,7 @@ class BytesStore extends DataOutput implements Accountable {
   }
 
   FST.BytesReader getReverseReader(boolean allowSingle) {
+    ensureNotStreamed();
     if (allowSingle && blocks.size() == 1) {
       return new ReverseBytesReader(blocks.get(0));
     }
@@ -478,7 +543,11 @@ class BytesStore extends DataOutput implements Accountable {
   public long ramBytesUsed() {
     long size = BASE_RAM_BYTES_USED;
     for (byte[] block : blocks) {
-      size += RamUsageEstimator.sizeOf(block);
+      if (block != null) {
+        size += RamUsageEstimator.sizeOf(block);
+      } else {
+        size += RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+      }
     }
     return size;
   }
@@ -22,6 +22,7 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -30,6 +31,7 @@ import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.InputStreamDataInput;
 import org.apache.lucene.store.OutputStreamDataOutput;
 import org.apache.lucene.store.RAMOutputStream;
@@ -150,6 +152,11 @@ public final class FST<T> implements Accountable {
   /** Used at read time when the FST fits into a single byte[]. */
   final byte[] bytesArray;
 
+  /** Used at read time when the FST is read on demand from the index
+   *  rather than loaded on the heap, in which case both {@link #bytes}
+   *  and {@link #bytesArray} are null. */
+  private final IndexInput offHeapBytes;
+
   private long startNode = -1;
 
   public final Outputs<T> outputs;
@@ -260,12 +267,13 @@ public final class FST<T> implements Accountable {
 
   // make a new empty FST, for building; Builder invokes
   // this ctor
-  FST(INPUT_TYPE inputType, Outputs<T> outputs, int bytesPageBits) {
+  FST(INPUT_TYPE inputType, Outputs<T> outputs, int bytesPageBits, DataOutput dataOutput) {
     this.inputType = inputType;
     this.outputs = outputs;
     version = VERSION_CURRENT;
     bytesArray = null;
-    bytes = new BytesStore(bytesPageBits);
+    bytes = new BytesStore(bytesPageBits, dataOutput);
+    offHeapBytes = null;
     // pad: ensure no node gets address 0 which is reserved to mean
     // the stop state w/ no arcs
     bytes.writeByte((byte) 0);
@@ -283,6 +291,36 @@ public final class FST<T> implements Accountable {
   /** Load a previously saved FST; maxBlockBits allows you to
    *  control the size of the byte[] pages used to hold the FST bytes. */
   public FST(DataInput in, Outputs<T> outputs, int maxBlockBits) throws IOException {
+    this(in, in, outputs, maxBlockBits, Long.MAX_VALUE);
+  }
+
+  /** Load an FST whose metadata, as written by {@link #saveMetadata(DataOutput)},
+   *  and bytes are stored separately, typically because its bytes were written
+   *  by the {@link Builder} as the FST was built.
+   *  @lucene.experimental */
+  public FST(DataInput metaIn, DataInput in, Outputs<T> outputs) throws IOException {
+    this(metaIn, in, outputs, DEFAULT_MAX_BLOCK_BITS, Long.MAX_VALUE);
+  }
+
+  /** Load a previously saved FST from an {@link IndexInput}. If the FST
+   *  takes more than {@code maxOnHeapBytes} bytes, its bytes are not
+   *  loaded on the heap but read on demand from {@code in}, which must
+   *  then stay open for as long as the FST is used. This is most
+   *  efficient when {@code in} is memory-mapped.
+   *  @lucene.experimental */
+  public static <T> FST<T> read(IndexInput in, Outputs<T> outputs, long maxOnHeapBytes) throws IOException {
+    return new FST<>(in, in, outputs, DEFAULT_MAX_BLOCK_BITS, maxOnHeapBytes);
+  }
+
+  /** Same as {@link #read(IndexInput, Outputs, long)}, but for an FST whose
+   *  metadata is read from {@code metaIn}.
+   *  @see #FST(DataInput, DataInput, Outputs)
+   *  @lucene.experimental */
+  public static <T> FST<T> read(DataInput metaIn, IndexInput in, Outputs<T> outputs, long maxOnHeapBytes) throws IOException {
+    return new FST<>(metaIn, in, outputs, DEFAULT_MAX_BLOCK_BITS, maxOnHeapBytes);
+  }
+
+  private FST(DataInput metaIn, DataInput in, Outputs<T> outputs, int maxBlockBits, long maxOnHeapBytes) throws IOException {
     this.outputs = outputs;
 
     if (maxBlockBits < 1 || maxBlockBits > 30) {
@@ -291,18 +329,18 @@ public final class FST<T> implements Accountable {
 
     // NOTE: only reads most recent format; we don't have
     // back-compat promise for FSTs (they are experimental):
-    version = CodecUtil.checkHeader(in, FILE_FORMAT_NAME, VERSION_PACKED, VERSION_CURRENT);
+    version = CodecUtil.checkHeader(metaIn, FILE_FORMAT_NAME, VERSION_PACKED, VERSION_CURRENT);
     if (version < VERSION_PACKED_REMOVED) {
-      if (in.readByte() == 1) {
-        throw new CorruptIndexException("Cannot read packed FSTs anymore", in);
+      if (metaIn.readByte() == 1) {
+        throw new CorruptIndexException("Cannot read packed FSTs anymore", metaIn);
       }
     }
-    if (in.readByte() == 1) {
+    if (metaIn.readByte() == 1) {
       // accepts empty string
       // 1 KB blocks:
       BytesStore emptyBytes = new BytesStore(10);
-      int numBytes = in.readVInt();
-      emptyBytes.copyBytes(in, numBytes);
+      int numBytes = metaIn.readVInt();
+      emptyBytes.copyBytes(metaIn, numBytes);
 
       // De-serialize empty-string output:
       BytesReader reader = emptyBytes.getReverseReader();
@@ -316,7 +354,7 @@ public final class FST<T> implements Accountable {
     } else {
       emptyOutput = null;
     }
-    final byte t = in.readByte();
+    final byte t = metaIn.readByte();
     switch(t) {
       case 0:
         inputType = INPUT_TYPE.BYTE1;
@@ -330,23 +368,33 @@ public final class FST<T> implements Accountable {
     default:
       throw new IllegalStateException("invalid input type " + t);
     }
-    startNode = in.readVLong();
+    startNode = metaIn.readVLong();
     if (version < VERSION_NO_NODE_ARC_COUNTS) {
-      in.readVLong();
-      in.readVLong();
-      in.readVLong();
+      metaIn.readVLong();
+      metaIn.readVLong();
+      metaIn.readVLong();
     }
 
-    long numBytes = in.readVLong();
-    if (numBytes > 1 << maxBlockBits) {
+    long numBytes = metaIn.readVLong();
+    if (numBytes > maxOnHeapBytes) {
+      // FST is read on demand: only keep a slice of the input
+      final IndexInput indexIn = (IndexInput) in;
+      final long start = indexIn.getFilePointer();
+      offHeapBytes = indexIn.slice("fst", start, numBytes);
+      indexIn.seek(start + numBytes);
+      bytes = null;
+      bytesArray = null;
+    } else if (numBytes > 1 << maxBlockBits) {
       // FST is big: we need multiple pages
       bytes = new BytesStore(in, numBytes, 1<<maxBlockBits);
       bytesArray = null;
+      offHeapBytes = null;
     } else {
       // FST fits into a single block: use ByteArrayBytesStoreReader for less overhead
       bytes = null;
       bytesArray = new byte[(int) numBytes];
       in.readBytes(bytesArray, 0, bytesArray.length);
+      offHeapBytes = null;
     }
     
     cacheRootArcs();
@@ -382,7 +430,7 @@ public final class FST<T> implements Accountable {
     long size = BASE_RAM_BYTES_USED;
     if (bytesArray != null) {
       size += bytesArray.length;
-    } else {
+    } else if (bytes != null) {
       size += bytes.ramBytesUsed();
     }
     size += cachedArcsBytesUsed;
@@ -404,7 +452,9 @@ public final class FST<T> implements Accountable {
     }
     startNode = newStartNode;
     bytes.finish();
-    cacheRootArcs();
+    if (bytes.isStreamed() == false) {
+      cacheRootArcs();
+    }
   }
   
   // Optionally caches first 128 labels
@@ -437,7 +487,8 @@ public final class FST<T> implements Accountable {
       int cacheRAM = (int) ramBytesUsed(arcs);
 
       // Don't cache if there are only a few arcs or if the cache would use > 20% RAM of the FST itself:
-      if (count >= FIXED_ARRAY_NUM_ARCS_SHALLOW && cacheRAM < ramBytesUsed()/5) {
+      final long fstBytes = offHeapBytes != null ? offHeapBytes.length() : ramBytesUsed();
+      if (count >= FIXED_ARRAY_NUM_ARCS_SHALLOW && cacheRAM < fstBytes/5) {
         cachedRootArcs = arcs;
         cachedArcsBytesUsed = cacheRAM;
       }
@@ -457,6 +508,25 @@ public final class FST<T> implements Accountable {
   }
 
   public void save(DataOutput out) throws IOException {
+    if (bytes != null && bytes.isStreamed()) {
+      throw new IllegalStateException("the bytes of this FST were written to an output while it was built, use saveMetadata instead");
+    }
+    saveMetadata(out);
+    if (bytes != null) {
+      bytes.writeTo(out);
+    } else if (offHeapBytes != null) {
+      out.copyBytes(offHeapBytes.clone(), offHeapBytes.length());
+    } else {
+      assert bytesArray != null;
+      out.writeBytes(bytesArray, 0, bytesArray.length);
+    }
+  }
+
+  /** Save everything but the bytes of this FST. This is the only way to save
+   *  an FST whose bytes were written to an output by the {@link Builder}, and
+   *  it can then be loaded with {@link #FST(DataInput, DataInput, Outputs)}.
+   *  @lucene.experimental */
+  public void saveMetadata(DataOutput out) throws IOException {
     if (startNode == -1) {
       throw new IllegalStateException("call finish first");
     }
@@ -499,13 +569,12 @@ public final class FST<T> implements Accountable {
     out.writeByte(t);
     out.writeVLong(startNode);
     if (bytes != null) {
-      long numBytes = bytes.getPosition();
-      out.writeVLong(numBytes);
-      bytes.writeTo(out);
+      out.writeVLong(bytes.getPosition());
+    } else if (offHeapBytes != null) {
+      out.writeVLong(offHeapBytes.length());
     } else {
       assert bytesArray != null;
       out.writeVLong(bytesArray.length);
-      out.writeBytes(bytesArray, 0, bytesArray.length);
     }
   }
   
@@ -1206,6 +1275,12 @@ public final class FST<T> implements Accountable {
   public BytesReader getBytesReader() {
     if (bytesArray != null) {
       return new ReverseBytesReader(bytesArray);
+    } else if (offHeapBytes != null) {
+      try {
+        return new ReverseRandomAccessReader(offHeapBytes.randomAccessSlice(0, offHeapBytes.length()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
     } else {
       return bytes.getReverseReader();
     }
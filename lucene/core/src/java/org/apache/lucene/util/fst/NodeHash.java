@@ -19,27 +19,49 @@ package org.apache.lucene.util.fst;
 
 import java.io.IOException;
 
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PagedGrowableWriter;
 
 // Used to dedup states (lookup already-frozen states)
+//
+// If RAM is limited, this works like a LRU cache of nodes with two
+// generations of tables: when the primary table reaches half of the RAM
+// limit, it becomes the fallback table and a new primary table is
+// started.  Nodes that are found in the fallback table are copied to the
+// primary table, so that frequently shared suffixes survive.  Nodes that
+// are only in older generations are forgotten, so the FST may not be
+// minimal anymore.
+//
+// If the FST bytes are streamed to a DataOutput, nodes can't be read back
+// from the FST and each table keeps a copy of the bytes of its nodes.
 final class NodeHash<T> {
 
-  private PagedGrowableWriter table;
-  private long count;
-  private long mask;
   private final FST<T> fst;
   private final FST.Arc<T> scratchArc = new FST.Arc<>();
+  // reads nodes from the FST, or null if nodes are copied
   private final FST.BytesReader in;
+  private final long ramLimitBytes;
+  private Table primary;
+  // previous generation of the primary table, only used if RAM is limited
+  private Table fallback;
+  private byte[] scratchBytes = new byte[16];
 
+  /** Create a hash that reads nodes from the FST and keeps all of them. */
   public NodeHash(FST<T> fst, FST.BytesReader in) {
-    table = new PagedGrowableWriter(16, 1<<27, 8, PackedInts.COMPACT);
-    mask = 15;
+    this(fst, in, Long.MAX_VALUE);
+  }
+
+  /** Create a hash that uses about {@code ramLimitBytes} bytes of RAM, and
+   *  copies nodes if {@code in} is null. */
+  public NodeHash(FST<T> fst, FST.BytesReader in, long ramLimitBytes) {
     this.fst = fst;
     this.in = in;
+    this.ramLimitBytes = ramLimitBytes;
+    this.primary = new Table();
   }
 
-  private boolean nodesEqual(Builder.UnCompiledNode<T> node, long address) throws IOException {
+  private boolean nodesEqual(Builder.UnCompiledNode<T> node, long address, FST.BytesReader in) throws IOException {
     fst.readFirstRealTargetArc(address, scratchArc, in);
     if (scratchArc.bytesPerArc != 0 && node.numArcs != scratchArc.numArcs) {
       return false;
@@ -91,7 +113,7 @@ final class NodeHash<T> {
   }
 
   // hash code for a frozen node
-  private long hash(long node) throws IOException {
+  private long hash(long node, FST.BytesReader in) throws IOException {
     final int PRIME = 31;
     //System.out.println("hash frozen node=" + node);
     long h = 0;
@@ -117,57 +139,230 @@ final class NodeHash<T> {
   public long add(Builder<T> builder, Builder.UnCompiledNode<T> nodeIn) throws IOException {
     //System.out.println("hash: add count=" + count + " vs " + table.size() + " mask=" + mask);
     final long h = hash(nodeIn);
-    long pos = h & mask;
-    int c = 0;
-    while(true) {
-      final long v = table.get(pos);
-      if (v == 0) {
-        // freeze & add
-        final long node = fst.addNode(builder, nodeIn);
-        //System.out.println("  now freeze node=" + node);
-        assert hash(node) == h : "frozenHash=" + hash(node) + " vs h=" + h;
-        count++;
-        table.set(pos, node);
-        // Rehash at 2/3 occupancy:
-        if (count > 2*table.size()/3) {
-          rehash();
-        }
+    final long pos = primary.find(nodeIn, h);
+    long node = primary.addresses.get(pos);
+    if (node != 0) {
+      // same node is already here
+      return node;
+    }
+
+    if (fallback != null) {
+      final long fallbackPos = fallback.find(nodeIn, h);
+      node = fallback.addresses.get(fallbackPos);
+      if (node != 0) {
+        // the node is still shared: promote it to the primary table
+        final int length = fallback.copyBytes(fallbackPos);
+        primary.add(pos, node, scratchBytes, length);
+        assert hashMatches(pos, h);
+        maybeGrow();
         return node;
-      } else if (nodesEqual(nodeIn, v)) {
-        // same node is already here
-        return v;
       }
+    }
 
-      // quadratic probe
-      pos = (pos + (++c)) & mask;
+    // freeze & add
+    final long startAddress = builder.bytes.getPosition();
+    node = fst.addNode(builder, nodeIn);
+    //System.out.println("  now freeze node=" + node);
+    int length = 0;
+    if (primary.copies != null) {
+      length = (int) (node - startAddress + 1);
+      scratchBytes = ArrayUtil.grow(scratchBytes, length);
+      builder.bytes.readBytes(startAddress, scratchBytes, 0, length);
     }
+    primary.add(pos, node, scratchBytes, length);
+    assert hashMatches(pos, h);
+    maybeGrow();
+    return node;
   }
 
-  // called only by rehash
-  private void addNew(long address) throws IOException {
-    long pos = hash(address) & mask;
-    int c = 0;
-    while(true) {
-      if (table.get(pos) == 0) {
-        table.set(pos, address);
-        break;
-      }
+  private boolean hashMatches(long pos, long h) throws IOException {
+    final long frozenHash = hash(primary.addresses.get(pos), primary.reader(pos));
+    assert frozenHash == h : "frozenHash=" + frozenHash + " vs h=" + h;
+    return true;
+  }
 
-      // quadratic probe
-      pos = (pos + (++c)) & mask;
+  private void maybeGrow() throws IOException {
+    // Rehash at 2/3 occupancy:
+    if (primary.count > 2*primary.addresses.size()/3) {
+      primary.rehash();
+    }
+    if (ramLimitBytes != Long.MAX_VALUE && primary.ramBytesUsed() > ramLimitBytes / 2) {
+      // start a new generation
+      fallback = primary;
+      primary = new Table();
     }
   }
 
-  private void rehash() throws IOException {
-    final PagedGrowableWriter oldTable = table;
+  /** An open-addressing hash table of node addresses. */
+  private final class Table {
+    private PagedGrowableWriter addresses;
+    private long count;
+    private long mask;
+    // copies of the bytes of nodes, or null if nodes are read from the FST
+    private final BytesStore copies;
+    // offset of the last byte of the copy of each node, and number of bytes of the node
+    private PagedGrowableWriter copyEnds;
+    private PagedGrowableWriter copyLengths;
+    private final CopyReader copyReader;
+    // RAM used by the above packed writers, only updated on rehash
+    private long tablesRamBytesUsed;
 
-    table = new PagedGrowableWriter(2*oldTable.size(), 1<<30, PackedInts.bitsRequired(count), PackedInts.COMPACT);
-    mask = table.size()-1;
-    for(long idx=0;idx<oldTable.size();idx++) {
-      final long address = oldTable.get(idx);
-      if (address != 0) {
-        addNew(address);
+    Table() {
+      addresses = new PagedGrowableWriter(16, 1<<27, 8, PackedInts.COMPACT);
+      mask = 15;
+      if (in == null) {
+        copies = new BytesStore(15);
+        copyEnds = new PagedGrowableWriter(16, 1<<27, 8, PackedInts.COMPACT);
+        copyLengths = new PagedGrowableWriter(16, 1<<27, 8, PackedInts.COMPACT);
+        copyReader = new CopyReader(copies.getReverseReader(false));
+      } else {
+        copies = null;
+        copyEnds = null;
+        copyLengths = null;
+        copyReader = null;
       }
+      tablesRamBytesUsed = computeTablesRamBytesUsed();
+    }
+
+    private long computeTablesRamBytesUsed() {
+      long bytes = addresses.ramBytesUsed();
+      if (copies != null) {
+        bytes += copyEnds.ramBytesUsed() + copyLengths.ramBytesUsed();
+      }
+      return bytes;
+    }
+
+    /** Returns a reader that can read the node at the given position of the table. */
+    private FST.BytesReader reader(long pos) {
+      if (copies == null) {
+        return in;
+      }
+      copyReader.delta = addresses.get(pos) - copyEnds.get(pos);
+      return copyReader;
+    }
+
+    /** Returns the position of the given node, or of the empty slot where it should be added. */
+    long find(Builder.UnCompiledNode<T> nodeIn, long h) throws IOException {
+      long pos = h & mask;
+      int c = 0;
+      while (true) {
+        final long v = addresses.get(pos);
+        if (v == 0 || nodesEqual(nodeIn, v, reader(pos))) {
+          return pos;
+        }
+        // quadratic probe
+        pos = (pos + (++c)) & mask;
+      }
+    }
+
+    /** Copies the bytes of the node at the given position into scratchBytes and returns their number. */
+    int copyBytes(long pos) {
+      if (copies == null) {
+        return 0;
+      }
+      final int length = (int) copyLengths.get(pos);
+      scratchBytes = ArrayUtil.grow(scratchBytes, length);
+      copies.readBytes(copyEnds.get(pos) - length + 1, scratchBytes, 0, length);
+      return length;
+    }
+
+    /** Adds a node at the given position, which must be empty. */
+    void add(long pos, long node, byte[] bytes, int length) {
+      assert addresses.get(pos) == 0;
+      addresses.set(pos, node);
+      if (copies != null) {
+        assert length > 0;
+        copies.writeBytes(bytes, 0, length);
+        copyEnds.set(pos, copies.getPosition() - 1);
+        copyLengths.set(pos, length);
+      }
+      count++;
+    }
+
+    void rehash() throws IOException {
+      final PagedGrowableWriter oldAddresses = addresses;
+      final PagedGrowableWriter oldCopyEnds = copyEnds;
+      final PagedGrowableWriter oldCopyLengths = copyLengths;
+
+      addresses = new PagedGrowableWriter(2*oldAddresses.size(), 1<<30, PackedInts.bitsRequired(count), PackedInts.COMPACT);
+      if (copies != null) {
+        copyEnds = new PagedGrowableWriter(2*oldAddresses.size(), 1<<30, PackedInts.bitsRequired(copies.getPosition()), PackedInts.COMPACT);
+        copyLengths = new PagedGrowableWriter(2*oldAddresses.size(), 1<<30, 8, PackedInts.COMPACT);
+      }
+      mask = addresses.size()-1;
+      for(long idx=0;idx<oldAddresses.size();idx++) {
+        final long address = oldAddresses.get(idx);
+        if (address != 0) {
+          final FST.BytesReader reader;
+          if (copies == null) {
+            reader = in;
+          } else {
+            copyReader.delta = address - oldCopyEnds.get(idx);
+            reader = copyReader;
+          }
+          long pos = hash(address, reader) & mask;
+          int c = 0;
+          while (addresses.get(pos) != 0) {
+            // quadratic probe
+            pos = (pos + (++c)) & mask;
+          }
+          addresses.set(pos, address);
+          if (copies != null) {
+            copyEnds.set(pos, oldCopyEnds.get(idx));
+            copyLengths.set(pos, oldCopyLengths.get(idx));
+          }
+        }
+      }
+      tablesRamBytesUsed = computeTablesRamBytesUsed();
+    }
+
+    long ramBytesUsed() {
+      long bytes = tablesRamBytesUsed;
+      if (copies != null) {
+        bytes += copies.getPosition();
+      }
+      return bytes;
+    }
+  }
+
+  /** Reads a copy of a node as if it were read from the FST. */
+  private static final class CopyReader extends FST.BytesReader {
+    private final FST.BytesReader in;
+    // difference between positions in the FST and positions in the copies
+    long delta;
+
+    CopyReader(FST.BytesReader in) {
+      this.in = in;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      return in.readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+      in.readBytes(b, offset, len);
+    }
+
+    @Override
+    public void skipBytes(long count) throws IOException {
+      in.skipBytes(count);
+    }
+
+    @Override
+    public long getPosition() {
+      return in.getPosition() + delta;
+    }
+
+    @Override
+    public void setPosition(long pos) {
+      in.setPosition(pos - delta);
+    }
+
+    @Override
+    public boolean reversed() {
+      return true;
     }
   }
 }
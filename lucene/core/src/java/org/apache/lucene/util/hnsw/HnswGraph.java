@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Hierarchical Navigable Small World graph. Provides efficient approximate nearest
+ * neighbor search for high dimensional vectors. See <a href="https://arxiv.org/abs/1603.09320">Efficient
+ * and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs
+ * [2018]</a> paper for details.
+ * <p>
+ * The graph has several levels. Level 0 contains all nodes, and each upper level
+ * contains an exponentially decreasing random subset of the nodes of the level
+ * below it. Nodes are identified by the ordinals of their vectors. Searches start
+ * from the {@link #entryNode() entry node} on the top level, greedily descend
+ * towards the query through the sparse upper levels, and then run a best-first
+ * search on level 0.
+ * <p>
+ * This class exposes the graph with a cursor-like API, so that implementations can
+ * read neighbors from disk without materializing them.
+ *
+ * @see HnswGraphBuilder
+ * @see HnswGraphSearcher
+ * @lucene.experimental
+ */
+public abstract class HnswGraph {
+
+  /** Sole constructor */
+  protected HnswGraph() {}
+
+  /**
+   * Move the pointer to exactly the given {@code level}'s {@code target} node. After this
+   * method returns, call {@link #nextNeighbor()} to return successive (ordered) connected
+   * node ordinals.
+   * @param level the level of the graph, which must have been populated with the target
+   * @param target must be a valid node on the level
+   */
+  public abstract void seek(int level, int target) throws IOException;
+
+  /** Returns the number of nodes in the graph, which is the number of nodes of level 0 */
+  public abstract int size();
+
+  /**
+   * Iterates over the neighbor list of the node the graph was last positioned on.
+   * @return a node ordinal, or {@link DocIdSetIterator#NO_MORE_DOCS} when the neighbors
+   *         are exhausted
+   */
+  public abstract int nextNeighbor() throws IOException;
+
+  /** Returns the number of levels of the graph */
+  public abstract int numLevels() throws IOException;
+
+  /** Returns the graph's entry point on its top level, or -1 if the graph is empty */
+  public abstract int entryNode() throws IOException;
+
+  /**
+   * Get all nodes on the given level, in increasing order, as an iterator whose
+   * doc IDs are node ordinals. Level 0 contains all nodes.
+   */
+  public abstract DocIdSetIterator getNodesOnLevel(int level) throws IOException;
+
+  /** Returns an iterator over the first {@code length} entries of a sorted array of nodes. */
+  protected static DocIdSetIterator nodesIterator(int[] nodes, int length) {
+    return new DocIdSetIterator() {
+      int i = -1;
+      int node = -1;
+
+      @Override
+      public int docID() {
+        return node;
+      }
+
+      @Override
+      public int nextDoc() {
+        if (++i >= length) {
+          return node = NO_MORE_DOCS;
+        }
+        return node = nodes[i];
+      }
+
+      @Override
+      public int advance(int target) throws IOException {
+        return slowAdvance(target);
+      }
+
+      @Override
+      public long cost() {
+        return length;
+      }
+    };
+  }
+
+  /** An empty graph, with no nodes. */
+  public static final HnswGraph EMPTY = new HnswGraph() {
+
+    @Override
+    public void seek(int level, int target) {
+      throw new IllegalArgumentException("the graph is empty");
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    public int nextNeighbor() {
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    @Override
+    public int numLevels() {
+      return 0;
+    }
+
+    @Override
+    public int entryNode() {
+      return -1;
+    }
+
+    @Override
+    public DocIdSetIterator getNodesOnLevel(int level) {
+      return DocIdSetIterator.empty();
+    }
+  };
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.InfoStream;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * Builder for HNSW graph. See {@link HnswGraph} for a gloss on the algorithm and the meaning of the
+ * hyperparameters.
+ * <p>
+ * Nodes are inserted one at a time: each new node gets a random top level, and is
+ * connected on every level up to it to a diverse subset of its nearest neighbors,
+ * which are found by searching the graph built so far. Neighbors get reverse
+ * connections to the new node, and drop their least useful connection when they
+ * exceed the maximum number of connections.
+ *
+ * @lucene.experimental
+ */
+public final class HnswGraphBuilder {
+
+  /** Default number of maximum connections per node */
+  public static final int DEFAULT_MAX_CONN = 16;
+
+  /**
+   * Default number of the size of the queue maintained while searching during a graph
+   * construction.
+   */
+  public static final int DEFAULT_BEAM_WIDTH = 100;
+
+  /** Default random seed for level generation */
+  public static final long DEFAULT_RAND_SEED = 42;
+
+  /** A name for the HNSW component for the info-stream */
+  public static final String HNSW_COMPONENT = "HNSW";
+
+  private final int maxConn;
+  private final int beamWidth;
+  private final double ml;
+  private final Random random;
+  private final VectorValues.SimilarityFunction similarityFunction;
+  private final RandomAccessVectorValues vectorValues;
+  // separate views over the vectors, so that several vectors can be used at once:
+  // the node being inserted, and pairs of neighbors during the diversity checks
+  private final RandomAccessVectorValues queryVectors;
+  private final RandomAccessVectorValues vectorsCopy1;
+  private final RandomAccessVectorValues vectorsCopy2;
+  private final HnswGraphSearcher graphSearcher;
+  private final NeighborQueue results;
+  private final OnHeapHnswGraph hnsw;
+  // nodes that were copied from an existing graph by initializeFromGraph
+  private FixedBitSet initializedNodes;
+  private InfoStream infoStream = InfoStream.getDefault();
+
+  /**
+   * Reads all the vectors from a random access view, and builds a graph connecting them by their
+   * dense ordinals, using the given hyperparameter settings.
+   *
+   * @param vectors the vectors whose relations are represented by the graph
+   * @param similarityFunction the function used to compare vectors
+   * @param maxConn the number of connections to make when adding a new graph node; roughly speaking
+   *     the graph fanout.
+   * @param beamWidth the size of the beam search to use when finding nearest neighbors.
+   * @param seed the seed for a random number generator used during graph construction. Provide this
+   *     to ensure repeatable construction.
+   */
+  public HnswGraphBuilder(RandomAccessVectorValues vectors, VectorValues.SimilarityFunction similarityFunction,
+                          int maxConn, int beamWidth, long seed) throws IOException {
+    if (similarityFunction == null || similarityFunction == VectorValues.SimilarityFunction.NONE) {
+      throw new IllegalArgumentException("similarityFunction must be set, got " + similarityFunction);
+    }
+    if (maxConn <= 0) {
+      throw new IllegalArgumentException("maxConn must be positive");
+    }
+    if (beamWidth <= 0) {
+      throw new IllegalArgumentException("beamWidth must be positive");
+    }
+    this.vectorValues = vectors;
+    this.queryVectors = vectors.copy();
+    this.vectorsCopy1 = vectors.copy();
+    this.vectorsCopy2 = vectors.copy();
+    this.similarityFunction = similarityFunction;
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+    // normalization factor for level generation; currently not configurable
+    this.ml = maxConn == 1 ? 1 : 1 / Math.log(1.0 * maxConn);
+    this.random = new Random(seed);
+    this.hnsw = new OnHeapHnswGraph(vectors.size(), maxConn);
+    this.graphSearcher = new HnswGraphSearcher(similarityFunction,
+        new NeighborQueue(beamWidth, true), new FixedBitSet(vectors.size()));
+    this.results = new NeighborQueue(beamWidth, false);
+  }
+
+  /**
+   * Copies the nodes and connections of an existing graph into the graph being built, so that
+   * only the remaining nodes need to be inserted by {@link #build()}. This is how merges avoid
+   * rebuilding the graph of a segment from scratch: the copied graph must have been built over
+   * the same vectors, and none of its nodes may have been deleted.
+   *
+   * @param initializerGraph the graph to copy
+   * @param oldToNewOrd the ordinal of each node of {@code initializerGraph} in the graph being built
+   */
+  public void initializeFromGraph(HnswGraph initializerGraph, int[] oldToNewOrd) throws IOException {
+    if (hnsw.size() != 0) {
+      throw new IllegalStateException("the graph must be initialized before any node is added");
+    }
+    if (initializerGraph.size() != oldToNewOrd.length) {
+      throw new IllegalArgumentException("initializer graph has " + initializerGraph.size()
+          + " nodes but " + oldToNewOrd.length + " ordinals were provided");
+    }
+    initializedNodes = new FixedBitSet(vectorValues.size());
+    final int numLevels = initializerGraph.numLevels();
+    for (int level = numLevels - 1; level >= 0; level--) {
+      final DocIdSetIterator nodesOnLevel = initializerGraph.getNodesOnLevel(level);
+      for (int oldNode = nodesOnLevel.nextDoc(); oldNode != NO_MORE_DOCS; oldNode = nodesOnLevel.nextDoc()) {
+        final int newNode = oldToNewOrd[oldNode];
+        final float[] nodeVector = vectorsCopy1.vectorValue(newNode);
+        final NeighborArray neighbors = hnsw.addNode(level, newNode);
+        initializerGraph.seek(level, oldNode);
+        for (int oldNeighbor = initializerGraph.nextNeighbor(); oldNeighbor != NO_MORE_DOCS;
+             oldNeighbor = initializerGraph.nextNeighbor()) {
+          final int newNeighbor = oldToNewOrd[oldNeighbor];
+          final float score = similarityFunction.compare(nodeVector, vectorsCopy2.vectorValue(newNeighbor));
+          neighbors.insertSorted(newNeighbor, score);
+        }
+        // the copied graph may have been built with more connections
+        while (neighbors.size() > hnsw.maxConn(level)) {
+          neighbors.removeIndex(neighbors.size() - 1);
+        }
+        if (level == 0) {
+          initializedNodes.set(newNode);
+        }
+      }
+    }
+    if (numLevels > 0) {
+      hnsw.setEntryNode(oldToNewOrd[initializerGraph.entryNode()]);
+    }
+  }
+
+  /**
+   * Inserts all vectors that are not in the graph yet, in ordinal order, and returns the graph.
+   */
+  public OnHeapHnswGraph build() throws IOException {
+    if (infoStream.isEnabled(HNSW_COMPONENT)) {
+      infoStream.message(HNSW_COMPONENT, "build graph from " + vectorValues.size() + " vectors, "
+          + hnsw.size() + " of which were copied from an existing graph");
+    }
+    long start = System.nanoTime(), t = start;
+    for (int node = 0; node < vectorValues.size(); node++) {
+      if (initializedNodes != null && initializedNodes.get(node)) {
+        continue;
+      }
+      addGraphNode(node);
+      if ((node % 10000 == 0) && infoStream.isEnabled(HNSW_COMPONENT)) {
+        t = printGraphBuildStatus(node, start, t);
+      }
+    }
+    return hnsw;
+  }
+
+  /** Set info-stream to output debugging information */
+  public void setInfoStream(InfoStream infoStream) {
+    this.infoStream = infoStream;
+  }
+
+  /** Inserts a node with the given ordinal into the graph. */
+  void addGraphNode(int node) throws IOException {
+    final int nodeLevel = getRandomGraphLevel();
+    final int curMaxLevel = hnsw.numLevels() - 1;
+    final float[] value = queryVectors.vectorValue(node);
+
+    // the graph is empty: the node becomes the entry point on all levels
+    if (curMaxLevel < 0) {
+      for (int level = nodeLevel; level >= 0; level--) {
+        hnsw.addNode(level, node);
+      }
+      hnsw.setEntryNode(node);
+      return;
+    }
+
+    final int[] eps = new int[] {hnsw.entryNode()};
+
+    // if the new node is on higher levels than the current graph, it has no neighbors there
+    for (int level = nodeLevel; level > curMaxLevel; level--) {
+      hnsw.addNode(level, node);
+    }
+
+    // for levels > nodeLevel, greedily find the closest entry point for the level below
+    for (int level = curMaxLevel; level > nodeLevel; level--) {
+      results.clear();
+      graphSearcher.searchLevel(results, value, 1, level, eps, vectorValues, hnsw, null, Integer.MAX_VALUE);
+      eps[0] = results.pop();
+    }
+
+    // for levels <= nodeLevel, search the beam, connect the node to a diverse subset of the
+    // results, and use all results as entry points for the level below
+    int[] levelEps = eps;
+    for (int level = Math.min(nodeLevel, curMaxLevel); level >= 0; level--) {
+      results.clear();
+      graphSearcher.searchLevel(results, value, beamWidth, level, levelEps, vectorValues, hnsw, null, Integer.MAX_VALUE);
+      levelEps = results.nodes();
+      addDiverseNeighbors(level, node, results);
+    }
+
+    if (nodeLevel > curMaxLevel) {
+      hnsw.setEntryNode(node);
+    }
+  }
+
+  private long printGraphBuildStatus(int node, long start, long t) {
+    long now = System.nanoTime();
+    infoStream.message(HNSW_COMPONENT,
+        String.format(Locale.ROOT, "built %d in %d/%d ms",
+            node, ((now - t) / 1_000_000), ((now - start) / 1_000_000)));
+    return now;
+  }
+
+  /**
+   * Connects the node to a diverse subset of the candidates, which are popped from the queue,
+   * and adds reverse connections from the selected neighbors to the node.
+   */
+  private void addDiverseNeighbors(int level, int node, NeighborQueue candidates) throws IOException {
+    // sort the candidates by decreasing score: the queue pops the lowest score first
+    final NeighborArray sorted = new NeighborArray(candidates.size());
+    while (candidates.size() > 0) {
+      final float score = candidates.topScore();
+      sorted.insertSorted(candidates.pop(), score);
+    }
+    final NeighborArray neighbors = hnsw.addNode(level, node);
+    final int maxConnOnLevel = hnsw.maxConn(level);
+    for (int i = 0; i < sorted.size() && neighbors.size() < maxConnOnLevel; i++) {
+      final int candidate = sorted.node(i);
+      final float score = sorted.score(i);
+      if (diversityCheck(vectorsCopy1.vectorValue(candidate), score, neighbors, neighbors.size())) {
+        neighbors.insertSorted(candidate, score);
+      }
+    }
+
+    // add the reverse connections, dropping the least useful connection of a neighbor that
+    // exceeds the maximum number of connections
+    for (int i = 0; i < neighbors.size(); i++) {
+      final int neighbor = neighbors.node(i);
+      final NeighborArray neighborsOfNeighbor = hnsw.getNeighbors(level, neighbor);
+      neighborsOfNeighbor.insertSorted(node, neighbors.score(i));
+      if (neighborsOfNeighbor.size() > maxConnOnLevel) {
+        neighborsOfNeighbor.removeIndex(findWorstNonDiverse(neighborsOfNeighbor));
+      }
+    }
+  }
+
+  /**
+   * Returns true if the candidate is closer to the node whose neighbors are being selected
+   * (as given by {@code score}) than to any of the first {@code numNeighbors} neighbors that
+   * were already selected: such a candidate adds a connection towards a new region of the
+   * graph, rather than a shortcut to an area that is already reachable.
+   */
+  private boolean diversityCheck(float[] candidate, float score, NeighborArray neighbors, int numNeighbors) throws IOException {
+    for (int i = 0; i < numNeighbors; i++) {
+      final float neighborSimilarity = similarityFunction.compare(candidate, vectorsCopy2.vectorValue(neighbors.node(i)));
+      if (neighborSimilarity >= score) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find first non-diverse neighbour among the list of neighbors, starting from the most distant
+   * neighbours, or the most distant neighbor if all neighbors are diverse.
+   */
+  private int findWorstNonDiverse(NeighborArray neighbors) throws IOException {
+    for (int i = neighbors.size() - 1; i > 0; i--) {
+      if (diversityCheck(vectorsCopy1.vectorValue(neighbors.node(i)), neighbors.score(i), neighbors, i) == false) {
+        return i;
+      }
+    }
+    return neighbors.size() - 1;
+  }
+
+  private int getRandomGraphLevel() {
+    double randDouble;
+    do {
+      // avoid 0 value, as log(0) is undefined
+      randDouble = random.nextDouble();
+    } while (randDouble == 0.0);
+    return (int) (-Math.log(randDouble) * ml);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * Searches an {@link HnswGraph} for the nearest neighbors of a query vector.
+ * Instances keep a reusable set of visited nodes, and are therefore not
+ * thread-safe; {@link #search} creates a new instance per query.
+ *
+ * @lucene.experimental
+ */
+public final class HnswGraphSearcher {
+
+  private final VectorValues.SimilarityFunction similarityFunction;
+  private final NeighborQueue candidates;
+  private final FixedBitSet visited;
+  // nodes that were marked as visited, so that the visited set can be cleared
+  // in time proportional to the size of the previous search
+  private int[] visitedNodes = new int[16];
+  private int numVisitedNodes;
+
+  /**
+   * Creates a new graph searcher.
+   * @param similarityFunction the similarity function used to compare vectors
+   * @param candidates a max-heap used to track the nodes to explore
+   * @param visited a bit set with one bit per graph node, used to track visited nodes
+   */
+  public HnswGraphSearcher(VectorValues.SimilarityFunction similarityFunction, NeighborQueue candidates, FixedBitSet visited) {
+    this.similarityFunction = similarityFunction;
+    this.candidates = candidates;
+    this.visited = visited;
+  }
+
+  /**
+   * Searches the graph for the nearest neighbors of a query vector.
+   *
+   * @param query search query vector
+   * @param topK the number of nodes to be returned
+   * @param vectors the vectors of the graph's nodes
+   * @param similarityFunction the similarity function to compare vectors
+   * @param graph the graph values. May represent the entire graph, or a level in a hierarchical graph.
+   * @param acceptOrds {@link Bits} that represents the allowed node ordinals to return, or null if all are allowed
+   * @param visitedLimit the maximum number of nodes that the search is allowed to compare with the query
+   * @return a min-heap of at most {@code topK} accepted nodes: the lowest scoring node is on top
+   */
+  public static NeighborQueue search(float[] query, int topK, RandomAccessVectorValues vectors,
+                                     VectorValues.SimilarityFunction similarityFunction, HnswGraph graph,
+                                     Bits acceptOrds, int visitedLimit) throws IOException {
+    if (query.length != vectors.dimension()) {
+      throw new IllegalArgumentException("vector query dimension: " + query.length
+          + " differs from field dimension: " + vectors.dimension());
+    }
+    final int entryNode = graph.entryNode();
+    if (entryNode == -1) {
+      // empty graph
+      return new NeighborQueue(1, false);
+    }
+    final HnswGraphSearcher graphSearcher = new HnswGraphSearcher(similarityFunction,
+        new NeighborQueue(topK, true), new FixedBitSet(vectors.size()));
+    final NeighborQueue results = new NeighborQueue(1, false);
+    final int[] eps = new int[] {entryNode};
+    int numVisited = 0;
+    for (int level = graph.numLevels() - 1; level >= 1; level--) {
+      results.clear();
+      graphSearcher.searchLevel(results, query, 1, level, eps, vectors, graph, null, visitedLimit - numVisited);
+      numVisited += results.visitedCount();
+      if (results.incomplete()) {
+        results.setVisitedCount(numVisited);
+        return results;
+      }
+      eps[0] = results.pop();
+    }
+    final NeighborQueue topResults = new NeighborQueue(topK, false);
+    graphSearcher.searchLevel(topResults, query, topK, 0, eps, vectors, graph, acceptOrds, visitedLimit - numVisited);
+    topResults.setVisitedCount(topResults.visitedCount() + numVisited);
+    return topResults;
+  }
+
+  /**
+   * Searches one level of the graph, starting from the given entry points, and
+   * collects the best {@code topK} accepted nodes into {@code results}.
+   *
+   * @param results a min-heap of at most {@code topK} entries that receives the results;
+   *        its visited count is incremented by the number of compared nodes
+   * @param query search query vector
+   * @param topK the number of nodes to be returned
+   * @param level level to search
+   * @param eps the entry points for search at this level
+   * @param vectors the vectors of the graph's nodes
+   * @param graph the graph values
+   * @param acceptOrds {@link Bits} that represents the allowed node ordinals to return, or null if all are allowed
+   * @param visitedLimit the maximum number of nodes that the search is allowed to compare with the query
+   */
+  public void searchLevel(NeighborQueue results, float[] query, int topK, int level, int[] eps,
+                          RandomAccessVectorValues vectors, HnswGraph graph, Bits acceptOrds,
+                          int visitedLimit) throws IOException {
+    assert results.size() == 0;
+    clearVisited();
+    candidates.clear();
+    int numVisited = 0;
+    for (int ep : eps) {
+      if (markVisited(ep) == false) {
+        continue;
+      }
+      if (numVisited >= visitedLimit) {
+        results.markIncomplete();
+        break;
+      }
+      final float score = similarityFunction.compare(query, vectors.vectorValue(ep));
+      numVisited++;
+      candidates.add(ep, score);
+      if (acceptOrds == null || acceptOrds.get(ep)) {
+        results.insertWithOverflow(ep, score);
+      }
+    }
+
+    // A bound that holds the minimum similarity to the query vector that a candidate vector must
+    // have to be considered.
+    float minAcceptedSimilarity = results.size() >= topK ? results.topScore() : Float.NEGATIVE_INFINITY;
+    while (candidates.size() > 0 && results.incomplete() == false) {
+      // get the best candidate (closest or best scoring)
+      final float topCandidateSimilarity = candidates.topScore();
+      if (topCandidateSimilarity < minAcceptedSimilarity) {
+        break;
+      }
+
+      final int topCandidateNode = candidates.pop();
+      graph.seek(level, topCandidateNode);
+      int friendOrd;
+      while ((friendOrd = graph.nextNeighbor()) != NO_MORE_DOCS) {
+        assert friendOrd < vectors.size() : "friendOrd=" + friendOrd + "; size=" + vectors.size();
+        if (markVisited(friendOrd) == false) {
+          continue;
+        }
+        if (numVisited >= visitedLimit) {
+          results.markIncomplete();
+          break;
+        }
+        final float friendSimilarity = similarityFunction.compare(query, vectors.vectorValue(friendOrd));
+        numVisited++;
+        if (friendSimilarity >= minAcceptedSimilarity) {
+          candidates.add(friendOrd, friendSimilarity);
+          if (acceptOrds == null || acceptOrds.get(friendOrd)) {
+            if (results.insertWithOverflow(friendOrd, friendSimilarity) && results.size() >= topK) {
+              minAcceptedSimilarity = results.topScore();
+            }
+          }
+        }
+      }
+    }
+    while (results.size() > topK) {
+      results.pop();
+    }
+    results.setVisitedCount(results.visitedCount() + numVisited);
+  }
+
+  private boolean markVisited(int node) {
+    if (visited.getAndSet(node)) {
+      return false;
+    }
+    if (numVisitedNodes == visitedNodes.length) {
+      visitedNodes = ArrayUtil.grow(visitedNodes, numVisitedNodes + 1);
+    }
+    visitedNodes[numVisitedNodes++] = node;
+    return true;
+  }
+
+  private void clearVisited() {
+    for (int i = 0; i < numVisitedNodes; i++) {
+      visited.clear(visitedNodes[i]);
+    }
+    numVisitedNodes = 0;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * The neighbors of a graph node on one level, together with their scores
+ * relative to that node. Neighbors are kept sorted by decreasing score, so
+ * that the closest neighbor comes first.
+ *
+ * @lucene.internal
+ */
+public final class NeighborArray {
+
+  private int size;
+  private int[] node;
+  private float[] score;
+
+  /** Create an empty array with room for {@code maxSize} neighbors. */
+  public NeighborArray(int maxSize) {
+    node = new int[maxSize];
+    score = new float[maxSize];
+  }
+
+  /**
+   * Adds a neighbor, keeping neighbors sorted by decreasing score.
+   * Neighbors with equal scores keep their insertion order.
+   */
+  public void insertSorted(int newNode, float newScore) {
+    if (size == node.length) {
+      node = ArrayUtil.grow(node, size + 1);
+      score = ArrayUtil.grow(score, node.length);
+    }
+    int insertionPoint = size;
+    while (insertionPoint > 0 && score[insertionPoint - 1] < newScore) {
+      insertionPoint--;
+    }
+    System.arraycopy(node, insertionPoint, node, insertionPoint + 1, size - insertionPoint);
+    System.arraycopy(score, insertionPoint, score, insertionPoint + 1, size - insertionPoint);
+    node[insertionPoint] = newNode;
+    score[insertionPoint] = newScore;
+    size++;
+  }
+
+  /** Returns the number of neighbors */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the neighbor at the given index. */
+  public int node(int index) {
+    assert index < size;
+    return node[index];
+  }
+
+  /** Returns the score of the neighbor at the given index. */
+  public float score(int index) {
+    assert index < size;
+    return score[index];
+  }
+
+  /** Removes the neighbor at the given index. */
+  public void removeIndex(int index) {
+    assert index < size;
+    System.arraycopy(node, index + 1, node, index, size - index - 1);
+    System.arraycopy(score, index + 1, score, index, size - index - 1);
+    size--;
+  }
+
+  /** Removes all neighbors. */
+  public void clear() {
+    size = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "NeighborArray[" + size + "]";
+  }
+}
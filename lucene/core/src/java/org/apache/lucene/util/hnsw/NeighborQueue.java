@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A priority queue of graph nodes and their scores. Nodes and scores are
+ * packed together into longs, so that the queue does not need to allocate
+ * an object per entry: the score takes the high 32 bits, as a sortable int,
+ * and the node the low 32 bits. The queue is either a min-heap, whose top is
+ * the node with the lowest score, or a max-heap, whose top is the node with
+ * the highest score.
+ *
+ * @lucene.internal
+ */
+public final class NeighborQueue {
+
+  private final boolean maxHeap;
+  private final int maxSize;
+  // 1-based binary heap, heap[0] is unused
+  private long[] heap;
+  private int size;
+
+  // Used to track the number of neighbors visited during a single graph traversal
+  private int visitedCount;
+  // Whether the search stopped early because it reached the visited nodes limit
+  private boolean incomplete;
+
+  /**
+   * Create a new queue.
+   * @param maxSize the maximum number of entries that {@link #insertWithOverflow} retains,
+   *        which is also the initial capacity of the queue
+   * @param maxHeap whether the top of the queue is its highest scoring node (true)
+   *        or its lowest scoring node (false)
+   */
+  public NeighborQueue(int maxSize, boolean maxHeap) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1; got " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.maxHeap = maxHeap;
+    this.heap = new long[maxSize + 1];
+  }
+
+  /** Returns the number of elements in the queue */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds a new graph node with the given score, growing the queue if needed.
+   */
+  public void add(int newNode, float newScore) {
+    if (size + 1 == heap.length) {
+      heap = ArrayUtil.grow(heap, size + 2);
+    }
+    heap[++size] = encode(newNode, newScore);
+    upHeap(size);
+  }
+
+  /**
+   * Adds a new graph node if the queue holds fewer than its maximum size,
+   * or replaces the top of the queue if the new node sorts after it: for a
+   * min-heap this retains the {@code maxSize} highest scoring nodes.
+   * @return true if the node was added to the queue
+   */
+  public boolean insertWithOverflow(int newNode, float newScore) {
+    final long value = encode(newNode, newScore);
+    if (size < maxSize) {
+      if (size + 1 == heap.length) {
+        heap = ArrayUtil.grow(heap, size + 2);
+      }
+      heap[++size] = value;
+      upHeap(size);
+      return true;
+    } else if (size > 0 && value > heap[1]) {
+      heap[1] = value;
+      downHeap(1);
+      return true;
+    }
+    return false;
+  }
+
+  /** Removes the top element and returns its node id. */
+  public int pop() {
+    if (size == 0) {
+      throw new IllegalStateException("The queue is empty");
+    }
+    final long top = heap[1];
+    heap[1] = heap[size];
+    size--;
+    if (size > 0) {
+      downHeap(1);
+    }
+    return decodeNode(top);
+  }
+
+  /** Returns the top element's node id. */
+  public int topNode() {
+    return decodeNode(heap[1]);
+  }
+
+  /** Returns the top element's score. */
+  public float topScore() {
+    return decodeScore(heap[1]);
+  }
+
+  /** Returns a copy of the nodes in the queue, in no particular order. */
+  public int[] nodes() {
+    final int[] nodes = new int[size];
+    for (int i = 0; i < size; i++) {
+      nodes[i] = decodeNode(heap[i + 1]);
+    }
+    return nodes;
+  }
+
+  /** Removes all entries from the queue, and resets the search statistics. */
+  public void clear() {
+    size = 0;
+    visitedCount = 0;
+    incomplete = false;
+  }
+
+  /** Returns the number of nodes that were compared with the query during the search. */
+  public int visitedCount() {
+    return visitedCount;
+  }
+
+  /** Sets the number of nodes that were compared with the query during the search. */
+  public void setVisitedCount(int visitedCount) {
+    this.visitedCount = visitedCount;
+  }
+
+  /** Returns true if the search stopped before completion because it visited too many nodes. */
+  public boolean incomplete() {
+    return incomplete;
+  }
+
+  /** Records that the search stopped before completion. */
+  public void markIncomplete() {
+    this.incomplete = true;
+  }
+
+  // the heap is always a min-heap on the encoded values: the max-heap negates them
+  private long encode(int node, float score) {
+    final long value = (((long) NumericUtils.floatToSortableInt(score)) << 32) | (0xFFFFFFFFL & ~node);
+    return maxHeap ? -value : value;
+  }
+
+  private float decodeScore(long heapValue) {
+    final long value = maxHeap ? -heapValue : heapValue;
+    return NumericUtils.sortableIntToFloat((int) (value >> 32));
+  }
+
+  private int decodeNode(long heapValue) {
+    final long value = maxHeap ? -heapValue : heapValue;
+    return (int) ~(value & 0xFFFFFFFFL);
+  }
+
+  private void upHeap(int origPos) {
+    int i = origPos;
+    final long value = heap[i];
+    int j = i >>> 1;
+    while (j > 0 && value < heap[j]) {
+      heap[i] = heap[j];
+      i = j;
+      j = j >>> 1;
+    }
+    heap[i] = value;
+  }
+
+  private void downHeap(int i) {
+    final long value = heap[i];
+    int j = i << 1;
+    int k = j + 1;
+    if (k <= size && heap[k] < heap[j]) {
+      j = k;
+    }
+    while (j <= size && heap[j] < value) {
+      heap[i] = heap[j];
+      i = j;
+      j = i << 1;
+      k = j + 1;
+      if (k <= size && heap[k] < heap[j]) {
+        j = k;
+      }
+    }
+    heap[i] = value;
+  }
+
+  @Override
+  public String toString() {
+    return "Neighbors[" + size + "]";
+  }
+}
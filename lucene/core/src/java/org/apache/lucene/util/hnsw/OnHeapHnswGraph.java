@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * An {@link HnswGraph} where all nodes and connections are held in memory. This
+ * is the graph that {@link HnswGraphBuilder} builds.
+ *
+ * @lucene.internal
+ */
+public final class OnHeapHnswGraph extends HnswGraph {
+
+  private final int maxConn;
+  // the neighbors of each node on level 0, indexed by node
+  private final NeighborArray[] level0;
+  // the neighbors of the nodes of each level above 0; upperLevels.get(i) is level i+1
+  private final List<Map<Integer,NeighborArray>> upperLevels = new ArrayList<>();
+  private int numNodes;
+  private int entryNode = -1;
+
+  // cursor state for seek/nextNeighbor
+  private NeighborArray cur;
+  private int upto;
+
+  /**
+   * Create an empty graph.
+   * @param maxNodes the number of vectors, which bounds the node ordinals
+   * @param maxConn the maximum number of connections of a node on levels above 0; level 0
+   *        allows twice as many connections
+   */
+  public OnHeapHnswGraph(int maxNodes, int maxConn) {
+    this.level0 = new NeighborArray[maxNodes];
+    this.maxConn = maxConn;
+  }
+
+  /** Returns the maximum number of connections of a node on the given level */
+  public int maxConn(int level) {
+    return level == 0 ? maxConn * 2 : maxConn;
+  }
+
+  /**
+   * Returns the neighbors of the given node on the given level.
+   * @return the neighbors, or null if the node was not added to this level
+   */
+  public NeighborArray getNeighbors(int level, int node) {
+    if (level == 0) {
+      return level0[node];
+    }
+    return upperLevels.get(level - 1).get(node);
+  }
+
+  /**
+   * Add a node on the given level, with no neighbors yet. A level must have
+   * been added below it first; new levels are added as needed.
+   * @return the (empty) neighbors of the new node
+   */
+  public NeighborArray addNode(int level, int node) {
+    final NeighborArray neighbors = new NeighborArray(maxConn(level) + 1);
+    if (level == 0) {
+      assert level0[node] == null;
+      level0[node] = neighbors;
+      numNodes++;
+    } else {
+      while (upperLevels.size() < level) {
+        upperLevels.add(new HashMap<>());
+      }
+      final NeighborArray previous = upperLevels.get(level - 1).put(node, neighbors);
+      assert previous == null;
+    }
+    return neighbors;
+  }
+
+  /** Make the given node the entry point of the graph. It must have been added to the top level. */
+  public void setEntryNode(int node) {
+    assert getNeighbors(numLevels() - 1, node) != null;
+    this.entryNode = node;
+  }
+
+  @Override
+  public void seek(int level, int target) {
+    cur = getNeighbors(level, target);
+    if (cur == null) {
+      throw new IllegalArgumentException("node " + target + " is not on level " + level);
+    }
+    upto = -1;
+  }
+
+  @Override
+  public int nextNeighbor() {
+    if (++upto < cur.size()) {
+      return cur.node(upto);
+    }
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+
+  /** Returns the number of nodes that have been added to level 0 */
+  @Override
+  public int size() {
+    return numNodes;
+  }
+
+  @Override
+  public int numLevels() {
+    return numNodes == 0 ? 0 : upperLevels.size() + 1;
+  }
+
+  @Override
+  public int entryNode() {
+    return entryNode;
+  }
+
+  @Override
+  public DocIdSetIterator getNodesOnLevel(int level) {
+    final int[] nodes;
+    if (level == 0) {
+      nodes = new int[numNodes];
+      int i = 0;
+      for (int node = 0; node < level0.length; node++) {
+        if (level0[node] != null) {
+          nodes[i++] = node;
+        }
+      }
+    } else {
+      final Map<Integer,NeighborArray> levelMap = upperLevels.get(level - 1);
+      nodes = new int[levelMap.size()];
+      int i = 0;
+      for (int node : levelMap.keySet()) {
+        nodes[i++] = node;
+      }
+      Arrays.sort(nodes);
+    }
+    return nodesIterator(nodes, nodes.length);
+  }
+
+  @Override
+  public String toString() {
+    return "OnHeapHnswGraph(size=" + numNodes + ", numLevels=" + numLevels() + ", entryNode=" + entryNode + ")";
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+
+/**
+ * Random access to the vectors of a field, by ordinal. Ordinals are dense,
+ * from 0 to {@link #size()} - 1, and are the node ids of the graph.
+ *
+ * @lucene.internal
+ */
+public interface RandomAccessVectorValues {
+
+  /** Return the number of vectors */
+  int size();
+
+  /** Return the dimension of the vectors */
+  int dimension();
+
+  /**
+   * Return the vector with the given ordinal. The returned array may be
+   * shared with subsequent calls, so callers that need two vectors at once
+   * should get them from two different {@link #copy() copies}.
+   */
+  float[] vectorValue(int targetOrd) throws IOException;
+
+  /**
+   * Returns an independent instance over the same vectors, whose
+   * {@link #vectorValue(int)} does not share its buffer with this instance.
+   */
+  RandomAccessVectorValues copy() throws IOException;
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene50;
+
+
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
+import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_DATA_SIZE;
+import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_ENCODED_SIZE;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.packed.PackedInts;
+
+import com.carrotsearch.randomizedtesting.generators.RandomNumbers;
+
+public class TestPForUtil extends LuceneTestCase {
+
+  public void testEncodeDecode() throws IOException {
+    final int iterations = RandomNumbers.randomIntBetween(random(), 1, 1000);
+    final float acceptableOverheadRatio = random().nextFloat();
+    final int[] values = new int[(iterations - 1) * BLOCK_SIZE + ForUtil.MAX_DATA_SIZE];
+    for (int i = 0; i < iterations; ++i) {
+      final int bpv = random().nextInt(32);
+      if (bpv == 0) {
+        final int value = RandomNumbers.randomIntBetween(random(), 0, Integer.MAX_VALUE);
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = value;
+        }
+      } else {
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = RandomNumbers.randomIntBetween(random(),
+              0, (int) PackedInts.maxValue(bpv));
+        }
+      }
+      // add a few outliers
+      final int numOutliers = random().nextInt(PForUtil.MAX_EXCEPTIONS + 3);
+      for (int j = 0; j < numOutliers; ++j) {
+        values[i * BLOCK_SIZE + random().nextInt(BLOCK_SIZE)] = RandomNumbers.randomIntBetween(random(), 0, Integer.MAX_VALUE);
+      }
+    }
+
+    final Directory d = new RAMDirectory();
+    final long endPointer;
+
+    {
+      // encode
+      IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT);
+      final PForUtil pforUtil = new PForUtil(acceptableOverheadRatio, out);
+      
+      for (int i = 0; i < iterations; ++i) {
+        pforUtil.writeBlock(
+            Arrays.copyOfRange(values, i * BLOCK_SIZE, values.length),
+            new byte[MAX_ENCODED_SIZE], out);
+      }
+      endPointer = out.getFilePointer();
+      out.close();
+    }
+
+    {
+      // decode
+      IndexInput in = d.openInput("test.bin", IOContext.READONCE);
+      final PForUtil pforUtil = new PForUtil(in);
+      for (int i = 0; i < iterations; ++i) {
+        if (random().nextBoolean()) {
+          pforUtil.skipBlock(in);
+          continue;
+        }
+        final int[] restored = new int[MAX_DATA_SIZE];
+        pforUtil.readBlock(in, new byte[MAX_ENCODED_SIZE], restored);
+        assertArrayEquals(Arrays.copyOfRange(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE),
+            Arrays.copyOf(restored, BLOCK_SIZE));
+      }
+      assertEquals(endPointer, in.getFilePointer());
+      in.close();
+    }
+    
+    d.close();
+  }
+
+  public void testOutliersAreCheap() throws IOException {
+    final int[] values = new int[MAX_DATA_SIZE];
+    // eg. frequencies of a term that occurs once in most documents
+    Arrays.fill(values, 0, BLOCK_SIZE, 1);
+    values[3] = 1000;
+    values[42] = 7;
+
+    final Directory d = new RAMDirectory();
+    long forSize, pforSize;
+    try (IndexOutput out = d.createOutput("for.bin", IOContext.DEFAULT)) {
+      final ForUtil forUtil = new ForUtil(PackedInts.COMPACT, out);
+      final long start = out.getFilePointer();
+      forUtil.writeBlock(values.clone(), new byte[MAX_ENCODED_SIZE], out);
+      forSize = out.getFilePointer() - start;
+    }
+    try (IndexOutput out = d.createOutput("pfor.bin", IOContext.DEFAULT)) {
+      final PForUtil pforUtil = new PForUtil(PackedInts.COMPACT, out);
+      final long start = out.getFilePointer();
+      pforUtil.writeBlock(values.clone(), new byte[MAX_ENCODED_SIZE], out);
+      pforSize = out.getFilePointer() - start;
+    }
+    assertEquals(1 + BLOCK_SIZE * 10 / 8, forSize);
+    // token, common value, and two exceptions
+    assertEquals(1 + 1 + (1 + 2) + (1 + 1), pforSize);
+
+    try (IndexInput in = d.openInput("pfor.bin", IOContext.READONCE)) {
+      final PForUtil pforUtil = new PForUtil(in);
+      final int[] restored = new int[MAX_DATA_SIZE];
+      pforUtil.readBlock(in, new byte[MAX_ENCODED_SIZE], restored);
+      assertArrayEquals(Arrays.copyOf(values, BLOCK_SIZE), Arrays.copyOf(restored, BLOCK_SIZE));
+    }
+    d.close();
+  }
+
+}
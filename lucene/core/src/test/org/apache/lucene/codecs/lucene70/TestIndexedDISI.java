@@ -151,6 +151,69 @@ public class TestIndexedDISI extends LuceneTestCase {
     }
   }
 
+  public void testMixedBlocksWithGaps() throws IOException {
+    try (Directory dir = newDirectory()) {
+      for (int iter = 0; iter < 5; ++iter) {
+        final int numBlocks = TestUtil.nextInt(random(), 2, 40);
+        FixedBitSet set = new FixedBitSet(numBlocks << 16);
+        for (int block = 0; block < numBlocks; ++block) {
+          final int start = block << 16;
+          switch (random().nextInt(4)) {
+            case 0: // empty block
+              break;
+            case 1: // sparse
+              for (int i = 0, num = TestUtil.nextInt(random(), 1, IndexedDISI.MAX_ARRAY_LENGTH); i < num; ++i) {
+                set.set(start + random().nextInt(1 << 16));
+              }
+              break;
+            case 2: // dense
+              for (int i = random().nextInt(3); i < 1 << 16; i += TestUtil.nextInt(random(), 1, 8)) {
+                set.set(start + i);
+              }
+              break;
+            case 3: // all
+              set.set(start, start + (1 << 16));
+              break;
+          }
+        }
+        if (set.cardinality() > 0) {
+          doTest(set, dir);
+        }
+      }
+    }
+  }
+
+  public void testDenseAdvanceExact() throws IOException {
+    try (Directory dir = newDirectory()) {
+      FixedBitSet set = new FixedBitSet(3 << 16);
+      for (int i = 65536; i < 2 * 65536; i += TestUtil.nextInt(random(), 1, 5)) {
+        set.set(i);
+      }
+      final int cardinality = set.cardinality();
+      long length;
+      try (IndexOutput out = dir.createOutput("foo", IOContext.DEFAULT)) {
+        IndexedDISI.writeBitSet(new BitSetIterator(set, cardinality), out);
+        length = out.getFilePointer();
+      }
+      try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
+        for (int iter = 0; iter < 100; ++iter) {
+          IndexedDISI disi = new IndexedDISI(in, 0L, length, cardinality);
+          // jump straight to a random doc, potentially far from the start of the block
+          final int target = TestUtil.nextInt(random(), 0, set.length() - 1);
+          final boolean exists = disi.advanceExact(target);
+          assertEquals(set.get(target), exists);
+          if (exists) {
+            int index = 0;
+            for (int doc = set.nextSetBit(0); doc < target; doc = set.nextSetBit(doc + 1)) {
+              index++;
+            }
+            assertEquals(index, disi.index());
+          }
+        }
+      }
+    }
+  }
+
   public void testRandom() throws IOException {
     try (Directory dir = newDirectory()) {
       for (int i = 0; i < 10; ++i) {
@@ -196,7 +259,7 @@ public class TestIndexedDISI extends LuceneTestCase {
       assertEquals(DocIdSetIterator.NO_MORE_DOCS, disi.nextDoc());
     }
 
-    for (int step : new int[] {1, 10, 100, 1000, 10000, 100000}) {
+    for (int step : new int[] {1, 10, 100, 1000, 10000, 100000, 1000000}) {
       try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
         IndexedDISI disi = new IndexedDISI(in, 0L, length, cardinality);
         BitSetIterator disi2 = new BitSetIterator(set, cardinality);
@@ -217,7 +280,7 @@ public class TestIndexedDISI extends LuceneTestCase {
       }
     }
 
-    for (int step : new int[] {10, 100, 1000, 10000, 100000}) {
+    for (int step : new int[] {10, 100, 1000, 10000, 100000, 1000000}) {
       try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
         IndexedDISI disi = new IndexedDISI(in, 0L, length, cardinality);
         BitSetIterator disi2 = new BitSetIterator(set, cardinality);
@@ -47,6 +47,7 @@ import org.apache.lucene.index.BaseCompressingDocValuesFormatTestCase;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -441,6 +442,103 @@ public class TestLucene70DocValuesFormat extends BaseCompressingDocValuesFormatT
     }
   }
 
+  public void testSkipper() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = newIndexWriterConfig().setCodec(getCodec());
+    IndexWriter w = new IndexWriter(dir, conf);
+    final int numDocs = atLeast(3 * Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SIZE);
+    // a range of documents without values so that some blocks are empty
+    final int gapStart = random().nextInt(numDocs);
+    final int gapEnd = gapStart + random().nextInt(2 * Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SIZE);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if ((i < gapStart || i >= gapEnd) && random().nextInt(10) != 0) {
+        final long value = i / 10 + random().nextInt(100);
+        doc.add(new NumericDocValuesField("num", value));
+        doc.add(new SortedDocValuesField("sorted", new BytesRef(Long.toString(value))));
+        for (int j = random().nextInt(3); j >= 0; --j) {
+          doc.add(new SortedNumericDocValuesField("snum", value + j));
+          doc.add(new SortedSetDocValuesField("sset", new BytesRef(Long.toString(value + j))));
+        }
+      }
+      doc.add(new BinaryDocValuesField("binary", new BytesRef("foo")));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    DirectoryReader r = DirectoryReader.open(w);
+    w.close();
+    LeafReader reader = getOnlyLeafReader(r);
+    assertNull(reader.getDocValuesSkipper("binary"));
+    assertNull(reader.getDocValuesSkipper("missing"));
+    assertSkipper(reader, "num", false);
+    assertSkipper(reader, "snum", false);
+    assertSkipper(reader, "sorted", true);
+    assertSkipper(reader, "sset", true);
+    r.close();
+    dir.close();
+  }
+
+  private static void assertSkipper(LeafReader reader, String field, boolean ords) throws IOException {
+    final int maxDoc = reader.maxDoc();
+    final int numBlocks = ((maxDoc - 1) >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT) + 1;
+    final long[] mins = new long[numBlocks];
+    final long[] maxs = new long[numBlocks];
+    final int[] docCounts = new int[numBlocks];
+    Arrays.fill(mins, Long.MAX_VALUE);
+    Arrays.fill(maxs, Long.MIN_VALUE);
+    if (ords) {
+      SortedSetDocValues values = DocValues.getSortedSet(reader, field);
+      for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+        final int block = doc >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
+        docCounts[block]++;
+        for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+          mins[block] = Math.min(mins[block], ord);
+          maxs[block] = Math.max(maxs[block], ord);
+        }
+      }
+    } else {
+      SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+      for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+        final int block = doc >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
+        docCounts[block]++;
+        for (int i = 0; i < values.docValueCount(); ++i) {
+          final long value = values.nextValue();
+          mins[block] = Math.min(mins[block], value);
+          maxs[block] = Math.max(maxs[block], value);
+        }
+      }
+    }
+
+    DocValuesSkipper skipper = reader.getDocValuesSkipper(field);
+    assertNotNull(skipper);
+    assertEquals(-1, skipper.minDocID());
+    assertEquals(-1, skipper.maxDocID());
+    assertEquals(Arrays.stream(docCounts).sum(), skipper.docCountGlobal());
+    assertEquals(Arrays.stream(mins).min().getAsLong(), skipper.minValueGlobal());
+    assertEquals(Arrays.stream(maxs).max().getAsLong(), skipper.maxValueGlobal());
+
+    int target = 0;
+    while (true) {
+      skipper.advance(target);
+      int expectedBlock = target >>> Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT;
+      while (expectedBlock < numBlocks && docCounts[expectedBlock] == 0) {
+        expectedBlock++;
+      }
+      if (expectedBlock >= numBlocks) {
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.minDocID());
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.maxDocID());
+        break;
+      }
+      assertEquals(expectedBlock << Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT, skipper.minDocID());
+      assertEquals(Math.min(maxDoc - 1, ((expectedBlock + 1) << Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SHIFT) - 1), skipper.maxDocID());
+      assertEquals(mins[expectedBlock], skipper.minValue());
+      assertEquals(maxs[expectedBlock], skipper.maxValue());
+      assertEquals(docCounts[expectedBlock], skipper.docCount());
+      // either stay within the current block, or go to the next one or further
+      target = Math.max(target, skipper.minDocID()) + random().nextInt(2 * Lucene70DocValuesFormat.SKIP_INDEX_BLOCK_SIZE);
+    }
+  }
+
   @Slow
   public void testSortedSetAroundBlockSize() throws IOException {
     final int frontier = 1 << Lucene70DocValuesFormat.DIRECT_MONOTONIC_BLOCK_SHIFT;
@@ -21,6 +21,7 @@ import java.lang.reflect.Method;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.util.LuceneTestCase;
 
 import com.carrotsearch.randomizedtesting.generators.RandomPicks;
@@ -64,6 +65,10 @@ public class TestFieldType extends LuceneTestCase {
     FieldType ft11 = new FieldType();
     ft11.setDimensions(1, 4);
     assertFalse(ft11.equals(ft));
+
+    FieldType ft12 = new FieldType();
+    ft12.setVectorDimensionsAndSimilarityFunction(3, VectorValues.SimilarityFunction.EUCLIDEAN);
+    assertFalse(ft12.equals(ft));
   }
 
   public void testPointsToString() {
@@ -86,6 +91,8 @@ public class TestFieldType extends LuceneTestCase {
   private static FieldType randomFieldType() throws Exception {
     // setDimensions handled special as values must be in-bounds.
     Method setDimensionsMethod = FieldType.class.getMethod("setDimensions", int.class, int.class);
+    Method setVectorMethod = FieldType.class.getMethod("setVectorDimensionsAndSimilarityFunction",
+        int.class, VectorValues.SimilarityFunction.class);
     FieldType ft = new FieldType();
     for (Method method : FieldType.class.getMethods()) {
       if (method.getName().startsWith("set")) {
@@ -94,6 +101,9 @@ public class TestFieldType extends LuceneTestCase {
         if (method.equals(setDimensionsMethod)) {
           args[0] = 1 + random().nextInt(PointValues.MAX_DIMENSIONS);
           args[1] = 1 + random().nextInt(PointValues.MAX_NUM_BYTES);
+        } else if (method.equals(setVectorMethod)) {
+          args[0] = 1 + random().nextInt(VectorValues.MAX_DIMENSIONS);
+          args[1] = VectorValues.SimilarityFunction.values()[1 + random().nextInt(VectorValues.SimilarityFunction.values().length - 1)];
         } else {
           for (int i = 0; i < args.length; ++i) {
             args[i] = randomValue(parameterTypes[i]);
@@ -41,6 +41,7 @@ import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
@@ -1262,6 +1263,90 @@ public class TestAddIndexes extends LuceneTestCase {
     dest.close();
   }
 
+  public void testConcurrentCodecReaderMerges() throws Exception {
+    int numReaders = TestUtil.nextInt(random(), 2, 10);
+    List<Directory> sourceDirs = new ArrayList<>();
+    List<DirectoryReader> sourceReaders = new ArrayList<>();
+    List<CodecReader> leaves = new ArrayList<>();
+    int numDocs = 0;
+    for (int i = 0; i < numReaders; i++) {
+      Directory src = newDirectory();
+      IndexWriter w = new IndexWriter(src, newIndexWriterConfig(new MockAnalyzer(random())));
+      int docCount = TestUtil.nextInt(random(), 1, 20);
+      for (int j = 0; j < docCount; j++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", i + "_" + j, Field.Store.YES));
+        w.addDocument(doc);
+      }
+      numDocs += docCount;
+      w.forceMerge(1);
+      w.close();
+      DirectoryReader reader = DirectoryReader.open(src);
+      sourceDirs.add(src);
+      sourceReaders.add(reader);
+      leaves.add((CodecReader) reader.leaves().get(0).reader());
+    }
+
+    Directory dest = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    LogDocMergePolicy mp = new LogDocMergePolicy();
+    mp.setMergeFactor(1000); // don't merge the new segments away
+    final int maxAddIndexesMergeAtOnce = TestUtil.nextInt(random(), 1, numReaders);
+    mp.setMaxAddIndexesMergeAtOnce(maxAddIndexesMergeAtOnce);
+    iwc.setMergePolicy(mp);
+    iwc.setMergeScheduler(new ConcurrentMergeScheduler());
+    IndexWriter w = new IndexWriter(dest, iwc);
+    w.addIndexes(leaves.toArray(new CodecReader[0]));
+    w.commit();
+    w.close();
+
+    DirectoryReader r = DirectoryReader.open(dest);
+    assertEquals(numDocs, r.numDocs());
+    assertEquals((numReaders + maxAddIndexesMergeAtOnce - 1) / maxAddIndexesMergeAtOnce, r.leaves().size());
+    for (int i = 0; i < numReaders; i++) {
+      assertEquals(1, newSearcher(r).count(new TermQuery(new Term("id", i + "_0"))));
+    }
+    r.close();
+    IOUtils.close(sourceReaders);
+    IOUtils.close(sourceDirs);
+    dest.close();
+  }
+
+  public void testFindAddIndexesMerges() throws Exception {
+    Directory dir = newDirectory();
+    // one segment per commit
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    for (int i = 0; i < 7; i++) {
+      w.addDocument(new Document());
+      w.commit();
+    }
+    DirectoryReader r = DirectoryReader.open(w);
+    List<CodecReader> readers = new ArrayList<>();
+    for (LeafReaderContext ctx : r.leaves()) {
+      readers.add((CodecReader) ctx.reader());
+    }
+    assertEquals(7, readers.size());
+    MergePolicy mp = new TieredMergePolicy();
+    assertEquals(1, mp.findAddIndexesMerges(readers, w).size());
+    mp.setMaxAddIndexesMergeAtOnce(3);
+    List<List<CodecReader>> groups = mp.findAddIndexesMerges(readers, w);
+    assertEquals(3, groups.size());
+    List<CodecReader> all = new ArrayList<>();
+    for (List<CodecReader> group : groups) {
+      assertTrue(group.size() >= 2 && group.size() <= 3);
+      all.addAll(group);
+    }
+    // readers keep their order
+    assertEquals(readers, all);
+    expectThrows(IllegalArgumentException.class, () -> {
+      mp.setMaxAddIndexesMergeAtOnce(0);
+    });
+    r.close();
+    w.close();
+    dir.close();
+  }
+
   /** Make sure an open IndexWriter on an incoming Directory
    *  causes a LockObtainFailedException */
   public void testLocksBlock() throws Exception {
@@ -17,9 +17,18 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
 import org.junit.Test;
 
 public class TestCheckIndex extends BaseTestCheckIndex {
@@ -56,4 +65,89 @@ public class TestCheckIndex extends BaseTestCheckIndex {
   public void testObtainsLock() throws IOException {
     testObtainsLock(directory);
   }
+
+  @Test
+  public void testConcurrentChecks() throws IOException {
+    IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                      .setMergePolicy(NoMergePolicy.INSTANCE));
+    int numSegments = 2 + random().nextInt(5);
+    for (int i = 0; i < numSegments; i++) {
+      int numDocs = 1 + random().nextInt(20);
+      for (int j = 0; j < numDocs; j++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", i + "_" + j, Field.Store.YES));
+        doc.add(new NumericDocValuesField("dv", j));
+        writer.addDocument(doc);
+      }
+      writer.commit();
+    }
+    writer.deleteDocuments(new Term("id", "0_0"));
+    writer.close();
+
+    String sequentialOutput = null;
+    // with 2 threads, some segments are only opened once previous segments have been checked
+    for (int threadCount : new int[] {1, 2, 4}) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+      try (CheckIndex checker = new CheckIndex(directory)) {
+        checker.setInfoStream(new PrintStream(bos, false, IOUtils.UTF_8));
+        checker.setThreadCount(threadCount);
+        CheckIndex.Status status = checker.checkIndex();
+        assertTrue(status.clean);
+        assertEquals(numSegments, status.segmentInfos.size());
+        assertEquals(numSegments, status.newSegments.size());
+        for (int i = 0; i < numSegments; i++) {
+          assertEquals(status.newSegments.info(i).info.name, status.segmentInfos.get(i).name);
+          assertNull(status.segmentInfos.get(i).termIndexStatus.error);
+          assertEquals(1, status.segmentInfos.get(i).docValuesStatus.totalNumericFields);
+        }
+      }
+      // apart from timings, output is the same whether segments were checked concurrently or not
+      String output = bos.toString(IOUtils.UTF_8).replaceAll("[0-9.]+ sec", "");
+      assertTrue(output.contains("progress: " + numSegments + " of " + numSegments + " segments checked"));
+      if (sequentialOutput == null) {
+        sequentialOutput = output;
+      } else {
+        assertEquals(sequentialOutput, output);
+      }
+    }
+  }
+
+  public void testConcurrentChecksFailFast() throws IOException {
+    BaseDirectoryWrapper dir = newDirectory();
+    // the index is broken on purpose
+    dir.setCheckIndexOnClose(false);
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                .setMergePolicy(NoMergePolicy.INSTANCE));
+    for (int i = 0; i < 3; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      writer.addDocument(doc);
+      writer.commit();
+    }
+    writer.close();
+
+    // break the second segment
+    SegmentCommitInfo info = SegmentInfos.readLatestCommit(dir).info(1);
+    for (String file : info.files()) {
+      if (file.endsWith(".si") == false) {
+        dir.deleteFile(file);
+        break;
+      }
+    }
+
+    try (CheckIndex checker = new CheckIndex(dir)) {
+      checker.setThreadCount(2);
+      checker.setFailFast(true);
+      // the original exception, not a wrapper
+      expectThrows(IOException.class, () -> checker.checkIndex());
+    }
+    dir.close();
+  }
+
+  public void testThreadsOption() {
+    CheckIndex.Options opts = CheckIndex.parseOptions(new String[] {"-threads", "3", "index"});
+    assertEquals(3, opts.threadCount);
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threads"}));
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threads", "0"}));
+  }
 }
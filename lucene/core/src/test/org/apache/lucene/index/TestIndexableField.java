@@ -99,6 +99,16 @@ public class TestIndexableField extends LuceneTestCase {
       public int pointNumBytes() {
         return 0;
       }
+
+      @Override
+      public int vectorDimension() {
+        return 0;
+      }
+
+      @Override
+      public VectorValues.SimilarityFunction vectorSimilarityFunction() {
+        return VectorValues.SimilarityFunction.NONE;
+      }
     };
 
     public MyField(int counter) {
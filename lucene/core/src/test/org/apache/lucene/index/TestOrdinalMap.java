@@ -20,9 +20,14 @@ package org.apache.lucene.index;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
@@ -30,6 +35,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
 
@@ -50,6 +56,10 @@ public class TestOrdinalMap extends LuceneTestCase {
       if (o == LongValues.IDENTITY) {
         return 0L;
       }
+      if (o instanceof IndexReader.CacheKey) {
+        // segment keys are owned by the readers
+        return 0L;
+      }
       if (o instanceof OrdinalMap) {
         fieldValues = new HashMap<>(fieldValues);
         fieldValues.remove(ORDINAL_MAP_OWNER_FIELD);
@@ -96,4 +106,82 @@ public class TestOrdinalMap extends LuceneTestCase {
     dir.close();
   }
 
+  public void testIncrementalUpdate() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig cfg = newIndexWriterConfig(new MockAnalyzer(random()));
+    IndexWriter iw = new IndexWriter(dir, cfg);
+    final int maxTermLength = TestUtil.nextInt(random(), 1, 4);
+    ExecutorService executor = random().nextBoolean()
+        ? null
+        : Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 3), new NamedThreadFactory("TestOrdinalMap"));
+    OrdinalMap previousSorted = null, previousSortedSet = null;
+    int id = 0;
+    final int iters = atLeast(5);
+    for (int iter = 0; iter < iters; ++iter) {
+      final int numDocs = TestUtil.nextInt(random(), 1, 200);
+      for (int i = 0; i < numDocs; ++i) {
+        Document d = new Document();
+        d.add(new StringField("id", Integer.toString(id++), Store.NO));
+        if (random().nextBoolean()) {
+          d.add(new SortedDocValuesField("sdv", new BytesRef(TestUtil.randomSimpleString(random(), maxTermLength))));
+        }
+        final int numSortedSet = random().nextInt(3);
+        for (int j = 0; j < numSortedSet; ++j) {
+          d.add(new SortedSetDocValuesField("ssdv", new BytesRef(TestUtil.randomSimpleString(random(), maxTermLength))));
+        }
+        iw.addDocument(d);
+        if (rarely()) {
+          iw.commit();
+        }
+      }
+      final int numDeletes = random().nextInt(10);
+      for (int i = 0; i < numDeletes; ++i) {
+        iw.deleteDocuments(new Term("id", Integer.toString(random().nextInt(id))));
+      }
+      if (random().nextInt(5) == 0) {
+        // drop segments of the previous maps
+        iw.forceMerge(TestUtil.nextInt(random(), 1, 3));
+      }
+      DirectoryReader r = DirectoryReader.open(iw);
+
+      SortedDocValues sdv = MultiDocValues.getSortedValues(r, "sdv", previousSorted, executor);
+      SortedDocValues expectedSdv = MultiDocValues.getSortedValues(r, "sdv");
+      if (sdv instanceof MultiDocValues.MultiSortedDocValues) {
+        OrdinalMap map = ((MultiDocValues.MultiSortedDocValues) sdv).mapping;
+        assertSameOrdinalMap(((MultiDocValues.MultiSortedDocValues) expectedSdv).mapping, map, r.leaves().size());
+        previousSorted = map;
+      }
+      SortedSetDocValues ssdv = MultiDocValues.getSortedSetValues(r, "ssdv", previousSortedSet, executor);
+      SortedSetDocValues expectedSsdv = MultiDocValues.getSortedSetValues(r, "ssdv");
+      if (ssdv instanceof MultiDocValues.MultiSortedSetDocValues) {
+        OrdinalMap map = ((MultiDocValues.MultiSortedSetDocValues) ssdv).mapping;
+        assertSameOrdinalMap(((MultiDocValues.MultiSortedSetDocValues) expectedSsdv).mapping, map, r.leaves().size());
+        previousSortedSet = map;
+      }
+      r.close();
+    }
+    if (executor != null) {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+    iw.close();
+    dir.close();
+  }
+
+  private static void assertSameOrdinalMap(OrdinalMap expected, OrdinalMap actual, int numSegments) {
+    assertEquals(expected.getValueCount(), actual.getValueCount());
+    for (long ord = 0; ord < expected.getValueCount(); ++ord) {
+      assertEquals(expected.getFirstSegmentNumber(ord), actual.getFirstSegmentNumber(ord));
+      assertEquals(expected.getFirstSegmentOrd(ord), actual.getFirstSegmentOrd(ord));
+    }
+    for (int segment = 0; segment < numSegments; ++segment) {
+      LongValues expectedGlobalOrds = expected.getGlobalOrds(segment);
+      LongValues actualGlobalOrds = actual.getGlobalOrds(segment);
+      for (long ord = 0; ord < expected.segmentValueCounts[segment]; ++ord) {
+        assertEquals(expectedGlobalOrds.get(ord), actualGlobalOrds.get(ord));
+      }
+    }
+    assertEquals(RamUsageTester.sizeOf(actual, ORDINAL_MAP_ACCUMULATOR), actual.ramBytesUsed());
+  }
+
 }
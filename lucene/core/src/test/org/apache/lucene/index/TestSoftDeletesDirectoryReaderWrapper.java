@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestSoftDeletesDirectoryReaderWrapper extends LuceneTestCase {
+
+  public void testReadSoftDeletes() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField("soft_delete");
+    indexWriterConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    Set<Integer> liveDocs = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      int docId = random().nextInt(5);
+      Document doc = new Document();
+      doc.add(new StringField("id", String.valueOf(docId), Field.Store.YES));
+      writer.softUpdateDocument(new Term("id", String.valueOf(docId)), doc, new NumericDocValuesField("soft_delete", 1));
+      liveDocs.add(docId);
+      if (random().nextInt(10) == 0) {
+        writer.commit();
+      }
+    }
+
+    DirectoryReader reader = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(writer), "soft_delete");
+    assertEquals(liveDocs.size(), reader.numDocs());
+    IndexSearcher searcher = new IndexSearcher(reader);
+    for (Integer docId : liveDocs) {
+      assertEquals(1, searcher.search(new TermQuery(new Term("id", docId.toString())), 10).totalHits);
+    }
+
+    // hard deletes are still applied on top of soft deletes
+    writer.deleteDocuments(new Term("id", "0"));
+    liveDocs.remove(0);
+    DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+    assertNotNull(newReader);
+    assertTrue(newReader instanceof SoftDeletesDirectoryReaderWrapper);
+    assertEquals(liveDocs.size(), newReader.numDocs());
+    assertEquals(0, new IndexSearcher(newReader).search(new TermQuery(new Term("id", "0")), 10).totalHits);
+    IOUtils.close(reader, newReader, writer, dir);
+  }
+
+  public void testNoSoftDeletesField() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    Document doc = new Document();
+    doc.add(new StringField("id", "1", Field.Store.YES));
+    writer.addDocument(doc);
+    DirectoryReader reader = DirectoryReader.open(writer);
+    DirectoryReader wrapped = new SoftDeletesDirectoryReaderWrapper(reader, "soft_delete");
+    assertEquals(1, wrapped.numDocs());
+    // leaves without soft deletes are not wrapped
+    assertSame(reader.leaves().get(0).reader(), wrapped.leaves().get(0).reader());
+    IOUtils.close(wrapped, writer, dir);
+  }
+
+  public void testCacheKeysDifferFromWrappedReader() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField("soft_delete");
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    Document doc = new Document();
+    doc.add(new StringField("id", "1", Field.Store.YES));
+    writer.addDocument(doc);
+    writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+    writer.commit();
+    DirectoryReader reader = DirectoryReader.open(dir);
+    DirectoryReader wrapped = new SoftDeletesDirectoryReaderWrapper(reader, "soft_delete");
+    assertEquals(1, wrapped.numDocs());
+    assertEquals(2, reader.numDocs());
+    assertNotSame(reader.getReaderCacheHelper().getKey(), wrapped.getReaderCacheHelper().getKey());
+    LeafReader leaf = wrapped.leaves().get(0).reader();
+    LeafReader original = reader.leaves().get(0).reader();
+    assertSame(original.getCoreCacheHelper().getKey(), leaf.getCoreCacheHelper().getKey());
+    assertNotSame(original.getReaderCacheHelper().getKey(), leaf.getReaderCacheHelper().getKey());
+    IOUtils.close(wrapped, writer, dir);
+  }
+
+  public void testSoftUpdateRequiresSoftDeletesField() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    Document doc = new Document();
+    doc.add(new StringField("id", "1", Field.Store.YES));
+    expectThrows(IllegalArgumentException.class, () -> {
+      writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+    });
+    IOUtils.close(writer, dir);
+
+    Directory otherDir = newDirectory();
+    IndexWriter otherWriter = new IndexWriter(otherDir, newIndexWriterConfig().setSoftDeletesField("soft_delete"));
+    expectThrows(IllegalArgumentException.class, () -> {
+      otherWriter.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("other", 1));
+    });
+    expectThrows(IllegalArgumentException.class, () -> {
+      otherWriter.softUpdateDocument(new Term("id", "1"), doc);
+    });
+    IOUtils.close(otherWriter, otherDir);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestSoftDeletesRetentionMergePolicy extends LuceneTestCase {
+
+  public void testKeepAllDocsAcrossMerges() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField("soft_delete");
+    indexWriterConfig.setMergePolicy(new SoftDeletesRetentionMergePolicy("soft_delete", () -> new MatchAllDocsQuery(),
+        newLogMergePolicy()));
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    Document doc = new Document();
+    doc.add(new StringField("id", "1", Field.Store.YES));
+    writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+    writer.commit();
+    doc = new Document();
+    doc.add(new StringField("id", "1", Field.Store.YES));
+    writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+    writer.commit();
+    writer.forceMerge(1);
+    writer.commit();
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(1, reader.leaves().size());
+    assertEquals(2, reader.maxDoc());
+    assertEquals(2, reader.numDocs());
+    assertEquals(1, new SoftDeletesDirectoryReaderWrapper(reader, "soft_delete").numDocs());
+    IOUtils.close(reader, writer, dir);
+  }
+
+  public void testDropAllSoftDeletesOnMerge() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField("soft_delete");
+    indexWriterConfig.setMergePolicy(new SoftDeletesRetentionMergePolicy("soft_delete", () -> new MatchNoDocsQuery(),
+        newLogMergePolicy()));
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    int numUpdates = atLeast(5);
+    for (int i = 0; i < numUpdates; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", "1", Field.Store.YES));
+      writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+      writer.commit();
+    }
+    writer.forceMerge(1);
+    writer.commit();
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(1, reader.maxDoc());
+    assertEquals(1, reader.numDocs());
+    IOUtils.close(reader, writer, dir);
+  }
+
+  public void testRetentionQuery() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField("soft_delete");
+    // keep all soft deleted versions that were created at or after time 5
+    indexWriterConfig.setMergePolicy(new SoftDeletesRetentionMergePolicy("soft_delete",
+        () -> LongPoint.newRangeQuery("version", 5, Long.MAX_VALUE), newLogMergePolicy()));
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    for (long version = 0; version < 10; version++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", "1", Field.Store.YES));
+      doc.add(new LongPoint("version", version));
+      writer.softUpdateDocument(new Term("id", "1"), doc, new NumericDocValuesField("soft_delete", 1));
+      writer.commit();
+    }
+    // hard deletes are never retained
+    writer.deleteDocuments(LongPoint.newExactQuery("version", 7));
+    writer.forceMerge(1);
+    writer.commit();
+    DirectoryReader reader = DirectoryReader.open(dir);
+    // versions 5, 6, 8 are retained soft deletes, version 9 is live
+    assertEquals(4, reader.maxDoc());
+    assertEquals(1, new SoftDeletesDirectoryReaderWrapper(reader, "soft_delete").numDocs());
+    assertEquals(0, newSearcher(reader).count(LongPoint.newRangeQuery("version", 0, 4)));
+    assertEquals(0, newSearcher(reader).count(LongPoint.newExactQuery("version", 7)));
+    IOUtils.close(reader, writer, dir);
+  }
+
+  public void testApplyRetentionQueryWithoutSoftDeletes() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    for (String id : Arrays.asList("1", "2")) {
+      Document doc = new Document();
+      doc.add(new StringField("id", id, Field.Store.YES));
+      writer.addDocument(doc);
+    }
+    writer.commit();
+    DirectoryReader reader = DirectoryReader.open(dir);
+    CodecReader leaf = (CodecReader) reader.leaves().get(0).reader();
+    assertSame(leaf, SoftDeletesRetentionMergePolicy.applyRetentionQuery("soft_delete", new TermQuery(new Term("id", "1")), leaf));
+    IOUtils.close(reader, writer, dir);
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
@@ -171,6 +172,81 @@ public class TestDocValuesQueries extends LuceneTestCase {
     doTestDuelPointRangeSortedRangeQuery(false, 1);
   }
 
+  public void testDuelPointRangeNumericRangeQueryIndexSort() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig();
+    iwc.setIndexSort(new Sort(new SortField("dv", SortField.Type.LONG)));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwc);
+    // enough documents for the skip index to have several blocks
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(5) != 0) {
+        final long value = TestUtil.nextLong(random(), -100, 10000);
+        doc.add(new NumericDocValuesField("dv", value));
+        doc.add(new LongPoint("idx", value));
+      }
+      iw.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
+    }
+    final IndexReader reader = iw.getReader();
+    final IndexSearcher searcher = newSearcher(reader, false);
+    iw.close();
+
+    for (int i = 0; i < 100; ++i) {
+      final long min = random().nextBoolean() ? Long.MIN_VALUE : TestUtil.nextLong(random(), -200, 10100);
+      final long max = random().nextBoolean() ? Long.MAX_VALUE : TestUtil.nextLong(random(), -200, 10100);
+      assertSameMatches(searcher, LongPoint.newRangeQuery("idx", min, max), NumericDocValuesField.newRangeQuery("dv", min, max), false);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testDuelPointRangeClusteredValues() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    // values grow with doc IDs so that blocks of the skip index cover narrow ranges
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      final int numValues = TestUtil.nextInt(random(), 0, 3);
+      for (int j = 0; j < numValues; ++j) {
+        final long value = i + TestUtil.nextLong(random(), -50, 50);
+        byte[] encoded = new byte[Long.BYTES];
+        LongPoint.encodeDimension(value, encoded, 0);
+        doc.add(new SortedNumericDocValuesField("dv", value));
+        doc.add(new SortedSetDocValuesField("sdv", new BytesRef(encoded)));
+        doc.add(new LongPoint("idx", value));
+      }
+      iw.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
+    }
+    final IndexReader reader = iw.getReader();
+    final IndexSearcher searcher = newSearcher(reader, false);
+    iw.close();
+
+    for (int i = 0; i < 100; ++i) {
+      final long min = TestUtil.nextLong(random(), -100, numDocs + 100);
+      final long max = random().nextBoolean() ? Long.MAX_VALUE : TestUtil.nextLong(random(), min, numDocs + 100);
+      byte[] encodedMin = new byte[Long.BYTES];
+      byte[] encodedMax = new byte[Long.BYTES];
+      LongPoint.encodeDimension(min, encodedMin, 0);
+      LongPoint.encodeDimension(max, encodedMax, 0);
+      final Query q1 = LongPoint.newRangeQuery("idx", min, max);
+      assertSameMatches(searcher, q1, SortedNumericDocValuesField.newRangeQuery("dv", min, max), false);
+      assertSameMatches(searcher, q1,
+          SortedSetDocValuesField.newRangeQuery("sdv", new BytesRef(encodedMin), new BytesRef(encodedMax), true, true), false);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
   private void assertSameMatches(IndexSearcher searcher, Query q1, Query q2, boolean scores) throws IOException {
     final int maxDoc = searcher.getIndexReader().maxDoc();
     final TopDocs td1 = searcher.search(q1, maxDoc, scores ? Sort.RELEVANCE : Sort.INDEXORDER);
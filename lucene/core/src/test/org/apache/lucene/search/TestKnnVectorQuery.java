@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.VectorField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestKnnVectorQuery extends LuceneTestCase {
+
+  public void testEquals() {
+    KnnVectorQuery q1 = new KnnVectorQuery("f1", new float[] {0, 1}, 10);
+    Query filter1 = new TermQuery(new Term("id", "id1"));
+    KnnVectorQuery q2 = new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter1);
+
+    assertFalse(q2.equals(q1));
+    assertFalse(q1.equals(q2));
+    assertEquals(q2, new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter1));
+
+    Query filter2 = new TermQuery(new Term("id", "id2"));
+    assertFalse(q2.equals(new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter2)));
+
+    assertEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 10));
+    assertEquals(q1.hashCode(), new KnnVectorQuery("f1", new float[] {0, 1}, 10).hashCode());
+
+    assertFalse(q1.equals(null));
+    assertFalse(q1.equals(new TermQuery(new Term("f1", "x"))));
+    assertFalse(q1.equals(new KnnVectorQuery("f2", new float[] {0, 1}, 10)));
+    assertFalse(q1.equals(new KnnVectorQuery("f1", new float[] {1, 1}, 10)));
+    assertFalse(q1.equals(new KnnVectorQuery("f1", new float[] {0, 1}, 2)));
+    assertFalse(q1.equals(new KnnVectorQuery("f1", new float[] {0}, 10)));
+  }
+
+  public void testToString() {
+    KnnVectorQuery query = new KnnVectorQuery("field", new float[] {0, 1}, 10);
+    assertEquals("KnnVectorQuery:field[0.0,...][10]", query.toString("ignored"));
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new KnnVectorQuery("f", new float[] {0, 1}, 0));
+  }
+
+  /** Tests that a query with k larger than the number of documents returns them all, closest first. */
+  public void testFindAll() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        addVectorDoc(w, "0", new float[] {0, 1});
+        addVectorDoc(w, "1", new float[] {1, 2});
+        addVectorDoc(w, "2", new float[] {0, 0});
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+        TopDocs results = searcher.search(new KnnVectorQuery("field", new float[] {0, 0}, 10), 5);
+        assertEquals(3, results.totalHits);
+        assertIdMatches(reader, "2", results.scoreDocs[0]);
+        assertIdMatches(reader, "0", results.scoreDocs[1]);
+        assertIdMatches(reader, "1", results.scoreDocs[2]);
+        // scores are 1 / (1 + squareDistance)
+        assertEquals(1f, results.scoreDocs[0].score, 0f);
+        assertEquals(0.5f, results.scoreDocs[1].score, 0f);
+        assertEquals(1f / 6, results.scoreDocs[2].score, 1e-6f);
+      }
+    }
+  }
+
+  public void testMissingField() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        addVectorDoc(w, "0", new float[] {0, 1});
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+        TopDocs results = searcher.search(new KnnVectorQuery("missing", new float[] {0, 0}, 10), 5);
+        assertEquals(0, results.totalHits);
+      }
+    }
+  }
+
+  public void testDimensionMismatch() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        addVectorDoc(w, "0", new float[] {0, 1});
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+        expectThrows(IllegalArgumentException.class,
+            () -> searcher.search(new KnnVectorQuery("field", new float[] {0}, 10), 5));
+      }
+    }
+  }
+
+  /** Tests that documents without a vector, and deleted documents, never match. */
+  public void testSparseAndDeletes() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        for (int i = 0; i < 30; i++) {
+          if (i % 3 == 0) {
+            Document doc = new Document();
+            doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            w.addDocument(doc);
+          } else {
+            addVectorDoc(w, Integer.toString(i), new float[] {i, 0});
+          }
+        }
+        w.deleteDocuments(new Term("id", "1"));
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+        TopDocs results = searcher.search(new KnnVectorQuery("field", new float[] {0, 0}, 3), 5);
+        assertEquals(3, results.scoreDocs.length);
+        assertIdMatches(reader, "2", results.scoreDocs[0]);
+        assertIdMatches(reader, "4", results.scoreDocs[1]);
+        assertIdMatches(reader, "5", results.scoreDocs[2]);
+      }
+    }
+  }
+
+  /** Tests filters that match few documents, which are searched exactly, and many documents. */
+  public void testFilter() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        for (int i = 0; i < 100; i++) {
+          Document doc = new Document();
+          doc.add(new VectorField("field", new float[] {i, i}));
+          doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+          doc.add(new IntPoint("num", i));
+          w.addDocument(doc);
+          if (i == 49) {
+            w.commit();
+          }
+        }
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+
+        // a filter matching fewer documents than k
+        Query filter = IntPoint.newRangeQuery("num", 60, 62);
+        TopDocs results = searcher.search(new KnnVectorQuery("field", new float[] {0, 0}, 5, filter), 10);
+        assertEquals(3, results.scoreDocs.length);
+        assertIdMatches(reader, "60", results.scoreDocs[0]);
+        assertIdMatches(reader, "61", results.scoreDocs[1]);
+        assertIdMatches(reader, "62", results.scoreDocs[2]);
+
+        // a filter matching many documents in every segment
+        filter = IntPoint.newRangeQuery("num", 30, 79);
+        results = searcher.search(new KnnVectorQuery("field", new float[] {100, 100}, 5, filter), 10);
+        assertEquals(5, results.scoreDocs.length);
+        for (int i = 0; i < 5; i++) {
+          assertIdMatches(reader, Integer.toString(79 - i), results.scoreDocs[i]);
+        }
+
+        // a filter matching nothing
+        filter = IntPoint.newRangeQuery("num", 200, 300);
+        results = searcher.search(new KnnVectorQuery("field", new float[] {0, 0}, 5, filter), 10);
+        assertEquals(0, results.totalHits);
+      }
+    }
+  }
+
+  /** Tests that a sparse filter stops the graph search early and falls back to an exact search. */
+  public void testSparseFilter() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        for (int i = 0; i < 500; i++) {
+          Document doc = new Document();
+          doc.add(new VectorField("field", new float[] {i, i}));
+          doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+          doc.add(new StringField("tag", i % 50 == 0 ? "sparse" : "dense", Field.Store.NO));
+          w.addDocument(doc);
+        }
+        w.forceMerge(1);
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        // the graph search gives up once it compared visitedLimit vectors
+        LeafReader leafReader = getOnlyLeafReader(reader);
+        TopDocs limited = leafReader.searchNearestVectors("field", new float[] {0, 0}, 5, null, 3);
+        assertTrue(limited.totalHits <= 3);
+
+        // documents that match the filter are far apart in the graph, so they are compared directly
+        IndexSearcher searcher = newSearcher(reader);
+        Query filter = new TermQuery(new Term("tag", "sparse"));
+        TopDocs results = searcher.search(new KnnVectorQuery("field", new float[] {0, 0}, 5, filter), 10);
+        assertEquals(5, results.scoreDocs.length);
+        for (int i = 0; i < 5; i++) {
+          assertIdMatches(reader, Integer.toString(i * 50), results.scoreDocs[i]);
+        }
+      }
+    }
+  }
+
+  /** Tests that vectors and graphs survive merges, including segments with deletions. */
+  public void testMerge() throws IOException {
+    int numDocs = atLeast(300);
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMaxBufferedDocs(50))) {
+        for (int i = 0; i < numDocs; i++) {
+          addVectorDoc(w, Integer.toString(i), new float[] {i, numDocs - i});
+        }
+        w.deleteDocuments(new Term("id", "5"));
+        w.forceMerge(1);
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        assertEquals(1, reader.leaves().size());
+        LeafReader leafReader = reader.leaves().get(0).reader();
+        VectorValues values = leafReader.getVectorValues("field");
+        assertEquals(numDocs - 1, values.size());
+        int count = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+          int id = Integer.parseInt(leafReader.document(doc).get("id"));
+          assertEquals(id, (int) values.vectorValue()[0]);
+          assertEquals(numDocs - id, (int) values.vectorValue()[1]);
+          count++;
+        }
+        assertEquals(numDocs - 1, count);
+
+        IndexSearcher searcher = newSearcher(reader);
+        TopDocs results = searcher.search(new KnnVectorQuery("field", new float[] {4, numDocs - 4}, 3), 3);
+        assertIdMatches(reader, "4", results.scoreDocs[0]);
+        assertEquals(3, results.scoreDocs.length);
+        for (ScoreDoc scoreDoc : results.scoreDocs) {
+          assertFalse("5".equals(reader.document(scoreDoc.doc).get("id")));
+        }
+      }
+    }
+  }
+
+  /** Tests that the rewritten query may only be used with the reader it was rewritten with */
+  public void testDifferentReader() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        addVectorDoc(w, "0", new float[] {0, 1});
+      }
+      try (IndexReader reader = DirectoryReader.open(dir);
+           IndexReader reader2 = DirectoryReader.open(dir)) {
+        Query rewritten = new KnnVectorQuery("field", new float[] {0, 0}, 10).rewrite(reader);
+        IndexSearcher searcher2 = newSearcher(reader2);
+        expectThrows(IllegalStateException.class, () -> searcher2.search(rewritten, 10));
+      }
+    }
+  }
+
+  public void testExplain() throws IOException {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        addVectorDoc(w, "0", new float[] {0, 1});
+        addVectorDoc(w, "1", new float[] {0, 2});
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        IndexSearcher searcher = newSearcher(reader);
+        Query query = new KnnVectorQuery("field", new float[] {0, 0}, 1);
+        TopDocs results = searcher.search(query, 10);
+        assertEquals(1, results.scoreDocs.length);
+        LeafReaderContext ctx = reader.leaves().get(0);
+        Explanation matched = searcher.explain(query, results.scoreDocs[0].doc);
+        assertTrue(matched.isMatch());
+        assertEquals(results.scoreDocs[0].score, matched.getValue(), 0f);
+        int other = results.scoreDocs[0].doc == ctx.docBase ? 1 : 0;
+        assertFalse(searcher.explain(query, other).isMatch());
+      }
+    }
+  }
+
+  private static void addVectorDoc(IndexWriter w, String id, float[] vector) throws IOException {
+    Document doc = new Document();
+    doc.add(new VectorField("field", vector));
+    doc.add(new StringField("id", id, Field.Store.YES));
+    w.addDocument(doc);
+  }
+
+  private static void assertIdMatches(IndexReader reader, String expectedId, ScoreDoc scoreDoc) throws IOException {
+    assertEquals(expectedId, reader.document(scoreDoc.doc).get("id"));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestMemoryBudget extends LuceneTestCase {
+
+  public void testBudget() {
+    MemoryBudget budget = new MemoryBudget(100);
+    budget.addBytes(60);
+    budget.addBytes(40);
+    assertEquals(100, budget.getUsedBytes());
+    MemoryBudgetExceededException e = expectThrows(MemoryBudgetExceededException.class, () -> budget.addBytes(1));
+    assertEquals(100, e.getBudgetBytes());
+    assertEquals(101, e.getRequestedBytes());
+    // refused allocations are not recorded
+    assertEquals(100, budget.getUsedBytes());
+
+    expectThrows(IllegalArgumentException.class, () -> new MemoryBudget(-1));
+    expectThrows(IllegalArgumentException.class, () -> budget.addBytes(-1));
+  }
+
+  public void testEstimateCollectorRamBytesUsed() {
+    final int numHits = TestUtil.nextInt(random(), 1, 10000);
+    final ScoreDoc after = random().nextBoolean() ? null : new ScoreDoc(0, 1f);
+    final TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, after);
+    assertTrue(TopScoreDocCollector.estimateRamBytesUsed(numHits) >= collector.ramBytesUsed());
+    // the estimate grows with the queue, which takes a long per hit
+    assertTrue(TopScoreDocCollector.estimateRamBytesUsed(numHits) >= (long) numHits * Long.BYTES);
+
+    final Sort sort = new Sort(new SortField("f", SortField.Type.STRING), new SortField("g", SortField.Type.LONG), SortField.FIELD_SCORE);
+    final FieldDoc fieldAfter = random().nextBoolean() ? null : new FieldDoc(0, 1f, new Object[] {null, 0L, 1f});
+    final TopFieldCollector fieldCollector = TopFieldCollector.create(sort, numHits, fieldAfter, true, false, false);
+    assertTrue(TopFieldCollector.estimateRamBytesUsed(sort, numHits) >= fieldCollector.ramBytesUsed());
+  }
+
+  public void testSearch() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    for (int i = 0; i < 100; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", "a" + i, Store.NO));
+      w.addDocument(doc);
+    }
+    // a single segment with more than 16 terms, so that the wildcard query does not get
+    // rewritten to a boolean query and builds a doc ID set instead
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestMemoryBudget"));
+    // with an executor, the budget must still surface as a MemoryBudgetExceededException
+    for (IndexSearcher searcher : new IndexSearcher[] { new IndexSearcher(reader), new IndexSearcher(reader, service) }) {
+      searcher.setQueryCache(null);
+      assertNull(searcher.getMemoryAccountant());
+      Query query = new WildcardQuery(new Term("f", "a*"));
+      assertEquals(100, searcher.count(query));
+
+      // the doc ID set of the wildcard query does not fit
+      searcher.setMemoryAccountant(new MemoryBudget(8));
+      expectThrows(MemoryBudgetExceededException.class, () -> searcher.count(query));
+
+      // the priority queue does not fit
+      searcher.setMemoryAccountant(new MemoryBudget(256));
+      expectThrows(MemoryBudgetExceededException.class, () -> searcher.search(new TermQuery(new Term("f", "a3")), 1000));
+      searcher.setMemoryAccountant(new MemoryBudget(256));
+      expectThrows(MemoryBudgetExceededException.class,
+          () -> searcher.search(new TermQuery(new Term("f", "a3")), 1000, new Sort(SortField.FIELD_DOC)));
+
+      // small queries fit
+      MemoryBudget budget = new MemoryBudget(1 << 20);
+      searcher.setMemoryAccountant(budget);
+      assertEquals(100, searcher.search(query, 1000).totalHits);
+      assertTrue(budget.getUsedBytes() > 0);
+    }
+
+    TestUtil.shutdownExecutorService(service);
+    reader.close();
+    dir.close();
+  }
+
+}
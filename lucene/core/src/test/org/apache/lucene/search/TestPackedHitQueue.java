@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestPackedHitQueue extends LuceneTestCase {
+
+  public void testEncoding() {
+    final float[] scores = new float[] {Float.NEGATIVE_INFINITY, -Float.MAX_VALUE, -1f, -Float.MIN_VALUE,
+        0f, Float.MIN_VALUE, 1f, Float.MAX_VALUE, Float.POSITIVE_INFINITY};
+    final int[] docs = new int[] {0, 1, 42, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+    long previous = Long.MIN_VALUE;
+    for (float score : scores) {
+      // better docs come first, so iterate docs in reverse order
+      for (int i = docs.length - 1; i >= 0; --i) {
+        final long hit = PackedHitQueue.encode(docs[i], score);
+        assertEquals(docs[i], PackedHitQueue.decodeDoc(hit));
+        assertEquals(score, PackedHitQueue.decodeScore(hit), 0f);
+        assertTrue(hit > previous);
+        previous = hit;
+      }
+    }
+    // -0 and 0 tie
+    assertEquals(PackedHitQueue.encode(3, 0f), PackedHitQueue.encode(3, -0f));
+  }
+
+  public void testSameOrderAsHitQueue() {
+    final int size = TestUtil.nextInt(random(), 1, 100);
+    final HitQueue expected = new HitQueue(size, true);
+    final PackedHitQueue actual = new PackedHitQueue(size);
+    ScoreDoc top = expected.top();
+    long packedTop = actual.top();
+    assertEquals(PackedHitQueue.SENTINEL, packedTop);
+    for (int i = 0, numHits = atLeast(1000); i < numHits; ++i) {
+      final int doc = random().nextInt(10000);
+      // few distinct scores so that there are ties
+      final float score = random().nextInt(20) - 5;
+      if (score > top.score || (score == top.score && doc < top.doc)) {
+        top.doc = doc;
+        top.score = score;
+        top = expected.updateTop();
+      }
+      final long packedHit = PackedHitQueue.encode(doc, score);
+      if (packedHit > packedTop) {
+        packedTop = actual.updateTop(packedHit);
+      }
+      assertEquals(top.doc, PackedHitQueue.decodeDoc(packedTop));
+      assertEquals(top.score, PackedHitQueue.decodeScore(packedTop), 0f);
+    }
+    assertEquals(expected.size(), actual.size());
+    while (expected.size() > 0) {
+      final ScoreDoc scoreDoc = expected.pop();
+      final long packedHit = actual.pop();
+      assertEquals(scoreDoc.doc, PackedHitQueue.decodeDoc(packedHit));
+      assertEquals(scoreDoc.score, PackedHitQueue.decodeScore(packedHit), 0f);
+      assertEquals(expected.size(), actual.size());
+    }
+  }
+}
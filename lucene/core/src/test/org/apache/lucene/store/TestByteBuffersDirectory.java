@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+
+import org.apache.lucene.util.TestUtil;
+
+public class TestByteBuffersDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) {
+    // small blocks so that files span many of them
+    final int blockSize = 1 << TestUtil.nextInt(random(), 4, 16);
+    return new ByteBuffersDirectory(new SingleInstanceLockFactory(), blockSize,
+        random().nextBoolean() ? ByteBuffersDirectory.HEAP_ALLOCATOR : ByteBuffersDirectory.DIRECT_ALLOCATOR);
+  }
+
+  public void testBlockBoundaries() throws IOException {
+    final int blockSize = 16;
+    ByteBuffersDirectory dir = new ByteBuffersDirectory(new SingleInstanceLockFactory(), blockSize, ByteBuffersDirectory.HEAP_ALLOCATOR);
+    for (int length : new int[] {0, 1, blockSize - 1, blockSize, blockSize + 1, 3 * blockSize, 3 * blockSize + 5}) {
+      final String name = "file" + length;
+      try (IndexOutput out = dir.createOutput(name, IOContext.DEFAULT)) {
+        for (int i = 0; i < length; ++i) {
+          out.writeByte((byte) i);
+        }
+        assertEquals(length, out.getFilePointer());
+      }
+      assertEquals(length, dir.fileLength(name));
+      try (IndexInput in = dir.openInput(name, IOContext.DEFAULT)) {
+        assertEquals(length, in.length());
+        for (int i = 0; i < length; ++i) {
+          assertEquals((byte) i, in.readByte());
+        }
+        in.seek(length);
+        assertEquals(length, in.getFilePointer());
+      }
+    }
+    dir.close();
+  }
+
+  public void testRamBytesUsed() throws IOException {
+    final int blockSize = 1024;
+    ByteBuffersDirectory dir = new ByteBuffersDirectory(new SingleInstanceLockFactory(), blockSize, ByteBuffersDirectory.HEAP_ALLOCATOR);
+    assertEquals(0, dir.ramBytesUsed());
+    IndexOutput out = dir.createOutput("foo", IOContext.DEFAULT);
+    out.writeBytes(new byte[blockSize + 10], blockSize + 10);
+    assertEquals(2 * blockSize, dir.ramBytesUsed());
+    out.close();
+    // the last block is trimmed
+    assertEquals(blockSize + 10, dir.ramBytesUsed());
+    dir.deleteFile("foo");
+    assertEquals(0, dir.ramBytesUsed());
+    dir.close();
+  }
+
+  public void testSmallFiles() throws IOException {
+    ByteBuffersDirectory dir = new ByteBuffersDirectory();
+    IndexOutput out = dir.createOutput("foo", IOContext.DEFAULT);
+    out.writeBytes(new byte[10], 10);
+    // small files don't allocate a full block
+    assertEquals(ByteBuffersDirectory.MIN_BLOCK_SIZE, dir.ramBytesUsed());
+    out.writeBytes(new byte[3 * ByteBuffersDirectory.MIN_BLOCK_SIZE], 3 * ByteBuffersDirectory.MIN_BLOCK_SIZE);
+    assertEquals(4 * ByteBuffersDirectory.MIN_BLOCK_SIZE, dir.ramBytesUsed());
+    out.close();
+    assertEquals(10 + 3 * ByteBuffersDirectory.MIN_BLOCK_SIZE, dir.ramBytesUsed());
+    try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
+      assertEquals(10 + 3 * ByteBuffersDirectory.MIN_BLOCK_SIZE, in.length());
+    }
+    dir.close();
+  }
+
+  public void testOpenFileStillBeingWritten() throws IOException {
+    ByteBuffersDirectory dir = new ByteBuffersDirectory();
+    IndexOutput out = dir.createOutput("foo", IOContext.DEFAULT);
+    out.writeInt(42);
+    assertEquals(4, dir.fileLength("foo"));
+    expectThrows(AccessDeniedException.class, () -> dir.openInput("foo", IOContext.DEFAULT));
+    out.close();
+    try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
+      assertEquals(42, in.readInt());
+    }
+    dir.close();
+  }
+
+  public void testIllegalBlockSize() {
+    expectThrows(IllegalArgumentException.class,
+        () -> new ByteBuffersDirectory(new SingleInstanceLockFactory(), 1000, ByteBuffersDirectory.HEAP_ALLOCATOR));
+    expectThrows(IllegalArgumentException.class,
+        () -> new ByteBuffersDirectory(new SingleInstanceLockFactory(), 0, ByteBuffersDirectory.HEAP_ALLOCATOR));
+  }
+}
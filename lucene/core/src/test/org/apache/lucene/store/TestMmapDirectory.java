@@ -18,7 +18,10 @@ package org.apache.lucene.store;
 
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
@@ -32,7 +35,20 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
   @Override
   protected Directory getDirectory(Path path) throws IOException {
     MMapDirectory m = new MMapDirectory(path);
-    m.setPreload(random().nextBoolean());
+    switch (random().nextInt(3)) {
+      case 0:
+        m.setPreload(random().nextBoolean());
+        break;
+      case 1:
+        m.setPreload(MMapDirectory.preloadExtensions("tip", "nvd", "dvd"));
+        break;
+      default:
+        m.setPreload((filename, context) -> random().nextBoolean());
+        break;
+    }
+    if (random().nextBoolean()) {
+      m.setReadAdvice((filename, context) -> ReadAdvice.values()[random().nextInt(ReadAdvice.values().length)]);
+    }
     return m;
   }
   
@@ -42,6 +58,45 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
     assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
   }
   
+  public void testPreloadExtensions() {
+    IOContext mergeContext = new IOContext(new MergeInfo(10, 100, false, 1));
+    assertTrue(MMapDirectory.preloadExtensions("tip", "nvd").test("_0.tip", IOContext.READ));
+    assertTrue(MMapDirectory.preloadExtensions("tip", "nvd").test("_0_Lucene50_0.tip", IOContext.DEFAULT));
+    assertFalse(MMapDirectory.preloadExtensions("tip", "nvd").test("_0.tim", IOContext.READ));
+    assertFalse(MMapDirectory.preloadExtensions("tip", "nvd").test("segments_1", IOContext.READ));
+    // merges read files once
+    assertFalse(MMapDirectory.preloadExtensions("tip", "nvd").test("_0.tip", mergeContext));
+  }
+
+  public void testReadAdvice() throws Exception {
+    final List<ReadAdvice> advices = new ArrayList<>();
+    MMapDirectory dir = new MMapDirectory(createTempDir("testReadAdvice")) {
+      @Override
+      protected void madvise(ByteBuffer buffer, ReadAdvice advice) throws IOException {
+        assertTrue(buffer.capacity() > 0);
+        advices.add(advice);
+      }
+    };
+    try (IndexOutput out = dir.createOutput("_0.tip", IOContext.DEFAULT)) {
+      out.writeInt(42);
+    }
+    dir.openInput("_0.tip", IOContext.READ).close();
+    assertEquals(0, advices.size());
+    dir.openInput("_0.tip", new IOContext(new MergeInfo(10, 100, false, 1))).close();
+    assertEquals(1, advices.size());
+    assertEquals(ReadAdvice.SEQUENTIAL, advices.get(0));
+    dir.openInput("_0.tip", IOContext.READONCE).close();
+    assertEquals(2, advices.size());
+    assertEquals(ReadAdvice.SEQUENTIAL, advices.get(1));
+
+    dir.setReadAdvice((filename, context) -> filename.endsWith(".tip") ? ReadAdvice.RANDOM : MMapDirectory.DEFAULT_READ_ADVICE.apply(filename, context));
+    advices.clear();
+    dir.openInput("_0.tip", IOContext.READ).close();
+    assertEquals(1, advices.size());
+    assertEquals(ReadAdvice.RANDOM, advices.get(0));
+    dir.close();
+  }
+
   @Ignore("This test is for JVM testing purposes. There are no guarantees that it may not fail with SIGSEGV!")
   public void testAceWithThreads() throws Exception {
     for (int iter = 0; iter < 10; iter++) {
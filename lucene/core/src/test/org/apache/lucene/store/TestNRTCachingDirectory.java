@@ -34,6 +34,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LineFileDocs;
 import org.apache.lucene.util.TestUtil;
 
@@ -136,4 +137,20 @@ public class TestNRTCachingDirectory extends BaseDirectoryTestCase {
     nrtDir.close();
     fsDir.close();
   }
+
+  public void testCreateTempOutputSameNameStillOpenInCache() throws Exception {
+
+    Directory fsDir = FSDirectory.open(createTempDir("verify"));
+    NRTCachingDirectory nrtDir = new NRTCachingDirectory(fsDir, 2.0, 25.0);
+    String name = "foo_bar_0.tmp";
+    // cached, and still open for writing
+    IndexOutput cachedOut = nrtDir.createOutput(name, IOContext.DEFAULT);
+
+    // too large to be cached, so the name is checked against the cache
+    IndexOutput out = nrtDir.createTempOutput("foo", "bar", new IOContext(new FlushInfo(1000, 1L << 40)));
+    assertFalse(name.equals(out.getName()));
+    IOUtils.close(out, cachedOut);
+    nrtDir.close();
+    fsDir.close();
+  }
 }
@@ -113,6 +113,27 @@ public class TestOfflineSorter extends LuceneTestCase {
     }
   }
 
+  public void testConcurrentFinalMerges() throws Exception {
+    // 26 partitions of 1024 fixed-length values with ternary merging: 6 partitions of 3 different
+    // merge levels remain once the input is read, which takes 2 concurrent merges, then the final one
+    final int valueLength = 1024;
+    byte[][] data = new byte[26 * (int) OfflineSorter.MB / valueLength][];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = new byte[valueLength];
+      random().nextBytes(data[i]);
+    }
+    try (Directory dir = newDirectory()) {
+      ExecutorService exec = randomExecutorServiceOrNull();
+      SortInfo info = checkSort(dir, new OfflineSorter(dir, "foo", OfflineSorter.DEFAULT_COMPARATOR, BufferSize.megabytes(1), 3, valueLength, exec, TestUtil.nextInt(random(), 1, 4)),
+                                data);
+      if (exec != null) {
+        exec.shutdownNow();
+      }
+      // 8 merges of partitions, 2 merges of merged partitions, 2 concurrent merges and the final merge
+      assertEquals(13, info.mergeRounds);
+    }
+  }
+
   @Nightly
   public void testLargerRandom() throws Exception {
     // Sort 100MB worth of data with 15mb buffer.
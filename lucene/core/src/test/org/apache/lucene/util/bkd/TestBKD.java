@@ -29,6 +29,7 @@ import org.apache.lucene.index.MergeState;
 import org.apache.lucene.index.PointValues.IntersectVisitor;
 import org.apache.lucene.index.PointValues.Relation;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.CorruptingIndexOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FilterDirectory;
@@ -47,7 +48,7 @@ public class TestBKD extends LuceneTestCase {
 
   public void testBasicInts1D() throws Exception {
     try (Directory dir = getDirectory(100)) {
-      BKDWriter w = new BKDWriter(100, dir, "tmp", 1, 4, 2, 1.0f, 100, true);
+      BKDWriter w = new BKDWriter(100, dir, "tmp", 1, 4, 2, 1.0f, 100);
       byte[] scratch = new byte[4];
       for(int docID=0;docID<100;docID++) {
         NumericUtils.intToSortableBytes(docID, scratch, 0);
@@ -116,13 +117,102 @@ public class TestBKD extends LuceneTestCase {
     }
   }
 
+  public void testOffHeapIndex() throws Exception {
+    int numDocs = atLeast(10000);
+    try (Directory dir = getDirectory(numDocs)) {
+      int numDims = TestUtil.nextInt(random(), 1, 3);
+      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", numDims, 4, TestUtil.nextInt(random(), 16, 64), 3.0f, numDocs);
+      int[][] docs = new int[numDocs][];
+      byte[] scratch = new byte[4*numDims];
+      for(int docID=0;docID<numDocs;docID++) {
+        int[] values = new int[numDims];
+        for(int dim=0;dim<numDims;dim++) {
+          values[dim] = random().nextInt(1000);
+          NumericUtils.intToSortableBytes(values[dim], scratch, dim * Integer.BYTES);
+        }
+        docs[docID] = values;
+        w.add(scratch, docID);
+      }
+
+      long indexFP;
+      try (IndexOutput out = dir.createOutput("bkd", IOContext.DEFAULT)) {
+        indexFP = w.finish(out);
+      }
+
+      try (IndexInput in = dir.openInput("bkd", IOContext.DEFAULT)) {
+        in.seek(indexFP);
+        BKDReader onHeap = new BKDReader(in, false);
+        in.seek(indexFP);
+        BKDReader offHeap = new BKDReader(in, true);
+        assertTrue(offHeap.ramBytesUsed() < onHeap.ramBytesUsed());
+
+        for (int iter = 0; iter < 20; iter++) {
+          int[] queryMin = new int[numDims];
+          int[] queryMax = new int[numDims];
+          for (int dim = 0; dim < numDims; dim++) {
+            int x = random().nextInt(1000);
+            int y = random().nextInt(1000);
+            queryMin[dim] = Math.min(x, y);
+            queryMax[dim] = Math.max(x, y);
+          }
+          BitSet expected = new BitSet();
+          for (int docID = 0; docID < numDocs; docID++) {
+            boolean matches = true;
+            for (int dim = 0; dim < numDims; dim++) {
+              matches &= docs[docID][dim] >= queryMin[dim] && docs[docID][dim] <= queryMax[dim];
+            }
+            if (matches) {
+              expected.set(docID);
+            }
+          }
+          for (BKDReader r : new BKDReader[] {onHeap, offHeap}) {
+            final BitSet hits = new BitSet();
+            r.intersect(new IntersectVisitor() {
+                @Override
+                public void visit(int docID) {
+                  hits.set(docID);
+                }
+
+                @Override
+                public void visit(int docID, byte[] packedValue) {
+                  for (int dim = 0; dim < numDims; dim++) {
+                    int x = NumericUtils.sortableBytesToInt(packedValue, dim * Integer.BYTES);
+                    if (x < queryMin[dim] || x > queryMax[dim]) {
+                      return;
+                    }
+                  }
+                  hits.set(docID);
+                }
+
+                @Override
+                public Relation compare(byte[] minPacked, byte[] maxPacked) {
+                  boolean crosses = false;
+                  for (int dim = 0; dim < numDims; dim++) {
+                    int min = NumericUtils.sortableBytesToInt(minPacked, dim * Integer.BYTES);
+                    int max = NumericUtils.sortableBytesToInt(maxPacked, dim * Integer.BYTES);
+                    if (max < queryMin[dim] || min > queryMax[dim]) {
+                      return Relation.CELL_OUTSIDE_QUERY;
+                    } else if (min < queryMin[dim] || max > queryMax[dim]) {
+                      crosses = true;
+                    }
+                  }
+                  return crosses ? Relation.CELL_CROSSES_QUERY : Relation.CELL_INSIDE_QUERY;
+                }
+              });
+            assertEquals(expected, hits);
+          }
+        }
+      }
+    }
+  }
+
   public void testRandomIntsNDims() throws Exception {
     int numDocs = atLeast(1000);
     try (Directory dir = getDirectory(numDocs)) {
       int numDims = TestUtil.nextInt(random(), 1, 5);
       int maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 100);
       float maxMB = (float) 3.0 + (3*random().nextFloat());
-      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", numDims, 4, maxPointsInLeafNode, maxMB, numDocs, true);
+      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", numDims, 4, maxPointsInLeafNode, maxMB, numDocs);
 
       if (VERBOSE) {
         System.out.println("TEST: numDims=" + numDims + " numDocs=" + numDocs);
@@ -263,7 +353,7 @@ public class TestBKD extends LuceneTestCase {
       int numDims = TestUtil.nextInt(random(), 1, 5);
       int maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 100);
       float maxMB = (float) 3.0 + (3*random().nextFloat());
-      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, numDocs, true);
+      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, numDocs);
       BigInteger[][] docs = new BigInteger[numDocs][];
 
       byte[] scratch = new byte[numBytesPerDim*numDims];
@@ -436,7 +526,7 @@ public class TestBKD extends LuceneTestCase {
   public void testTooLittleHeap() throws Exception { 
     try (Directory dir = getDirectory(0)) {
       IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> {
-        new BKDWriter(1, dir, "bkd", 1, 16, 1000000, 0.001, 0, true);
+        new BKDWriter(1, dir, "bkd", 1, 16, 1000000, 0.001, 0);
       });
       assertTrue(expected.getMessage().contains("either increase maxMBSortInHeap or decrease maxPointsInLeafNode"));
     }
@@ -628,7 +718,7 @@ public class TestBKD extends LuceneTestCase {
     List<MergeState.DocMap> docMaps = null;
     int seg = 0;
 
-    BKDWriter w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length, false);
+    BKDWriter w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length);
     IndexOutput out = dir.createOutput("bkd", IOContext.DEFAULT);
     IndexInput in = null;
 
@@ -688,7 +778,7 @@ public class TestBKD extends LuceneTestCase {
           seg++;
           maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 1000);
           maxMB = (float) 3.0 + (3*random().nextDouble());
-          w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length, false);
+          w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length);
           lastDocIDBase = docID;
         }
       }
@@ -709,7 +799,7 @@ public class TestBKD extends LuceneTestCase {
         out.close();
         in = dir.openInput("bkd", IOContext.DEFAULT);
         seg++;
-        w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length, false);
+        w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length);
         List<BKDReader> readers = new ArrayList<>();
         for(long fp : toMerge) {
           in.seek(fp);
@@ -854,7 +944,7 @@ public class TestBKD extends LuceneTestCase {
     return dir;
   }
 
-  /** Make sure corruption on an input sort file is caught, even if BKDWriter doesn't get angry */
+  /** Make sure corruption on the spilled input file is caught, even if BKDWriter doesn't get angry */
   public void testBitFlippedOnPartition1() throws Exception {
 
     // Generate fixed data set:
@@ -884,7 +974,7 @@ public class TestBKD extends LuceneTestCase {
         @Override
         public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
           IndexOutput out = in.createTempOutput(prefix, suffix, context);
-          if (corrupted == false && prefix.equals("_0_bkd1") && suffix.equals("sort")) {
+          if (corrupted == false && prefix.equals("_0") && suffix.equals("bkd_spill")) {
             corrupted = true;
             return new CorruptingIndexOutput(dir0, 22, out);
           } else {
@@ -931,7 +1021,7 @@ public class TestBKD extends LuceneTestCase {
         public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
           IndexOutput out = in.createTempOutput(prefix, suffix, context);
           //System.out.println("prefix=" + prefix + " suffix=" + suffix);
-          if (corrupted == false && suffix.equals("bkd_left1")) {
+          if (corrupted == false && suffix.startsWith("bkd_left")) {
             //System.out.println("now corrupt byte=" + x + " prefix=" + prefix + " suffix=" + suffix);
             corrupted = true;
             return new CorruptingIndexOutput(dir0, 22072, out);
@@ -968,7 +1058,7 @@ public class TestBKD extends LuceneTestCase {
   public void testTieBreakOrder() throws Exception {
     try (Directory dir = newDirectory()) {
       int numDocs = 10000;
-      BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", 1, Integer.BYTES, 2, 0.01f, numDocs, true);
+      BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", 1, Integer.BYTES, 2, 0.01f, numDocs);
       for(int i=0;i<numDocs;i++) {
         w.add(new byte[Integer.BYTES], i);
       }
@@ -1003,14 +1093,10 @@ public class TestBKD extends LuceneTestCase {
     }
   }
 
-  public void test2DLongOrdsOffline() throws Exception {
+  public void test2DOffline() throws Exception {
     try (Directory dir = newDirectory()) {
       int numDocs = 100000;
-      boolean singleValuePerDoc = false;
-      boolean longOrds = true;
-      int offlineSorterMaxTempFiles = TestUtil.nextInt(random(), 2, 20);
-      BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", 2, Integer.BYTES, 2, 0.01f, numDocs,
-                                  singleValuePerDoc, longOrds, 1, offlineSorterMaxTempFiles);
+      BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", 2, Integer.BYTES, 2, 0.01f, numDocs);
       byte[] buffer = new byte[2*Integer.BYTES];
       for(int i=0;i<numDocs;i++) {
         random().nextBytes(buffer);
@@ -1051,6 +1137,71 @@ public class TestBKD extends LuceneTestCase {
     }
   }
 
+  /** Time-series like data: sequential doc IDs and few distinct values per leaf, which should be visited in runs */
+  public void testLowCardinalityLeaves() throws Exception {
+    try (Directory dir = newDirectory()) {
+      int numDocs = atLeast(10000);
+      int numValues = TestUtil.nextInt(random(), 1, 20);
+      BKDWriter w = new BKDWriter(numDocs, dir, "tmp", 1, Integer.BYTES, BKDWriter.DEFAULT_MAX_POINTS_IN_LEAF_NODE,
+                                  BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP, numDocs);
+      int[] values = new int[numDocs];
+      byte[] scratch = new byte[Integer.BYTES];
+      for(int docID=0;docID<numDocs;docID++) {
+        values[docID] = random().nextInt(numValues);
+        NumericUtils.intToSortableBytes(values[docID], scratch, 0);
+        w.add(scratch, docID);
+      }
+
+      final long indexFP;
+      try (IndexOutput out = dir.createOutput("bkd", IOContext.DEFAULT)) {
+        indexFP = w.finish(out);
+      }
+      w.close();
+
+      try (IndexInput in = dir.openInput("bkd", IOContext.DEFAULT)) {
+        in.seek(indexFP);
+        BKDReader r = new BKDReader(in);
+        int queryValue = random().nextInt(numValues);
+        byte[] queryPackedValue = new byte[Integer.BYTES];
+        NumericUtils.intToSortableBytes(queryValue, queryPackedValue, 0);
+        BitSet hits = new BitSet();
+        int[] runs = new int[1];
+        r.intersect(new IntersectVisitor() {
+            @Override
+            public void visit(int docID) {
+              hits.set(docID);
+            }
+
+            @Override
+            public void visit(int docID, byte[] packedValue) {
+              if (Arrays.equals(packedValue, queryPackedValue)) {
+                hits.set(docID);
+              }
+            }
+
+            @Override
+            public void visit(DocIdSetIterator iterator, byte[] packedValue) throws IOException {
+              runs[0]++;
+              IntersectVisitor.super.visit(iterator, packedValue);
+            }
+
+            @Override
+            public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+              if (StringHelper.compare(Integer.BYTES, minPackedValue, 0, queryPackedValue, 0) > 0 ||
+                  StringHelper.compare(Integer.BYTES, maxPackedValue, 0, queryPackedValue, 0) < 0) {
+                return Relation.CELL_OUTSIDE_QUERY;
+              }
+              return Relation.CELL_CROSSES_QUERY;
+            }
+          });
+        for(int docID=0;docID<numDocs;docID++) {
+          assertEquals("docID=" + docID, values[docID] == queryValue, hits.get(docID));
+        }
+        assertTrue(runs[0] > 0);
+      }
+    }
+  }
+
   // Claims 16 bytes per dim, but only use the bottom N 1-3 bytes; this would happen e.g. if a user indexes what are actually just short
   // values as a LongPoint:
   public void testWastedLeadingBytes() throws Exception {
@@ -1060,7 +1211,7 @@ public class TestBKD extends LuceneTestCase {
 
     Directory dir = newFSDirectory(createTempDir());
     int numDocs = 100000;
-    BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", numDims, bytesPerDim, 32, 1f, numDocs, true);
+    BKDWriter w = new BKDWriter(numDocs+1, dir, "tmp", numDims, bytesPerDim, 32, 1f, numDocs);
     byte[] tmp = new byte[bytesUsed];
     byte[] buffer = new byte[numDims * bytesPerDim];
     for(int i=0;i<numDocs;i++) {
@@ -1115,7 +1266,7 @@ public class TestBKD extends LuceneTestCase {
     random().nextBytes(uniquePointValue);
 
     BKDWriter w = new BKDWriter(numValues, dir, "_temp", 1, numBytesPerDim, maxPointsInLeafNode,
-        BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP, numValues, true);
+        BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP, numValues);
     for (int i = 0; i < numValues; ++i) {
       if (i == numValues / 2) {
         w.add(uniquePointValue, i);
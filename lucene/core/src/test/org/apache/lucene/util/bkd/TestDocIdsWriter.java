@@ -57,6 +57,32 @@ public class TestDocIdsWriter extends LuceneTestCase {
     }
   }
 
+  public void testDense() throws Exception {
+    try (Directory dir = newDirectory()) {
+      for (int iter = 0; iter < 1000; ++iter) {
+        final int numDocs = TestUtil.nextInt(random(), 1, 5000);
+        final int min = random().nextInt(1 << 20);
+        final int range = TestUtil.nextInt(random(), numDocs, numDocs * 10);
+        // a random subset of the range, in order, without duplicates
+        int[] docIDs = random().ints(min, min + range).distinct().limit(numDocs).sorted().toArray();
+        test(dir, docIDs);
+      }
+    }
+  }
+
+  public void testContinuous() throws Exception {
+    try (Directory dir = newDirectory()) {
+      for (int iter = 0; iter < 100; ++iter) {
+        final int min = random().nextInt(1 << 20);
+        int[] docIDs = new int[TestUtil.nextInt(random(), 1, 5000)];
+        for (int i = 0; i < docIDs.length; ++i) {
+          docIDs[i] = min + i;
+        }
+        test(dir, docIDs);
+      }
+    }
+  }
+
   private void test(Directory dir, int[] ints) throws Exception {
     final long len;
     try(IndexOutput out = dir.createOutput("tmp", IOContext.DEFAULT)) {
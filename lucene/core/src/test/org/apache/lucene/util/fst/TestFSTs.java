@@ -53,6 +53,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
@@ -1122,6 +1123,166 @@ public class TestFSTs extends LuceneTestCase {
     assertTrue(w.toString().indexOf("label=\"t/[7]\"") != -1);
   }
 
+  public void testOffHeap() throws Exception {
+    final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton();
+    final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, outputs);
+    final Set<BytesRef> terms = new TreeSet<>();
+    for (int i = 0, numTerms = atLeast(1000); i < numTerms; ++i) {
+      terms.add(new BytesRef(TestUtil.randomRealisticUnicodeString(random(), 1, 20)));
+    }
+    final IntsRefBuilder scratch = new IntsRefBuilder();
+    long ord = 0;
+    for (BytesRef term : terms) {
+      builder.add(Util.toIntsRef(term, scratch), ord++);
+    }
+    final FST<Long> fst = builder.finish();
+
+    try (Directory dir = newDirectory()) {
+      try (IndexOutput out = dir.createOutput("fst", IOContext.DEFAULT)) {
+        fst.save(out);
+        out.writeByte((byte) 42);
+      }
+      try (IndexInput in = dir.openInput("fst", IOContext.DEFAULT)) {
+        final FST<Long> offHeap = FST.read(in, outputs, -1);
+        // the input is positioned right after the FST
+        assertEquals(42, in.readByte());
+        assertTrue(offHeap.ramBytesUsed() < fst.ramBytesUsed());
+
+        ord = 0;
+        for (BytesRef term : terms) {
+          assertEquals(Long.valueOf(ord++), Util.get(offHeap, term));
+        }
+        final BytesRef missing = new BytesRef("missing");
+        if (terms.contains(missing) == false) {
+          assertNull(Util.get(offHeap, missing));
+        }
+        final BytesRefFSTEnum<Long> fstEnum = new BytesRefFSTEnum<>(offHeap);
+        ord = 0;
+        for (BytesRef term : terms) {
+          final InputOutput<Long> io = fstEnum.next();
+          assertEquals(term, io.input);
+          assertEquals(Long.valueOf(ord++), io.output);
+        }
+        assertNull(fstEnum.next());
+
+        // an off-heap FST can be saved too
+        try (IndexOutput out = dir.createOutput("fst2", IOContext.DEFAULT)) {
+          offHeap.save(out);
+        }
+      }
+      try (IndexInput in = dir.openInput("fst2", IOContext.DEFAULT)) {
+        final FST<Long> onHeap = new FST<>(in, outputs);
+        ord = 0;
+        for (BytesRef term : terms) {
+          assertEquals(Long.valueOf(ord++), Util.get(onHeap, term));
+        }
+      }
+    }
+  }
+
+  public void testSuffixRAMLimit() throws Exception {
+    final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton();
+    final Set<BytesRef> terms = new TreeSet<>();
+    for (int i = 0, numTerms = atLeast(2000); i < numTerms; ++i) {
+      // a few suffixes so that there is something to share
+      terms.add(new BytesRef(TestUtil.randomSimpleString(random(), 1, 10) + (random().nextBoolean() ? "ing" : "ed")));
+    }
+    final Builder<Long> minimal = new Builder<>(FST.INPUT_TYPE.BYTE1, outputs);
+    final Builder<Long> limited = new Builder<>(FST.INPUT_TYPE.BYTE1, 0, 0, true, true, Integer.MAX_VALUE, outputs,
+        true, 15, 0.001, null);
+    final IntsRefBuilder scratch = new IntsRefBuilder();
+    long ord = 0;
+    for (BytesRef term : terms) {
+      minimal.add(Util.toIntsRef(term, scratch), ord);
+      limited.add(Util.toIntsRef(term, scratch), ord);
+      ord++;
+    }
+    final FST<Long> minimalFST = minimal.finish();
+    final FST<Long> limitedFST = limited.finish();
+    assertTrue(limited.getNodeCount() >= minimal.getNodeCount());
+
+    ord = 0;
+    final BytesRefFSTEnum<Long> fstEnum = new BytesRefFSTEnum<>(limitedFST);
+    for (BytesRef term : terms) {
+      assertEquals(Util.get(minimalFST, term), Util.get(limitedFST, term));
+      final InputOutput<Long> io = fstEnum.next();
+      assertEquals(term, io.input);
+      assertEquals(Long.valueOf(ord++), io.output);
+    }
+    assertNull(fstEnum.next());
+
+    expectThrows(IllegalArgumentException.class, () -> new Builder<>(FST.INPUT_TYPE.BYTE1, 0, 0, true, true,
+        Integer.MAX_VALUE, outputs, true, 15, 0, null));
+  }
+
+  public void testStreamedBytes() throws Exception {
+    final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton();
+    final Set<BytesRef> terms = new TreeSet<>();
+    for (int i = 0, numTerms = atLeast(1000); i < numTerms; ++i) {
+      terms.add(new BytesRef(TestUtil.randomRealisticUnicodeString(random(), 1, 20)));
+    }
+    // small pages so that many of them are written while building
+    final int bytesPageBits = TestUtil.nextInt(random(), 4, 15);
+    final double suffixRAMLimitMB = random().nextBoolean() ? Double.POSITIVE_INFINITY : 0.001;
+
+    try (Directory dir = newDirectory()) {
+      final Builder<Long> inMemory = new Builder<>(FST.INPUT_TYPE.BYTE1, 0, 0, true, true, Integer.MAX_VALUE, outputs,
+          true, bytesPageBits, suffixRAMLimitMB, null);
+      final FST<Long> fst;
+      final FST<Long> streamed;
+      try (IndexOutput dataOut = dir.createOutput("data", IOContext.DEFAULT)) {
+        final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, 0, 0, true, true, Integer.MAX_VALUE, outputs,
+            true, bytesPageBits, suffixRAMLimitMB, dataOut);
+        final IntsRefBuilder scratch = new IntsRefBuilder();
+        long ord = 0;
+        for (BytesRef term : terms) {
+          inMemory.add(Util.toIntsRef(term, scratch), ord);
+          builder.add(Util.toIntsRef(term, scratch), ord);
+          ord++;
+        }
+        fst = inMemory.finish();
+        streamed = builder.finish();
+        if (suffixRAMLimitMB == Double.POSITIVE_INFINITY) {
+          assertEquals(inMemory.getNodeCount(), builder.getNodeCount());
+        }
+      }
+      expectThrows(IllegalStateException.class, () -> streamed.save(new ByteArrayDataOutput(new byte[0])));
+      try (IndexOutput out = dir.createOutput("meta", IOContext.DEFAULT)) {
+        streamed.saveMetadata(out);
+      }
+      try (IndexOutput out = dir.createOutput("fst", IOContext.DEFAULT)) {
+        fst.save(out);
+      }
+
+      // metadata followed by the streamed bytes is the same as a saved FST, unless suffixes
+      // were forgotten at different times because copies of nodes count towards the RAM limit
+      if (suffixRAMLimitMB == Double.POSITIVE_INFINITY) {
+        final byte[] expected = new byte[(int) dir.fileLength("fst")];
+        try (IndexInput in = dir.openInput("fst", IOContext.DEFAULT)) {
+          in.readBytes(expected, 0, expected.length);
+        }
+        final byte[] actual = new byte[(int) (dir.fileLength("meta") + dir.fileLength("data"))];
+        try (IndexInput metaIn = dir.openInput("meta", IOContext.DEFAULT);
+             IndexInput dataIn = dir.openInput("data", IOContext.DEFAULT)) {
+          metaIn.readBytes(actual, 0, (int) metaIn.length());
+          dataIn.readBytes(actual, (int) metaIn.length(), (int) dataIn.length());
+        }
+        assertArrayEquals(expected, actual);
+      }
+
+      try (IndexInput metaIn = dir.openInput("meta", IOContext.DEFAULT);
+           IndexInput dataIn = dir.openInput("data", IOContext.DEFAULT)) {
+        final FST<Long> loaded = random().nextBoolean()
+            ? new FST<>(metaIn, dataIn, outputs)
+            : FST.read(metaIn, dataIn, outputs, -1);
+        long ord = 0;
+        for (BytesRef term : terms) {
+          assertEquals(Long.valueOf(ord++), Util.get(loaded, term));
+        }
+      }
+    }
+  }
+
   public void testInternalFinalState() throws Exception {
     final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton();
     final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, 0, 0, true, true, Integer.MAX_VALUE, outputs, true, 15);
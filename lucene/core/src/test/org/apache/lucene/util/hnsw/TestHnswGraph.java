@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.VectorUtil;
+
+public class TestHnswGraph extends LuceneTestCase {
+
+  public void testRecall() throws IOException {
+    Random random = random();
+    int size = atLeast(500);
+    int dim = 2 + random.nextInt(30);
+    VectorValues.SimilarityFunction similarityFunction = randomSimilarityFunction(random);
+    ArrayVectors vectors = randomVectors(random, size, dim, similarityFunction);
+    HnswGraph graph = new HnswGraphBuilder(vectors, similarityFunction, 16, 100, random.nextLong()).build();
+    assertEquals(size, graph.size());
+    assertGoodRecall(random, vectors, similarityFunction, graph, 10);
+  }
+
+  public void testSearchWithAcceptOrds() throws IOException {
+    Random random = random();
+    int size = atLeast(200);
+    int dim = 2 + random.nextInt(10);
+    VectorValues.SimilarityFunction similarityFunction = randomSimilarityFunction(random);
+    ArrayVectors vectors = randomVectors(random, size, dim, similarityFunction);
+    HnswGraph graph = new HnswGraphBuilder(vectors, similarityFunction, 8, 50, random.nextLong()).build();
+
+    // only accept even ordinals
+    FixedBitSet acceptOrds = new FixedBitSet(size);
+    for (int i = 0; i < size; i += 2) {
+      acceptOrds.set(i);
+    }
+    NeighborQueue results = HnswGraphSearcher.search(randomVector(random, dim, similarityFunction), 10,
+        vectors.copy(), similarityFunction, graph, acceptOrds, Integer.MAX_VALUE);
+    assertEquals(10, results.size());
+    for (int node : results.nodes()) {
+      assertEquals("node " + node + " is not accepted", 0, node % 2);
+    }
+  }
+
+  public void testInitializeFromGraph() throws IOException {
+    Random random = random();
+    int size = atLeast(400);
+    int dim = 2 + random.nextInt(20);
+    VectorValues.SimilarityFunction similarityFunction = randomSimilarityFunction(random);
+    ArrayVectors vectors = randomVectors(random, size, dim, similarityFunction);
+
+    // build a graph over the second half of the vectors, as if it came from another segment
+    int initSize = size / 2;
+    float[][] initValues = new float[initSize][];
+    int[] oldToNewOrd = new int[initSize];
+    for (int i = 0; i < initSize; i++) {
+      oldToNewOrd[i] = size - initSize + i;
+      initValues[i] = vectors.values[oldToNewOrd[i]];
+    }
+    ArrayVectors initVectors = new ArrayVectors(initValues);
+    HnswGraph initGraph = new HnswGraphBuilder(initVectors, similarityFunction, 16, 100, random.nextLong()).build();
+
+    HnswGraphBuilder builder = new HnswGraphBuilder(vectors, similarityFunction, 16, 100, random.nextLong());
+    builder.initializeFromGraph(initGraph, oldToNewOrd);
+    OnHeapHnswGraph graph = builder.build();
+    assertEquals(size, graph.size());
+    assertTrue(graph.numLevels() >= initGraph.numLevels());
+    // the nodes of the upper levels are preserved
+    for (int level = 1; level < initGraph.numLevels(); level++) {
+      Set<Integer> newNodes = toSet(graph.getNodesOnLevel(level));
+      DocIdSetIterator oldNodes = initGraph.getNodesOnLevel(level);
+      for (int node = oldNodes.nextDoc(); node != DocIdSetIterator.NO_MORE_DOCS; node = oldNodes.nextDoc()) {
+        assertTrue(newNodes.contains(oldToNewOrd[node]));
+      }
+    }
+    assertGoodRecall(random, vectors, similarityFunction, graph, 10);
+  }
+
+  public void testInitializeFromGraphAfterAddingNodes() throws IOException {
+    ArrayVectors vectors = new ArrayVectors(new float[][] {{1, 0}, {0, 1}, {1, 1}});
+    HnswGraphBuilder builder = new HnswGraphBuilder(vectors, VectorValues.SimilarityFunction.EUCLIDEAN, 4, 10, 0);
+    builder.build();
+    expectThrows(IllegalStateException.class, () -> builder.initializeFromGraph(HnswGraph.EMPTY, new int[0]));
+  }
+
+  public void testSearchEmptyGraph() throws IOException {
+    ArrayVectors vectors = new ArrayVectors(new float[0][]);
+    HnswGraph graph = new HnswGraphBuilder(vectors, VectorValues.SimilarityFunction.EUCLIDEAN, 4, 10, 0).build();
+    assertEquals(0, graph.size());
+    NeighborQueue results = HnswGraphSearcher.search(new float[] {1, 2}, 10, vectors,
+        VectorValues.SimilarityFunction.EUCLIDEAN, graph, null, Integer.MAX_VALUE);
+    assertEquals(0, results.size());
+  }
+
+  public void testIllegalArguments() {
+    ArrayVectors vectors = new ArrayVectors(new float[][] {{1, 0}});
+    expectThrows(IllegalArgumentException.class,
+        () -> new HnswGraphBuilder(vectors, VectorValues.SimilarityFunction.NONE, 4, 10, 0));
+    expectThrows(IllegalArgumentException.class,
+        () -> new HnswGraphBuilder(vectors, VectorValues.SimilarityFunction.EUCLIDEAN, 0, 10, 0));
+    expectThrows(IllegalArgumentException.class,
+        () -> new HnswGraphBuilder(vectors, VectorValues.SimilarityFunction.EUCLIDEAN, 4, 0, 0));
+  }
+
+  /** Checks that graph searches find most of the true nearest neighbors */
+  private static void assertGoodRecall(Random random, ArrayVectors vectors, VectorValues.SimilarityFunction similarityFunction,
+                                       HnswGraph graph, int topK) throws IOException {
+    int numQueries = 20;
+    int found = 0;
+    for (int i = 0; i < numQueries; i++) {
+      float[] query = randomVector(random, vectors.dimension(), similarityFunction);
+      NeighborQueue expected = new NeighborQueue(topK, false);
+      for (int ord = 0; ord < vectors.size(); ord++) {
+        expected.insertWithOverflow(ord, similarityFunction.compare(query, vectors.vectorValue(ord)));
+      }
+      NeighborQueue actual = HnswGraphSearcher.search(query, topK, vectors.copy(), similarityFunction, graph, null, Integer.MAX_VALUE);
+      Set<Integer> expectedNodes = new HashSet<>();
+      for (int node : expected.nodes()) {
+        expectedNodes.add(node);
+      }
+      for (int node : actual.nodes()) {
+        if (expectedNodes.contains(node)) {
+          found++;
+        }
+      }
+    }
+    double recall = found / (double) (numQueries * topK);
+    assertTrue("recall=" + recall, recall > 0.8);
+  }
+
+  private static Set<Integer> toSet(DocIdSetIterator iterator) throws IOException {
+    Set<Integer> set = new HashSet<>();
+    for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+      set.add(doc);
+    }
+    return set;
+  }
+
+  private static VectorValues.SimilarityFunction randomSimilarityFunction(Random random) {
+    VectorValues.SimilarityFunction[] functions = VectorValues.SimilarityFunction.values();
+    // skip NONE
+    return functions[1 + random.nextInt(functions.length - 1)];
+  }
+
+  private static ArrayVectors randomVectors(Random random, int size, int dim, VectorValues.SimilarityFunction similarityFunction) {
+    float[][] values = new float[size][];
+    for (int i = 0; i < size; i++) {
+      values[i] = randomVector(random, dim, similarityFunction);
+    }
+    return new ArrayVectors(values);
+  }
+
+  private static float[] randomVector(Random random, int dim, VectorValues.SimilarityFunction similarityFunction) {
+    float[] vec = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      vec[i] = random.nextFloat() * 2 - 1;
+    }
+    if (similarityFunction == VectorValues.SimilarityFunction.DOT_PRODUCT) {
+      VectorUtil.l2normalize(vec);
+    }
+    return vec;
+  }
+
+  /** Vectors held in an array, which are never overwritten so that copies may share them */
+  private static class ArrayVectors implements RandomAccessVectorValues {
+    final float[][] values;
+
+    ArrayVectors(float[][] values) {
+      this.values = values;
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    @Override
+    public int dimension() {
+      return values.length == 0 ? 2 : values[0].length;
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) {
+      return values[targetOrd];
+    }
+
+    @Override
+    public RandomAccessVectorValues copy() {
+      return this;
+    }
+  }
+}
@@ -176,7 +176,7 @@ public class DrillSideways {
 
     Map<String, Integer> drillDownDims = query.getDims();
 
-    FacetsCollector drillDownCollector = new FacetsCollector();
+    FacetsCollector drillDownCollector = new FacetsCollector(false, searcher.getMemoryAccountant());
 
     if (drillDownDims.isEmpty()) {
       // There are no drill-down dims, so there is no
@@ -195,7 +195,7 @@ public class DrillSideways {
 
     FacetsCollector[] drillSidewaysCollectors = new FacetsCollector[drillDownDims.size()];
     for (int i = 0; i < drillSidewaysCollectors.length; i++) {
-      drillSidewaysCollectors[i] = new FacetsCollector();
+      drillSidewaysCollectors[i] = new FacetsCollector(false, searcher.getMemoryAccountant());
     }
 
     DrillSidewaysQuery dsq =
@@ -403,12 +403,12 @@ public class DrillSideways {
 
     // Add the main DrillDownQuery
     callableCollectors.add(new CallableCollector(-1, searcher, query,
-            new MultiCollectorManager(new FacetsCollectorManager(), hitCollectorManager)));
+            new MultiCollectorManager(new FacetsCollectorManager(searcher.getMemoryAccountant()), hitCollectorManager)));
     int i = 0;
     final Query[] filters = query.getDrillDownQueries();
     for (String dim : drillDownDims.keySet())
       callableCollectors.add(new CallableCollector(i++, searcher, getDrillDownQuery(query, filters, dim),
-              new FacetsCollectorManager()));
+              new FacetsCollectorManager(searcher.getMemoryAccountant())));
 
     final FacetsCollector mainFacetsCollector;
     final FacetsCollector[] facetsCollectors = new FacetsCollector[drillDownDims.size()];
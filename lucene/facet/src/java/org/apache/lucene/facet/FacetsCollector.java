@@ -25,6 +25,7 @@ import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MemoryAccountant;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
@@ -55,6 +56,7 @@ public class FacetsCollector extends SimpleCollector implements Collector {
   private int totalHits;
   private float[] scores;
   private final boolean keepScores;
+  private final MemoryAccountant memoryAccountant;
   private final List<MatchingDocs> matchingDocs = new ArrayList<>();
   private Docs docs;
   
@@ -109,7 +111,24 @@ public class FacetsCollector extends SimpleCollector implements Collector {
   /** Create this; if {@code keepScores} is true then a
    *  float[] is allocated to hold score of all hits. */
   public FacetsCollector(boolean keepScores) {
+    this(keepScores, null);
+  }
+
+  /** Same as {@link #FacetsCollector(boolean)} but notifies the given
+   *  {@link MemoryAccountant}, if not {@code null}, of the memory that is
+   *  allocated to record hits and scores.
+   *  @lucene.experimental */
+  public FacetsCollector(boolean keepScores, MemoryAccountant memoryAccountant) {
     this.keepScores = keepScores;
+    this.memoryAccountant = memoryAccountant;
+  }
+
+  /** Notifies the {@link MemoryAccountant} of this collector, if any, that
+   *  {@code bytes} are about to be allocated. */
+  protected final void accountBytes(long bytes) {
+    if (memoryAccountant != null) {
+      memoryAccountant.addBytes(bytes);
+    }
   }
   
   /**
@@ -118,6 +137,7 @@ public class FacetsCollector extends SimpleCollector implements Collector {
    * {@link DocIdSet}.
    */
   protected Docs createDocs(final int maxDoc) {
+    accountBytes((long) FixedBitSet.bits2words(maxDoc) * Long.BYTES);
     return new Docs() {
       private final FixedBitSet bits = new FixedBitSet(maxDoc);
       
@@ -158,7 +178,9 @@ public class FacetsCollector extends SimpleCollector implements Collector {
     docs.addDoc(doc);
     if (keepScores) {
       if (totalHits >= scores.length) {
-        float[] newScores = new float[ArrayUtil.oversize(totalHits + 1, 4)];
+        final int newLength = ArrayUtil.oversize(totalHits + 1, 4);
+        accountBytes((long) newLength * Float.BYTES);
+        float[] newScores = new float[newLength];
         System.arraycopy(scores, 0, newScores, 0, totalHits);
         scores = newScores;
       }
@@ -185,6 +207,7 @@ public class FacetsCollector extends SimpleCollector implements Collector {
     docs = createDocs(context.reader().maxDoc());
     totalHits = 0;
     if (keepScores) {
+      accountBytes(64 * Float.BYTES);
       scores = new float[64]; // some initial size
     }
     this.context = context;
@@ -258,6 +281,7 @@ public class FacetsCollector extends SimpleCollector implements Collector {
       searcher.search(q, MultiCollector.wrap(totalHitCountCollector, fc));
       topDocs = new TopDocs(totalHitCountCollector.getTotalHits(), new ScoreDoc[0], Float.NaN);
     } else {
+      final MemoryAccountant memoryAccountant = searcher.getMemoryAccountant();
       TopDocsCollector<?> hitsCollector;
       if (sort != null) {
         if (after != null && !(after instanceof FieldDoc)) {
@@ -266,12 +290,18 @@ public class FacetsCollector extends SimpleCollector implements Collector {
           throw new IllegalArgumentException("after must be a FieldDoc; got " + after);
         }
         boolean fillFields = true;
+        if (memoryAccountant != null) {
+          memoryAccountant.addBytes(TopFieldCollector.estimateRamBytesUsed(sort, n));
+        }
         hitsCollector = TopFieldCollector.create(sort, n,
                                                  (FieldDoc) after,
                                                  fillFields,
                                                  doDocScores,
                                                  doMaxScore);
       } else {
+        if (memoryAccountant != null) {
+          memoryAccountant.addBytes(TopScoreDocCollector.estimateRamBytesUsed(n));
+        }
         hitsCollector = TopScoreDocCollector.create(n, after);
       }
       searcher.search(q, MultiCollector.wrap(hitsCollector, fc));
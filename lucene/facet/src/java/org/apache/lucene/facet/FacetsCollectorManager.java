@@ -17,6 +17,7 @@
 package org.apache.lucene.facet;
 
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.MemoryAccountant;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -30,9 +31,16 @@ class FacetsCollectorManager implements CollectorManager<FacetsCollector, Facets
 
   public final static FacetsCollector EMPTY = new FacetsCollector();
 
+  private final MemoryAccountant memoryAccountant;
+
+  /** Sole constructor, the {@link MemoryAccountant} may be {@code null}. */
+  FacetsCollectorManager(MemoryAccountant memoryAccountant) {
+    this.memoryAccountant = memoryAccountant;
+  }
+
   @Override
   public FacetsCollector newCollector() throws IOException {
-    return new FacetsCollector();
+    return new FacetsCollector(false, memoryAccountant);
   }
 
   @Override
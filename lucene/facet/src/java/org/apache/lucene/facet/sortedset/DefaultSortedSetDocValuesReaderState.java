@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState.OrdRange;
@@ -52,6 +53,10 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
 
   private final Map<String,OrdinalMap> cachedOrdMaps = new HashMap<>();
 
+  // only used while building the ordinal map, guarded by cachedOrdMaps
+  private OrdinalMap previousOrdMap;
+  private ExecutorService executor;
+
   private final Map<String,OrdRange> prefixToOrdRange = new HashMap<>();
 
   /** Creates this, pulling doc values from the default {@link
@@ -63,8 +68,29 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
   /** Creates this, pulling doc values from the specified
    *  field. */
   public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field) throws IOException {
+    this(reader, field, null, null);
+  }
+
+  /** Creates this, pulling doc values from the specified
+   *  field, and reusing the global ordinals of {@code previous}
+   *  for the segments that {@code reader} shares with its
+   *  reader. This makes creating a new state after reopening
+   *  a reader much cheaper when few segments changed.
+   *  @param previous the state of a reader that {@code reader}
+   *    was reopened from, or null
+   *  @param executor used to process segments concurrently, or
+   *    null to do all the work in the calling thread
+   *  @lucene.experimental */
+  public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field,
+      DefaultSortedSetDocValuesReaderState previous, ExecutorService executor) throws IOException {
     this.field = field;
     this.origReader = reader;
+    if (previous != null && previous.field.equals(field)) {
+      synchronized (previous.cachedOrdMaps) {
+        previousOrdMap = previous.cachedOrdMaps.get(field);
+      }
+    }
+    this.executor = executor;
 
     // We need this to create thread-safe MultiSortedSetDV
     // per collector:
@@ -151,7 +177,9 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(origReader, field);
+        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(origReader, field, previousOrdMap, executor);
+        previousOrdMap = null;
+        executor = null;
         if (dv instanceof MultiDocValues.MultiSortedSetDocValues) {
           map = ((MultiDocValues.MultiSortedSetDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = origReader.getReaderCacheHelper();
@@ -22,8 +22,12 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.MemoryAccountant;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 
 /**
  * A collector that collects all groups that match the
@@ -37,6 +41,13 @@ public class AllGroupsCollector<T> extends SimpleCollector {
 
   private final GroupSelector<T> groupSelector;
 
+  // HashSet entries hold a key, a value, a next reference and a hash
+  private static final long HASHSET_RAM_BYTES_PER_ENTRY =
+      RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES
+      + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF; // the table is oversized, assume 2x capacity
+
+  private final MemoryAccountant memoryAccountant;
+
   private final Set<T> groups = new HashSet<T>();
 
   /**
@@ -44,7 +55,18 @@ public class AllGroupsCollector<T> extends SimpleCollector {
    * @param groupSelector the GroupSelector to determine groups
    */
   public AllGroupsCollector(GroupSelector<T> groupSelector) {
+    this(groupSelector, null);
+  }
+
+  /**
+   * Create a new AllGroupsCollector that notifies the given {@link MemoryAccountant}
+   * of every new group that it collects
+   * @param groupSelector the GroupSelector to determine groups
+   * @param memoryAccountant the MemoryAccountant to notify, may be {@code null}
+   */
+  public AllGroupsCollector(GroupSelector<T> groupSelector, MemoryAccountant memoryAccountant) {
     this.groupSelector = groupSelector;
+    this.memoryAccountant = memoryAccountant;
   }
 
   /**
@@ -81,7 +103,23 @@ public class AllGroupsCollector<T> extends SimpleCollector {
     groupSelector.advanceTo(doc);
     if (groups.contains(groupSelector.currentValue()))
       return;
-    groups.add(groupSelector.copyValue());
+    T value = groupSelector.copyValue();
+    if (memoryAccountant != null) {
+      memoryAccountant.addBytes(HASHSET_RAM_BYTES_PER_ENTRY + ramBytesUsed(value));
+    }
+    groups.add(value);
+  }
+
+  private static long ramBytesUsed(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof BytesRef) {
+      BytesRef bytes = (BytesRef) value;
+      return RamUsageEstimator.shallowSizeOf(bytes) + RamUsageEstimator.sizeOf(bytes.bytes);
+    } else if (value instanceof Accountable) {
+      return ((Accountable) value).ramBytesUsed();
+    }
+    return RamUsageEstimator.shallowSizeOf(value);
   }
 
   @Override
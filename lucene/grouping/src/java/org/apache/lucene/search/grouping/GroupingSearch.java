@@ -124,7 +124,7 @@ public class GroupingSearch {
     int topN = groupOffset + groupLimit;
 
     final FirstPassGroupingCollector firstPassCollector = new FirstPassGroupingCollector(grouper, groupSort, topN);
-    final AllGroupsCollector allGroupsCollector = allGroups ? new AllGroupsCollector(grouper) : null;
+    final AllGroupsCollector allGroupsCollector = allGroups ? new AllGroupsCollector(grouper, searcher.getMemoryAccountant()) : null;
     final AllGroupHeadsCollector allGroupHeadsCollector
         = allGroupHeads ? AllGroupHeadsCollector.newCollector(grouper, sortWithinGroup) : null;
 
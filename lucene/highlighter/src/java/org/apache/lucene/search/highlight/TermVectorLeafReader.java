@@ -35,6 +35,8 @@ import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Version;
 
@@ -81,7 +83,8 @@ public class TermVectorLeafReader extends LeafReader {
     }
     FieldInfo fieldInfo = new FieldInfo(field, 0,
                                         true, true, terms.hasPayloads(),
-                                        indexOptions, DocValuesType.NONE, -1, Collections.emptyMap(), 0, 0);
+                                        indexOptions, DocValuesType.NONE, -1, Collections.emptyMap(), 0, 0,
+                                        0, VectorValues.SimilarityFunction.NONE);
     fieldInfos = new FieldInfos(new FieldInfo[]{fieldInfo});
   }
 
@@ -139,6 +142,16 @@ public class TermVectorLeafReader extends LeafReader {
     return null;
   }
 
+  @Override
+  public VectorValues getVectorValues(String fieldName) {
+    return null;
+  }
+
+  @Override
+  public TopDocs searchNearestVectors(String fieldName, float[] target, int k, Bits acceptDocs, int visitedLimit) {
+    return null;
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
   }
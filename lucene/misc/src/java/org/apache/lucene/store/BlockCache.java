@@ -0,0 +1,482 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A cache of fixed-size blocks of files, stored in memory that is allocated
+ * up-front, either on or off the Java heap. This is the storage of
+ * {@link BlockCacheDirectory} and it may be shared across several directories.
+ * <p>
+ * Blocks are evicted with a segmented LRU policy: new blocks enter a
+ * probationary segment and only move to the protected segment, which may use
+ * up to 80% of the cache, when they are read again. Blocks are evicted from
+ * the probationary segment first, so that a scan over blocks that are read
+ * only once can't evict the blocks that are read repeatedly. Blocks that are
+ * stored with {@link Priority#PINNED} are never evicted.
+ * <p>
+ * This class is thread-safe. Blocks are spread over segments that each have
+ * their own lock and their own share of the memory, so that readers of
+ * different blocks rarely contend, even when the cache is shared across
+ * directories. Each segment evicts blocks independently.
+ * <p>
+ * This cache exposes some global statistics ({@link #getHitCount() hit count},
+ * {@link #getMissCount() miss count}, {@link #getEvictionCount() number of
+ * evicted blocks}, {@link #getStoreFailureCount() number of blocks that could
+ * not be stored}, {@link #getCacheSize() number of cached blocks} and
+ * {@link #getPinnedCount() number of pinned blocks}).
+ * @lucene.experimental
+ */
+public final class BlockCache implements Accountable {
+
+  /** How blocks of a file are cached. */
+  public enum Priority {
+    /** Blocks are cached and never evicted, until the file is deleted. */
+    PINNED,
+    /** Blocks are cached and evicted on a segmented LRU basis. */
+    NORMAL,
+    /** Blocks are not cached. */
+    NONE
+  }
+
+  /** Default block size, in bytes. */
+  public static final int DEFAULT_BLOCK_SIZE = 1 << 13;
+
+  /** Default maximum number of segments, see {@link #BlockCache(long, int, boolean, int)}. */
+  public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+  // segments are only created when they can hold at least this number of blocks
+  private static final int MIN_BLOCKS_PER_SEGMENT = 1024;
+
+  // max size of a single ByteBuffer
+  private static final int MAX_BANK_SIZE = 1 << 30;
+
+  private static final long BLOCK_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class)
+      + RamUsageEstimator.shallowSizeOfInstance(Entry.class)
+      // map entry with before/after pointers of the linked hash map
+      + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 6 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+  private final int blockShift;
+  private final int blocksPerBankShift;
+  private final int maxBlocks;
+  private final long bankBytes;
+  private final Segment[] segments;
+
+  private final AtomicLong nextFileId = new AtomicLong();
+
+  /**
+   * Create a new instance that stores blocks of {@link #DEFAULT_BLOCK_SIZE} bytes.
+   * @param maxBytes the amount of memory to allocate for blocks
+   * @param directAllocation whether memory should be allocated off the Java heap
+   */
+  public BlockCache(long maxBytes, boolean directAllocation) {
+    this(maxBytes, DEFAULT_BLOCK_SIZE, directAllocation);
+  }
+
+  /**
+   * Create a new instance with up to {@link #DEFAULT_MAX_SEGMENTS} segments.
+   * @param maxBytes the amount of memory to allocate for blocks
+   * @param blockSize the size of blocks in bytes, must be a power of two
+   * @param directAllocation whether memory should be allocated off the Java heap
+   */
+  public BlockCache(long maxBytes, int blockSize, boolean directAllocation) {
+    this(maxBytes, blockSize, directAllocation, DEFAULT_MAX_SEGMENTS);
+  }
+
+  /**
+   * Create a new instance.
+   * @param maxBytes the amount of memory to allocate for blocks
+   * @param blockSize the size of blocks in bytes, must be a power of two
+   * @param directAllocation whether memory should be allocated off the Java heap
+   * @param maxSegments the maximum number of independently locked segments; fewer
+   *        segments are used for small caches so that each segment holds enough blocks
+   *        for its eviction policy to be effective
+   */
+  public BlockCache(long maxBytes, int blockSize, boolean directAllocation, int maxSegments) {
+    if (blockSize <= 0 || Integer.bitCount(blockSize) != 1 || blockSize > MAX_BANK_SIZE) {
+      throw new IllegalArgumentException("blockSize must be a power of two between 1 and 2^30, got " + blockSize);
+    }
+    if (maxBytes < blockSize) {
+      throw new IllegalArgumentException("maxBytes must be at least blockSize, got maxBytes=" + maxBytes + ", blockSize=" + blockSize);
+    }
+    if (maxSegments < 1) {
+      throw new IllegalArgumentException("maxSegments must be at least 1, got " + maxSegments);
+    }
+    final long maxBlocks = maxBytes / blockSize;
+    if (maxBlocks > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many blocks: maxBytes=" + maxBytes + ", blockSize=" + blockSize);
+    }
+    this.blockShift = Integer.numberOfTrailingZeros(blockSize);
+    this.blocksPerBankShift = Integer.numberOfTrailingZeros(MAX_BANK_SIZE) - blockShift;
+    this.maxBlocks = (int) maxBlocks;
+
+    final int blocksPerBank = 1 << blocksPerBankShift;
+    final ByteBuffer[] banks = new ByteBuffer[(this.maxBlocks + blocksPerBank - 1) >>> blocksPerBankShift];
+    long bankBytes = 0;
+    for (int i = 0; i < banks.length; ++i) {
+      final int numBlocks = Math.min(blocksPerBank, this.maxBlocks - (i << blocksPerBankShift));
+      final int size = numBlocks << blockShift;
+      banks[i] = directAllocation ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+      bankBytes += size;
+    }
+    this.bankBytes = bankBytes;
+
+    final int numSegments = (int) Math.max(1, Math.min(maxSegments, maxBlocks / MIN_BLOCKS_PER_SEGMENT));
+    segments = new Segment[numSegments];
+    int firstSlot = 0;
+    for (int i = 0; i < numSegments; ++i) {
+      final int numSlots = (int) (maxBlocks * (i + 1) / numSegments) - firstSlot;
+      segments[i] = new Segment(banks, firstSlot, numSlots);
+      firstSlot += numSlots;
+    }
+    assert firstSlot == this.maxBlocks;
+  }
+
+  /** Return the size of blocks, in bytes. */
+  public int getBlockSize() {
+    return 1 << blockShift;
+  }
+
+  /** Return the maximum number of blocks that this cache may hold. */
+  public int getMaxBlocks() {
+    return maxBlocks;
+  }
+
+  /** Return the number of independently locked segments of this cache. */
+  public int getNumSegments() {
+    return segments.length;
+  }
+
+  /** Return a new identifier for a file, which is unique across all users of this cache. */
+  long newFileId() {
+    return nextFileId.getAndIncrement();
+  }
+
+  private Segment segment(long fileId, long block) {
+    if (segments.length == 1) {
+      return segments[0];
+    }
+    // mix bits so that consecutive blocks of a file go to different segments
+    long h = fileId * 0x9E3779B97F4A7C15L + block;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return segments[(int) ((h & Long.MAX_VALUE) % segments.length)];
+  }
+
+  /**
+   * Copy {@code length} bytes at offset {@code blockOffset} of the given block
+   * into {@code b} if the block is cached. Returns whether the block was found.
+   */
+  boolean fetch(long fileId, long block, int blockOffset, byte[] b, int offset, int length) {
+    assert blockOffset + length <= getBlockSize();
+    return segment(fileId, block).fetch(fileId, block, blockOffset, b, offset, length);
+  }
+
+  /**
+   * Store the first {@code length} bytes of {@code b} as the content of the
+   * given block. Returns whether the block has been stored, which is never
+   * the case if the block is already cached or if all cached blocks of its
+   * segment are pinned.
+   */
+  boolean store(long fileId, long block, byte[] b, int length, Priority priority) {
+    assert length <= getBlockSize();
+    assert priority != Priority.NONE;
+    return segment(fileId, block).store(fileId, block, b, length, priority);
+  }
+
+  /** Remove the given block from the cache. */
+  void invalidateBlock(long fileId, long block) {
+    segment(fileId, block).invalidateBlock(fileId, block);
+  }
+
+  /** Remove all blocks of the given file from the cache. */
+  void invalidate(long fileId, long numBlocks) {
+    if (numBlocks <= getCacheSize()) {
+      for (long block = 0; block < numBlocks; ++block) {
+        invalidateBlock(fileId, block);
+      }
+    } else {
+      // the file has more blocks than the cache, it is cheaper to iterate over the cache
+      for (Segment segment : segments) {
+        segment.invalidate(fileId);
+      }
+    }
+  }
+
+  private int slotOffset(int slot) {
+    return (slot & ((1 << blocksPerBankShift) - 1)) << blockShift;
+  }
+
+  private long sum(ToLongFunction<Segment> stat) {
+    long sum = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        sum += stat.applyAsLong(segment);
+      }
+    }
+    return sum;
+  }
+
+  /** Over the lifetime of this cache, the number of reads of blocks that were cached. */
+  public long getHitCount() {
+    return sum(segment -> segment.hitCount);
+  }
+
+  /** Over the lifetime of this cache, the number of reads of blocks that were not cached. */
+  public long getMissCount() {
+    return sum(segment -> segment.missCount);
+  }
+
+  /** Over the lifetime of this cache, the number of blocks that have been evicted to make room for other blocks. */
+  public long getEvictionCount() {
+    return sum(segment -> segment.evictionCount);
+  }
+
+  /** Over the lifetime of this cache, the number of blocks that could not be stored because all cached blocks were pinned. */
+  public long getStoreFailureCount() {
+    return sum(segment -> segment.storeFailureCount);
+  }
+
+  /** Return the number of blocks that are currently cached, including pinned blocks. */
+  public int getCacheSize() {
+    return (int) sum(Segment::size);
+  }
+
+  /** Return the number of blocks that are currently pinned. */
+  public int getPinnedCount() {
+    return (int) sum(segment -> segment.pinned.size());
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = bankBytes;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        ramBytesUsed += RamUsageEstimator.sizeOf(segment.freeSlots) + segment.size() * BLOCK_RAM_BYTES_USED;
+      }
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public String toString() {
+    return "BlockCache(blockSize=" + getBlockSize() + ", maxBlocks=" + maxBlocks + ", segments=" + segments.length
+        + ", size=" + getCacheSize() + ", pinned=" + getPinnedCount()
+        + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+        + ", evictions=" + getEvictionCount() + ", storeFailures=" + getStoreFailureCount() + ")";
+  }
+
+  /** A share of the cache: a range of slots and the blocks that are stored in them. */
+  private final class Segment {
+
+    // our own views of the banks, since reads and writes move their position
+    private final ByteBuffer[] banks;
+    private final int firstSlot;
+    private final int maxSlots;
+    private final int maxProtectedBlocks;
+
+    // all fields below are guarded by this
+    private final LinkedHashMap<Key,Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key,Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key,Entry> pinned = new HashMap<>();
+    private final int[] freeSlots;
+    private int numFreeSlots;
+    private int numAllocatedSlots;
+    private final Key lookupKey = new Key(-1, -1);
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long storeFailureCount;
+
+    Segment(ByteBuffer[] banks, int firstSlot, int maxSlots) {
+      this.banks = new ByteBuffer[banks.length];
+      for (int i = 0; i < banks.length; ++i) {
+        this.banks[i] = banks[i].duplicate();
+      }
+      this.firstSlot = firstSlot;
+      this.maxSlots = maxSlots;
+      this.maxProtectedBlocks = maxSlots * 8 / 10;
+      this.freeSlots = new int[maxSlots];
+    }
+
+    synchronized boolean fetch(long fileId, long block, int blockOffset, byte[] b, int offset, int length) {
+      final Key key = lookupKey.set(fileId, block);
+      Entry entry = protectedSegment.get(key);
+      if (entry == null) {
+        entry = probation.remove(key);
+        if (entry != null) {
+          // second access: promote to the protected segment
+          protectedSegment.put(entry.key, entry);
+          if (protectedSegment.size() > maxProtectedBlocks) {
+            // demote the least-recently used protected block, it gets another chance in the probationary segment
+            final Iterator<Entry> it = protectedSegment.values().iterator();
+            final Entry demoted = it.next();
+            it.remove();
+            probation.put(demoted.key, demoted);
+          }
+        } else {
+          entry = pinned.get(key);
+        }
+      }
+      if (entry == null) {
+        missCount++;
+        return false;
+      }
+      assert blockOffset + length <= entry.length;
+      final ByteBuffer bank = banks[entry.slot >>> blocksPerBankShift];
+      bank.position(slotOffset(entry.slot) + blockOffset);
+      bank.get(b, offset, length);
+      hitCount++;
+      return true;
+    }
+
+    synchronized boolean store(long fileId, long block, byte[] b, int length, Priority priority) {
+      final Key lookup = lookupKey.set(fileId, block);
+      if (probation.containsKey(lookup) || protectedSegment.containsKey(lookup) || pinned.containsKey(lookup)) {
+        return false;
+      }
+      final int slot = allocateSlot();
+      if (slot == -1) {
+        storeFailureCount++;
+        return false;
+      }
+      final ByteBuffer bank = banks[slot >>> blocksPerBankShift];
+      bank.position(slotOffset(slot));
+      bank.put(b, 0, length);
+      final Key key = new Key(fileId, block);
+      final Entry entry = new Entry(key, slot, length);
+      if (priority == Priority.PINNED) {
+        pinned.put(key, entry);
+      } else {
+        probation.put(key, entry);
+      }
+      return true;
+    }
+
+    synchronized void invalidateBlock(long fileId, long block) {
+      final Key key = lookupKey.set(fileId, block);
+      Entry entry = probation.remove(key);
+      if (entry == null) {
+        entry = protectedSegment.remove(key);
+      }
+      if (entry == null) {
+        entry = pinned.remove(key);
+      }
+      if (entry != null) {
+        freeSlot(entry.slot);
+      }
+    }
+
+    synchronized void invalidate(long fileId) {
+      invalidate(probation, fileId);
+      invalidate(protectedSegment, fileId);
+      invalidate(pinned, fileId);
+    }
+
+    private void invalidate(Map<Key,Entry> entries, long fileId) {
+      for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+        final Entry entry = it.next();
+        if (entry.key.fileId == fileId) {
+          it.remove();
+          freeSlot(entry.slot);
+        }
+      }
+    }
+
+    private int allocateSlot() {
+      if (numFreeSlots > 0) {
+        return freeSlots[--numFreeSlots];
+      }
+      if (numAllocatedSlots < maxSlots) {
+        return firstSlot + numAllocatedSlots++;
+      }
+      final Map<Key,Entry> victims = probation.isEmpty() ? protectedSegment : probation;
+      if (victims.isEmpty()) {
+        // all blocks are pinned
+        return -1;
+      }
+      final Iterator<Entry> it = victims.values().iterator();
+      final Entry evicted = it.next();
+      it.remove();
+      evictionCount++;
+      return evicted.slot;
+    }
+
+    private void freeSlot(int slot) {
+      freeSlots[numFreeSlots++] = slot;
+    }
+
+    int size() {
+      assert Thread.holdsLock(this);
+      return probation.size() + protectedSegment.size() + pinned.size();
+    }
+  }
+
+  private static final class Key {
+    long fileId;
+    long block;
+
+    Key(long fileId, long block) {
+      this.fileId = fileId;
+      this.block = block;
+    }
+
+    Key set(long fileId, long block) {
+      this.fileId = fileId;
+      this.block = block;
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof Key == false) {
+        return false;
+      }
+      final Key that = (Key) obj;
+      return fileId == that.fileId && block == that.block;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(fileId) + Long.hashCode(block);
+    }
+  }
+
+  private static final class Entry {
+    final Key key;
+    final int slot;
+    final int length;
+
+    Entry(Key key, int slot, int length) {
+      this.key = key;
+      this.slot = slot;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.store.BlockCache.Priority;
+
+/**
+ * A {@link Directory} wrapper that caches blocks of the files that it reads
+ * in a {@link BlockCache}, so that the residency of the most useful index
+ * structures does not depend on the operating system's page cache, which
+ * other processes of the host, such as backups, may thrash.
+ * <p>
+ * Blocks are cached with a {@link Priority} that depends on the extension of
+ * the file, or of the sub-file for compound files. By default, the blocks of
+ * the terms index and of norms are pinned and the blocks of other files are
+ * cached on a segmented LRU basis, see {@link #DEFAULT_PRIORITIES}. Reads for
+ * merges and of files that are read only once look up the cache but don't
+ * populate it.
+ * <p>
+ * This directory is typically used on top of a {@link NIOFSDirectory}, since
+ * blocks that are read from a {@link MMapDirectory} would be loaded into the
+ * page cache anyway.
+ * @lucene.experimental
+ */
+public class BlockCacheDirectory extends FilterDirectory {
+
+  /**
+   * Default priorities by file extension: blocks of the terms index
+   * ({@code tip}) and of norms ({@code nvd}) are pinned. Files whose
+   * extension is not listed are cached with {@link Priority#NORMAL}.
+   */
+  public static final Map<String,Priority> DEFAULT_PRIORITIES;
+  static {
+    Map<String,Priority> priorities = new HashMap<>();
+    priorities.put("tip", Priority.PINNED);
+    priorities.put("nvd", Priority.PINNED);
+    DEFAULT_PRIORITIES = Collections.unmodifiableMap(priorities);
+  }
+
+  private final BlockCache cache;
+  private final Map<String,Priority> priorities;
+  private final Map<String,CachedFile> files = new ConcurrentHashMap<>();
+
+  /** Create a new instance that caches blocks with the {@link #DEFAULT_PRIORITIES}. */
+  public BlockCacheDirectory(Directory in, BlockCache cache) {
+    this(in, cache, DEFAULT_PRIORITIES);
+  }
+
+  /**
+   * Create a new instance.
+   * @param in the directory to read files from
+   * @param cache the cache to store blocks into, which may be shared with other directories
+   * @param priorities the priorities of files by extension, files whose
+   *        extension is not listed are cached with {@link Priority#NORMAL}
+   */
+  public BlockCacheDirectory(Directory in, BlockCache cache, Map<String,Priority> priorities) {
+    super(in);
+    this.cache = cache;
+    this.priorities = new HashMap<>(priorities);
+  }
+
+  /** Return the cache that blocks are stored into. */
+  public BlockCache getCache() {
+    return cache;
+  }
+
+  private Priority getPriority(String name) {
+    final String extension = IndexFileNames.getExtension(name);
+    if (extension == null) {
+      return Priority.NORMAL;
+    }
+    return priorities.getOrDefault(extension, Priority.NORMAL);
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    final IndexInput input = in.openInput(name, context);
+    final Priority priority = getPriority(name);
+    if (priority == Priority.NONE) {
+      return input;
+    }
+    final CachedFile file = files.computeIfAbsent(name, n -> new CachedFile(cache.newFileId(), input.length()));
+    final boolean populate = context.context != IOContext.Context.MERGE && context.readOnce == false;
+    return new CachedIndexInput("BlockCacheIndexInput(" + input + ")", input, cache, file, 0, input.length(), priority, populate);
+  }
+
+  @Override
+  public IndexOutput createOutput(String name, IOContext context) throws IOException {
+    // in case the file was deleted without going through this directory
+    invalidate(name);
+    return in.createOutput(name, context);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    in.deleteFile(name);
+    invalidate(name);
+  }
+
+  @Override
+  public void rename(String source, String dest) throws IOException {
+    in.rename(source, dest);
+    invalidate(dest);
+    final CachedFile file = files.remove(source);
+    if (file != null) {
+      if (getPriority(source) == getPriority(dest)) {
+        files.put(dest, file);
+      } else {
+        invalidate(file);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      // files are only removed from the map by invalidating them, so every id
+      // that this directory issued is either released here or already released
+      for (String name : files.keySet()) {
+        invalidate(name);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private void invalidate(String name) {
+    final CachedFile file = files.remove(name);
+    if (file != null) {
+      invalidate(file);
+    }
+  }
+
+  private void invalidate(CachedFile file) {
+    // inputs that are still open on the file check this flag after storing a
+    // block, so setting it before invalidating ensures no block is left behind
+    file.invalidated = true;
+    cache.invalidate(file.id, file.numBlocks(cache));
+  }
+
+  @Override
+  public String toString() {
+    return "BlockCacheDirectory(" + in + ", " + cache + ")";
+  }
+
+  private static final class CachedFile {
+    final long id;
+    final long length;
+    volatile boolean invalidated;
+
+    CachedFile(long id, long length) {
+      this.id = id;
+      this.length = length;
+    }
+
+    long numBlocks(BlockCache cache) {
+      return (length + cache.getBlockSize() - 1) / cache.getBlockSize();
+    }
+  }
+
+  /** Reads a range of a file, block by block, through the cache. */
+  private final class CachedIndexInput extends BufferedIndexInput {
+
+    private IndexInput in;
+    private final BlockCache cache;
+    private final CachedFile file;
+    private final long fileLength;
+    private final long offset;
+    private final long length;
+    private final Priority priority;
+    private final boolean populate;
+    private boolean isClone;
+    // lazily allocated buffer to read whole blocks from the wrapped input on cache misses
+    private byte[] blockBuffer;
+
+    CachedIndexInput(String resourceDescription, IndexInput in, BlockCache cache, CachedFile file,
+        long offset, long length, Priority priority, boolean populate) {
+      this(resourceDescription, in, cache, file, in.length(), offset, length, priority, populate, false);
+    }
+
+    private CachedIndexInput(String resourceDescription, IndexInput in, BlockCache cache, CachedFile file, long fileLength,
+        long offset, long length, Priority priority, boolean populate, boolean isClone) {
+      super(resourceDescription, cache.getBlockSize());
+      this.in = in;
+      this.cache = cache;
+      this.file = file;
+      this.fileLength = fileLength;
+      this.offset = offset;
+      this.length = length;
+      this.priority = priority;
+      this.populate = populate;
+      this.isClone = isClone;
+    }
+
+    @Override
+    protected void readInternal(byte[] b, int off, int len) throws IOException {
+      long pos = getFilePointer();
+      if (pos + len > length) {
+        throw new EOFException("read past EOF: " + this);
+      }
+      pos += offset;
+      final int blockSize = cache.getBlockSize();
+      while (len > 0) {
+        final long block = pos / blockSize;
+        final int blockOffset = (int) (pos % blockSize);
+        final int chunk = Math.min(len, blockSize - blockOffset);
+        if (cache.fetch(file.id, block, blockOffset, b, off, chunk) == false) {
+          if (populate && priority != Priority.NONE && file.invalidated == false) {
+            // read the whole block so that it can be cached
+            final long blockStart = block * blockSize;
+            final int blockLength = (int) Math.min(blockSize, fileLength - blockStart);
+            if (blockBuffer == null) {
+              blockBuffer = new byte[blockSize];
+            }
+            in.seek(blockStart);
+            in.readBytes(blockBuffer, 0, blockLength, false);
+            if (cache.store(file.id, block, blockBuffer, blockLength, priority) && file.invalidated) {
+              // the file got deleted concurrently, its blocks must not outlive it
+              cache.invalidateBlock(file.id, block);
+            }
+            System.arraycopy(blockBuffer, blockOffset, b, off, chunk);
+          } else {
+            in.seek(pos);
+            in.readBytes(b, off, chunk, false);
+          }
+        }
+        pos += chunk;
+        off += chunk;
+        len -= chunk;
+      }
+    }
+
+    @Override
+    protected void seekInternal(long pos) throws IOException {
+      if (pos > length) {
+        throw new EOFException("seek past EOF: " + this);
+      }
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    @Override
+    public CachedIndexInput clone() {
+      final CachedIndexInput clone = (CachedIndexInput) super.clone();
+      clone.in = in.clone();
+      clone.blockBuffer = null;
+      clone.isClone = true;
+      return clone;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length) {
+        throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: " + this);
+      }
+      // sub-files of compound files have their own priorities
+      Priority priority = this.priority;
+      if (sliceDescription != null && IndexFileNames.getExtension(sliceDescription) != null) {
+        priority = getPriority(sliceDescription);
+      }
+      return new CachedIndexInput(getFullSliceDescription(sliceDescription), in.clone(), cache, file, fileLength,
+          this.offset + offset, length, priority, populate, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (isClone == false) {
+        in.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A {@link MMapDirectory} that passes the {@link ReadAdvice} of files to the
+ * operating system with {@code madvise}, so that for instance pages read by
+ * merges are read ahead and then reclaimed early instead of evicting the
+ * pages that searches need.
+ *
+ * <p>To use this you must compile
+ * NativePosixUtil.cpp (exposes Linux-specific APIs through
+ * JNI) for your platform, by running <code>ant
+ * build-native-unix</code>, and then putting the resulting
+ * <code>libNativePosixUtil.so</code> (from
+ * <code>lucene/build/native</code>) onto your dynamic
+ * linker search path.
+ *
+ * @see MMapDirectory#setReadAdvice
+ * @lucene.experimental
+ */
+public class NativeMMapDirectory extends MMapDirectory {
+
+  /** Create a new NativeMMapDirectory for the named location.
+   *
+   * @param path the path of the directory
+   * @param lockFactory the lock factory to use
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path, LockFactory lockFactory) throws IOException {
+    super(path, lockFactory);
+  }
+
+  /** Create a new NativeMMapDirectory for the named location and {@link FSLockFactory#getDefault()}.
+   *
+   * @param path the path of the directory
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path) throws IOException {
+    super(path);
+  }
+
+  /** Create a new NativeMMapDirectory for the named location, specifying the
+   *  maximum chunk size used for memory mapping.
+   *
+   * @param path the path of the directory
+   * @param lockFactory the lock factory to use
+   * @param maxChunkSize maximum chunk size used for memory mapping
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path, LockFactory lockFactory, int maxChunkSize) throws IOException {
+    super(path, lockFactory, maxChunkSize);
+  }
+
+  @Override
+  protected void madvise(ByteBuffer buffer, ReadAdvice advice) throws IOException {
+    final int osAdvice;
+    switch (advice) {
+      case RANDOM:
+        osAdvice = NativePosixUtil.RANDOM;
+        break;
+      case SEQUENTIAL:
+        osAdvice = NativePosixUtil.SEQUENTIAL;
+        break;
+      case NORMAL:
+        osAdvice = NativePosixUtil.NORMAL;
+        break;
+      default:
+        throw new AssertionError("Unknown advice: " + advice);
+    }
+    try {
+      NativePosixUtil.madvise(buffer, osAdvice);
+    } catch (IOException e) {
+      // advice is only a hint, failing to apply it does not prevent reading the file
+    }
+  }
+}
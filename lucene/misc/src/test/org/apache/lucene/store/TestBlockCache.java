@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import org.apache.lucene.store.BlockCache.Priority;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestBlockCache extends LuceneTestCase {
+
+  private static byte[] block(int blockSize, int value) {
+    byte[] bytes = new byte[blockSize];
+    for (int i = 0; i < blockSize; ++i) {
+      bytes[i] = (byte) (value + i);
+    }
+    return bytes;
+  }
+
+  private static void assertCached(BlockCache cache, long fileId, long block, int value) {
+    final int blockSize = cache.getBlockSize();
+    byte[] bytes = new byte[blockSize];
+    assertTrue(cache.fetch(fileId, block, 0, bytes, 0, blockSize));
+    assertArrayEquals(block(blockSize, value), bytes);
+  }
+
+  private static boolean isCached(BlockCache cache, long fileId, long block) {
+    return cache.fetch(fileId, block, 0, new byte[1], 0, 1);
+  }
+
+  public void testStoreAndFetch() {
+    BlockCache cache = new BlockCache(16 * 10, 16, random().nextBoolean());
+    assertEquals(10, cache.getMaxBlocks());
+    final long fileId = cache.newFileId();
+    assertFalse(isCached(cache, fileId, 3));
+    assertEquals(1, cache.getMissCount());
+
+    assertTrue(cache.store(fileId, 3, block(16, 42), 16, Priority.NORMAL));
+    // blocks are never updated
+    assertFalse(cache.store(fileId, 3, block(16, 0), 16, Priority.NORMAL));
+    assertCached(cache, fileId, 3, 42);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getCacheSize());
+
+    // partial reads within a block
+    byte[] bytes = new byte[5];
+    assertTrue(cache.fetch(fileId, 3, 7, bytes, 1, 4));
+    assertArrayEquals(new byte[] {0, 49, 50, 51, 52}, bytes);
+
+    // different files don't share blocks
+    assertFalse(isCached(cache, cache.newFileId(), 3));
+  }
+
+  public void testScanResistance() {
+    BlockCache cache = new BlockCache(16 * 10, 16, random().nextBoolean());
+    final long hot = cache.newFileId();
+    for (int i = 0; i < 5; ++i) {
+      assertTrue(cache.store(hot, i, block(16, i), 16, Priority.NORMAL));
+      // second access promotes to the protected segment
+      assertCached(cache, hot, i, i);
+    }
+    // a scan over many more blocks than the cache holds
+    final long scanned = cache.newFileId();
+    for (int i = 0; i < 100; ++i) {
+      assertTrue(cache.store(scanned, i, block(16, i), 16, Priority.NORMAL));
+    }
+    assertEquals(10, cache.getCacheSize());
+    assertEquals(95, cache.getEvictionCount());
+    for (int i = 0; i < 5; ++i) {
+      assertCached(cache, hot, i, i);
+    }
+  }
+
+  public void testPinned() {
+    BlockCache cache = new BlockCache(16 * 4, 16, random().nextBoolean());
+    final long fileId = cache.newFileId();
+    assertTrue(cache.store(fileId, 0, block(16, 0), 16, Priority.PINNED));
+    assertTrue(cache.store(fileId, 1, block(16, 1), 16, Priority.PINNED));
+    assertEquals(2, cache.getPinnedCount());
+    for (int i = 2; i < 20; ++i) {
+      assertTrue(cache.store(fileId, i, block(16, i), 16, Priority.NORMAL));
+      assertCached(cache, fileId, i, i);
+    }
+    assertCached(cache, fileId, 0, 0);
+    assertCached(cache, fileId, 1, 1);
+
+    assertTrue(cache.store(fileId, 20, block(16, 20), 16, Priority.PINNED));
+    assertTrue(cache.store(fileId, 21, block(16, 21), 16, Priority.PINNED));
+    assertEquals(4, cache.getPinnedCount());
+    // the cache is full of pinned blocks
+    assertFalse(cache.store(fileId, 22, block(16, 22), 16, Priority.NORMAL));
+    assertEquals(1, cache.getStoreFailureCount());
+  }
+
+  public void testInvalidate() {
+    BlockCache cache = new BlockCache(16 * 10, 16, random().nextBoolean());
+    final long file1 = cache.newFileId();
+    final long file2 = cache.newFileId();
+    for (int i = 0; i < 4; ++i) {
+      assertTrue(cache.store(file1, i, block(16, i), 16, i % 2 == 0 ? Priority.PINNED : Priority.NORMAL));
+      assertTrue(cache.store(file2, i, block(16, -i), 16, Priority.NORMAL));
+    }
+    // more blocks than the cache holds
+    cache.invalidate(file1, random().nextBoolean() ? 4 : 1000);
+    assertEquals(4, cache.getCacheSize());
+    assertEquals(0, cache.getPinnedCount());
+    for (int i = 0; i < 4; ++i) {
+      assertFalse(isCached(cache, file1, i));
+      assertCached(cache, file2, i, -i);
+    }
+    // freed slots are reused without evictions
+    for (int i = 0; i < 6; ++i) {
+      assertTrue(cache.store(file1, i, block(16, i), 16, Priority.NORMAL));
+    }
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  public void testSegments() {
+    // small caches have a single segment
+    assertEquals(1, new BlockCache(16 * 10, 16, false).getNumSegments());
+    BlockCache cache = new BlockCache(16 * 4096, 16, random().nextBoolean(), 4);
+    assertEquals(4, cache.getNumSegments());
+    assertEquals(4096, cache.getMaxBlocks());
+    final long file1 = cache.newFileId();
+    final long file2 = cache.newFileId();
+    for (int i = 0; i < 1000; ++i) {
+      assertTrue(cache.store(file1, i, block(16, i), 16, i % 3 == 0 ? Priority.PINNED : Priority.NORMAL));
+      assertTrue(cache.store(file2, i, block(16, -i), 16, Priority.NORMAL));
+    }
+    assertEquals(2000, cache.getCacheSize());
+    assertEquals(334, cache.getPinnedCount());
+    for (int i = 0; i < 1000; ++i) {
+      assertCached(cache, file1, i, i);
+    }
+    assertEquals(1000, cache.getHitCount());
+    cache.invalidate(file1, random().nextBoolean() ? 1000 : 10_000);
+    assertEquals(1000, cache.getCacheSize());
+    assertEquals(0, cache.getPinnedCount());
+    for (int i = 0; i < 1000; ++i) {
+      assertFalse(isCached(cache, file1, i));
+      assertCached(cache, file2, i, -i);
+    }
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new BlockCache(1024, 1000, false));
+    expectThrows(IllegalArgumentException.class, () -> new BlockCache(10, 16, false));
+    expectThrows(IllegalArgumentException.class, () -> new BlockCache(1024, 16, false, 0));
+  }
+}
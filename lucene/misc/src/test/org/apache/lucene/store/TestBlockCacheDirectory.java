@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.apache.lucene.store.BlockCache.Priority;
+import org.apache.lucene.util.TestUtil;
+
+public class TestBlockCacheDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    // small blocks so that files span many of them, and a small cache so that blocks get evicted
+    final int blockSize = 1 << TestUtil.nextInt(random(), 4, 10);
+    final BlockCache cache = new BlockCache(blockSize * TestUtil.nextInt(random(), 1, 100), blockSize, random().nextBoolean());
+    return new BlockCacheDirectory(new NIOFSDirectory(path), cache);
+  }
+
+  private static void writeFile(Directory dir, String name, int length) throws IOException {
+    try (IndexOutput out = dir.createOutput(name, IOContext.DEFAULT)) {
+      for (int i = 0; i < length; ++i) {
+        out.writeByte((byte) i);
+      }
+    }
+  }
+
+  private static void readFile(Directory dir, String name, IOContext context) throws IOException {
+    try (IndexInput in = dir.openInput(name, context)) {
+      for (long i = 0; i < in.length(); ++i) {
+        assertEquals((byte) i, in.readByte());
+      }
+    }
+  }
+
+  public void testCachesBlocks() throws IOException {
+    BlockCache cache = new BlockCache(64 * 100, 64, false);
+    try (Directory dir = new BlockCacheDirectory(new NIOFSDirectory(createTempDir()), cache)) {
+      writeFile(dir, "foo.dat", 1000);
+      readFile(dir, "foo.dat", IOContext.DEFAULT);
+      assertEquals(16, cache.getCacheSize());
+      final long misses = cache.getMissCount();
+      readFile(dir, "foo.dat", IOContext.DEFAULT);
+      assertEquals(misses, cache.getMissCount());
+      assertTrue(cache.getHitCount() >= 16);
+
+      dir.deleteFile("foo.dat");
+      assertEquals(0, cache.getCacheSize());
+
+      // the file is written again with different content
+      try (IndexOutput out = dir.createOutput("foo.dat", IOContext.DEFAULT)) {
+        out.writeInt(42);
+      }
+      try (IndexInput in = dir.openInput("foo.dat", IOContext.DEFAULT)) {
+        assertEquals(42, in.readInt());
+      }
+    }
+    assertEquals(0, cache.getCacheSize());
+  }
+
+  public void testDeleteOpenFile() throws IOException {
+    BlockCache cache = new BlockCache(64 * 100, 64, false);
+    Directory dir = new BlockCacheDirectory(new NIOFSDirectory(createTempDir()), cache,
+        Collections.singletonMap("tip", Priority.PINNED));
+    writeFile(dir, "_0.tip", 1000);
+    IndexInput in = dir.openInput("_0.tip", IOContext.DEFAULT);
+    IndexInput clone = in.clone();
+    assertEquals(0, in.readByte());
+    assertEquals(1, cache.getPinnedCount());
+    // deleting files that are still open is allowed on some file systems
+    try {
+      dir.deleteFile("_0.tip");
+    } catch (IOException e) {
+      assumeNoException("file system does not allow deleting open files", e);
+    }
+    assertEquals(0, cache.getCacheSize());
+    // blocks of deleted files are not cached anymore
+    for (long i = 1; i < in.length(); ++i) {
+      assertEquals((byte) i, in.readByte());
+    }
+    clone.seek(500);
+    assertEquals((byte) 500, clone.readByte());
+    assertEquals(0, cache.getCacheSize());
+    in.close();
+
+    // files that are open when the directory gets closed
+    writeFile(dir, "_1.tip", 1000);
+    in = dir.openInput("_1.tip", IOContext.DEFAULT);
+    assertEquals(0, in.readByte());
+    dir.close();
+    assertEquals(0, cache.getCacheSize());
+    in.seek(500);
+    assertEquals((byte) 500, in.readByte());
+    assertEquals(0, cache.getCacheSize());
+    in.close();
+  }
+
+  public void testMergesDontPopulate() throws IOException {
+    BlockCache cache = new BlockCache(64 * 100, 64, false);
+    try (Directory dir = new BlockCacheDirectory(new NIOFSDirectory(createTempDir()), cache)) {
+      writeFile(dir, "foo.dat", 1000);
+      readFile(dir, "foo.dat", IOContext.READONCE);
+      readFile(dir, "foo.dat", new IOContext(new MergeInfo(10, 1000, false, 1)));
+      assertEquals(0, cache.getCacheSize());
+    }
+  }
+
+  public void testPriorities() throws IOException {
+    BlockCache cache = new BlockCache(64 * 4, 64, false);
+    try (Directory dir = new BlockCacheDirectory(new NIOFSDirectory(createTempDir()), cache,
+        Collections.singletonMap("tip", Priority.PINNED))) {
+      writeFile(dir, "_0.tip", 128);
+      writeFile(dir, "_0.tim", 10000);
+      readFile(dir, "_0.tip", IOContext.DEFAULT);
+      assertEquals(2, cache.getPinnedCount());
+      readFile(dir, "_0.tim", IOContext.DEFAULT);
+      readFile(dir, "_0.tim", IOContext.DEFAULT);
+      final long hits = cache.getHitCount();
+      readFile(dir, "_0.tip", IOContext.DEFAULT);
+      assertEquals(hits + 2, cache.getHitCount());
+
+      // sub-files of compound files get the priority of their extension
+      writeFile(dir, "_1.cfs", 256);
+      try (IndexInput in = dir.openInput("_1.cfs", IOContext.DEFAULT)) {
+        IndexInput slice = in.slice("_1.tip", 64, 64);
+        for (int i = 64; i < 128; ++i) {
+          assertEquals((byte) i, slice.readByte());
+        }
+      }
+      assertEquals(3, cache.getPinnedCount());
+
+      dir.deleteFile("_0.tip");
+      assertEquals(1, cache.getPinnedCount());
+    }
+  }
+
+  public void testNoCaching() throws IOException {
+    BlockCache cache = new BlockCache(64 * 4, 64, false);
+    try (Directory dir = new BlockCacheDirectory(new NIOFSDirectory(createTempDir()), cache,
+        Collections.singletonMap("fdt", Priority.NONE))) {
+      writeFile(dir, "_0.fdt", 128);
+      readFile(dir, "_0.fdt", IOContext.DEFAULT);
+      assertEquals(0, cache.getCacheSize());
+      assertEquals(0, cache.getMissCount());
+    }
+  }
+}
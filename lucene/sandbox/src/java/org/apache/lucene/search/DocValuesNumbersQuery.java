@@ -26,6 +26,7 @@ import java.util.Set;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 
@@ -97,12 +98,25 @@ public class DocValuesNumbersQuery extends Query {
 
   @Override
   public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (long number : numbers) {
+      min = Math.min(min, number);
+      max = Math.max(max, number);
+    }
+    final long minValue = min;
+    final long maxValue = max;
     return new ConstantScoreWeight(this, boost) {
 
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
+        final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null
+            && (skipper.minValueGlobal() > maxValue || skipper.maxValueGlobal() < minValue)) {
+          return null;
+        }
         final SortedNumericDocValues values = DocValues.getSortedNumeric(context.reader(), field);
-        return new ConstantScoreScorer(this, score(), new TwoPhaseIterator(values) {
+        TwoPhaseIterator iterator = new TwoPhaseIterator(values) {
 
           @Override
           public boolean matches() throws IOException {
@@ -119,7 +133,12 @@ public class DocValuesNumbersQuery extends Query {
           public float matchCost() {
             return 5; // lookup in the set
           }
-        });
+        };
+        if (skipper != null) {
+          // the set may have gaps, so blocks that are within [minValue, maxValue] still need to be checked
+          iterator = new DocValuesRangeIterator(iterator, skipper, minValue, maxValue, true);
+        }
+        return new ConstantScoreScorer(this, score(), iterator);
       }
     };
   }
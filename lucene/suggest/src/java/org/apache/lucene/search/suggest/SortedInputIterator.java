@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.store.ByteArrayDataInput;
@@ -49,6 +50,8 @@ public class SortedInputIterator implements InputIterator {
   private final boolean hasContexts;
   private final Directory tempDir;
   private final String tempFileNamePrefix;
+  private final ExecutorService exec;
+  private final int maxPartitionsInRAM;
   private boolean done = false;
   
   private long weight;
@@ -67,12 +70,25 @@ public class SortedInputIterator implements InputIterator {
    * (ascending) then cost (ascending).
    */
   public SortedInputIterator(Directory tempDir, String tempFileNamePrefix, InputIterator source, Comparator<BytesRef> comparator) throws IOException {
+    this(tempDir, tempFileNamePrefix, source, comparator, null, 0);
+  }
+
+  /**
+   * Creates a new sorted wrapper, sorting by BytesRef
+   * (ascending) then cost (ascending). If {@code exec} is not null, up to
+   * {@code maxPartitionsInRAM} partitions are sorted concurrently with it.
+   * @see OfflineSorter#OfflineSorter(Directory, String, Comparator, ExecutorService, int)
+   */
+  public SortedInputIterator(Directory tempDir, String tempFileNamePrefix, InputIterator source, Comparator<BytesRef> comparator,
+                             ExecutorService exec, int maxPartitionsInRAM) throws IOException {
     this.hasPayloads = source.hasPayloads();
     this.hasContexts = source.hasContexts();
     this.source = source;
     this.comparator = comparator;
     this.tempDir = tempDir;
     this.tempFileNamePrefix = tempFileNamePrefix;
+    this.exec = exec;
+    this.maxPartitionsInRAM = maxPartitionsInRAM;
     this.reader = sort();
   }
   
@@ -172,7 +188,12 @@ public class SortedInputIterator implements InputIterator {
   
   private ByteSequencesReader sort() throws IOException {
 
-    OfflineSorter sorter = new OfflineSorter(tempDir, tempFileNamePrefix, tieBreakByCostComparator);
+    OfflineSorter sorter;
+    if (exec == null) {
+      sorter = new OfflineSorter(tempDir, tempFileNamePrefix, tieBreakByCostComparator);
+    } else {
+      sorter = new OfflineSorter(tempDir, tempFileNamePrefix, tieBreakByCostComparator, exec, maxPartitionsInRAM);
+    }
     tempInput = tempDir.createTempOutput(tempFileNamePrefix, "input", IOContext.DEFAULT);
     
     try (OfflineSorter.ByteSequencesWriter writer = new OfflineSorter.ByteSequencesWriter(tempInput)) {
@@ -36,15 +36,22 @@ public abstract class CompressingCodec extends FilterCodec {
    * Create a random instance.
    */
   public static CompressingCodec randomInstance(Random random, int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize) {
-    switch (random.nextInt(4)) {
+    final int largeValueThreshold = random.nextBoolean()
+        ? CompressingStoredFieldsFormat.NO_LARGE_VALUES
+        : RandomNumbers.randomIntBetween(random, 1, 1 << 10);
+    switch (random.nextInt(6)) {
     case 0:
-      return new FastCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize);
+      return new FastCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, largeValueThreshold);
     case 1:
-      return new FastDecompressionCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize);
+      return new FastDecompressionCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, largeValueThreshold);
     case 2:
-      return new HighCompressionCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize);
+      return new HighCompressionCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, largeValueThreshold);
     case 3:
       return new DummyCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize);
+    case 4:
+      return new FastWithPresetDictCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, largeValueThreshold);
+    case 5:
+      return new HighCompressionWithPresetDictCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, largeValueThreshold);
     default:
       throw new AssertionError();
     }
@@ -92,8 +99,16 @@ public abstract class CompressingCodec extends FilterCodec {
    * Creates a compressing codec with a given segment suffix
    */
   public CompressingCodec(String name, String segmentSuffix, CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize) {
+    this(name, segmentSuffix, compressionMode, chunkSize, maxDocsPerChunk, blockSize, CompressingStoredFieldsFormat.NO_LARGE_VALUES);
+  }
+
+  /**
+   * Creates a compressing codec with a given segment suffix that compresses
+   * large stored values separately
+   */
+  public CompressingCodec(String name, String segmentSuffix, CompressionMode compressionMode, int chunkSize, int maxDocsPerChunk, int blockSize, int largeValueThreshold) {
     super(name, TestUtil.getDefaultCodec());
-    this.storedFieldsFormat = new CompressingStoredFieldsFormat(name, segmentSuffix, compressionMode, chunkSize, maxDocsPerChunk, blockSize);
+    this.storedFieldsFormat = new CompressingStoredFieldsFormat(name, segmentSuffix, compressionMode, chunkSize, maxDocsPerChunk, blockSize, largeValueThreshold);
     this.termVectorsFormat = new CompressingTermVectorsFormat(name, segmentSuffix, compressionMode, chunkSize, blockSize);
   }
   
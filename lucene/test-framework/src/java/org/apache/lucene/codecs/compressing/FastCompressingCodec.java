@@ -21,9 +21,14 @@ public class FastCompressingCodec extends CompressingCodec {
 
   /** Constructor that allows to configure the chunk size. */
   public FastCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize) {
+    this(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, CompressingStoredFieldsFormat.NO_LARGE_VALUES);
+  }
+
+  /** Constructor that also allows to configure the threshold of large values. */
+  public FastCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize, int largeValueThreshold) {
     super("FastCompressingStoredFields", 
           withSegmentSuffix ? "FastCompressingStoredFields" : "",
-          CompressionMode.FAST, chunkSize, maxDocsPerChunk, blockSize);
+          CompressionMode.FAST, chunkSize, maxDocsPerChunk, blockSize, largeValueThreshold);
   }
 
   /** Default constructor. */
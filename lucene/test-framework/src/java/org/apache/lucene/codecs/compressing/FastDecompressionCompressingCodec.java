@@ -21,9 +21,14 @@ public class FastDecompressionCompressingCodec extends CompressingCodec {
 
   /** Constructor that allows to configure the chunk size. */
   public FastDecompressionCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize) {
+    this(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, CompressingStoredFieldsFormat.NO_LARGE_VALUES);
+  }
+
+  /** Constructor that also allows to configure the threshold of large values. */
+  public FastDecompressionCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize, int largeValueThreshold) {
     super("FastDecompressionCompressingStoredFields",
           withSegmentSuffix ? "FastDecompressionCompressingStoredFields" : "",
-          CompressionMode.FAST_DECOMPRESSION, chunkSize, maxDocsPerChunk, blockSize);
+          CompressionMode.FAST_DECOMPRESSION, chunkSize, maxDocsPerChunk, blockSize, largeValueThreshold);
   }
 
   /** Default constructor. */
@@ -21,9 +21,14 @@ public class HighCompressionCompressingCodec extends CompressingCodec {
 
   /** Constructor that allows to configure the chunk size. */
   public HighCompressionCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize) {
+    this(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockSize, CompressingStoredFieldsFormat.NO_LARGE_VALUES);
+  }
+
+  /** Constructor that also allows to configure the threshold of large values. */
+  public HighCompressionCompressingCodec(int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize, int largeValueThreshold) {
     super("HighCompressionCompressingStoredFields",
           withSegmentSuffix ? "HighCompressionCompressingStoredFields" : "",
-          CompressionMode.HIGH_COMPRESSION, chunkSize, maxDocsPerChunk, blockSize);
+          CompressionMode.HIGH_COMPRESSION, chunkSize, maxDocsPerChunk, blockSize, largeValueThreshold);
   }
 
   /** Default constructor. */
@@ -77,7 +77,9 @@ public class MismatchedLeafReader extends FilterLeafReader {
                                         oldInfo.getDocValuesGen(),   // dvGen
                                         oldInfo.attributes(),        // attributes
                                         oldInfo.getPointDimensionCount(),      // dimension count
-                                        oldInfo.getPointNumBytes());  // dimension numBytes
+                                        oldInfo.getPointNumBytes(),   // dimension numBytes
+                                        oldInfo.getVectorDimension(), // vector dimension
+                                        oldInfo.getVectorSimilarityFunction()); // vector similarity function
       shuffled.set(i, newInfo);
     }
     
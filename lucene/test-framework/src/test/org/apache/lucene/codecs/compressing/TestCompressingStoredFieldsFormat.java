@@ -17,6 +17,8 @@
 package org.apache.lucene.codecs.compressing;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Random;
 
 import org.apache.lucene.analysis.MockAnalyzer;
@@ -26,6 +28,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.BaseStoredFieldsFormatTestCase;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.DirectoryReader;
@@ -33,9 +36,12 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
 import com.carrotsearch.randomizedtesting.generators.RandomNumbers;
 
 public class TestCompressingStoredFieldsFormat extends BaseStoredFieldsFormatTestCase {
@@ -311,4 +317,107 @@ public class TestCompressingStoredFieldsFormat extends BaseStoredFieldsFormatTes
     iw.close();
     dir.close();
   }
+
+  /**
+   * merges segments of many chunks without deletions, so that chunks are copied as raw bytes.
+   */
+  public void testBulkMerge() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMergePolicy(NoMergePolicy.INSTANCE);
+    // chunks of 4 docs, and sometimes large values
+    final int largeValueThreshold = random().nextBoolean() ? CompressingStoredFieldsFormat.NO_LARGE_VALUES : 16;
+    iwConf.setCodec(new FastCompressingCodec(1 << 12, 4, false, 16, largeValueThreshold));
+    IndexWriter iw = new IndexWriter(dir, iwConf);
+
+    final int numSegments = 2;
+    // one incomplete chunk per segment
+    final int docsPerSegment = 4 * 250 + 1;
+    for (int i = 0; i < numSegments * docsPerSegment; ++i) {
+      Document doc = new Document();
+      doc.add(new StoredField("id", i));
+      doc.add(new StoredField("body", "body" + i + TestUtil.randomSimpleString(random(), 0, 32)));
+      iw.addDocument(doc);
+      if ((i + 1) % docsPerSegment == 0) {
+        iw.commit();
+      }
+    }
+    iw.getConfig().setMergePolicy(newLogMergePolicy());
+    iw.forceMerge(1);
+
+    DirectoryReader ir = DirectoryReader.open(iw);
+    CodecReader sr = (CodecReader) getOnlyLeafReader(ir);
+    CompressingStoredFieldsReader reader = (CompressingStoredFieldsReader) sr.getFieldsReader();
+    // raw copies inherit the incomplete chunks of the merged segments
+    assertEquals(numSegments, reader.getNumDirtyChunks());
+    assertEquals(numSegments * docsPerSegment, sr.maxDoc());
+    for (int docID = 0; docID < sr.maxDoc(); ++docID) {
+      Document doc = sr.document(docID);
+      final int id = doc.getField("id").numericValue().intValue();
+      assertEquals(docID, id);
+      assertTrue(doc.get("body").startsWith("body" + id));
+    }
+    ir.close();
+    iw.close();
+    dir.close();
+  }
+
+  public void testLargeValues() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMergePolicy(NoMergePolicy.INSTANCE);
+    final int largeValueThreshold = RandomNumbers.randomIntBetween(random(), 1, 100);
+    iwConf.setCodec(new FastCompressingCodec(RandomNumbers.randomIntBetween(random(), 1, 1 << 12), 64, false, 16, largeValueThreshold));
+    IndexWriter iw = new IndexWriter(dir, iwConf);
+
+    final int numDocs = atLeast(200);
+    final String[] bodies = new String[numDocs];
+    final byte[][] blobs = new byte[numDocs][];
+    for (int i = 0; i < numDocs; ++i) {
+      bodies[i] = TestUtil.randomSimpleString(random(), 0, 2 * largeValueThreshold);
+      blobs[i] = new byte[random().nextInt(2 * largeValueThreshold)];
+      random().nextBytes(blobs[i]);
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new StoredField("body", bodies[i]));
+      doc.add(new StoredField("count", i));
+      doc.add(new StoredField("blob", blobs[i]));
+      doc.add(new StoredField("title", "title" + i));
+      iw.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        iw.commit();
+      }
+    }
+    // deletions force merges to copy serialized documents rather than raw chunks
+    iw.deleteDocuments(new Term("id", "0"));
+    if (random().nextBoolean()) {
+      iw.getConfig().setMergePolicy(newLogMergePolicy());
+      iw.forceMerge(1);
+    }
+
+    DirectoryReader ir = DirectoryReader.open(iw);
+    for (LeafReaderContext leaf : ir.leaves()) {
+      for (int docID = 0; docID < leaf.reader().maxDoc(); ++docID) {
+        // only fields that don't need large values
+        Document doc = leaf.reader().document(docID, new HashSet<>(Arrays.asList("id", "count", "title")));
+        final int id = Integer.parseInt(doc.get("id"));
+        assertEquals(id, doc.getField("count").numericValue().intValue());
+        assertEquals("title" + id, doc.get("title"));
+        assertNull(doc.get("body"));
+
+        // a large value after a skipped large value
+        doc = leaf.reader().document(docID, new HashSet<>(Arrays.asList("id", "blob")));
+        assertEquals(new BytesRef(blobs[id]), doc.getBinaryValue("blob"));
+        assertNull(doc.get("body"));
+
+        doc = leaf.reader().document(docID);
+        assertEquals(bodies[id], doc.get("body"));
+        assertEquals(new BytesRef(blobs[id]), doc.getBinaryValue("blob"));
+        assertEquals("title" + id, doc.get("title"));
+      }
+    }
+    ir.close();
+    iw.close();
+    dir.close();
+  }
 }
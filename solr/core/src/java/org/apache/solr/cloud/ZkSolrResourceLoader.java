@@ -132,6 +132,12 @@ public class ZkSolrResourceLoader extends SolrResourceLoader {
     return is;
   }
 
+  /** Resources are never read from the local file system. */
+  @Override
+  public Path getLocalPath(String resource) {
+    return null;
+  }
+
   public static class ZkByteArrayInputStream extends ByteArrayInputStream{
 
     private final Stat stat;
@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
  * <ul>
  *  <li>unmap -- See {@link MMapDirectory#setUseUnmap(boolean)}</li>
  *  <li>preload -- See {@link MMapDirectory#setPreload(boolean)}</li>
+ *  <li>preloadExtensions -- Comma-separated list of extensions of files to preload, such as
+ *  {@code tip,nvd,dvd}. Ignored if preload is true. See {@link MMapDirectory#preloadExtensions(String...)}</li>
  *  <li>maxChunkSize -- The Max chunk size.  See {@link MMapDirectory#MMapDirectory(Path, LockFactory, int)}</li>
  * </ul>
  *
@@ -44,6 +46,7 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   boolean unmapHack;
   boolean preload;
+  String[] preloadExtensions;
   private int maxChunk;
 
   @Override
@@ -56,6 +59,10 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
     }
     unmapHack = params.getBool("unmap", true);
     preload = params.getBool("preload", false); //default turn-off
+    String extensions = params.get("preloadExtensions");
+    if (extensions != null && extensions.trim().isEmpty() == false) {
+      preloadExtensions = extensions.trim().split("\\s*,\\s*");
+    }
   }
 
   @Override
@@ -67,7 +74,11 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
     } catch (IllegalArgumentException e) {
       log.warn("Unmap not supported on this JVM, continuing on without setting unmap", e);
     }
-    mapDirectory.setPreload(preload);
+    if (preload == false && preloadExtensions != null) {
+      mapDirectory.setPreload(MMapDirectory.preloadExtensions(preloadExtensions));
+    } else {
+      mapDirectory.setPreload(preload);
+    }
     return mapDirectory;
   }
   
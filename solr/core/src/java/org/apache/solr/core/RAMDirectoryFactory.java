@@ -18,17 +18,45 @@ package org.apache.solr.core;
 
 import java.io.IOException;
 
+import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.LockFactory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.store.SingleInstanceLockFactory;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 
 /**
- * Factory to instantiate {@link org.apache.lucene.store.RAMDirectory}
+ * Factory to instantiate {@link org.apache.lucene.store.RAMDirectory}, or
+ * {@link ByteBuffersDirectory} if the byteBuffers parameter is set.
+ * <p>
+ * Can set the following parameters:
+ * <ul>
+ *  <li>byteBuffers -- Whether to use a {@link ByteBuffersDirectory} instead of a {@link RAMDirectory}</li>
+ *  <li>blockSize -- The size of the blocks that files are stored in, a power of two. Only used with byteBuffers.
+ *  See {@link ByteBuffersDirectory#ByteBuffersDirectory(LockFactory, int, java.util.function.IntFunction)}</li>
+ *  <li>directMemory -- Whether blocks are allocated off the Java heap. Only used with byteBuffers.
+ *  See {@link ByteBuffersDirectory#DIRECT_ALLOCATOR}</li>
+ * </ul>
  */
 public class RAMDirectoryFactory extends EphemeralDirectoryFactory {
+  boolean byteBuffers;
+  private int blockSize;
+  boolean directMemory;
+
+  @Override
+  public void init(NamedList args) {
+    super.init(args);
+    SolrParams params = SolrParams.toSolrParams(args);
+    byteBuffers = params.getBool("byteBuffers", false);
+    blockSize = params.getInt("blockSize", ByteBuffersDirectory.DEFAULT_BLOCK_SIZE);
+    if (blockSize <= 0 || Integer.bitCount(blockSize) != 1) {
+      throw new IllegalArgumentException("blockSize must be a power of two");
+    }
+    directMemory = params.getBool("directMemory", false);
+  }
 
   @Override
   protected LockFactory createLockFactory(String rawLockType) throws IOException {
@@ -41,6 +69,10 @@ public class RAMDirectoryFactory extends EphemeralDirectoryFactory {
 
   @Override
   protected Directory create(String path, LockFactory lockFactory, DirContext dirContext) throws IOException {
+    if (byteBuffers) {
+      return new ByteBuffersDirectory(lockFactory, blockSize,
+          directMemory ? ByteBuffersDirectory.DIRECT_ALLOCATOR : ByteBuffersDirectory.HEAP_ALLOCATOR);
+    }
     return new RAMDirectory(lockFactory);
   }
 
@@ -102,6 +102,7 @@ import org.apache.solr.handler.ReplicationHandler;
 import org.apache.solr.handler.RequestHandlerBase;
 import org.apache.solr.handler.component.HighlightComponent;
 import org.apache.solr.handler.component.SearchComponent;
+import org.apache.solr.index.SlowCompositeReaderWrapper;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.metrics.SolrCoreMetricManager;
 import org.apache.solr.metrics.SolrMetricManager;
@@ -2025,6 +2026,15 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
         tmp = new SolrIndexSearcher(this, newIndexDir, getLatestSchema(), newName,
                                     newReader, true, useCaches, true, directoryFactory);
 
+        // the global ordinals of the segments that did not change can be carried over, unless
+        // the schema changed, since uninverted doc values depend on it
+        if (newestSearcher.get().getSchema() == getLatestSchema()
+            && tmp.getSlowAtomicReader() instanceof SlowCompositeReaderWrapper
+            && newestSearcher.get().getSlowAtomicReader() instanceof SlowCompositeReaderWrapper) {
+          ((SlowCompositeReaderWrapper) tmp.getSlowAtomicReader()).reuseOrdinalMaps(
+              (SlowCompositeReaderWrapper) newestSearcher.get().getSlowAtomicReader());
+        }
+
       } else {
         // newestSearcher == null at this point
 
@@ -408,6 +408,24 @@ public class SolrResourceLoader implements ResourceLoader,Closeable
     return is;
   }
 
+  /**
+   * Returns the path of a resource if it is found in the config or instance
+   * directory, or {@code null} if it is loaded through the class loader.
+   */
+  @Override
+  public Path getLocalPath(String resource) throws IOException {
+    Path inConfigDir = getInstancePath().resolve("conf").resolve(resource);
+    if (Files.isRegularFile(inConfigDir) && Files.isReadable(inConfigDir)) {
+      return checkPathIsSafe(inConfigDir);
+    }
+
+    Path inInstanceDir = getInstancePath().resolve(resource);
+    if (Files.isRegularFile(inInstanceDir) && Files.isReadable(inInstanceDir)) {
+      return checkPathIsSafe(inInstanceDir);
+    }
+    return null;
+  }
+
   /**
    * Report the location of a resource found by the resource loader
    */
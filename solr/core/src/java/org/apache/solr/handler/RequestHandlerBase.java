@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
+import org.apache.lucene.search.MemoryBudgetExceededException;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
@@ -64,6 +65,7 @@ public abstract class RequestHandlerBase implements SolrRequestHandler, SolrInfo
   private Meter numServerErrors = new Meter();
   private Meter numClientErrors = new Meter();
   private Meter numTimeouts = new Meter();
+  private Meter numMemoryBudgetExceeded = new Meter();
   private Counter requests = new Counter();
   private Timer requestTimes = new Timer();
   private Counter totalTime = new Counter();
@@ -146,6 +148,7 @@ public abstract class RequestHandlerBase implements SolrRequestHandler, SolrInfo
     numServerErrors = manager.meter(this, registryName, "serverErrors", getCategory().toString(), scope);
     numClientErrors = manager.meter(this, registryName, "clientErrors", getCategory().toString(), scope);
     numTimeouts = manager.meter(this, registryName, "timeouts", getCategory().toString(), scope);
+    numMemoryBudgetExceeded = manager.meter(this, registryName, "memoryBudgetExceeded", getCategory().toString(), scope);
     requests = manager.counter(this, registryName, "requests", getCategory().toString(), scope);
     requestTimes = manager.timer(this, registryName, "requestTimes", getCategory().toString(), scope);
     totalTime = manager.counter(this, registryName, "totalTime", getCategory().toString(), scope);
@@ -200,6 +203,11 @@ public abstract class RequestHandlerBase implements SolrRequestHandler, SolrInfo
         if (e instanceof SyntaxError) {
           isServerError = false;
           e = new SolrException(SolrException.ErrorCode.BAD_REQUEST, e);
+        } else if (e instanceof MemoryBudgetExceededException) {
+          // the request asked for more than its memAllowed
+          isServerError = false;
+          numMemoryBudgetExceeded.mark();
+          e = new SolrException(SolrException.ErrorCode.BAD_REQUEST, e);
         }
       }
 
@@ -42,6 +42,7 @@ import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.RequestHandlerBase;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.SolrQueryMemoryAccountant;
 import org.apache.solr.search.SolrQueryTimeoutImpl;
 import org.apache.solr.search.facet.FacetModule;
 import org.apache.solr.security.AuthorizationContext;
@@ -286,6 +287,10 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware ,
       if (timeAllowed > 0L) {
         SolrQueryTimeoutImpl.set(timeAllowed);
       }
+      double memAllowed = req.getParams().getDouble(CommonParams.MEM_ALLOWED, -1d);
+      if (memAllowed > 0d) {
+        SolrQueryMemoryAccountant.set(memAllowed);
+      }
       try {
         // The semantics of debugging vs not debugging are different enough that
         // it makes sense to have two control loops
@@ -325,6 +330,7 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware ,
         rb.rsp.getResponseHeader().add(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY, Boolean.TRUE);
       } finally {
         SolrQueryTimeoutImpl.reset();
+        SolrQueryMemoryAccountant.reset();
       }
     } else {
       // a distributed request
@@ -23,6 +23,7 @@ import java.util.Map;
 import org.apache.lucene.index.*;
 import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Version;
 
@@ -129,7 +130,7 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedDocValues dv = MultiDocValues.getSortedValues(in, field);
+        SortedDocValues dv = MultiDocValues.getSortedValues(in, field, previousOrdMaps.remove(field), null);
         if (dv instanceof MultiSortedDocValues) {
           map = ((MultiSortedDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = getReaderCacheHelper();
@@ -171,7 +172,7 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(in, field);
+        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(in, field, previousOrdMaps.remove(field), null);
         if (dv instanceof MultiDocValues.MultiSortedSetDocValues) {
           map = ((MultiDocValues.MultiSortedSetDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = getReaderCacheHelper();
@@ -210,6 +211,33 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
   // TODO: this could really be a weak map somewhere else on the coreCacheKey,
   // but do we really need to optimize slow-wrapper any more?
   final Map<String,OrdinalMap> cachedOrdMaps = new HashMap<>();
+  // ordinal maps of an earlier view of the index, which are updated rather than rebuilt from scratch
+  // the first time that the global ordinals of their field are needed, guarded by cachedOrdMaps
+  private final Map<String,OrdinalMap> previousOrdMaps = new HashMap<>();
+
+  /**
+   * Reuse the ordinal maps that {@code previous} built for its sorted and sorted set doc values
+   * when building the ones of this reader, so that only the terms of the segments that this
+   * reader does not share with {@code previous} need to be merged. This is useful when this
+   * reader has been reopened from the reader that {@code previous} wraps, and only makes sense
+   * if both readers expose the same doc values for the segments that they have in common.
+   */
+  public void reuseOrdinalMaps(SlowCompositeReaderWrapper previous) {
+    if (previous == this) {
+      return;
+    }
+    final Map<String,OrdinalMap> maps;
+    synchronized (previous.cachedOrdMaps) {
+      maps = new HashMap<>(previous.cachedOrdMaps);
+    }
+    synchronized (cachedOrdMaps) {
+      for (Map.Entry<String,OrdinalMap> entry : maps.entrySet()) {
+        if (cachedOrdMaps.containsKey(entry.getKey()) == false) {
+          previousOrdMaps.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
 
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
@@ -253,6 +281,18 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     return null;
   }
 
+  @Override
+  public VectorValues getVectorValues(String field) {
+    ensureOpen();
+    return null;
+  }
+
+  @Override
+  public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs, int visitedLimit) {
+    ensureOpen();
+    return null;
+  }
+
   @Override
   public FieldInfos getFieldInfos() {
     ensureOpen();
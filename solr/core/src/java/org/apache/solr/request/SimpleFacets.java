@@ -331,7 +331,7 @@ public class SimpleFacets {
       );
     }
 
-    AllGroupsCollector collector = new AllGroupsCollector<>(new TermGroupSelector(groupField));
+    AllGroupsCollector collector = new AllGroupsCollector<>(new TermGroupSelector(groupField), searcher.getMemoryAccountant());
     Filter mainQueryFilter = docSet.getTopFilter(); // This returns a filter that only matches documents matching with q param and fq params
     Query filteredFacetQuery = new BooleanQuery.Builder()
         .add(facetQuery, Occur.MUST)
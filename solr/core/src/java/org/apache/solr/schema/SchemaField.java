@@ -26,6 +26,7 @@ import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.search.SortField;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -419,4 +420,14 @@ public final class SchemaField extends FieldProperties implements IndexableField
   public int pointNumBytes() {
     return 0;
   }
+
+  @Override
+  public int vectorDimension() {
+    return 0;
+  }
+
+  @Override
+  public VectorValues.SimilarityFunction vectorSimilarityFunction() {
+    return VectorValues.SimilarityFunction.NONE;
+  }
 }
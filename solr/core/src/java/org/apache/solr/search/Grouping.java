@@ -736,14 +736,14 @@ public class Grouping {
     @Override
     protected Collector createSecondPassCollector() throws IOException {
       if (actualGroupsToFind <= 0) {
-        allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy));
+        allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy), searcher.getMemoryAccountant());
         return totalCount == TotalCount.grouped ? allGroupsCollector : null;
       }
 
       topGroups = format == Format.grouped ? firstPass.getTopGroups(offset, false) : firstPass.getTopGroups(0, false);
       if (topGroups == null) {
         if (totalCount == TotalCount.grouped) {
-          allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy));
+          allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy), searcher.getMemoryAccountant());
           fallBackCollector = new TotalHitCountCollector();
           return MultiCollector.wrap(allGroupsCollector, fallBackCollector);
         } else {
@@ -760,7 +760,7 @@ public class Grouping {
       );
 
       if (totalCount == TotalCount.grouped) {
-        allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy));
+        allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy), searcher.getMemoryAccountant());
         return MultiCollector.wrap(secondPass, allGroupsCollector);
       } else {
         return secondPass;
@@ -961,14 +961,14 @@ public class Grouping {
     @Override
     protected Collector createSecondPassCollector() throws IOException {
       if (actualGroupsToFind <= 0) {
-        allGroupsCollector = new AllGroupsCollector<>(newSelector());
+        allGroupsCollector = new AllGroupsCollector<>(newSelector(), searcher.getMemoryAccountant());
         return totalCount == TotalCount.grouped ? allGroupsCollector : null;
       }
 
       topGroups = format == Format.grouped ? firstPass.getTopGroups(offset, false) : firstPass.getTopGroups(0, false);
       if (topGroups == null) {
         if (totalCount == TotalCount.grouped) {
-          allGroupsCollector = new AllGroupsCollector<>(newSelector());
+          allGroupsCollector = new AllGroupsCollector<>(newSelector(), searcher.getMemoryAccountant());
           fallBackCollector = new TotalHitCountCollector();
           return MultiCollector.wrap(allGroupsCollector, fallBackCollector);
         } else {
@@ -985,7 +985,7 @@ public class Grouping {
       );
 
       if (totalCount == TotalCount.grouped) {
-        allGroupsCollector = new AllGroupsCollector<>(newSelector());
+        allGroupsCollector = new AllGroupsCollector<>(newSelector(), searcher.getMemoryAccountant());
         return MultiCollector.wrap(secondPass, allGroupsCollector);
       } else {
         return secondPass;
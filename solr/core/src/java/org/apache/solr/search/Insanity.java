@@ -66,7 +66,8 @@ public class Insanity {
         if (fi.name.equals(insaneField)) {
           filteredInfos.add(new FieldInfo(fi.name, fi.number, fi.hasVectors(), fi.omitsNorms(),
                                           fi.hasPayloads(), fi.getIndexOptions(), DocValuesType.NONE, -1, Collections.emptyMap(),
-                                          fi.getPointDimensionCount(), fi.getPointNumBytes()));
+                                          fi.getPointDimensionCount(), fi.getPointNumBytes(),
+                                          fi.getVectorDimension(), fi.getVectorSimilarityFunction()));
         } else {
           filteredInfos.add(fi);
         }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.minhash.MinHashQueryBuilder;
+import org.apache.lucene.search.Query;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.SchemaField;
+
+/**
+ * Find the documents whose MinHash signature is similar to the signature of the input text,
+ * using locality-sensitive hashing rather than comparing the input to every document.
+ * The signature is computed with the index analyzer of the field, which should end with a
+ * {@link org.apache.lucene.analysis.minhash.MinHashFilterFactory}, and the score of each
+ * document estimates its Jaccard similarity with the input text.
+ * <br>Other parameters: <code>f</code>, the field;
+ * <code>sim</code>, the similarity threshold, defaults to 0.8;
+ * <code>tp</code>, the probability to retrieve documents whose similarity is the threshold, defaults to 0.95.
+ * Use 1 to retrieve exactly the documents whose estimated similarity is above the threshold.
+ * The signature may not have more hashes than the maximum number of boolean clauses.
+ * <br>Example: <code>{!minhash f=min_hash sim=0.9}text of a new document</code>
+ *
+ * @see MinHashQueryBuilder
+ */
+public class MinHashQParserPlugin extends QParserPlugin {
+  public static final String NAME = "minhash";
+
+  /** Similarity threshold parameter name. */
+  public static final String SIM = "sim";
+
+  /** True positive rate parameter name. */
+  public static final String TP = "tp";
+
+  @Override
+  public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    return new QParser(qstr, localParams, params, req) {
+      @Override
+      public Query parse() throws SyntaxError {
+        String field = localParams.required().get(QueryParsing.F);
+        String queryText = localParams.get(QueryParsing.V);
+        SchemaField sf = req.getSchema().getField(field);
+
+        MinHashQueryBuilder builder = new MinHashQueryBuilder(field);
+        try {
+          builder.setSimilarityThreshold(localParams.getFloat(SIM, MinHashQueryBuilder.DEFAULT_SIMILARITY_THRESHOLD));
+          builder.setTruePositiveRate(localParams.getFloat(TP, MinHashQueryBuilder.DEFAULT_TRUE_POSITIVE_RATE));
+        } catch (IllegalArgumentException e) {
+          throw new SyntaxError(e.getMessage(), e);
+        }
+        if (queryText == null) {
+          return null;
+        }
+        try {
+          return builder.createQuery(sf.getType().getIndexAnalyzer(), queryText);
+        } catch (IOException e) {
+          throw new SyntaxError("Cannot compute the signature of: " + queryText, e);
+        } catch (IllegalArgumentException e) {
+          throw new SyntaxError(e.getMessage(), e);
+        }
+      }
+    };
+  }
+}
@@ -318,6 +318,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     // We already have our own filter cache
     setQueryCache(null);
 
+    // memory budgets are per request, see SearchHandler
+    setMemoryAccountant(SolrQueryMemoryAccountant.getInstance());
+
     // do this at the end since an exception in the constructor means we won't close
     numOpens.incrementAndGet();
     assert ObjectReleaseTracker.track(this);
@@ -1499,6 +1502,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
     if (null == cmd.getSort()) {
       assert null == cmd.getCursorMark() : "have cursor but no sort";
+      // account for the queue before allocating it
+      getMemoryAccountant().addBytes(TopScoreDocCollector.estimateRamBytesUsed(len));
       return TopScoreDocCollector.create(len);
     } else {
       // we have a sort
@@ -1510,6 +1515,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // ... see comments in populateNextCursorMarkFromTopDocs for cache issues (SOLR-5595)
       final boolean fillFields = (null != cursor);
       final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
+      getMemoryAccountant().addBytes(TopFieldCollector.estimateRamBytesUsed(weightedSort, len));
       return TopFieldCollector.create(weightedSort, len, searchAfter, fillFields, needScores, needScores);
     }
   }
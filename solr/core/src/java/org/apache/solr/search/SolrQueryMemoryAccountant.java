@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.search.MemoryAccountant;
+import org.apache.lucene.search.MemoryBudget;
+
+/**
+ * Implementation of {@link MemoryAccountant} that is used by Solr.
+ * Searchers are shared by concurrent requests, so it uses a ThreadLocal
+ * variable to track the {@link MemoryBudget} of each request thread.
+ */
+public class SolrQueryMemoryAccountant implements MemoryAccountant {
+  /**
+   * The ThreadLocal variable to store the memory budget of the current request.
+   */
+  private static final ThreadLocal<MemoryBudget> budget = new ThreadLocal<>();
+
+  private SolrQueryMemoryAccountant() { }
+  private static final SolrQueryMemoryAccountant instance = new SolrQueryMemoryAccountant();
+
+  /** Return singleton instance */
+  public static SolrQueryMemoryAccountant getInstance() {
+    return instance;
+  }
+
+  /**
+   * Get the memory budget of the current request, or null if memory is not limited.
+   */
+  public static MemoryBudget get() {
+    return budget.get();
+  }
+
+  /**
+   * Method to set the memory budget of the current request.
+   * @param memAllowedMB the number of megabytes that this thread may allocate while searching.
+   */
+  public static void set(double memAllowedMB) {
+    budget.set(new MemoryBudget((long) (memAllowedMB * 1024 * 1024)));
+  }
+
+  /**
+   * Cleanup the ThreadLocal memory budget.
+   */
+  public static void reset() {
+    budget.remove();
+  }
+
+  @Override
+  public void addBytes(long bytes) {
+    MemoryBudget budget = get();
+    if (budget != null) {
+      budget.addBytes(bytes);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "budget: " + get();
+  }
+}
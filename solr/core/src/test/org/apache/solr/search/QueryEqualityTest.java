@@ -202,6 +202,18 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testMinHashQuery() throws Exception {
+    SolrQueryRequest req = req("myText", "apache solr");
+    try {
+      assertQueryEquals("minhash", req,
+                        "{!minhash f=text}apache solr",
+                        "{!minhash f=text v=$myText}",
+                        "{!minhash f=text sim=0.8 tp=0.95}apache solr");
+    } finally {
+      req.close();
+    }
+  }
+
   public void testQuerySwitch() throws Exception {
     SolrQueryRequest req = req("myXXX", "XXX", 
                                "myField", "foo_s",
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import com.codahale.metrics.Meter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test that requests whose memAllowed is exceeded fail with a 400 and are counted.
+ */
+public class TestMemAllowed extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema.xml");
+    for (int i = 0; i < 100; i++) {
+      assertU(adoc("id", Integer.toString(i), "text", "a" + i));
+    }
+    assertU(commit());
+  }
+
+  private static long getMemoryBudgetExceededCount() {
+    Meter meter = (Meter) h.getCoreContainer().getMetricManager()
+        .registry(h.getCore().getCoreMetricManager().getRegistryName())
+        .getMetrics().get("QUERY.standard.memoryBudgetExceeded");
+    assertNotNull(meter);
+    return meter.getCount();
+  }
+
+  @Test
+  public void testMemAllowed() {
+    final long exceeded = getMemoryBudgetExceededCount();
+
+    // a few bytes are not enough for the priority queue of the top hits
+    assertQEx("tiny memAllowed", req(CommonParams.QT, "standard", "q", "id:[0 TO 50]", "rows", "100",
+        CommonParams.MEM_ALLOWED, "0.00001"), SolrException.ErrorCode.BAD_REQUEST);
+    assertEquals(exceeded + 1, getMemoryBudgetExceededCount());
+    assertQEx("tiny memAllowed with a sort", req(CommonParams.QT, "standard", "q", "id:[0 TO 60]", "rows", "100",
+        "sort", "id asc", CommonParams.MEM_ALLOWED, "0.00001"), SolrException.ErrorCode.BAD_REQUEST);
+    assertEquals(exceeded + 2, getMemoryBudgetExceededCount());
+
+    // large enough budgets, or no budget at all, don't fail requests
+    assertQ(req(CommonParams.QT, "standard", "q", "id:[0 TO 70]", "rows", "100", CommonParams.MEM_ALLOWED, "10"),
+        "//result[@numFound='71']");
+    assertQ(req(CommonParams.QT, "standard", "q", "id:[0 TO 80]", "rows", "100"),
+        "//result[@numFound='81']");
+    assertEquals(exceeded + 2, getMemoryBudgetExceededCount());
+  }
+}
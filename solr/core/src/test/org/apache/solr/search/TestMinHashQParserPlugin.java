@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestMinHashQParserPlugin extends SolrTestCaseJ4 {
+
+  private static final String DOC_0 = "the quick brown fox jumps over the lazy dog and runs away into the dark forest";
+  // one word differs
+  private static final String DOC_1 = "the quick brown fox jumps over the lazy cat and runs away into the dark forest";
+  private static final String DOC_2 = "a completely different sentence that shares almost nothing with the other ones";
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema-minhash.xml");
+    assertU(adoc("id", "0", "min_hash", DOC_0));
+    assertU(adoc("id", "1", "min_hash", DOC_1));
+    assertU(adoc("id", "2", "min_hash", DOC_2));
+    assertU(commit());
+  }
+
+  @Test
+  public void testNearDuplicates() {
+    for (String tp : new String[] {"1", "0.95"}) {
+      assertQ(req("q", "{!minhash f=min_hash sim=0.5 tp=" + tp + "}" + DOC_0, "fl", "id,score"),
+          "//result[@numFound='2']",
+          "//result/doc[1]/str[@name='id'][.='0']",
+          "//result/doc[1]/float[@name='score'][.='1.0']",
+          "//result/doc[2]/str[@name='id'][.='1']",
+          "//result/doc[2]/float[@name='score'][. > 0.5 and . < 1.0]");
+    }
+
+    // only exact duplicates
+    assertQ(req("q", "{!minhash f=min_hash sim=1 tp=1}" + DOC_0, "fl", "id"),
+        "//result[@numFound='1']",
+        "//result/doc[1]/str[@name='id'][.='0']");
+
+    // as a filter, to check whether a new document is a near-duplicate
+    assertQ(req("q", "*:*", "fq", "{!minhash f=min_hash sim=0.9}" + DOC_2),
+        "//result[@numFound='1']",
+        "//result/doc[1]/str[@name='id'][.='2']");
+  }
+
+  @Test
+  public void testBadParams() {
+    assertQEx("missing field", req("q", "{!minhash}" + DOC_0), SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx("bad threshold", req("q", "{!minhash f=min_hash sim=2}" + DOC_0), SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx("bad true positive rate", req("q", "{!minhash f=min_hash tp=0}" + DOC_0), SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx("too many hashes", req("q", "{!minhash f=min_hash_large}" + DOC_0), SolrException.ErrorCode.BAD_REQUEST);
+  }
+}
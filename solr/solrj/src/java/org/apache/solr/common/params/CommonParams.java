@@ -164,6 +164,11 @@ public interface CommonParams {
    * Timeout value in milliseconds.  If not set, or the value is &gt;= 0, there is no timeout.
    */
   String TIME_ALLOWED = "timeAllowed";
+
+  /**
+   * Memory budget of a search in megabytes.  If not set, or the value is &lt;= 0, memory is not limited.
+   */
+  String MEM_ALLOWED = "memAllowed";
   
   /** 'true' if the header should include the handler name */
   String HEADER_ECHO_HANDLER = "echoHandler";